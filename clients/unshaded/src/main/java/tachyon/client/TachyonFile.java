@@ -261,6 +261,8 @@ public class TachyonFile implements Comparable<TachyonFile> {
     }
     if (writeType.isThrough()) {
       optionsBuilder.setUnderStorageType(UnderStorageType.PERSIST);
+    } else if (writeType.isAsync()) {
+      optionsBuilder.setUnderStorageType(UnderStorageType.ASYNC_PERSIST);
     } else {
       optionsBuilder.setUnderStorageType(UnderStorageType.NO_PERSIST);
     }
@@ -25,7 +25,13 @@ public enum UnderStorageType {
   PERSIST(1),
 
   /** Do not persist data to Under Storage. */
-  NO_PERSIST(2);
+  NO_PERSIST(2),
+
+  /**
+   * Persist data to Under Storage asynchronously. The worker writes the file to Under Storage
+   * after it is complete, from the copy stored in Tachyon.
+   */
+  ASYNC_PERSIST(3);
 
   private final int mValue;
 
@@ -39,4 +45,11 @@ public enum UnderStorageType {
   public boolean isPersist() {
     return mValue == PERSIST.mValue;
   }
+
+  /**
+   * @return whether the data should be persisted to Under Storage asynchronously
+   */
+  public boolean isAsyncPersist() {
+    return mValue == ASYNC_PERSIST.mValue;
+  }
 }
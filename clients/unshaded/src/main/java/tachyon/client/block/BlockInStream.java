@@ -18,6 +18,10 @@ package tachyon.client.block;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tachyon.Constants;
 import tachyon.client.BoundedStream;
 import tachyon.client.ClientContext;
 import tachyon.client.Seekable;
@@ -33,6 +37,8 @@ import tachyon.util.network.NetworkAddressUtils;
  * method.
  */
 public abstract class BlockInStream extends InputStream implements BoundedStream, Seekable {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+
   /**
    * Creates a block input stream.
    *
@@ -46,9 +52,15 @@ public abstract class BlockInStream extends InputStream implements BoundedStream
       throws IOException {
     String localHostname = NetworkAddressUtils.getLocalHostName(ClientContext.getConf());
     if (location.getHost().equals(localHostname)) {
-      return new LocalBlockInStream(blockId);
-    } else {
-      return new RemoteBlockInStream(blockId, blockSize, location);
+      try {
+        return new LocalBlockInStream(blockId);
+      } catch (IOException ioe) {
+        // The local worker can not hand out the block file, e.g., because it is stored compressed,
+        // so the block is read through its data server instead
+        LOG.debug("Reading block {} through the local data server: {}", blockId,
+            ioe.getMessage());
+      }
     }
+    return new RemoteBlockInStream(blockId, blockSize, location);
   }
 }
@@ -46,6 +46,7 @@ public enum BlockStoreContext {
 
   private BlockMasterClientPool mBlockMasterClientPool;
   private BlockWorkerClientPool mLocalBlockWorkerClientPool;
+  private LocalBlockLeases mLocalBlockLeases;
   private final ExecutorService mRemoteBlockWorkerExecutor;
 
   /**
@@ -68,6 +69,7 @@ public enum BlockStoreContext {
     } else {
       mLocalBlockWorkerClientPool = new BlockWorkerClientPool(localWorkerAddress);
     }
+    mLocalBlockLeases = createLocalBlockLeases(localWorkerAddress);
   }
 
   /**
@@ -80,6 +82,9 @@ public enum BlockStoreContext {
     if (mLocalBlockWorkerClientPool != null) {
       mLocalBlockWorkerClientPool.close();
     }
+    if (mLocalBlockLeases != null) {
+      mLocalBlockLeases.close();
+    }
     mBlockMasterClientPool = new BlockMasterClientPool(ClientContext.getMasterAddress());
     NetAddress localWorkerAddress =
         getWorkerAddress(NetworkAddressUtils.getLocalHostName(ClientContext.getConf()));
@@ -90,6 +95,21 @@ public enum BlockStoreContext {
     } else {
       mLocalBlockWorkerClientPool = new BlockWorkerClientPool(localWorkerAddress);
     }
+    mLocalBlockLeases = createLocalBlockLeases(localWorkerAddress);
+  }
+
+  /**
+   * Creates the leases on blocks of the local worker, if leasing is enabled.
+   *
+   * @param localWorkerAddress the address of the local worker, null if there is none
+   * @return the leases, or null if there is no local worker or leasing is disabled
+   */
+  private LocalBlockLeases createLocalBlockLeases(NetAddress localWorkerAddress) {
+    int capacity = ClientContext.getConf().getInt(Constants.USER_LOCAL_READ_LEASE_BLOCKS);
+    if (null == localWorkerAddress || capacity <= 0) {
+      return null;
+    }
+    return new LocalBlockLeases(localWorkerAddress, capacity);
   }
 
   /**
@@ -214,6 +234,16 @@ public enum BlockStoreContext {
     }
   }
 
+  /**
+   * Gets the leases on blocks of the local worker, which let local streams read blocks without a
+   * lock RPC per stream.
+   *
+   * @return the leases, or null if there is no local worker or leasing is disabled
+   */
+  public LocalBlockLeases getLocalBlockLeases() {
+    return mLocalBlockLeases;
+  }
+
   /**
    * Determines if a local worker was available during the initialization of the client.
    *
@@ -36,6 +36,9 @@ import tachyon.worker.WorkerClient;
 public class LocalBlockInStream extends BlockInStream {
   private final long mBlockId;
   private final BlockStoreContext mContext;
+  /** Leases the block is read through, null if leasing is disabled */
+  private final LocalBlockLeases mLeases;
+  /** Client holding the lock on the block, null if the block is read through a lease */
   private final WorkerClient mWorkerClient;
   private final ByteBuffer mData;
 
@@ -51,6 +54,19 @@ public class LocalBlockInStream extends BlockInStream {
     mBlockId = blockId;
     mClosed = false;
     mContext = BlockStoreContext.INSTANCE;
+    mLeases = mContext.getLocalBlockLeases();
+
+    if (mLeases != null) {
+      // The block stays locked and mapped after this stream is closed, no RPC is needed if it is
+      // still leased
+      mWorkerClient = null;
+      mData = mLeases.acquire(blockId);
+      if (null == mData) {
+        throw new IOException("Block is not available on local machine");
+      }
+      return;
+    }
+
     mWorkerClient =
         mContext.acquireWorkerClient(NetworkAddressUtils.getLocalHostName(ClientContext.getConf()));
     String blockPath = mWorkerClient.lockBlock(blockId);
@@ -78,11 +94,16 @@ public class LocalBlockInStream extends BlockInStream {
     if (mClosed) {
       return;
     }
+    mClosed = true;
+    if (mLeases != null) {
+      // The mapping is shared with the lease, so it is not cleaned here
+      mLeases.release(mBlockId);
+      return;
+    }
     mWorkerClient.unlockBlock(mBlockId);
     mContext.releaseWorkerClient(mWorkerClient);
     // TODO(calvin): Evaluate if this is necessary.
     BufferUtils.cleanDirectBuffer(mData);
-    mClosed = true;
   }
 
   @Override
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.client.block;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Closer;
+
+import tachyon.Constants;
+import tachyon.client.ClientContext;
+import tachyon.thrift.NetAddress;
+import tachyon.util.ThreadFactoryUtils;
+import tachyon.util.io.BufferUtils;
+import tachyon.worker.ClientMetrics;
+import tachyon.worker.WorkerClient;
+
+/**
+ * Leases on blocks of the local worker, which keep the blocks locked and their files mapped across
+ * the streams reading them, so that opening and closing a {@link LocalBlockInStream} does not cost
+ * a lock and an unlock RPC. The leases are the locks of a session of their own, which the session
+ * heartbeats of its client renew, and which the worker releases if this client goes away.
+ * <p>
+ * At most a configured number of blocks is leased. Beyond that, the least recently used leases
+ * which no stream reads are given back to the worker in one batch.
+ */
+public final class LocalBlockLeases implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+
+  /** Maximum number of blocks leased when no stream reads them */
+  private final int mCapacity;
+  /** Thread sending the session heartbeats */
+  private final ExecutorService mHeartbeatExecutor;
+  /** Client of the session holding the leases, never released to the client pool */
+  private final WorkerClient mWorkerClient;
+  /** Leases by block ID, in access order */
+  private final LinkedHashMap<Long, Lease> mLeases =
+      new LinkedHashMap<Long, Lease>(16, 0.75f, true);
+
+  /**
+   * Creates the leases on blocks of the local worker.
+   *
+   * @param workerAddress the address of the local worker
+   * @param capacity the maximum number of blocks leased when no stream reads them
+   */
+  public LocalBlockLeases(NetAddress workerAddress, int capacity) {
+    Preconditions.checkArgument(capacity > 0, "Lease capacity should be positive");
+    mCapacity = capacity;
+    mHeartbeatExecutor = Executors.newSingleThreadExecutor(
+        ThreadFactoryUtils.build("local-block-leases-heartbeat-%d", true));
+    mWorkerClient = new WorkerClient(workerAddress, mHeartbeatExecutor, ClientContext.getConf(),
+        ClientContext.getRandomNonNegativeLong(), true, new ClientMetrics());
+  }
+
+  /**
+   * Leases a batch of blocks with a single RPC. Blocks already leased are only marked as recently
+   * used, and blocks which are not available on the local worker are skipped.
+   *
+   * @param blockIds the ids of the blocks to lease
+   * @throws IOException if the worker can not be reached
+   */
+  public synchronized void lease(List<Long> blockIds) throws IOException {
+    List<Long> missing = new ArrayList<Long>();
+    for (long blockId : blockIds) {
+      if (mLeases.get(blockId) == null && !missing.contains(blockId)) {
+        missing.add(blockId);
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+    List<String> paths = mWorkerClient.lockBlocks(missing);
+    List<Long> unmapped = new ArrayList<Long>();
+    for (int i = 0; i < missing.size(); i ++) {
+      long blockId = missing.get(i);
+      String path = paths.get(i);
+      if (path == null) {
+        continue;
+      }
+      try {
+        mLeases.put(blockId, new Lease(map(path)));
+      } catch (IOException ioe) {
+        LOG.warn("Failed to map block " + blockId + " at " + path + ": " + ioe.getMessage());
+        unmapped.add(blockId);
+      }
+    }
+    unlock(unmapped);
+    evict();
+  }
+
+  /**
+   * Acquires the data of a leased block, leasing it first if needed. The data must be released
+   * with {@link #release(long)} once it is not read anymore.
+   *
+   * @param blockId the id of the block
+   * @return a read-only buffer of the data of the block, or null if the block is not available on
+   *         the local worker
+   * @throws IOException if the worker can not be reached
+   */
+  public synchronized ByteBuffer acquire(long blockId) throws IOException {
+    Lease lease = mLeases.get(blockId);
+    if (lease == null) {
+      lease(Collections.singletonList(blockId));
+      lease = mLeases.get(blockId);
+      if (lease == null) {
+        return null;
+      }
+    }
+    lease.mReferences ++;
+    return lease.mData.duplicate();
+  }
+
+  /**
+   * Releases the data of a block acquired with {@link #acquire(long)}. The block stays leased
+   * until it is evicted.
+   *
+   * @param blockId the id of the block
+   * @throws IOException if the worker can not be reached to give back evicted leases
+   */
+  public synchronized void release(long blockId) throws IOException {
+    Lease lease = mLeases.get(blockId);
+    if (lease == null) {
+      // The leases were given back when closing
+      return;
+    }
+    Preconditions.checkState(lease.mReferences > 0, "Block " + blockId + " is not acquired");
+    lease.mReferences --;
+    evict();
+  }
+
+  /**
+   * Gives back all the leases and closes the session. The mappings of blocks still acquired are
+   * left to the garbage collector, but the blocks may be removed from the worker.
+   */
+  @Override
+  public synchronized void close() {
+    try {
+      if (!mLeases.isEmpty() && mWorkerClient.isConnected()) {
+        mWorkerClient.unlockBlocks(new ArrayList<Long>(mLeases.keySet()));
+      }
+    } catch (IOException ioe) {
+      // The worker releases the locks when the session times out
+      LOG.warn("Failed to give back leases of " + mLeases.size() + " blocks", ioe);
+    } finally {
+      for (Lease lease : mLeases.values()) {
+        if (lease.mReferences == 0) {
+          BufferUtils.cleanDirectBuffer(lease.mData);
+        }
+      }
+      mLeases.clear();
+      mWorkerClient.close();
+      mHeartbeatExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Gives back the least recently used leases which are not referenced, until at most the
+   * capacity is leased.
+   */
+  private void evict() throws IOException {
+    List<Long> evicted = new ArrayList<Long>();
+    Iterator<Map.Entry<Long, Lease>> it = mLeases.entrySet().iterator();
+    while (mLeases.size() > mCapacity && it.hasNext()) {
+      Map.Entry<Long, Lease> entry = it.next();
+      if (entry.getValue().mReferences == 0) {
+        BufferUtils.cleanDirectBuffer(entry.getValue().mData);
+        evicted.add(entry.getKey());
+        it.remove();
+      }
+    }
+    unlock(evicted);
+  }
+
+  private void unlock(List<Long> blockIds) throws IOException {
+    if (!blockIds.isEmpty()) {
+      mWorkerClient.unlockBlocks(blockIds);
+    }
+  }
+
+  private static MappedByteBuffer map(String path) throws IOException {
+    Closer closer = Closer.create();
+    try {
+      RandomAccessFile localFile = closer.register(new RandomAccessFile(path, "r"));
+      FileChannel localFileChannel = closer.register(localFile.getChannel());
+      return localFileChannel.map(FileChannel.MapMode.READ_ONLY, 0, localFile.length());
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * The lease on one block.
+   */
+  private static final class Lease {
+    /** Mapping of the block file, shared by the streams reading it */
+    private final MappedByteBuffer mData;
+    /** Number of streams reading the block */
+    private int mReferences = 0;
+
+    private Lease(MappedByteBuffer data) {
+      mData = data;
+    }
+  }
+}
@@ -17,8 +17,6 @@ package tachyon.client.block;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
 import com.google.common.base.Preconditions;
@@ -26,7 +24,8 @@ import com.google.common.io.Closer;
 
 import tachyon.Constants;
 import tachyon.client.ClientContext;
-import tachyon.util.io.BufferUtils;
+import tachyon.conf.TachyonConf;
+import tachyon.util.io.FileChannelWriter;
 import tachyon.util.io.FileUtils;
 import tachyon.util.network.NetworkAddressUtils;
 import tachyon.worker.WorkerClient;
@@ -40,6 +39,9 @@ public class LocalBlockOutStream extends BufferedBlockOutStream {
   private final Closer mCloser;
   private final WorkerClient mWorkerClient;
   private final FileChannel mLocalFileChannel;
+  private final FileChannelWriter mWriter;
+  /** Whether the block file is extended to the block size, and must be truncated on close */
+  private final boolean mPreallocated;
 
   private long mReservedBytes;
 
@@ -57,12 +59,23 @@ public class LocalBlockOutStream extends BufferedBlockOutStream {
         mContext.acquireWorkerClient(NetworkAddressUtils.getLocalHostName(ClientContext.getConf()));
 
     try {
-      long initialSize = ClientContext.getConf().getBytes(Constants.USER_FILE_BUFFER_BYTES);
+      TachyonConf conf = ClientContext.getConf();
+      mPreallocated = conf.getBoolean(Constants.USER_LOCAL_WRITE_PREALLOCATE);
+      // A preallocated file may take the whole block size on disk, so all of it is reserved with
+      // the worker up front. The worker releases what is not written when the block is committed.
+      long initialSize =
+          mPreallocated ? mBlockSize : conf.getBytes(Constants.USER_FILE_BUFFER_BYTES);
       String blockPath = mWorkerClient.requestBlockLocation(mBlockId, initialSize);
       mReservedBytes += initialSize;
       FileUtils.createBlockPath(blockPath);
       RandomAccessFile localFile = mCloser.register(new RandomAccessFile(blockPath, "rw"));
       mLocalFileChannel = mCloser.register(localFile.getChannel());
+      if (mPreallocated) {
+        localFile.setLength(mBlockSize);
+      }
+      mWriter = FileChannelWriter.create(
+          conf.getEnum(Constants.USER_LOCAL_WRITE_MODE, FileChannelWriter.Mode.class),
+          mLocalFileChannel);
       // Change the permission of the temporary file in order that the worker can move it.
       FileUtils.changeLocalFileToFullPermission(blockPath);
       // TODO(calvin): Add a log message to indicate the file creation.
@@ -89,6 +102,10 @@ public class LocalBlockOutStream extends BufferedBlockOutStream {
       return;
     }
     flush();
+    if (mPreallocated) {
+      // The worker takes the file length as the block size when the block is committed
+      mLocalFileChannel.truncate(mFlushedBytes);
+    }
     mCloser.close();
     if (mWrittenBytes > 0) {
       mWorkerClient.cacheBlock(mBlockId);
@@ -103,10 +120,7 @@ public class LocalBlockOutStream extends BufferedBlockOutStream {
     if (mReservedBytes < bytesToWrite) {
       mReservedBytes += requestSpace(bytesToWrite - mReservedBytes);
     }
-    MappedByteBuffer mappedBuffer =
-        mLocalFileChannel.map(FileChannel.MapMode.READ_WRITE, mFlushedBytes, bytesToWrite);
-    mappedBuffer.put(mBuffer.array(), 0, bytesToWrite);
-    BufferUtils.cleanDirectBuffer(mappedBuffer);
+    mWriter.write(mFlushedBytes, mBuffer.array(), 0, bytesToWrite);
     mReservedBytes -= bytesToWrite;
     mFlushedBytes += bytesToWrite;
     mBuffer.clear();
@@ -117,10 +131,7 @@ public class LocalBlockOutStream extends BufferedBlockOutStream {
     if (mReservedBytes < len) {
       mReservedBytes += requestSpace(len - mReservedBytes);
     }
-    MappedByteBuffer mappedBuffer = mLocalFileChannel.map(FileChannel.MapMode.READ_WRITE,
-        mFlushedBytes, len);
-    mappedBuffer.put(b, off, len);
-    BufferUtils.cleanDirectBuffer(mappedBuffer);
+    mWriter.write(mFlushedBytes, b, off, len);
     mReservedBytes -= len;
     mFlushedBytes += len;
   }
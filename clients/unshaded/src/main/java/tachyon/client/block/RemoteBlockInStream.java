@@ -38,6 +38,8 @@ public class RemoteBlockInStream extends BlockInStream {
   private final InetSocketAddress mLocation;
 
   private long mPos;
+  /** Reader of the block, created by the first read and kept open until the stream is closed */
+  private RemoteBlockReader mReader = null;
 
   /**
    * Creates a new remote block input stream.
@@ -55,6 +57,14 @@ public class RemoteBlockInStream extends BlockInStream {
     mLocation = new InetSocketAddress(location.getHost(), location.getDataPort());
   }
 
+  @Override
+  public void close() throws IOException {
+    if (mReader != null) {
+      mReader.close();
+      mReader = null;
+    }
+  }
+
   @Override
   public int read() throws IOException {
     byte[] b = new byte[1];
@@ -86,13 +96,12 @@ public class RemoteBlockInStream extends BlockInStream {
     int bytesLeft = lengthToRead;
 
     while (bytesLeft > 0) {
-      // TODO(calvin): Fix needing to recreate reader each time.
-      RemoteBlockReader reader =
-          RemoteBlockReader.Factory.createRemoteBlockReader(ClientContext.getConf());
-      ByteBuffer data = reader.readRemoteBlock(mLocation, mBlockId, mPos, bytesLeft);
+      if (mReader == null) {
+        mReader = RemoteBlockReader.Factory.createRemoteBlockReader(ClientContext.getConf());
+      }
+      ByteBuffer data = mReader.readRemoteBlock(mLocation, mBlockId, mPos, bytesLeft);
       int bytesToRead = Math.min(bytesLeft, data.remaining());
       data.get(b, off, bytesToRead);
-      reader.close();
       mPos += bytesToRead;
       bytesLeft -= bytesToRead;
     }
@@ -17,6 +17,7 @@ package tachyon.client.block;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
 
 import com.google.common.base.Preconditions;
 
@@ -102,6 +103,21 @@ public class TachyonBlockStore implements Closeable {
     }
   }
 
+  /**
+   * Leases a batch of blocks of the local worker with a single RPC, so that streams reading them
+   * later do not need to lock them. Blocks which are not on the local worker are skipped. This
+   * does nothing if there is no local worker or leasing is disabled.
+   *
+   * @param blockIds the blocks to lease
+   * @throws IOException if the local worker can not be reached
+   */
+  public void leaseLocalBlocks(List<Long> blockIds) throws IOException {
+    LocalBlockLeases leases = mContext.getLocalBlockLeases();
+    if (leases != null) {
+      leases.lease(blockIds);
+    }
+  }
+
   /**
    * Gets a stream to write data to a block. The stream can only be backed by Tachyon storage.
    *
@@ -20,8 +20,12 @@ import java.io.OutputStream;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.base.Preconditions;
 
+import tachyon.Constants;
 import tachyon.annotation.PublicApi;
 import tachyon.client.Cancelable;
 import tachyon.client.ClientContext;
@@ -40,10 +44,13 @@ import tachyon.worker.WorkerClient;
  * blocks in the file and abstracts the switching between streams. The backing streams can write to
  * Tachyon space in the local machine or remote machines. If the
  * {@link tachyon.client.UnderStorageType} is PERSIST, another stream will write the data to the
- * under storage system.
+ * under storage system. If it is ASYNC_PERSIST, a worker writes the file to the under storage
+ * system after the stream is closed.
  */
 @PublicApi
 public final class FileOutStream extends OutputStream implements Cancelable {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+
   private final long mFileId;
   private final long mBlockSize;
   private final TachyonStorageType mTachyonStorageType;
@@ -151,6 +158,9 @@ public final class FileOutStream extends OutputStream implements Cancelable {
       } finally {
         mContext.releaseMasterClient(masterClient);
       }
+      if (mUnderStorageType.isAsyncPersist()) {
+        scheduleAsyncPersist();
+      }
     }
     mClosed = true;
   }
@@ -220,6 +230,23 @@ public final class FileOutStream extends OutputStream implements Cancelable {
     }
   }
 
+  /**
+   * Asks a worker to write the completed file to the under storage system in the background. The
+   * file stays in Tachyon storage if the worker cannot take it.
+   *
+   * @throws IOException if the worker cannot be reached
+   */
+  private void scheduleAsyncPersist() throws IOException {
+    WorkerClient workerClient = BlockStoreContext.INSTANCE.acquireWorkerClient();
+    try {
+      if (!workerClient.asyncCheckpoint(mFileId)) {
+        LOG.warn("Worker rejected the asynchronous checkpoint of file {}", mFileId);
+      }
+    } finally {
+      BlockStoreContext.INSTANCE.releaseWorkerClient(workerClient);
+    }
+  }
+
   private void getNextBlock() throws IOException {
     if (mCurrentBlockOutStream != null) {
       Preconditions.checkState(mCurrentBlockOutStream.remaining() <= 0,
@@ -13,26 +13,34 @@
  * the License.
  */
 
+
 package tachyon.client.netty;
 
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
 import tachyon.Constants;
+import tachyon.network.protocol.RPCBlockReadResponse;
+import tachyon.network.protocol.RPCBlockWriteResponse;
 import tachyon.network.protocol.RPCMessage;
 import tachyon.network.protocol.RPCResponse;
+import tachyon.network.protocol.databuffer.DataBuffer;
 
 /**
- * This handles all the messages received by the client channel.
+ * This handles all the messages received by a client channel. Channels are kept open across
+ * requests, and several requests may be outstanding on a channel at once: each response is
+ * dispatched to the listener of the request id it carries. One handler is created per channel.
  */
-@ChannelHandler.Sharable
 public final class ClientHandler extends SimpleChannelInboundHandler<RPCMessage> {
   private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
 
@@ -46,33 +54,55 @@ public final class ClientHandler extends SimpleChannelInboundHandler<RPCMessage>
      * @param response the RPC response
      */
     void onResponseReceived(RPCResponse response);
+
+    /**
+     * This method will be called when the channel is closed before the response is received.
+     */
+    void onChannelClosed();
   }
 
-  private final HashSet<ResponseListener> mListeners;
+  /** Listeners of the outstanding requests, by request id */
+  private final Map<Long, ResponseListener> mListeners =
+      new ConcurrentHashMap<Long, ResponseListener>();
+  private final AtomicLong mNextRequestId = new AtomicLong(0);
+  private volatile boolean mClosed = false;
 
   /**
-   * Creates a new <code>ClientHandler</code>.
+   * @return a new request id, unique on the channel of this handler
    */
-  public ClientHandler() {
-    mListeners = new HashSet<ResponseListener>(4);
+  public long nextRequestId() {
+    return mNextRequestId.incrementAndGet();
   }
 
   /**
-   * Adds a <code>ResponseListener</code> listener to the client handler.
+   * Adds the listener of the response to a request. If the channel is already closed, the
+   * listener is notified right away.
    *
+   * @param requestId the id of the request
    * @param listener the listener to add
    */
-  public void addListener(ResponseListener listener) {
-    mListeners.add(listener);
+  public void addListener(long requestId, ResponseListener listener) {
+    mListeners.put(requestId, listener);
+    if (mClosed && mListeners.remove(requestId) != null) {
+      listener.onChannelClosed();
+    }
   }
 
   /**
-   * Removes a <code>ResponseListener</code> listener from the client handler.
+   * Removes the listener of the response to a request, once the response is received or is not
+   * waited for anymore.
    *
-   * @param listener the listener to remove
+   * @param requestId the id of the request
    */
-  public void removeListener(ResponseListener listener) {
-    mListeners.remove(listener);
+  public void removeListener(long requestId) {
+    mListeners.remove(requestId);
+  }
+
+  /**
+   * @return the number of requests whose responses are waited for
+   */
+  public int getOutstandingRequests() {
+    return mListeners.size();
   }
 
   @Override
@@ -87,6 +117,15 @@ public final class ClientHandler extends SimpleChannelInboundHandler<RPCMessage>
     }
   }
 
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    mClosed = true;
+    for (ResponseListener listener : removeAllListeners()) {
+      listener.onChannelClosed();
+    }
+    super.channelInactive(ctx);
+  }
+
   @Override
   public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
     LOG.warn("Exception thrown while processing request", cause);
@@ -95,8 +134,44 @@ public final class ClientHandler extends SimpleChannelInboundHandler<RPCMessage>
 
   private void handleResponse(final ChannelHandlerContext ctx, final RPCResponse resp)
       throws IOException {
-    for (ResponseListener listener : mListeners) {
+    switch (resp.getType()) {
+      case RPC_BLOCK_READ_RESPONSE:
+        dispatch(((RPCBlockReadResponse) resp).getRequestId(), resp);
+        break;
+      case RPC_BLOCK_WRITE_RESPONSE:
+        dispatch(((RPCBlockWriteResponse) resp).getRequestId(), resp);
+        break;
+      default:
+        // Errors which are not tied to a request fail all the outstanding requests, and the
+        // server closes the channel after them
+        for (ResponseListener listener : removeAllListeners()) {
+          listener.onResponseReceived(resp);
+        }
+    }
+  }
+
+  private List<ResponseListener> removeAllListeners() {
+    List<ResponseListener> listeners = new ArrayList<ResponseListener>();
+    for (Long requestId : new ArrayList<Long>(mListeners.keySet())) {
+      ResponseListener listener = mListeners.remove(requestId);
+      if (listener != null) {
+        listeners.add(listener);
+      }
+    }
+    return listeners;
+  }
+
+  private void dispatch(long requestId, RPCResponse resp) {
+    ResponseListener listener = mListeners.remove(requestId);
+    if (listener != null) {
       listener.onResponseReceived(resp);
+      return;
+    }
+    // The request timed out, so nobody reads the response
+    LOG.warn("Dropping response to request " + requestId + " nobody waits for: " + resp);
+    DataBuffer data = resp.getPayloadDataBuffer();
+    if (data != null) {
+      data.release();
     }
   }
 }
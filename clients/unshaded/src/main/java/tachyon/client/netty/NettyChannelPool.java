@@ -0,0 +1,348 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package tachyon.client.netty;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+
+import tachyon.Constants;
+
+/**
+ * A pool of channels to data servers, shared by the Netty block readers and writers of a process.
+ * A channel is acquired for one request and released once its response has been received, so that
+ * the next requests to the same data server reuse the connection instead of opening a new one.
+ * <p>
+ * Several requests can be outstanding on a channel at once, as {@link ClientHandler} dispatches
+ * the responses by request id. A request is given the channel with the fewest outstanding
+ * requests, and a new channel is only opened when all the channels to the data server carry the
+ * configured maximum of requests. At most a configured number of channels to each data server are
+ * open; once they are all full, acquiring a channel waits for a request to complete. Channels are
+ * checked to still be connected before being reused, and closed once they have carried no request
+ * for a configured time.
+ * <p>
+ * This class is thread safe.
+ */
+public final class NettyChannelPool implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+
+  private final Bootstrap mBootstrap;
+  /** Maximum number of channels to a data server */
+  private final int mMaxChannels;
+  /** Maximum number of outstanding requests on a channel */
+  private final int mMaxRequestsPerChannel;
+  /** Milliseconds a channel stays idle before being closed */
+  private final long mIdleTimeoutMs;
+  /** Milliseconds to wait for a channel when they are all full */
+  private final long mAcquireTimeoutMs;
+  /** Channels by data server address */
+  private final ConcurrentMap<InetSocketAddress, AddressPool> mPools =
+      new ConcurrentHashMap<InetSocketAddress, AddressPool>();
+  private final ScheduledFuture<?> mEvictionTask;
+
+  /**
+   * Creates a new pool of channels.
+   *
+   * @param bootstrap the bootstrap to connect new channels with, created by
+   *        {@link NettyClient#createClientBootstrap()}
+   * @param executor the executor to run the eviction of idle channels on
+   * @param maxChannels the maximum number of channels to a data server
+   * @param maxRequestsPerChannel the maximum number of outstanding requests on a channel
+   * @param idleTimeoutMs the number of milliseconds a channel stays idle before being closed
+   * @param acquireTimeoutMs the number of milliseconds to wait for a channel when they are all
+   *        full
+   */
+  public NettyChannelPool(Bootstrap bootstrap, ScheduledExecutorService executor, int maxChannels,
+      int maxRequestsPerChannel, long idleTimeoutMs, long acquireTimeoutMs) {
+    Preconditions.checkArgument(maxChannels > 0, "Maximum number of channels should be positive");
+    Preconditions.checkArgument(maxRequestsPerChannel > 0,
+        "Maximum number of requests per channel should be positive");
+    Preconditions.checkArgument(idleTimeoutMs > 0, "Idle timeout should be positive");
+    mBootstrap = Preconditions.checkNotNull(bootstrap);
+    mMaxChannels = maxChannels;
+    mMaxRequestsPerChannel = maxRequestsPerChannel;
+    mIdleTimeoutMs = idleTimeoutMs;
+    mAcquireTimeoutMs = acquireTimeoutMs;
+    long evictionIntervalMs = Math.max(idleTimeoutMs / 2, 1);
+    mEvictionTask = executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        evictIdleChannels();
+      }
+    }, evictionIntervalMs, evictionIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Acquires a channel to a data server for one request, sharing an open channel if possible. The
+   * channel must be given back with {@link #release(InetSocketAddress, Channel)} once the response
+   * to the request has been received, or with {@link #discard(InetSocketAddress, Channel)} if it
+   * may be broken.
+   *
+   * @param address the address of the data server
+   * @return a connected channel, which may be carrying other requests
+   * @throws IOException if all the channels stay full, or the data server can not be reached
+   */
+  public Channel acquire(InetSocketAddress address) throws IOException {
+    AddressPool pool = getPool(address);
+    long deadlineMs = System.currentTimeMillis() + mAcquireTimeoutMs;
+    try {
+      synchronized (pool) {
+        while (true) {
+          PooledChannel shared = pool.leastLoaded();
+          if (shared != null && shared.mRequests < mMaxRequestsPerChannel) {
+            shared.mRequests ++;
+            return shared.mChannel;
+          }
+          if (pool.mChannels.size() + pool.mConnecting < mMaxChannels) {
+            pool.mConnecting ++;
+            break;
+          }
+          long remainingMs = deadlineMs - System.currentTimeMillis();
+          if (remainingMs <= 0) {
+            throw new IOException("Timed out waiting for one of the " + mMaxChannels
+                + " channels to " + address + " to complete one of its " + mMaxRequestsPerChannel
+                + " requests");
+          }
+          pool.wait(remainingMs);
+        }
+      }
+      // Connected without holding the lock, so that requests can share the other channels
+      Channel channel = null;
+      try {
+        ChannelFuture future = mBootstrap.connect(address).await();
+        if (!future.isSuccess()) {
+          throw new IOException("Failed to connect to remote machine " + address,
+              future.cause());
+        }
+        LOG.info("Connected to remote machine " + address);
+        channel = future.channel();
+      } finally {
+        synchronized (pool) {
+          pool.mConnecting --;
+          if (channel != null) {
+            pool.mChannels.add(new PooledChannel(channel));
+          }
+          pool.notifyAll();
+        }
+      }
+      return channel;
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while acquiring a channel to " + address, ie);
+    }
+  }
+
+  /**
+   * Gives back a channel whose request has received its response, keeping it open for the next
+   * requests to the data server.
+   *
+   * @param address the address the channel was acquired for
+   * @param channel the channel
+   */
+  public void release(InetSocketAddress address, Channel channel) {
+    AddressPool pool = getPool(address);
+    boolean close;
+    synchronized (pool) {
+      PooledChannel pooled = pool.find(channel);
+      close = pooled == null || !channel.isActive();
+      if (pooled != null) {
+        pooled.mRequests --;
+        pooled.mLastUsedMs = System.currentTimeMillis();
+        if (close) {
+          pool.mChannels.remove(pooled);
+        }
+      }
+      pool.notifyAll();
+    }
+    if (close) {
+      channel.close();
+    }
+  }
+
+  /**
+   * Gives back a channel which may be broken, e.g. because a request on it timed out. The channel
+   * is closed, which fails the other requests outstanding on it.
+   *
+   * @param address the address the channel was acquired for
+   * @param channel the channel
+   */
+  public void discard(InetSocketAddress address, Channel channel) {
+    AddressPool pool = getPool(address);
+    synchronized (pool) {
+      PooledChannel pooled = pool.find(channel);
+      if (pooled != null) {
+        pool.mChannels.remove(pooled);
+      }
+      pool.notifyAll();
+    }
+    channel.close();
+  }
+
+  /**
+   * @param address the address of a data server
+   * @return the number of open channels to the data server carrying no request
+   */
+  public int getIdleChannelCount(InetSocketAddress address) {
+    AddressPool pool = mPools.get(address);
+    if (pool == null) {
+      return 0;
+    }
+    synchronized (pool) {
+      int idle = 0;
+      for (PooledChannel pooled : pool.mChannels) {
+        if (pooled.mRequests == 0) {
+          idle ++;
+        }
+      }
+      return idle;
+    }
+  }
+
+  /**
+   * Stops evicting idle channels and closes them. Channels in use are closed when they are given
+   * back.
+   */
+  @Override
+  public void close() {
+    mEvictionTask.cancel(false);
+    for (AddressPool pool : mPools.values()) {
+      for (Channel channel : pool.removeIdle(Long.MAX_VALUE, true)) {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Closes the channels which have been idle for longer than the idle timeout.
+   */
+  private void evictIdleChannels() {
+    long idleSinceMs = System.currentTimeMillis() - mIdleTimeoutMs;
+    for (AddressPool pool : mPools.values()) {
+      for (Channel channel : pool.removeIdle(idleSinceMs, false)) {
+        channel.close();
+      }
+    }
+  }
+
+  private AddressPool getPool(InetSocketAddress address) {
+    AddressPool pool = mPools.get(address);
+    if (pool == null) {
+      mPools.putIfAbsent(address, new AddressPool());
+      pool = mPools.get(address);
+    }
+    return pool;
+  }
+
+  /**
+   * The channels to one data server, guarded by the monitor of the pool, which is notified when a
+   * channel completes a request or is closed.
+   */
+  private static final class AddressPool {
+    /** Open channels, in the order they were connected */
+    private final List<PooledChannel> mChannels = new ArrayList<PooledChannel>();
+    /** Number of channels being connected */
+    private int mConnecting = 0;
+
+    /**
+     * Drops the channels which are not connected anymore, and finds the channel with the fewest
+     * outstanding requests. Ties go to the oldest channel, so that the newer ones can go idle.
+     *
+     * @return the least loaded channel, or null if there is none
+     */
+    private PooledChannel leastLoaded() {
+      PooledChannel least = null;
+      Iterator<PooledChannel> it = mChannels.iterator();
+      while (it.hasNext()) {
+        PooledChannel pooled = it.next();
+        if (!pooled.mChannel.isActive()) {
+          // Its outstanding requests fail on their own once the channel is closed
+          it.remove();
+          pooled.mChannel.close();
+        } else if (least == null || pooled.mRequests < least.mRequests) {
+          least = pooled;
+        }
+      }
+      return least;
+    }
+
+    private PooledChannel find(Channel channel) {
+      for (PooledChannel pooled : mChannels) {
+        if (pooled.mChannel == channel) {
+          return pooled;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Removes the channels carrying no request since before a time.
+     *
+     * @param idleSinceMs the time before which the channels must have completed their last request
+     * @param all if true, the channels in use are removed too, so that they are closed once given
+     *        back
+     * @return the removed idle channels
+     */
+    private synchronized List<Channel> removeIdle(long idleSinceMs, boolean all) {
+      List<Channel> removed = new ArrayList<Channel>();
+      Iterator<PooledChannel> it = mChannels.iterator();
+      while (it.hasNext()) {
+        PooledChannel pooled = it.next();
+        boolean idle = pooled.mRequests == 0 && pooled.mLastUsedMs < idleSinceMs;
+        if (idle || all) {
+          it.remove();
+          if (idle) {
+            removed.add(pooled.mChannel);
+          }
+        }
+      }
+      return removed;
+    }
+  }
+
+  /**
+   * A channel and the number of its outstanding requests.
+   */
+  private static final class PooledChannel {
+    private final Channel mChannel;
+    /** Number of requests acquired and not given back, the first one when connected */
+    private int mRequests = 1;
+    /** Time the last request was given back */
+    private long mLastUsedMs;
+
+    private PooledChannel(Channel channel) {
+      mChannel = channel;
+      mLastUsedMs = System.currentTimeMillis();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
@@ -59,13 +60,20 @@ public final class NettyClient {
   public static final long TIMEOUT_MS =
       TACHYON_CONF.getInt(Constants.USER_NETTY_TIMEOUT_MS);
 
+  // Share the connections to the data servers with all the block readers and writers.
+  public static final NettyChannelPool CHANNEL_POOL = new NettyChannelPool(
+      createClientBootstrap(), WORKER_GROUP,
+      TACHYON_CONF.getInt(Constants.USER_NETTY_CHANNEL_POOL_SIZE_MAX),
+      TACHYON_CONF.getInt(Constants.USER_NETTY_CHANNEL_MAX_REQUESTS),
+      TACHYON_CONF.getLong(Constants.USER_NETTY_CHANNEL_POOL_IDLE_TIMEOUT_MS), TIMEOUT_MS);
+
   /**
-   * Creates and returns a new Netty client bootstrap for clients to connect to remote servers.
+   * Creates and returns a new Netty client bootstrap for clients to connect to remote servers. Each
+   * channel gets its own {@link ClientHandler}, see {@link #getHandler(Channel)}.
    *
-   * @param handler the handler that should be added to new channel pipelines
    * @return the new client {@link Bootstrap}
    */
-  public static Bootstrap createClientBootstrap(final ClientHandler handler) {
+  public static Bootstrap createClientBootstrap() {
     final Bootstrap boot = new Bootstrap();
 
     boot.group(WORKER_GROUP).channel(CLIENT_CHANNEL_CLASS);
@@ -81,10 +89,18 @@ public final class NettyClient {
         pipeline.addLast(RPCMessage.createFrameDecoder());
         pipeline.addLast(ENCODER);
         pipeline.addLast(DECODER);
-        pipeline.addLast(handler);
+        pipeline.addLast(new ClientHandler());
       }
     });
 
     return boot;
   }
+
+  /**
+   * @param channel a channel of a bootstrap created by {@link #createClientBootstrap()}
+   * @return the handler of the responses received by the channel
+   */
+  public static ClientHandler getHandler(Channel channel) {
+    return channel.pipeline().get(ClientHandler.class);
+  }
 }
@@ -23,9 +23,7 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelFuture;
 
 import tachyon.Constants;
 import tachyon.client.RemoteBlockReader;
@@ -36,24 +34,21 @@ import tachyon.network.protocol.RPCMessage;
 import tachyon.network.protocol.RPCResponse;
 
 /**
- * Read data from remote data server using Netty.
+ * Read data from remote data server using Netty. The connections to the data servers are taken
+ * from {@link NettyClient#CHANNEL_POOL} for each read.
  */
 public final class NettyRemoteBlockReader implements RemoteBlockReader {
   private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
 
-  private final Bootstrap mClientBootstrap;
-  private final ClientHandler mHandler;
+  private final NettyChannelPool mChannelPool;
   /** A reference to read response so we can explicitly release the resource after reading. */
   private RPCBlockReadResponse mReadResponse = null;
 
   /**
    * Creates a new <code>NettyRemoteBlockReader</code>.
-   *
-   * TODO(gene): Creating a new remote block reader may be expensive, so consider a connection pool.
    */
   public NettyRemoteBlockReader() {
-    mHandler = new ClientHandler();
-    mClientBootstrap = NettyClient.createClientBootstrap(mHandler);
+    mChannelPool = NettyClient.CHANNEL_POOL;
   }
 
   @Override
@@ -61,16 +56,28 @@ public final class NettyRemoteBlockReader implements RemoteBlockReader {
       long length) throws IOException {
 
     try {
-      ChannelFuture f = mClientBootstrap.connect(address).sync();
-
-      LOG.info("Connected to remote machine " + address);
-      Channel channel = f.channel();
+      Channel channel = mChannelPool.acquire(address);
+      ClientHandler handler = NettyClient.getHandler(channel);
+      long requestId = handler.nextRequestId();
       SingleResponseListener listener = new SingleResponseListener();
-      mHandler.addListener(listener);
-      channel.writeAndFlush(new RPCBlockReadRequest(blockId, offset, length));
-
-      RPCResponse response = listener.get(NettyClient.TIMEOUT_MS, TimeUnit.MILLISECONDS);
-      channel.close().sync();
+      handler.addListener(requestId, listener);
+      RPCResponse response;
+      try {
+        channel.writeAndFlush(new RPCBlockReadRequest(requestId, blockId, offset, length));
+        response = listener.get(NettyClient.TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        // The channel may be broken, so it is not reused
+        handler.removeListener(requestId);
+        mChannelPool.discard(address, channel);
+        throw e;
+      }
+      handler.removeListener(requestId);
+      if (response.getType() == RPCMessage.Type.RPC_ERROR_RESPONSE) {
+        // The data server closes the channel after errors which are not tied to a request
+        mChannelPool.discard(address, channel);
+      } else {
+        mChannelPool.release(address, channel);
+      }
 
       switch (response.getType()) {
         case RPC_BLOCK_READ_RESPONSE:
@@ -80,7 +87,7 @@ public final class NettyRemoteBlockReader implements RemoteBlockReader {
           RPCResponse.Status status = blockResponse.getStatus();
           if (status == RPCResponse.Status.SUCCESS) {
             // always clear the previous response before reading another one
-            close();
+            releaseReadResponse();
             mReadResponse = blockResponse;
             return blockResponse.getPayloadDataBuffer().getReadOnlyByteBuffer();
           }
@@ -104,6 +111,10 @@ public final class NettyRemoteBlockReader implements RemoteBlockReader {
    */
   @Override
   public void close() throws IOException {
+    releaseReadResponse();
+  }
+
+  private void releaseReadResponse() {
     if (mReadResponse != null) {
       mReadResponse.getPayloadDataBuffer().release();
       mReadResponse = null;
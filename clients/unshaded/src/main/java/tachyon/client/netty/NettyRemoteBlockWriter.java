@@ -22,9 +22,7 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelFuture;
 
 import tachyon.Constants;
 import tachyon.client.RemoteBlockWriter;
@@ -36,13 +34,13 @@ import tachyon.network.protocol.RPCResponse;
 import tachyon.network.protocol.databuffer.DataByteArrayChannel;
 
 /**
- * Write data to a remote data server using Netty.
+ * Write data to a remote data server using Netty. The connections to the data servers are taken
+ * from {@link NettyClient#CHANNEL_POOL} for each write.
  */
 public final class NettyRemoteBlockWriter implements RemoteBlockWriter {
   private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
 
-  private final Bootstrap mClientBootstrap;
-  private final ClientHandler mHandler;
+  private final NettyChannelPool mChannelPool;
 
   private boolean mOpen;
   private InetSocketAddress mAddress;
@@ -56,8 +54,7 @@ public final class NettyRemoteBlockWriter implements RemoteBlockWriter {
    * Creates a new <code>NettyRemoteBlockWrite</code>.
    */
   public NettyRemoteBlockWriter() {
-    mHandler = new ClientHandler();
-    mClientBootstrap = NettyClient.createClientBootstrap(mHandler);
+    mChannelPool = NettyClient.CHANNEL_POOL;
     mOpen = false;
   }
 
@@ -83,19 +80,30 @@ public final class NettyRemoteBlockWriter implements RemoteBlockWriter {
 
   @Override
   public void write(byte[] bytes, int offset, int length) throws IOException {
-    SingleResponseListener listener = new SingleResponseListener();
     try {
-      // TODO(hy): keep connection open across multiple write calls.
-      ChannelFuture f = mClientBootstrap.connect(mAddress).sync();
-
-      LOG.info("Connected to remote machine " + mAddress);
-      Channel channel = f.channel();
-      mHandler.addListener(listener);
-      channel.writeAndFlush(new RPCBlockWriteRequest(mSessionId, mBlockId, mWrittenBytes, length,
-          new DataByteArrayChannel(bytes, offset, length)));
-
-      RPCResponse response = listener.get(NettyClient.TIMEOUT_MS, TimeUnit.MILLISECONDS);
-      channel.close().sync();
+      Channel channel = mChannelPool.acquire(mAddress);
+      ClientHandler handler = NettyClient.getHandler(channel);
+      long requestId = handler.nextRequestId();
+      SingleResponseListener listener = new SingleResponseListener();
+      handler.addListener(requestId, listener);
+      RPCResponse response;
+      try {
+        channel.writeAndFlush(new RPCBlockWriteRequest(requestId, mSessionId, mBlockId,
+            mWrittenBytes, length, new DataByteArrayChannel(bytes, offset, length)));
+        response = listener.get(NettyClient.TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        // The channel may be broken, so it is not reused
+        handler.removeListener(requestId);
+        mChannelPool.discard(mAddress, channel);
+        throw e;
+      }
+      handler.removeListener(requestId);
+      if (response.getType() == RPCMessage.Type.RPC_ERROR_RESPONSE) {
+        // The data server closes the channel after errors which are not tied to a request
+        mChannelPool.discard(mAddress, channel);
+      } else {
+        mChannelPool.release(mAddress, channel);
+      }
 
       switch (response.getType()) {
         case RPC_BLOCK_WRITE_RESPONSE:
@@ -118,8 +126,6 @@ public final class NettyRemoteBlockWriter implements RemoteBlockWriter {
       }
     } catch (Exception e) {
       throw new IOException(e);
-    } finally {
-      mHandler.removeListener(listener);
     }
   }
 }
@@ -15,11 +15,11 @@
 
 package tachyon.client.netty;
 
+import java.io.IOException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-
 import com.google.common.util.concurrent.SettableFuture;
 
 import tachyon.network.protocol.RPCResponse;
@@ -36,6 +36,11 @@ public final class SingleResponseListener implements ClientHandler.ResponseListe
     mResponse.set(response);
   }
 
+  @Override
+  public void onChannelClosed() {
+    mResponse.setException(new IOException("Channel closed before the response was received"));
+  }
+
   /**
    * Waits to receive the response and returns the response message.
    *
@@ -151,6 +151,24 @@ public class Constants {
   public static final String MASTER_RETRY_COUNT = "tachyon.master.retry";
   public static final String MASTER_RESOURCE_CPU = "tachyon.master.resource.cpu";
   public static final String MASTER_RESOURCE_MEM = "tachyon.master.resource.mem";
+  public static final String MASTER_LOST_BLOCK_RECOVERY_ENABLED =
+      "tachyon.master.lost.block.recovery.enabled";
+  public static final String MASTER_LOST_BLOCK_RECOVERY_INTERVAL_MS =
+      "tachyon.master.lost.block.recovery.interval.ms";
+  public static final String MASTER_LOST_BLOCK_RECOVERY_BATCH_SIZE =
+      "tachyon.master.lost.block.recovery.batch.size";
+  public static final String MASTER_LOST_BLOCK_RECOVERY_MAX_PER_WORKER =
+      "tachyon.master.lost.block.recovery.max.per.worker";
+  public static final String MASTER_LOST_BLOCK_RECOVERY_RETRY_INTERVAL_MS =
+      "tachyon.master.lost.block.recovery.retry.interval.ms";
+  public static final String MASTER_REPLICATION_ENABLED = "tachyon.master.replication.enabled";
+  public static final String MASTER_REPLICATION_INTERVAL_MS =
+      "tachyon.master.replication.interval.ms";
+  public static final String MASTER_REPLICATION_MAX = "tachyon.master.replication.max";
+  public static final String MASTER_REPLICATION_HOT_ACCESS_COUNT =
+      "tachyon.master.replication.hot.access.count";
+  public static final String MASTER_REPLICATION_BANDWIDTH_BYTES_PER_SEC =
+      "tachyon.master.replication.bandwidth.bytes.per.sec";
 
   public static final String WORKER_MEMORY_SIZE = "tachyon.worker.memory.size";
   public static final String WORKER_HOSTNAME = "tachyon.worker.hostname";
@@ -172,6 +190,23 @@ public class Constants {
   public static final String WORKER_CHECKPOINT_THREADS = "tachyon.worker.checkpoint.threads";
   public static final String WORKER_PER_THREAD_CHECKPOINT_CAP_MB_SEC =
       "tachyon.worker.per.thread.checkpoint.cap.mb.sec";
+  public static final String WORKER_CHECKPOINT_QUEUE_SIZE =
+      "tachyon.worker.checkpoint.queue.size";
+  public static final String WORKER_CHECKPOINT_MAX_RETRIES =
+      "tachyon.worker.checkpoint.max.retries";
+  public static final String WORKER_CHECKPOINT_RETRY_INTERVAL_MS =
+      "tachyon.worker.checkpoint.retry.interval.ms";
+  public static final String WORKER_READ_THROUGH_ENABLED = "tachyon.worker.readthrough.enabled";
+  public static final String WORKER_READ_THROUGH_THREADS = "tachyon.worker.readthrough.threads";
+  public static final String WORKER_READ_THROUGH_HANDLER_THREADS =
+      "tachyon.worker.readthrough.handler.threads";
+  public static final String WORKER_READ_THROUGH_TIMEOUT_MS =
+      "tachyon.worker.readthrough.timeout.ms";
+  public static final String WORKER_READ_AHEAD_BLOCKS = "tachyon.worker.readahead.blocks";
+  public static final String WORKER_READ_AHEAD_THREADS = "tachyon.worker.readahead.threads";
+  public static final String WORKER_BLOCK_REMOVE_BATCH_SIZE =
+      "tachyon.worker.block.remove.batch.size";
+  public static final String WORKER_BLOCK_REMOVE_RATE = "tachyon.worker.block.remove.rate";
   public static final String WORKER_NETTY_BOSS_THREADS =
       "tachyon.worker.network.netty.boss.threads";
   public static final String WORKER_NETTY_WORKER_THREADS =
@@ -198,6 +233,10 @@ public class Constants {
       "tachyon.worker.evict.strategy.lrfu.step.factor";
   public static final String WORKER_EVICT_STRATEGY_LRFU_ATTENUATION_FACTOR =
       "tachyon.worker.evict.strategy.lrfu.attenuation.factor";
+  public static final String WORKER_EVICT_STRATEGY_TINYLFU_EXPECTED_BLOCKS =
+      "tachyon.worker.evict.strategy.tinylfu.expected.blocks";
+  public static final String WORKER_EVICT_STRATEGY_GDSF_UFS_COST_RATIO =
+      "tachyon.worker.evict.strategy.gdsf.ufs.cost.ratio";
   public static final String WORKER_MAX_TIERED_STORAGE_LEVEL =
       "tachyon.worker.tieredstore.level.max";
   /**
@@ -218,12 +257,60 @@ public class Constants {
    */
   public static final String WORKER_TIERED_STORAGE_LEVEL_DIRS_QUOTA_FORMAT =
       "tachyon.worker.tieredstore.level%d.dirs.quota";
+  /**
+   * This format is used as a template to generate the property name for a given level.
+   * e.g., {@code
+   * String.format(Constants.WORKER_TIERED_STORAGE_LEVEL_COMPRESSION_ENABLED_FORMAT, level)}
+   */
+  public static final String WORKER_TIERED_STORAGE_LEVEL_COMPRESSION_ENABLED_FORMAT =
+      "tachyon.worker.tieredstore.level%d.compression.enabled";
+  public static final String WORKER_SPACE_RESERVER_ENABLED =
+      "tachyon.worker.tieredstore.reserver.enabled";
+  public static final String WORKER_SPACE_RESERVER_INTERVAL_MS =
+      "tachyon.worker.tieredstore.reserver.interval.ms";
+  /**
+   * This format is used as a template to generate the property name for a given tier alias.
+   * e.g., {@code String.format(Constants.WORKER_SPACE_RESERVER_HIGH_WATERMARK_FORMAT, "MEM")}
+   */
+  public static final String WORKER_SPACE_RESERVER_HIGH_WATERMARK_FORMAT =
+      "tachyon.worker.tieredstore.reserver.%s.watermark.high";
+  /**
+   * This format is used as a template to generate the property name for a given tier alias.
+   * e.g., {@code String.format(Constants.WORKER_SPACE_RESERVER_LOW_WATERMARK_FORMAT, "MEM")}
+   */
+  public static final String WORKER_SPACE_RESERVER_LOW_WATERMARK_FORMAT =
+      "tachyon.worker.tieredstore.reserver.%s.watermark.low";
+  public static final String WORKER_TIER_PROMOTER_ENABLED =
+      "tachyon.worker.tieredstore.promoter.enabled";
+  public static final String WORKER_TIER_PROMOTER_INTERVAL_MS =
+      "tachyon.worker.tieredstore.promoter.interval.ms";
+  public static final String WORKER_TIER_PROMOTER_ACCESS_THRESHOLD =
+      "tachyon.worker.tieredstore.promoter.access.threshold";
+  public static final String WORKER_TIER_PROMOTER_BATCH_SIZE =
+      "tachyon.worker.tieredstore.promoter.batch.size";
+  public static final String WORKER_TIER_PROMOTER_BANDWIDTH =
+      "tachyon.worker.tieredstore.promoter.bandwidth";
+  public static final String WORKER_TIERED_STORE_ARENA_ENABLED =
+      "tachyon.worker.tieredstore.arena.enabled";
+  public static final String WORKER_TIERED_STORE_ARENA_RATIO =
+      "tachyon.worker.tieredstore.arena.ratio";
+  public static final String WORKER_TIERED_STORE_ARENA_SLAB_SIZE =
+      "tachyon.worker.tieredstore.arena.slab.size";
+  public static final String WORKER_TIERED_STORE_INDEX_ENABLED =
+      "tachyon.worker.tieredstore.index.enabled";
+  public static final String WORKER_TIERED_STORE_CHECKSUM_ENABLED =
+      "tachyon.worker.tieredstore.checksum.enabled";
+  public static final String WORKER_TIERED_STORE_MOVER_THREADS =
+      "tachyon.worker.tieredstore.mover.threads";
+  public static final String WORKER_TIERED_STORE_MOVER_BANDWIDTH =
+      "tachyon.worker.tieredstore.mover.bandwidth";
   public static final String WORKER_KEYTAB_KEY = "tachyon.worker.keytab.file";
   public static final String WORKER_PRINCIPAL_KEY = "tachyon.worker.principal";
   public static final String WORKER_USER_TEMP_RELATIVE_FOLDER = "users";
   public static final String WORKER_DATA_SERVER = "tachyon.worker.data.server.class";
   public static final String WORKER_RESOURCE_CPU = "tachyon.worker.resource.cpu";
   public static final String WORKER_RESOURCE_MEM = "tachyon.worker.resource.mem";
+  public static final String WORKER_BLOCK_WRITE_MODE = "tachyon.worker.block.write.mode";
 
   public static final String USER_FAILED_SPACE_REQUEST_LIMITS =
       "tachyon.user.failed.space.request.limits";
@@ -235,6 +322,12 @@ public class Constants {
       "tachyon.user.network.netty.worker.threads";
   public static final String USER_NETTY_CHANNEL = "tachyon.user.network.netty.channel";
   public static final String USER_NETTY_TIMEOUT_MS = "tachyon.user.network.netty.timeout.ms";
+  public static final String USER_NETTY_CHANNEL_POOL_SIZE_MAX =
+      "tachyon.user.network.netty.channel.pool.size.max";
+  public static final String USER_NETTY_CHANNEL_POOL_IDLE_TIMEOUT_MS =
+      "tachyon.user.network.netty.channel.pool.idle.timeout.ms";
+  public static final String USER_NETTY_CHANNEL_MAX_REQUESTS =
+      "tachyon.user.network.netty.channel.max.requests";
   public static final String USER_REMOTE_READ_BUFFER_SIZE_BYTE =
       "tachyon.user.remote.read.buffer.size.byte";
   public static final String USER_DEFAULT_WRITE_TYPE = "tachyon.user.file.writetype.default";
@@ -245,7 +338,11 @@ public class Constants {
   public static final String USER_REMOTE_BLOCK_READER = "tachyon.user.remote.block.reader.class";
   public static final String USER_REMOTE_BLOCK_WRITER = "tachyon.user.remote.block.writer.class";
   public static final String USER_ENABLE_LOCAL_READ = "tachyon.user.localread.enable";
+  public static final String USER_LOCAL_READ_LEASE_BLOCKS =
+      "tachyon.user.localread.lease.blocks";
   public static final String USER_ENABLE_LOCAL_WRITE = "tachyon.user.localwrite.enable";
+  public static final String USER_LOCAL_WRITE_MODE = "tachyon.user.localwrite.mode";
+  public static final String USER_LOCAL_WRITE_PREALLOCATE = "tachyon.user.localwrite.preallocate";
 
   public static final String S3_ACCESS_KEY = "fs.s3n.awsAccessKeyId";
   public static final String S3_SECRET_KEY = "fs.s3n.awsSecretAccessKey";
@@ -211,16 +211,19 @@ public final class BlockMasterClient extends MasterClientBase {
    * @param removedBlocks a list of block removed from this worker
    * @param addedBlocks the added blocks for each storage dir. It maps storage dir id, to a list of
    *        added block for that storage dir.
+   * @param blockAccessCounts the number of accesses to each block since the last heartbeat
    * @return an optional command for the worker to execute
    * @throws IOException if an I/O error occurs
    */
   public synchronized Command workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long>
-      removedBlocks, Map<Long, List<Long>> addedBlocks) throws IOException {
+      removedBlocks, Map<Long, List<Long>> addedBlocks, Map<Long, Long> blockAccessCounts)
+      throws IOException {
     int retry = 0;
     while (!mClosed && (retry ++) <= RPC_MAX_NUM_RETRY) {
       connect();
       try {
-        return mClient.workerHeartbeat(workerId, usedBytesOnTiers, removedBlocks, addedBlocks);
+        return mClient.workerHeartbeat(workerId, usedBytesOnTiers, removedBlocks, addedBlocks,
+            blockAccessCounts);
       } catch (TException e) {
         LOG.error(e.getMessage(), e);
         mConnected = false;
@@ -23,11 +23,13 @@ import io.netty.buffer.ByteBuf;
  * This represents an RPC request to read a block from a DataServer.
  */
 public class RPCBlockReadRequest extends RPCRequest {
+  private final long mRequestId;
   private final long mBlockId;
   private final long mOffset;
   private final long mLength;
 
-  public RPCBlockReadRequest(long blockId, long offset, long length) {
+  public RPCBlockReadRequest(long requestId, long blockId, long offset, long length) {
+    mRequestId = requestId;
     mBlockId = blockId;
     mOffset = offset;
     mLength = length;
@@ -44,20 +46,22 @@ public class RPCBlockReadRequest extends RPCRequest {
    * @return The decoded RPCBlockReadRequest object
    */
   public static RPCBlockReadRequest decode(ByteBuf in) {
+    long requestId = in.readLong();
     long blockId = in.readLong();
     long offset = in.readLong();
     long length = in.readLong();
-    return new RPCBlockReadRequest(blockId, offset, length);
+    return new RPCBlockReadRequest(requestId, blockId, offset, length);
   }
 
   @Override
   public int getEncodedLength() {
-    // 3 longs (mBLockId, mOffset, mLength)
-    return Longs.BYTES * 3;
+    // 4 longs (mRequestId, mBLockId, mOffset, mLength)
+    return Longs.BYTES * 4;
   }
 
   @Override
   public void encode(ByteBuf out) {
+    out.writeLong(mRequestId);
     out.writeLong(mBlockId);
     out.writeLong(mOffset);
     out.writeLong(mLength);
@@ -72,7 +76,15 @@ public class RPCBlockReadRequest extends RPCRequest {
 
   @Override
   public String toString() {
-    return "RPCBlockReadRequest(" + mBlockId + ", " + mOffset + ", " + mLength + ")";
+    return "RPCBlockReadRequest(" + mRequestId + ", " + mBlockId + ", " + mOffset + ", " + mLength
+        + ")";
+  }
+
+  /**
+   * @return the id of the request, which the response carries back
+   */
+  public long getRequestId() {
+    return mRequestId;
   }
 
   public long getBlockId() {
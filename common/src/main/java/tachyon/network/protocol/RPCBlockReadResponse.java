@@ -28,14 +28,16 @@ import tachyon.network.protocol.databuffer.DataNettyBuffer;
  * This represents the response of a {@link RPCBlockReadRequest}.
  */
 public class RPCBlockReadResponse extends RPCResponse {
+  private final long mRequestId;
   private final long mBlockId;
   private final long mOffset;
   private final long mLength;
   private final DataBuffer mData;
   private final Status mStatus;
 
-  public RPCBlockReadResponse(long blockId, long offset, long length, DataBuffer data,
-      Status status) {
+  public RPCBlockReadResponse(long requestId, long blockId, long offset, long length,
+      DataBuffer data, Status status) {
+    mRequestId = requestId;
     mBlockId = blockId;
     mOffset = offset;
     mLength = length;
@@ -60,7 +62,8 @@ public class RPCBlockReadResponse extends RPCResponse {
       final Status status) {
     Preconditions.checkArgument(status != Status.SUCCESS);
     // The response has no payload, so length must be 0.
-    return new RPCBlockReadResponse(request.getBlockId(), request.getOffset(), 0, null, status);
+    return new RPCBlockReadResponse(request.getRequestId(), request.getBlockId(),
+        request.getOffset(), 0, null, status);
   }
 
   /**
@@ -70,6 +73,7 @@ public class RPCBlockReadResponse extends RPCResponse {
    * @return The decoded RPCBlockReadResponse object
    */
   public static RPCBlockReadResponse decode(ByteBuf in) {
+    long requestId = in.readLong();
     long blockId = in.readLong();
     long offset = in.readLong();
     long length = in.readLong();
@@ -80,17 +84,19 @@ public class RPCBlockReadResponse extends RPCResponse {
       // use DataNettyBuffer instead of DataByteBuffer to avoid copying
       data = new DataNettyBuffer(in, (int) length);
     }
-    return new RPCBlockReadResponse(blockId, offset, length, data, Status.fromShort(status));
+    return new RPCBlockReadResponse(requestId, blockId, offset, length, data,
+        Status.fromShort(status));
   }
 
   @Override
   public int getEncodedLength() {
-    // 3 longs (mBLockId, mOffset, mLength) + 1 short (mStatus)
-    return Longs.BYTES * 3 + Shorts.BYTES;
+    // 4 longs (mRequestId, mBLockId, mOffset, mLength) + 1 short (mStatus)
+    return Longs.BYTES * 4 + Shorts.BYTES;
   }
 
   @Override
   public void encode(ByteBuf out) {
+    out.writeLong(mRequestId);
     out.writeLong(mBlockId);
     out.writeLong(mOffset);
     out.writeLong(mLength);
@@ -106,10 +112,17 @@ public class RPCBlockReadResponse extends RPCResponse {
 
   @Override
   public String toString() {
-    return "RPCBlockReadResponse(" + mBlockId + ", " + mOffset
+    return "RPCBlockReadResponse(" + mRequestId + ", " + mBlockId + ", " + mOffset
         + ", " + mLength + ", " + mStatus + ")";
   }
 
+  /**
+   * @return the id of the request this response answers
+   */
+  public long getRequestId() {
+    return mRequestId;
+  }
+
   public long getBlockId() {
     return mBlockId;
   }
@@ -28,14 +28,16 @@ import tachyon.network.protocol.databuffer.DataByteBuffer;
  * This represents the request to write a block to a DataServer.
  */
 public class RPCBlockWriteRequest extends RPCRequest {
+  private final long mRequestId;
   private final long mSessionId;
   private final long mBlockId;
   private final long mOffset;
   private final long mLength;
   private final DataBuffer mData;
 
-  public RPCBlockWriteRequest(long sessionId, long blockId, long offset, long length,
-      DataBuffer data) {
+  public RPCBlockWriteRequest(long requestId, long sessionId, long blockId, long offset,
+      long length, DataBuffer data) {
+    mRequestId = requestId;
     mSessionId = sessionId;
     mBlockId = blockId;
     mOffset = offset;
@@ -55,6 +57,7 @@ public class RPCBlockWriteRequest extends RPCRequest {
    * @return The decoded RPCBlockWriteRequest object
    */
   public static RPCBlockWriteRequest decode(ByteBuf in) {
+    long requestId = in.readLong();
     long sessionId = in.readLong();
     long blockId = in.readLong();
     long offset = in.readLong();
@@ -66,17 +69,18 @@ public class RPCBlockWriteRequest extends RPCRequest {
       in.readBytes(buffer);
       data = new DataByteBuffer(buffer, (int) length);
     }
-    return new RPCBlockWriteRequest(sessionId, blockId, offset, length, data);
+    return new RPCBlockWriteRequest(requestId, sessionId, blockId, offset, length, data);
   }
 
   @Override
   public int getEncodedLength() {
-    // 4 longs (mSessionId, mBlockId, mOffset, mLength)
-    return Longs.BYTES * 4;
+    // 5 longs (mRequestId, mSessionId, mBlockId, mOffset, mLength)
+    return Longs.BYTES * 5;
   }
 
   @Override
   public void encode(ByteBuf out) {
+    out.writeLong(mRequestId);
     out.writeLong(mSessionId);
     out.writeLong(mBlockId);
     out.writeLong(mOffset);
@@ -90,6 +94,13 @@ public class RPCBlockWriteRequest extends RPCRequest {
     return mData;
   }
 
+  /**
+   * @return the id of the request, which the response carries back
+   */
+  public long getRequestId() {
+    return mRequestId;
+  }
+
   public long getSessionId() {
     return mSessionId;
   }
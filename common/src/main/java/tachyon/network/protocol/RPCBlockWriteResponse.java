@@ -25,14 +25,16 @@ import io.netty.buffer.ByteBuf;
  * This represents the response to a {@link RPCBlockWriteRequest}.
  */
 public class RPCBlockWriteResponse extends RPCResponse {
+  private final long mRequestId;
   private final long mSessionId;
   private final long mBlockId;
   private final long mOffset;
   private final long mLength;
   private final Status mStatus;
 
-  public RPCBlockWriteResponse(long sessionId, long blockId, long offset, long length,
-      Status status) {
+  public RPCBlockWriteResponse(long requestId, long sessionId, long blockId, long offset,
+      long length, Status status) {
+    mRequestId = requestId;
     mSessionId = sessionId;
     mBlockId = blockId;
     mOffset = offset;
@@ -53,8 +55,8 @@ public class RPCBlockWriteResponse extends RPCResponse {
       final Status status) {
     Preconditions.checkArgument(status != Status.SUCCESS);
     // The response has no payload, so length must be 0.
-    return new RPCBlockWriteResponse(request.getSessionId(), request.getBlockId(),
-        request.getOffset(), request.getLength(), status);
+    return new RPCBlockWriteResponse(request.getRequestId(), request.getSessionId(),
+        request.getBlockId(), request.getOffset(), request.getLength(), status);
   }
 
   @Override
@@ -69,22 +71,25 @@ public class RPCBlockWriteResponse extends RPCResponse {
    * @return The decoded RPCBlockWriteResponse object
    */
   public static RPCBlockWriteResponse decode(ByteBuf in) {
+    long requestId = in.readLong();
     long sessionId = in.readLong();
     long blockId = in.readLong();
     long offset = in.readLong();
     long length = in.readLong();
     short status = in.readShort();
-    return new RPCBlockWriteResponse(sessionId, blockId, offset, length, Status.fromShort(status));
+    return new RPCBlockWriteResponse(requestId, sessionId, blockId, offset, length,
+        Status.fromShort(status));
   }
 
   @Override
   public int getEncodedLength() {
-    // 4 longs (mSessionId, mBlockId, mOffset, mLength) + 1 short (mStatus)
-    return Longs.BYTES * 4 + Shorts.BYTES;
+    // 5 longs (mRequestId, mSessionId, mBlockId, mOffset, mLength) + 1 short (mStatus)
+    return Longs.BYTES * 5 + Shorts.BYTES;
   }
 
   @Override
   public void encode(ByteBuf out) {
+    out.writeLong(mRequestId);
     out.writeLong(mSessionId);
     out.writeLong(mBlockId);
     out.writeLong(mOffset);
@@ -92,6 +97,13 @@ public class RPCBlockWriteResponse extends RPCResponse {
     out.writeShort(mStatus.getId());
   }
 
+  /**
+   * @return the id of the request this response answers
+   */
+  public long getRequestId() {
+    return mRequestId;
+  }
+
   public long getSessionId() {
     return mSessionId;
   }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.resource;
+
+import java.nio.ByteBuffer;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.util.io.BufferUtils;
+
+/**
+ * Class for managing direct byte buffers of a fixed size. Allocating and freeing direct memory is
+ * expensive, so buffers are kept and reused across callers instead. After obtaining a buffer with
+ * {@link ResourcePool#acquire}, {@link ResourcePool#release} must be called when the thread is done
+ * using the buffer. Released buffers are cleared.
+ */
+public final class DirectBufferPool extends ResourcePool<ByteBuffer> {
+  private final int mBufferBytes;
+
+  /**
+   * Creates a new direct buffer pool.
+   *
+   * @param bufferBytes the size of each buffer in bytes
+   * @param maxCapacity the maximum number of buffers in this pool
+   */
+  public DirectBufferPool(int bufferBytes, int maxCapacity) {
+    super(maxCapacity);
+    Preconditions.checkArgument(bufferBytes > 0, "Buffer size must be positive");
+    mBufferBytes = bufferBytes;
+  }
+
+  /**
+   * @return the size of each buffer in bytes
+   */
+  public int getBufferBytes() {
+    return mBufferBytes;
+  }
+
+  @Override
+  public void close() {
+    ByteBuffer buffer;
+    while ((buffer = mResources.poll()) != null) {
+      BufferUtils.cleanDirectBuffer(buffer);
+    }
+  }
+
+  @Override
+  public void release(ByteBuffer buffer) {
+    buffer.clear();
+    super.release(buffer);
+  }
+
+  @Override
+  protected ByteBuffer createNewResource() {
+    return ByteBuffer.allocateDirect(mBufferBytes);
+  }
+}
@@ -43,7 +43,7 @@ public class BlockMasterService {
 
     public long workerRegister(long workerId, List<Long> totalBytesOnTiers, List<Long> usedBytesOnTiers, Map<Long,List<Long>> currentBlocksOnTiers) throws BlockInfoException, org.apache.thrift.TException;
 
-    public Command workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers) throws BlockInfoException, org.apache.thrift.TException;
+    public Command workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, Map<Long,Long> blockAccessCounts) throws BlockInfoException, org.apache.thrift.TException;
 
     public void workerCommitBlock(long workerId, long usedBytesOnTier, int tier, long blockId, long length) throws BlockInfoException, org.apache.thrift.TException;
 
@@ -63,7 +63,7 @@ public class BlockMasterService {
 
     public void workerRegister(long workerId, List<Long> totalBytesOnTiers, List<Long> usedBytesOnTiers, Map<Long,List<Long>> currentBlocksOnTiers, org.apache.thrift.async.AsyncMethodCallback resultHandler) throws org.apache.thrift.TException;
 
-    public void workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, org.apache.thrift.async.AsyncMethodCallback resultHandler) throws org.apache.thrift.TException;
+    public void workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, Map<Long,Long> blockAccessCounts, org.apache.thrift.async.AsyncMethodCallback resultHandler) throws org.apache.thrift.TException;
 
     public void workerCommitBlock(long workerId, long usedBytesOnTier, int tier, long blockId, long length, org.apache.thrift.async.AsyncMethodCallback resultHandler) throws org.apache.thrift.TException;
 
@@ -149,19 +149,20 @@ public class BlockMasterService {
       throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "workerRegister failed: unknown result");
     }
 
-    public Command workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers) throws BlockInfoException, org.apache.thrift.TException
+    public Command workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, Map<Long,Long> blockAccessCounts) throws BlockInfoException, org.apache.thrift.TException
     {
-      send_workerHeartbeat(workerId, usedBytesOnTiers, removedBlockIds, addedBlocksOnTiers);
+      send_workerHeartbeat(workerId, usedBytesOnTiers, removedBlockIds, addedBlocksOnTiers, blockAccessCounts);
       return recv_workerHeartbeat();
     }
 
-    public void send_workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers) throws org.apache.thrift.TException
+    public void send_workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, Map<Long,Long> blockAccessCounts) throws org.apache.thrift.TException
     {
       workerHeartbeat_args args = new workerHeartbeat_args();
       args.setWorkerId(workerId);
       args.setUsedBytesOnTiers(usedBytesOnTiers);
       args.setRemovedBlockIds(removedBlockIds);
       args.setAddedBlocksOnTiers(addedBlocksOnTiers);
+      args.setBlockAccessCounts(blockAccessCounts);
       sendBase("workerHeartbeat", args);
     }
 
@@ -388,9 +389,9 @@ public class BlockMasterService {
       }
     }
 
-    public void workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, org.apache.thrift.async.AsyncMethodCallback resultHandler) throws org.apache.thrift.TException {
+    public void workerHeartbeat(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, Map<Long,Long> blockAccessCounts, org.apache.thrift.async.AsyncMethodCallback resultHandler) throws org.apache.thrift.TException {
       checkReady();
-      workerHeartbeat_call method_call = new workerHeartbeat_call(workerId, usedBytesOnTiers, removedBlockIds, addedBlocksOnTiers, resultHandler, this, ___protocolFactory, ___transport);
+      workerHeartbeat_call method_call = new workerHeartbeat_call(workerId, usedBytesOnTiers, removedBlockIds, addedBlocksOnTiers, blockAccessCounts, resultHandler, this, ___protocolFactory, ___transport);
       this.___currentMethod = method_call;
       ___manager.call(method_call);
     }
@@ -400,12 +401,14 @@ public class BlockMasterService {
       private List<Long> usedBytesOnTiers;
       private List<Long> removedBlockIds;
       private Map<Long,List<Long>> addedBlocksOnTiers;
-      public workerHeartbeat_call(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, org.apache.thrift.async.AsyncMethodCallback resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+      private Map<Long,Long> blockAccessCounts;
+      public workerHeartbeat_call(long workerId, List<Long> usedBytesOnTiers, List<Long> removedBlockIds, Map<Long,List<Long>> addedBlocksOnTiers, Map<Long,Long> blockAccessCounts, org.apache.thrift.async.AsyncMethodCallback resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
         super(client, protocolFactory, transport, resultHandler, false);
         this.workerId = workerId;
         this.usedBytesOnTiers = usedBytesOnTiers;
         this.removedBlockIds = removedBlockIds;
         this.addedBlocksOnTiers = addedBlocksOnTiers;
+        this.blockAccessCounts = blockAccessCounts;
       }
 
       public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
@@ -415,6 +418,7 @@ public class BlockMasterService {
         args.setUsedBytesOnTiers(usedBytesOnTiers);
         args.setRemovedBlockIds(removedBlockIds);
         args.setAddedBlocksOnTiers(addedBlocksOnTiers);
+        args.setBlockAccessCounts(blockAccessCounts);
         args.write(prot);
         prot.writeMessageEnd();
       }
@@ -678,7 +682,7 @@ public class BlockMasterService {
       public workerHeartbeat_result getResult(I iface, workerHeartbeat_args args) throws org.apache.thrift.TException {
         workerHeartbeat_result result = new workerHeartbeat_result();
         try {
-          result.success = iface.workerHeartbeat(args.workerId, args.usedBytesOnTiers, args.removedBlockIds, args.addedBlocksOnTiers);
+          result.success = iface.workerHeartbeat(args.workerId, args.usedBytesOnTiers, args.removedBlockIds, args.addedBlocksOnTiers, args.blockAccessCounts);
         } catch (BlockInfoException bie) {
           result.bie = bie;
         }
@@ -983,7 +987,7 @@ public class BlockMasterService {
       }
 
       public void start(I iface, workerHeartbeat_args args, org.apache.thrift.async.AsyncMethodCallback<Command> resultHandler) throws TException {
-        iface.workerHeartbeat(args.workerId, args.usedBytesOnTiers, args.removedBlockIds, args.addedBlocksOnTiers,resultHandler);
+        iface.workerHeartbeat(args.workerId, args.usedBytesOnTiers, args.removedBlockIds, args.addedBlocksOnTiers, args.blockAccessCounts,resultHandler);
       }
     }
 
@@ -3327,6 +3331,7 @@ public class BlockMasterService {
     private static final org.apache.thrift.protocol.TField USED_BYTES_ON_TIERS_FIELD_DESC = new org.apache.thrift.protocol.TField("usedBytesOnTiers", org.apache.thrift.protocol.TType.LIST, (short)2);
     private static final org.apache.thrift.protocol.TField REMOVED_BLOCK_IDS_FIELD_DESC = new org.apache.thrift.protocol.TField("removedBlockIds", org.apache.thrift.protocol.TType.LIST, (short)3);
     private static final org.apache.thrift.protocol.TField ADDED_BLOCKS_ON_TIERS_FIELD_DESC = new org.apache.thrift.protocol.TField("addedBlocksOnTiers", org.apache.thrift.protocol.TType.MAP, (short)4);
+    private static final org.apache.thrift.protocol.TField BLOCK_ACCESS_COUNTS_FIELD_DESC = new org.apache.thrift.protocol.TField("blockAccessCounts", org.apache.thrift.protocol.TType.MAP, (short)5);
 
     private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
     static {
@@ -3338,13 +3343,15 @@ public class BlockMasterService {
     public List<Long> usedBytesOnTiers; // required
     public List<Long> removedBlockIds; // required
     public Map<Long,List<Long>> addedBlocksOnTiers; // required
+    public Map<Long,Long> blockAccessCounts; // required
 
     /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
     public enum _Fields implements org.apache.thrift.TFieldIdEnum {
       WORKER_ID((short)1, "workerId"),
       USED_BYTES_ON_TIERS((short)2, "usedBytesOnTiers"),
       REMOVED_BLOCK_IDS((short)3, "removedBlockIds"),
-      ADDED_BLOCKS_ON_TIERS((short)4, "addedBlocksOnTiers");
+      ADDED_BLOCKS_ON_TIERS((short)4, "addedBlocksOnTiers"),
+      BLOCK_ACCESS_COUNTS((short)5, "blockAccessCounts");
 
       private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -3367,6 +3374,8 @@ public class BlockMasterService {
             return REMOVED_BLOCK_IDS;
           case 4: // ADDED_BLOCKS_ON_TIERS
             return ADDED_BLOCKS_ON_TIERS;
+          case 5: // BLOCK_ACCESS_COUNTS
+            return BLOCK_ACCESS_COUNTS;
           default:
             return null;
         }
@@ -3425,6 +3434,10 @@ public class BlockMasterService {
               new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I64), 
               new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST, 
                   new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I64)))));
+      tmpMap.put(_Fields.BLOCK_ACCESS_COUNTS, new org.apache.thrift.meta_data.FieldMetaData("blockAccessCounts", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.MapMetaData(org.apache.thrift.protocol.TType.MAP, 
+              new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I64), 
+              new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I64))));
       metaDataMap = Collections.unmodifiableMap(tmpMap);
       org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(workerHeartbeat_args.class, metaDataMap);
     }
@@ -3436,7 +3449,8 @@ public class BlockMasterService {
       long workerId,
       List<Long> usedBytesOnTiers,
       List<Long> removedBlockIds,
-      Map<Long,List<Long>> addedBlocksOnTiers)
+      Map<Long,List<Long>> addedBlocksOnTiers,
+      Map<Long,Long> blockAccessCounts)
     {
       this();
       this.workerId = workerId;
@@ -3444,6 +3458,7 @@ public class BlockMasterService {
       this.usedBytesOnTiers = usedBytesOnTiers;
       this.removedBlockIds = removedBlockIds;
       this.addedBlocksOnTiers = addedBlocksOnTiers;
+      this.blockAccessCounts = blockAccessCounts;
     }
 
     /**
@@ -3475,6 +3490,10 @@ public class BlockMasterService {
         }
         this.addedBlocksOnTiers = __this__addedBlocksOnTiers;
       }
+      if (other.isSetBlockAccessCounts()) {
+        Map<Long,Long> __this__blockAccessCounts = new HashMap<Long,Long>(other.blockAccessCounts);
+        this.blockAccessCounts = __this__blockAccessCounts;
+      }
     }
 
     public workerHeartbeat_args deepCopy() {
@@ -3488,6 +3507,7 @@ public class BlockMasterService {
       this.usedBytesOnTiers = null;
       this.removedBlockIds = null;
       this.addedBlocksOnTiers = null;
+      this.blockAccessCounts = null;
     }
 
     public long getWorkerId() {
@@ -3626,6 +3646,41 @@ public class BlockMasterService {
       }
     }
 
+    public int getBlockAccessCountsSize() {
+      return (this.blockAccessCounts == null) ? 0 : this.blockAccessCounts.size();
+    }
+
+    public void putToBlockAccessCounts(long key, long val) {
+      if (this.blockAccessCounts == null) {
+        this.blockAccessCounts = new HashMap<Long,Long>();
+      }
+      this.blockAccessCounts.put(key, val);
+    }
+
+    public Map<Long,Long> getBlockAccessCounts() {
+      return this.blockAccessCounts;
+    }
+
+    public workerHeartbeat_args setBlockAccessCounts(Map<Long,Long> blockAccessCounts) {
+      this.blockAccessCounts = blockAccessCounts;
+      return this;
+    }
+
+    public void unsetBlockAccessCounts() {
+      this.blockAccessCounts = null;
+    }
+
+    /** Returns true if field blockAccessCounts is set (has been assigned a value) and false otherwise */
+    public boolean isSetBlockAccessCounts() {
+      return this.blockAccessCounts != null;
+    }
+
+    public void setBlockAccessCountsIsSet(boolean value) {
+      if (!value) {
+        this.blockAccessCounts = null;
+      }
+    }
+
     public void setFieldValue(_Fields field, Object value) {
       switch (field) {
       case WORKER_ID:
@@ -3660,6 +3715,14 @@ public class BlockMasterService {
         }
         break;
 
+      case BLOCK_ACCESS_COUNTS:
+        if (value == null) {
+          unsetBlockAccessCounts();
+        } else {
+          setBlockAccessCounts((Map<Long,Long>)value);
+        }
+        break;
+
       }
     }
 
@@ -3677,6 +3740,9 @@ public class BlockMasterService {
       case ADDED_BLOCKS_ON_TIERS:
         return getAddedBlocksOnTiers();
 
+      case BLOCK_ACCESS_COUNTS:
+        return getBlockAccessCounts();
+
       }
       throw new IllegalStateException();
     }
@@ -3696,6 +3762,8 @@ public class BlockMasterService {
         return isSetRemovedBlockIds();
       case ADDED_BLOCKS_ON_TIERS:
         return isSetAddedBlocksOnTiers();
+      case BLOCK_ACCESS_COUNTS:
+        return isSetBlockAccessCounts();
       }
       throw new IllegalStateException();
     }
@@ -3749,6 +3817,15 @@ public class BlockMasterService {
           return false;
       }
 
+      boolean this_present_blockAccessCounts = true && this.isSetBlockAccessCounts();
+      boolean that_present_blockAccessCounts = true && that.isSetBlockAccessCounts();
+      if (this_present_blockAccessCounts || that_present_blockAccessCounts) {
+        if (!(this_present_blockAccessCounts && that_present_blockAccessCounts))
+          return false;
+        if (!this.blockAccessCounts.equals(that.blockAccessCounts))
+          return false;
+      }
+
       return true;
     }
 
@@ -3776,6 +3853,11 @@ public class BlockMasterService {
       if (present_addedBlocksOnTiers)
         list.add(addedBlocksOnTiers);
 
+      boolean present_blockAccessCounts = true && (isSetBlockAccessCounts());
+      list.add(present_blockAccessCounts);
+      if (present_blockAccessCounts)
+        list.add(blockAccessCounts);
+
       return list.hashCode();
     }
 
@@ -3827,6 +3909,16 @@ public class BlockMasterService {
           return lastComparison;
         }
       }
+      lastComparison = Boolean.valueOf(isSetBlockAccessCounts()).compareTo(other.isSetBlockAccessCounts());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetBlockAccessCounts()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.blockAccessCounts, other.blockAccessCounts);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
       return 0;
     }
 
@@ -3874,6 +3966,14 @@ public class BlockMasterService {
         sb.append(this.addedBlocksOnTiers);
       }
       first = false;
+      if (!first) sb.append(", ");
+      sb.append("blockAccessCounts:");
+      if (this.blockAccessCounts == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.blockAccessCounts);
+      }
+      first = false;
       sb.append(")");
       return sb.toString();
     }
@@ -3993,6 +4093,26 @@ public class BlockMasterService {
                 org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
               }
               break;
+            case 5: // BLOCK_ACCESS_COUNTS
+              if (schemeField.type == org.apache.thrift.protocol.TType.MAP) {
+                {
+                  org.apache.thrift.protocol.TMap _map124 = iprot.readMapBegin();
+                  struct.blockAccessCounts = new HashMap<Long,Long>(2*_map124.size);
+                  long _key125;
+                  long _val126;
+                  for (int _i127 = 0; _i127 < _map124.size; ++_i127)
+                  {
+                    _key125 = iprot.readI64();
+                    _val126 = iprot.readI64();
+                    struct.blockAccessCounts.put(_key125, _val126);
+                  }
+                  iprot.readMapEnd();
+                }
+                struct.setBlockAccessCountsIsSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
             default:
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
           }
@@ -4055,6 +4175,19 @@ public class BlockMasterService {
           }
           oprot.writeFieldEnd();
         }
+        if (struct.blockAccessCounts != null) {
+          oprot.writeFieldBegin(BLOCK_ACCESS_COUNTS_FIELD_DESC);
+          {
+            oprot.writeMapBegin(new org.apache.thrift.protocol.TMap(org.apache.thrift.protocol.TType.I64, org.apache.thrift.protocol.TType.I64, struct.blockAccessCounts.size()));
+            for (Map.Entry<Long, Long> _iter128 : struct.blockAccessCounts.entrySet())
+            {
+              oprot.writeI64(_iter128.getKey());
+              oprot.writeI64(_iter128.getValue());
+            }
+            oprot.writeMapEnd();
+          }
+          oprot.writeFieldEnd();
+        }
         oprot.writeFieldStop();
         oprot.writeStructEnd();
       }
@@ -4085,7 +4218,10 @@ public class BlockMasterService {
         if (struct.isSetAddedBlocksOnTiers()) {
           optionals.set(3);
         }
-        oprot.writeBitSet(optionals, 4);
+        if (struct.isSetBlockAccessCounts()) {
+          optionals.set(4);
+        }
+        oprot.writeBitSet(optionals, 5);
         if (struct.isSetWorkerId()) {
           oprot.writeI64(struct.workerId);
         }
@@ -4123,12 +4259,22 @@ public class BlockMasterService {
             }
           }
         }
+        if (struct.isSetBlockAccessCounts()) {
+          {
+            oprot.writeI32(struct.blockAccessCounts.size());
+            for (Map.Entry<Long, Long> _iter129 : struct.blockAccessCounts.entrySet())
+            {
+              oprot.writeI64(_iter129.getKey());
+              oprot.writeI64(_iter129.getValue());
+            }
+          }
+        }
       }
 
       @Override
       public void read(org.apache.thrift.protocol.TProtocol prot, workerHeartbeat_args struct) throws org.apache.thrift.TException {
         TTupleProtocol iprot = (TTupleProtocol) prot;
-        BitSet incoming = iprot.readBitSet(4);
+        BitSet incoming = iprot.readBitSet(5);
         if (incoming.get(0)) {
           struct.workerId = iprot.readI64();
           struct.setWorkerIdIsSet(true);
@@ -4183,6 +4329,21 @@ public class BlockMasterService {
           }
           struct.setAddedBlocksOnTiersIsSet(true);
         }
+        if (incoming.get(4)) {
+          {
+            org.apache.thrift.protocol.TMap _map130 = new org.apache.thrift.protocol.TMap(org.apache.thrift.protocol.TType.I64, org.apache.thrift.protocol.TType.I64, iprot.readI32());
+            struct.blockAccessCounts = new HashMap<Long,Long>(2*_map130.size);
+            long _key131;
+            long _val132;
+            for (int _i133 = 0; _i133 < _map130.size; ++_i133)
+            {
+              _key131 = iprot.readI64();
+              _val132 = iprot.readI64();
+              struct.blockAccessCounts.put(_key131, _val132);
+            }
+          }
+          struct.setBlockAccessCountsIsSet(true);
+        }
       }
     }
 
@@ -16,7 +16,9 @@ public enum CommandType implements org.apache.thrift.TEnum {
   Nothing(1),
   Register(2),
   Free(3),
-  Delete(4);
+  Delete(4),
+  Load(5),
+  Replicate(6);
 
   private final int value;
 
@@ -47,6 +49,10 @@ public enum CommandType implements org.apache.thrift.TEnum {
         return Free;
       case 4:
         return Delete;
+      case 5:
+        return Load;
+      case 6:
+        return Replicate;
       default:
         return null;
     }
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.util.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+import tachyon.resource.DirectBufferPool;
+
+/**
+ * Writes data at given positions of a local file through its {@link FileChannel}. The way data is
+ * written is chosen by {@link Mode}:
+ * <ul>
+ * <li>{@link Mode#MAPPED} maps the written range of the file for each write and unmaps it right
+ * after, which costs a mmap and munmap system call and a TLB shootdown per write;</li>
+ * <li>{@link Mode#POSITIONAL} writes with {@link FileChannel#write(ByteBuffer, long)}. Data in heap
+ * memory is copied through direct buffers of a shared {@link DirectBufferPool} in chunks, instead
+ * of the temporary direct buffers of the size of each write that the JDK would allocate and cache
+ * per thread.</li>
+ * </ul>
+ * Instances of this class are not thread-safe, but they share the buffer pool safely.
+ */
+public abstract class FileChannelWriter {
+  /**
+   * The ways to write data to a file.
+   */
+  public enum Mode {
+    /** Map the written range of the file for each write */
+    MAPPED,
+    /** Write at a position of the file from pooled direct buffers */
+    POSITIONAL,
+  }
+
+  private static final int BUFFER_BYTES = 64 * Constants.KB;
+  private static final int BUFFER_POOL_CAPACITY = 64;
+  /** Buffer pool shared by all positional writers in the process */
+  private static final DirectBufferPool BUFFER_POOL =
+      new DirectBufferPool(BUFFER_BYTES, BUFFER_POOL_CAPACITY);
+
+  protected final FileChannel mChannel;
+
+  /**
+   * Creates a writer of the given mode.
+   *
+   * @param mode the way to write data
+   * @param channel the channel of the file to write to, it is not closed by the writer
+   * @return the writer
+   */
+  public static FileChannelWriter create(Mode mode, FileChannel channel) {
+    switch (Preconditions.checkNotNull(mode)) {
+      case MAPPED:
+        return new MappedWriter(channel);
+      case POSITIONAL:
+        return new PositionalWriter(channel, BUFFER_POOL);
+      default:
+        throw new IllegalArgumentException("Unknown write mode " + mode);
+    }
+  }
+
+  protected FileChannelWriter(FileChannel channel) {
+    mChannel = Preconditions.checkNotNull(channel);
+  }
+
+  /**
+   * Writes all remaining bytes of a buffer to the file, starting at the given position. The
+   * position of the buffer is advanced by the number of bytes written.
+   *
+   * @param position the position in the file to write at
+   * @param src the buffer to write from
+   * @return the number of bytes written
+   * @throws IOException if the write fails
+   */
+  public abstract int write(long position, ByteBuffer src) throws IOException;
+
+  /**
+   * Writes a range of a byte array to the file, starting at the given position.
+   *
+   * @param position the position in the file to write at
+   * @param b the byte array to write from
+   * @param off the offset of the range in the array
+   * @param len the length of the range
+   * @return the number of bytes written
+   * @throws IOException if the write fails
+   */
+  public int write(long position, byte[] b, int off, int len) throws IOException {
+    return write(position, ByteBuffer.wrap(b, off, len));
+  }
+
+  private static final class MappedWriter extends FileChannelWriter {
+    MappedWriter(FileChannel channel) {
+      super(channel);
+    }
+
+    @Override
+    public int write(long position, ByteBuffer src) throws IOException {
+      int length = src.remaining();
+      MappedByteBuffer mappedBuffer =
+          mChannel.map(FileChannel.MapMode.READ_WRITE, position, length);
+      mappedBuffer.put(src);
+      BufferUtils.cleanDirectBuffer(mappedBuffer);
+      return length;
+    }
+  }
+
+  private static final class PositionalWriter extends FileChannelWriter {
+    private final DirectBufferPool mBufferPool;
+
+    PositionalWriter(FileChannel channel, DirectBufferPool bufferPool) {
+      super(channel);
+      mBufferPool = bufferPool;
+    }
+
+    @Override
+    public int write(long position, ByteBuffer src) throws IOException {
+      int length = src.remaining();
+      if (src.isDirect()) {
+        writeFully(position, src);
+        return length;
+      }
+      ByteBuffer buffer = mBufferPool.acquire();
+      try {
+        long offset = position;
+        while (src.hasRemaining()) {
+          buffer.clear();
+          int chunk = Math.min(buffer.capacity(), src.remaining());
+          ByteBuffer slice = src.duplicate();
+          slice.limit(slice.position() + chunk);
+          buffer.put(slice);
+          buffer.flip();
+          writeFully(offset, buffer);
+          src.position(src.position() + chunk);
+          offset += chunk;
+        }
+      } finally {
+        mBufferPool.release(buffer);
+      }
+      return length;
+    }
+
+    private void writeFully(long position, ByteBuffer buffer) throws IOException {
+      long offset = position;
+      while (buffer.hasRemaining()) {
+        offset += mChannel.write(buffer, offset);
+      }
+    }
+  }
+}
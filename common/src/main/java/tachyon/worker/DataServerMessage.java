@@ -36,11 +36,12 @@ public class DataServerMessage {
 
   // The size of the prefix of the header: frame length (long), messageType (int)
   private static final int HEADER_PREFIX_LENGTH = 12;
-  // The request header is: HEADER_PREFIX, blockId (long), offset (long), length (long)
-  private static final int REQUEST_HEADER_LENGTH = HEADER_PREFIX_LENGTH + 24;
-  // The response header is: HEADER_PREFIX, blockId (long), offset (long), length (long),
-  // status (short)
-  private static final int RESPONSE_HEADER_LENGTH = HEADER_PREFIX_LENGTH + 26;
+  // The request header is: HEADER_PREFIX, requestId (long), blockId (long), offset (long),
+  // length (long)
+  private static final int REQUEST_HEADER_LENGTH = HEADER_PREFIX_LENGTH + 32;
+  // The response header is: HEADER_PREFIX, requestId (long), blockId (long), offset (long),
+  // length (long), status (short)
+  private static final int RESPONSE_HEADER_LENGTH = HEADER_PREFIX_LENGTH + 34;
   // The error response header is: HEADER_PREFIX, status (short)
   private static final int ERROR_RESPONSE_HEADER_LENGTH = HEADER_PREFIX_LENGTH + 2;
 
@@ -79,9 +80,26 @@ public class DataServerMessage {
    * @return The created block request message
    */
   public static DataServerMessage createBlockRequestMessage(long blockId, long offset, long len) {
+    return createBlockRequestMessage(0L, blockId, offset, len);
+  }
+
+  /**
+   * Create a block request message like {@link #createBlockRequestMessage(long, long, long)}, with
+   * the id the response should carry back.
+   *
+   * @param requestId The id of the request
+   * @param blockId The id of the block
+   * @param offset The requested data's offset in the block
+   * @param len The length of the requested data. If it's -1, it means request the data from offset
+   *        to the block's end.
+   * @return The created block request message
+   */
+  public static DataServerMessage createBlockRequestMessage(long requestId, long blockId,
+      long offset, long len) {
     DataServerMessage ret = new DataServerMessage(true, RPCMessage.Type.RPC_BLOCK_READ_REQUEST);
 
     ret.mHeader = ByteBuffer.allocate(REQUEST_HEADER_LENGTH);
+    ret.mRequestId = requestId;
     ret.mBlockId = blockId;
     ret.mOffset = offset;
     ret.mLength = len;
@@ -122,7 +140,27 @@ public class DataServerMessage {
    */
   public static DataServerMessage createBlockResponseMessage(boolean toSend, long blockId,
       long offset, long len, ByteBuffer data) {
+    return createBlockResponseMessage(toSend, 0L, blockId, offset, len, data);
+  }
+
+  /**
+   * Create a block response message like
+   * {@link #createBlockResponseMessage(boolean, long, long, long, ByteBuffer)}, answering the
+   * request of the given id.
+   *
+   * @param toSend If true the message is to send the data, otherwise it's used to receive data
+   * @param requestId The id of the request this response answers
+   * @param blockId The id of the block
+   * @param offset The responded data's offset in the block
+   * @param len The length of the responded data. If it's -1, it means respond the data from offset
+   *        to the block's end.
+   * @param data The data of the message
+   * @return The created block response message
+   */
+  public static DataServerMessage createBlockResponseMessage(boolean toSend, long requestId,
+      long blockId, long offset, long len, ByteBuffer data) {
     DataServerMessage ret = new DataServerMessage(toSend, RPCMessage.Type.RPC_BLOCK_READ_RESPONSE);
+    ret.mRequestId = requestId;
 
     if (toSend) {
       if (data != null) {
@@ -158,6 +196,10 @@ public class DataServerMessage {
 
   private ByteBuffer mHeader;
 
+  // The id of the request, which the response carries back. Connections are kept open across
+  // requests, so it tells which request a response answers.
+  private long mRequestId = 0L;
+
   private long mBlockId;
 
   private long mOffset;
@@ -220,6 +262,7 @@ public class DataServerMessage {
     }
     mHeader.putInt(mMessageType.getId()); // RPC message type
 
+    mHeader.putLong(mRequestId);
     mHeader.putLong(mBlockId);
     mHeader.putLong(mOffset);
     mHeader.putLong(mLength);
@@ -252,6 +295,16 @@ public class DataServerMessage {
     return mLength;
   }
 
+  /**
+   * Get the id of the request. Make sure the message is ready before calling this method.
+   *
+   * @return The id of the request
+   */
+  public long getRequestId() {
+    checkReady();
+    return mRequestId;
+  }
+
   /**
    * Get the id of the block's locker.
    *
@@ -351,6 +404,7 @@ public class DataServerMessage {
         Preconditions.checkState(mMessageType.getId() == receivedMessageType,
             "Unexpected message type (" + receivedMessageType + ") received. expected: "
                 + mMessageType.getId());
+        mRequestId = mHeader.getLong();
         mBlockId = mHeader.getLong();
         mOffset = mHeader.getLong();
         mLength = mHeader.getLong();
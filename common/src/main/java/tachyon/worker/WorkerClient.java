@@ -18,6 +18,8 @@ package tachyon.worker;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
@@ -334,6 +336,32 @@ public final class WorkerClient implements Closeable {
     }
   }
 
+  /**
+   * Locks a batch of blocks in one call. The locks are leases held by the session of this client,
+   * renewed by its heartbeats, until they are unlocked with {@link #unlockBlocks(List)}.
+   *
+   * @param blockIds The ids of the blocks
+   * @return the paths of the block files locked in the order of blockIds, null for each block
+   *         which could not be locked
+   * @throws IOException
+   */
+  public synchronized List<String> lockBlocks(List<Long> blockIds) throws IOException {
+    mustConnect();
+
+    try {
+      List<String> paths = new ArrayList<String>(mClient.lockBlocks(mSessionId, blockIds));
+      for (int i = 0; i < paths.size(); i ++) {
+        if (paths.get(i).isEmpty()) {
+          paths.set(i, null);
+        }
+      }
+      return paths;
+    } catch (TException e) {
+      mConnected = false;
+      throw new IOException(e);
+    }
+  }
+
   /**
    * Connects to the worker.
    *
@@ -432,6 +460,23 @@ public final class WorkerClient implements Closeable {
     }
   }
 
+  /**
+   * Unlocks a batch of blocks locked with {@link #lockBlocks(List)} in one call.
+   *
+   * @param blockIds The ids of the blocks
+   * @throws IOException
+   */
+  public synchronized void unlockBlocks(List<Long> blockIds) throws IOException {
+    mustConnect();
+
+    try {
+      mClient.unlockBlocks(mSessionId, blockIds);
+    } catch (TException e) {
+      mConnected = false;
+      throw new IOException(e);
+    }
+  }
+
   /**
    * Sends a session heartbeat to the worker. This renews the client's lease on resources such as
    * locks and temporary files and updates the worker's metrics.
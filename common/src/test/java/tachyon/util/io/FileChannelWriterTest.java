@@ -0,0 +1,87 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package tachyon.util.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tachyon.Constants;
+
+/**
+ * Unit tests for {@link FileChannelWriter}.
+ */
+public class FileChannelWriterTest {
+  // Larger than a pooled buffer, so positional writes of heap data take several chunks
+  private static final int LENGTH = 200 * Constants.KB;
+  private static final int OFFSET = 10;
+
+  @Rule
+  public TemporaryFolder mTestFolder = new TemporaryFolder();
+
+  private void writeAndCheck(FileChannelWriter.Mode mode, boolean direct) throws IOException {
+    File file = mTestFolder.newFile();
+    RandomAccessFile localFile = new RandomAccessFile(file, "rw");
+    try {
+      FileChannel channel = localFile.getChannel();
+      FileChannelWriter writer = FileChannelWriter.create(mode, channel);
+      byte[] data = BufferUtils.getIncreasingByteArray(LENGTH + OFFSET);
+      // write the head last, to check writes land at their positions
+      ByteBuffer tail;
+      if (direct) {
+        tail = ByteBuffer.allocateDirect(LENGTH);
+        tail.put(data, OFFSET, LENGTH);
+        tail.flip();
+      } else {
+        tail = ByteBuffer.wrap(data, OFFSET, LENGTH);
+      }
+      Assert.assertEquals(LENGTH, writer.write(OFFSET, tail));
+      Assert.assertFalse(tail.hasRemaining());
+      Assert.assertEquals(OFFSET, writer.write(0, data, 0, OFFSET));
+    } finally {
+      localFile.close();
+    }
+    Assert.assertEquals(LENGTH + OFFSET, file.length());
+    byte[] written = new byte[LENGTH + OFFSET];
+    RandomAccessFile readFile = new RandomAccessFile(file, "r");
+    try {
+      readFile.readFully(written);
+    } finally {
+      readFile.close();
+    }
+    Assert.assertTrue(BufferUtils.equalIncreasingByteArray(LENGTH + OFFSET, written));
+  }
+
+  @Test
+  public void positionalWriteTest() throws IOException {
+    writeAndCheck(FileChannelWriter.Mode.POSITIONAL, false);
+    writeAndCheck(FileChannelWriter.Mode.POSITIONAL, true);
+  }
+
+  @Test
+  public void mappedWriteTest() throws IOException {
+    writeAndCheck(FileChannelWriter.Mode.MAPPED, false);
+    writeAndCheck(FileChannelWriter.Mode.MAPPED, true);
+  }
+}
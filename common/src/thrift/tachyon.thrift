@@ -86,6 +86,8 @@ enum CommandType {
   Register = 2,   	// Ask the worker to re-register.
   Free = 3,		// Ask the worker to free files.
   Delete = 4,		// Ask the worker to delete files.
+  Load = 5,		// Ask the worker to load blocks from the under storage.
+  Replicate = 6,	// Ask the worker to copy blocks from other workers.
 }
 
 struct Command {
@@ -149,7 +151,8 @@ service BlockMasterService {
     throws (1: BlockInfoException bie)
 
   Command workerHeartbeat(1: i64 workerId, 2: list<i64> usedBytesOnTiers,
-      3: list<i64> removedBlockIds, 4: map<i64, list<i64>> addedBlocksOnTiers)
+      3: list<i64> removedBlockIds, 4: map<i64, list<i64>> addedBlocksOnTiers,
+      5: map<i64, i64> blockAccessCounts)
     throws (1: BlockInfoException bie)
 
   void workerCommitBlock(1: i64 workerId, 2: i64 usedBytesOnTier, 3: i32 tier, 4: i64 blockId,
@@ -338,4 +341,18 @@ service WorkerService {
    * metrics to the worker.
    */
   void sessionHeartbeat(1: i64 sessionId, 2: list<i64> metrics)
+
+  /**
+   * Locks a batch of blocks for a local session, so that the session can read their files directly
+   * until it unlocks them. The locks are leases renewed by the session heartbeats, and released
+   * when the session times out. Returns the paths of the block files in the order of blockIds, with
+   * an empty string for each block which can not be locked on this worker.
+   */
+  list<string> lockBlocks(1: i64 sessionId, 2: list<i64> blockIds)
+
+  /**
+   * Unlocks a batch of blocks locked by the session. Blocks which are not locked by the session
+   * are ignored.
+   */
+  void unlockBlocks(1: i64 sessionId, 2: list<i64> blockIds)
 }
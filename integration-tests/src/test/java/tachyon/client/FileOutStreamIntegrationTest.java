@@ -41,9 +41,9 @@ import tachyon.master.LocalTachyonCluster;
 import tachyon.thrift.FileInfo;
 import tachyon.underfs.UnderFileSystem;
 import tachyon.underfs.UnderFileSystemCluster;
+import tachyon.util.CommonUtils;
 import tachyon.util.io.BufferUtils;
 import tachyon.util.io.PathUtils;
-import tachyon.worker.WorkerContext;
 
 /**
  * Integration tests for <code>tachyon.client.FileOutStream</code>.
@@ -66,19 +66,24 @@ public class FileOutStreamIntegrationTest {
   private TachyonConf mMasterTachyonConf;
   // If true, clients will write directly to the local file.
   private final boolean mEnableLocalWrite;
+  // If true, local block files are extended to the block size when they are created.
+  private final boolean mPreallocate;
 
   @Parameterized.Parameters
   public static Collection<Object[]> data() {
     List<Object[]> list = new ArrayList<Object[]>();
     // Enable local writes.
-    list.add(new Object[] { true });
+    list.add(new Object[] { true, false });
+    // Enable local writes to preallocated block files.
+    list.add(new Object[] { true, true });
     // Disable local writes.
-    list.add(new Object[] { false });
+    list.add(new Object[] { false, false });
     return list;
   }
 
-  public FileOutStreamIntegrationTest(boolean enableLocalWrite) {
+  public FileOutStreamIntegrationTest(boolean enableLocalWrite, boolean preallocate) {
     mEnableLocalWrite = enableLocalWrite;
+    mPreallocate = preallocate;
   }
 
   @After
@@ -88,12 +93,13 @@ public class FileOutStreamIntegrationTest {
 
   @Before
   public final void before() throws Exception {
-    TachyonConf tachyonConf = WorkerContext.getConf();
+    TachyonConf tachyonConf = new TachyonConf();
     tachyonConf.set(Constants.USER_FILE_BUFFER_BYTES, String.valueOf(BUFFER_BYTES));
     tachyonConf.set(Constants.USER_ENABLE_LOCAL_WRITE, Boolean.toString(mEnableLocalWrite));
+    tachyonConf.set(Constants.USER_LOCAL_WRITE_PREALLOCATE, Boolean.toString(mPreallocate));
     // Only the Netty data server supports remote writes.
     tachyonConf.set(Constants.WORKER_DATA_SERVER, IntegrationTestConstants.NETTY_DATA_SERVER);
-    sLocalTachyonCluster.start();
+    sLocalTachyonCluster.start(tachyonConf);
     mTfs = sLocalTachyonCluster.getClient();
     mMasterTachyonConf = sLocalTachyonCluster.getMasterTachyonConf();
     sWriteBoth =
@@ -262,6 +268,28 @@ public class FileOutStreamIntegrationTest {
     checkWrite(filePath, sWriteTachyon.getUnderStorageType(), length + 1, length + 1);
   }
 
+  /**
+   * Tests that a file written with ASYNC_PERSIST is written to the under storage by the worker
+   * once it is complete.
+   */
+  @Test(timeout = 20000)
+  public void asyncPersistTest() throws IOException {
+    TachyonURI filePath = new TachyonURI(PathUtils.uniqPath());
+    ClientOptions op =
+        new ClientOptions.Builder(mMasterTachyonConf).setStorageTypes(TachyonStorageType.STORE,
+            UnderStorageType.ASYNC_PERSIST).setBlockSize(BLOCK_SIZE_BYTES).build();
+    int len = BLOCK_SIZE_BYTES * 2 + 1;
+    FileOutStream os = mTfs.getOutStream(filePath, op);
+    os.write(BufferUtils.getIncreasingByteArray(len));
+    os.close();
+
+    TachyonFile file = mTfs.open(filePath);
+    while (mTfs.getInfo(file).getUfsPath().isEmpty()) {
+      CommonUtils.sleepMs(10);
+    }
+    checkWrite(filePath, UnderStorageType.PERSIST, len, len);
+  }
+
   private List<ClientOptions> getOptionSet() {
     List<ClientOptions> ret = new ArrayList<ClientOptions>(3);
     ret.add(sWriteBoth);
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package tachyon.client.netty;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+import tachyon.util.CommonUtils;
+import tachyon.util.network.NetworkAddressUtils;
+
+/**
+ * Integration tests for {@link NettyChannelPool}, against a server which accepts connections and
+ * does not reply.
+ */
+public class NettyChannelPoolIntegrationTest {
+  private static final int IDLE_TIMEOUT_MS = 200;
+  private static final int ACQUIRE_TIMEOUT_MS = 100;
+
+  // The server only keeps the connections open.
+  @ChannelHandler.Sharable
+  private static class IgnoringHandler extends ChannelInboundHandlerAdapter {
+  }
+
+  private static NioEventLoopGroup sEventServer;
+  private static InetSocketAddress sAddress;
+
+  private final ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor();
+  private NettyChannelPool mPool = null;
+
+  @Rule
+  public ExpectedException mThrown = ExpectedException.none();
+
+  @BeforeClass
+  public static void beforeClass() {
+    sEventServer = new NioEventLoopGroup(1);
+    ServerBootstrap bootstrap = new ServerBootstrap();
+    bootstrap.group(sEventServer);
+    bootstrap.channel(NioServerSocketChannel.class);
+    bootstrap.childHandler(new IgnoringHandler());
+    Channel serverChannel = bootstrap.bind(
+        new InetSocketAddress(NetworkAddressUtils.getLocalHostName(100), 0)).syncUninterruptibly()
+        .channel();
+    sAddress = (InetSocketAddress) serverChannel.localAddress();
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    sEventServer.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    sEventServer.terminationFuture().syncUninterruptibly();
+  }
+
+  @After
+  public final void after() {
+    if (mPool != null) {
+      mPool.close();
+    }
+    mExecutor.shutdownNow();
+  }
+
+  private NettyChannelPool createPool(int maxChannels) {
+    return createPool(maxChannels, 1);
+  }
+
+  private NettyChannelPool createPool(int maxChannels, int maxRequestsPerChannel) {
+    mPool = new NettyChannelPool(NettyClient.createClientBootstrap(), mExecutor, maxChannels,
+        maxRequestsPerChannel, IDLE_TIMEOUT_MS, ACQUIRE_TIMEOUT_MS);
+    return mPool;
+  }
+
+  @Test
+  public void reuseTest() throws IOException {
+    NettyChannelPool pool = createPool(2);
+    Channel channel = pool.acquire(sAddress);
+    Assert.assertTrue(channel.isActive());
+    pool.release(sAddress, channel);
+    Assert.assertEquals(1, pool.getIdleChannelCount(sAddress));
+
+    Assert.assertSame(channel, pool.acquire(sAddress));
+    Assert.assertEquals(0, pool.getIdleChannelCount(sAddress));
+    // The channel is in use, so another one is opened
+    Channel other = pool.acquire(sAddress);
+    Assert.assertNotSame(channel, other);
+    pool.release(sAddress, other);
+    pool.release(sAddress, channel);
+    Assert.assertEquals(2, pool.getIdleChannelCount(sAddress));
+  }
+
+  @Test
+  public void shareTest() throws IOException {
+    NettyChannelPool pool = createPool(2, 2);
+    Channel channel = pool.acquire(sAddress);
+    // The channel takes a second request before another one is opened
+    Assert.assertSame(channel, pool.acquire(sAddress));
+    Channel other = pool.acquire(sAddress);
+    Assert.assertNotSame(channel, other);
+    Assert.assertSame(other, pool.acquire(sAddress));
+    // A request goes to the channel with the fewest outstanding requests
+    pool.release(sAddress, channel);
+    Assert.assertSame(channel, pool.acquire(sAddress));
+    Assert.assertEquals(0, pool.getIdleChannelCount(sAddress));
+    // Both channels carry the maximum of requests
+    mThrown.expect(IOException.class);
+    pool.acquire(sAddress);
+  }
+
+  @Test
+  public void maxChannelsTest() throws IOException {
+    NettyChannelPool pool = createPool(1);
+    pool.acquire(sAddress);
+    mThrown.expect(IOException.class);
+    pool.acquire(sAddress);
+  }
+
+  @Test
+  public void discardTest() throws IOException {
+    NettyChannelPool pool = createPool(1);
+    Channel channel = pool.acquire(sAddress);
+    pool.discard(sAddress, channel);
+    channel.closeFuture().syncUninterruptibly();
+    Assert.assertEquals(0, pool.getIdleChannelCount(sAddress));
+    // The discarded channel does not count towards the maximum
+    Channel other = pool.acquire(sAddress);
+    Assert.assertNotSame(channel, other);
+  }
+
+  @Test
+  public void closedChannelTest() throws IOException {
+    NettyChannelPool pool = createPool(1);
+    Channel channel = pool.acquire(sAddress);
+    pool.release(sAddress, channel);
+    channel.close().syncUninterruptibly();
+    // The idle channel is not connected anymore, so a new one is opened
+    Channel other = pool.acquire(sAddress);
+    Assert.assertNotSame(channel, other);
+    Assert.assertTrue(other.isActive());
+  }
+
+  @Test
+  public void idleEvictionTest() throws IOException {
+    NettyChannelPool pool = createPool(1);
+    Channel channel = pool.acquire(sAddress);
+    pool.release(sAddress, channel);
+    CommonUtils.sleepMs(IDLE_TIMEOUT_MS * 3);
+    Assert.assertEquals(0, pool.getIdleChannelCount(sAddress));
+    channel.closeFuture().syncUninterruptibly();
+    Assert.assertFalse(channel.isOpen());
+  }
+}
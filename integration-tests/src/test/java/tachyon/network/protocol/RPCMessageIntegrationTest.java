@@ -58,6 +58,7 @@ import tachyon.util.network.NetworkAddressUtils;
  * to the client.
  */
 public class RPCMessageIntegrationTest {
+  private static final long REQUEST_ID = 9;
   private static final long SESSION_ID = 10;
   private static final long BLOCK_ID = 11;
   private static final long OFFSET = 22;
@@ -144,6 +145,7 @@ public class RPCMessageIntegrationTest {
   private void assertValid(RPCBlockReadRequest expected, RPCBlockReadRequest actual) {
     Assert.assertEquals(expected.getType(), actual.getType());
     Assert.assertEquals(expected.getEncodedLength(), actual.getEncodedLength());
+    Assert.assertEquals(expected.getRequestId(), actual.getRequestId());
     Assert.assertEquals(expected.getBlockId(), actual.getBlockId());
     Assert.assertEquals(expected.getOffset(), actual.getOffset());
     Assert.assertEquals(expected.getLength(), actual.getLength());
@@ -152,6 +154,7 @@ public class RPCMessageIntegrationTest {
   private void assertValid(RPCBlockReadResponse expected, RPCBlockReadResponse actual) {
     Assert.assertEquals(expected.getType(), actual.getType());
     Assert.assertEquals(expected.getEncodedLength(), actual.getEncodedLength());
+    Assert.assertEquals(expected.getRequestId(), actual.getRequestId());
     Assert.assertEquals(expected.getBlockId(), actual.getBlockId());
     Assert.assertEquals(expected.getOffset(), actual.getOffset());
     Assert.assertEquals(expected.getLength(), actual.getLength());
@@ -169,6 +172,7 @@ public class RPCMessageIntegrationTest {
   private void assertValid(RPCBlockWriteRequest expected, RPCBlockWriteRequest actual) {
     Assert.assertEquals(expected.getType(), actual.getType());
     Assert.assertEquals(expected.getEncodedLength(), actual.getEncodedLength());
+    Assert.assertEquals(expected.getRequestId(), actual.getRequestId());
     Assert.assertEquals(expected.getBlockId(), actual.getBlockId());
     Assert.assertEquals(expected.getOffset(), actual.getOffset());
     Assert.assertEquals(expected.getLength(), actual.getLength());
@@ -182,6 +186,7 @@ public class RPCMessageIntegrationTest {
   private void assertValid(RPCBlockWriteResponse expected, RPCBlockWriteResponse actual) {
     Assert.assertEquals(expected.getType(), actual.getType());
     Assert.assertEquals(expected.getEncodedLength(), actual.getEncodedLength());
+    Assert.assertEquals(expected.getRequestId(), actual.getRequestId());
     Assert.assertEquals(expected.getBlockId(), actual.getBlockId());
     Assert.assertEquals(expected.getOffset(), actual.getOffset());
     Assert.assertEquals(expected.getLength(), actual.getLength());
@@ -219,7 +224,7 @@ public class RPCMessageIntegrationTest {
 
   @Test
   public void RPCBlockReadRequestTest() {
-    RPCBlockReadRequest msg = new RPCBlockReadRequest(BLOCK_ID, OFFSET, LENGTH);
+    RPCBlockReadRequest msg = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH);
     RPCBlockReadRequest decoded = (RPCBlockReadRequest) encodeThenDecode(msg);
     assertValid(msg, decoded);
   }
@@ -228,8 +233,8 @@ public class RPCMessageIntegrationTest {
   public void RPCBlockReadResponseTest() {
     ByteBuffer payload = BufferUtils.getIncreasingByteBuffer((int) OFFSET, (int) LENGTH);
     RPCBlockReadResponse msg =
-        new RPCBlockReadResponse(BLOCK_ID, OFFSET, LENGTH, new DataByteBuffer(payload, LENGTH),
-            RPCResponse.Status.SUCCESS);
+        new RPCBlockReadResponse(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH,
+            new DataByteBuffer(payload, LENGTH), RPCResponse.Status.SUCCESS);
     RPCBlockReadResponse decoded = (RPCBlockReadResponse) encodeThenDecode(msg);
     assertValid(msg, decoded);
   }
@@ -237,7 +242,8 @@ public class RPCMessageIntegrationTest {
   @Test
   public void RPCBlockReadResponseEmptyPayloadTest() {
     RPCBlockReadResponse msg =
-        new RPCBlockReadResponse(BLOCK_ID, OFFSET, 0, null, RPCResponse.Status.SUCCESS);
+        new RPCBlockReadResponse(REQUEST_ID, BLOCK_ID, OFFSET, 0, null,
+            RPCResponse.Status.SUCCESS);
     RPCBlockReadResponse decoded = (RPCBlockReadResponse) encodeThenDecode(msg);
     assertValid(msg, decoded);
   }
@@ -245,7 +251,8 @@ public class RPCMessageIntegrationTest {
   @Test
   public void RPCBlockReadResponseErrorTest() {
     RPCBlockReadResponse msg =
-        RPCBlockReadResponse.createErrorResponse(new RPCBlockReadRequest(BLOCK_ID, OFFSET, LENGTH),
+        RPCBlockReadResponse.createErrorResponse(
+            new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH),
             RPCResponse.Status.FILE_DNE);
     RPCBlockReadResponse decoded = (RPCBlockReadResponse) encodeThenDecode(msg);
     assertValid(msg, decoded);
@@ -255,8 +262,8 @@ public class RPCMessageIntegrationTest {
   public void RPCBlockReadResponseFileChannelTest() throws IOException {
     FileChannel payload = getTempFileChannel();
     RPCBlockReadResponse msg =
-        new RPCBlockReadResponse(BLOCK_ID, OFFSET, LENGTH, new DataFileChannel(payload, OFFSET,
-            LENGTH), RPCResponse.Status.SUCCESS);
+        new RPCBlockReadResponse(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH,
+            new DataFileChannel(payload, OFFSET, LENGTH), RPCResponse.Status.SUCCESS);
     RPCBlockReadResponse decoded = (RPCBlockReadResponse) encodeThenDecode(msg);
     assertValid(msg, decoded);
   }
@@ -265,8 +272,8 @@ public class RPCMessageIntegrationTest {
   public void RPCBlockWriteRequestTest() {
     ByteBuffer payload = BufferUtils.getIncreasingByteBuffer((int) OFFSET, (int) LENGTH);
     RPCBlockWriteRequest msg =
-        new RPCBlockWriteRequest(SESSION_ID, BLOCK_ID, OFFSET, LENGTH, new DataByteBuffer(payload,
-            LENGTH));
+        new RPCBlockWriteRequest(REQUEST_ID, SESSION_ID, BLOCK_ID, OFFSET, LENGTH,
+            new DataByteBuffer(payload, LENGTH));
     RPCBlockWriteRequest decoded = (RPCBlockWriteRequest) encodeThenDecode(msg);
     assertValid(msg, decoded);
   }
@@ -274,7 +281,8 @@ public class RPCMessageIntegrationTest {
   @Test
   public void RPCBlockWriteResponseTest() {
     RPCBlockWriteResponse msg =
-        new RPCBlockWriteResponse(SESSION_ID, BLOCK_ID, OFFSET, LENGTH, RPCResponse.Status.SUCCESS);
+        new RPCBlockWriteResponse(REQUEST_ID, SESSION_ID, BLOCK_ID, OFFSET, LENGTH,
+            RPCResponse.Status.SUCCESS);
     RPCBlockWriteResponse decoded = (RPCBlockWriteResponse) encodeThenDecode(msg);
     assertValid(msg, decoded);
   }
@@ -255,6 +255,60 @@ public class DataServerIntegrationTest {
     assertValid(recvMsg, length, block.getBlockId(), 0, length);
   }
 
+  @Test
+  public void pipelinedReadTest() throws IOException {
+    final int length = 10;
+    TachyonFile file =
+        TachyonFSTestUtils.createByteFile(mTFS, "/testFile", TachyonStorageType.STORE,
+            UnderStorageType.NO_PERSIST, length);
+    BlockInfo block = getFirstBlockInfo(file);
+    SocketChannel socketChannel = SocketChannel
+        .open(new InetSocketAddress(block.getLocations().get(0).getWorkerAddress().getHost(),
+            block.getLocations().get(0).getWorkerAddress().getDataPort()));
+    try {
+      // Both requests are sent before any response is read, on the same connection
+      DataServerMessage[] sendMsgs = {
+          DataServerMessage.createBlockRequestMessage(1, block.blockId, 0, length),
+          DataServerMessage.createBlockRequestMessage(2, block.blockId, 2, 5)};
+      for (DataServerMessage sendMsg : sendMsgs) {
+        while (!sendMsg.finishSending()) {
+          sendMsg.send(socketChannel);
+        }
+      }
+      DataServerMessage recvMsg = receive(socketChannel, block.blockId);
+      Assert.assertEquals(1, recvMsg.getRequestId());
+      assertValid(recvMsg, length, block.getBlockId(), 0, length);
+      recvMsg = receive(socketChannel, block.blockId);
+      Assert.assertEquals(2, recvMsg.getRequestId());
+      assertValid(recvMsg, BufferUtils.getIncreasingByteBuffer(2, 5), block.getBlockId(), 2, 5);
+    } finally {
+      socketChannel.close();
+    }
+  }
+
+  @Test
+  public void readThroughClientReuseTest() throws IOException {
+    final int length = 10;
+    TachyonFile file =
+        TachyonFSTestUtils.createByteFile(mTFS, "/testFile", TachyonStorageType.STORE,
+            UnderStorageType.NO_PERSIST, length);
+    BlockInfo block = getFirstBlockInfo(file);
+    InetSocketAddress address =
+        new InetSocketAddress(block.getLocations().get(0).getWorkerAddress().getHost(),
+            block.getLocations().get(0).getWorkerAddress().getDataPort());
+
+    RemoteBlockReader client =
+        RemoteBlockReader.Factory.createRemoteBlockReader(mWorkerTachyonConf);
+    try {
+      Assert.assertEquals(BufferUtils.getIncreasingByteBuffer(length),
+          client.readRemoteBlock(address, block.getBlockId(), 0, length));
+      Assert.assertEquals(BufferUtils.getIncreasingByteBuffer(3, 4),
+          client.readRemoteBlock(address, block.getBlockId(), 3, 4));
+    } finally {
+      client.close();
+    }
+  }
+
   @Test
   public void readThroughClientTest()
       throws InvalidPathException, FileAlreadyExistException, IOException {
@@ -347,20 +401,28 @@ public class DataServerIntegrationTest {
       while (!sendMsg.finishSending()) {
         sendMsg.send(socketChannel);
       }
-      DataServerMessage recvMsg =
-          DataServerMessage.createBlockResponseMessage(false, block.blockId, offset, length, null);
-      while (!recvMsg.isMessageReady()) {
-        int numRead = recvMsg.recv(socketChannel);
-        if (numRead == -1) {
-          break;
-        }
-      }
-      return recvMsg;
+      return receive(socketChannel, block.blockId);
     } finally {
       socketChannel.close();
     }
   }
 
+  /**
+   * Receives the next block response from a socket.
+   */
+  private DataServerMessage receive(final SocketChannel socketChannel, final long blockId)
+      throws IOException {
+    DataServerMessage recvMsg =
+        DataServerMessage.createBlockResponseMessage(false, blockId, null);
+    while (!recvMsg.isMessageReady()) {
+      int numRead = recvMsg.recv(socketChannel);
+      if (numRead == -1) {
+        break;
+      }
+    }
+    return recvMsg;
+  }
+
   /**
    * Returns the MasterBlockInfo of the first block of the file
    *
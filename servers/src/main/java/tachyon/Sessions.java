@@ -38,6 +38,8 @@ public class Sessions {
   public static final int MIGRATE_DATA_SESSION_ID = -3;
   public static final int MASTER_COMMAND_SESSION_ID = -4;
   public static final int ACCESS_BLOCK_SESSION_ID = -5;
+  public static final int READ_THROUGH_SESSION_ID = -6;
+  public static final int CHECKSUM_SESSION_ID = -7;
 
   private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
 
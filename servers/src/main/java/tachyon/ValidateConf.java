@@ -53,7 +53,7 @@ public class ValidateConf {
     // Tachyon version is a valid conf entry but not defined in tachyon.Constants
     validProperties.add("tachyon.version");
 
-    // There are three properties that are auto-generated in WorkerStorage based on corresponding
+    // There are four properties that are auto-generated in WorkerStorage based on corresponding
     // format strings defined in tachyon.Constants. Here we transform each format string to a regexp
     // to check if a property name follows the format. E.g.,
     // "tachyon.worker.tieredstore.level%d.alias" is transformed to
@@ -67,13 +67,17 @@ public class ValidateConf {
     Pattern dirsQuotaPattern =
         Pattern.compile(Constants.WORKER_TIERED_STORAGE_LEVEL_DIRS_QUOTA_FORMAT.replace("%d",
             "\\d+").replace(".", "\\."));
+    Pattern compressionPattern =
+        Pattern.compile(Constants.WORKER_TIERED_STORAGE_LEVEL_COMPRESSION_ENABLED_FORMAT
+            .replace("%d", "\\d+").replace(".", "\\."));
     TachyonConf tachyonConf = new TachyonConf();
     boolean valid = true;
     for (Entry<String, String> entry : tachyonConf.toMap().entrySet()) {
       String propertyName = entry.getKey();
       if (aliasPattern.matcher(propertyName).matches()
           || dirsPathPattern.matcher(propertyName).matches()
-          || dirsQuotaPattern.matcher(propertyName).matches()) {
+          || dirsQuotaPattern.matcher(propertyName).matches()
+          || compressionPattern.matcher(propertyName).matches()) {
         continue;
       }
       if (propertyName.startsWith("tachyon.") && !validProperties.contains(propertyName)) {
@@ -19,8 +19,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -30,6 +32,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.thrift.TProcessor;
 import org.slf4j.Logger;
@@ -87,6 +90,17 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
    * mBlocks.
    */
   private final Set<Long> mLostBlocks = new HashSet<Long>();
+  /**
+   * Number of accesses to each block reported by the workers since the last round of hot block
+   * replication. Access must be synchronized on mBlocks.
+   */
+  private final Map<Long, Long> mBlockAccessCounts = new HashMap<Long, Long>();
+  /**
+   * Extra replicas of hot blocks made by the master. Maps each block id to the ids of the workers
+   * asked to hold an extra replica of the block, and the time of the request. Access must be
+   * synchronized on mBlocks.
+   */
+  private final Map<Long, Map<Long, Long>> mExtraReplicas = new HashMap<Long, Map<Long, Long>>();
   /** This state must be journaled. */
   private final BlockContainerIdGenerator mBlockContainerIdGenerator =
       new BlockContainerIdGenerator();
@@ -121,6 +135,24 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
       new LinkedBlockingQueue<MasterWorkerInfo>();
   /** The service that detects lost worker nodes, and tries to restart the failed workers. */
   private Future<?> mLostWorkerDetectionService;
+  /** The service that replicates hot blocks to other workers, and drops unneeded replicas. */
+  private Future<?> mHotBlockReplicationService;
+  /** If true, the master tracks block accesses and replicates hot blocks. */
+  private final boolean mReplicationEnabled;
+  /**
+   * Total bytes on each storage tier, summed over all workers. Only updated while mWorkers is
+   * locked, but read without locking.
+   */
+  private final AtomicLongArray mTotalBytesOnTiers = new AtomicLongArray(StorageLevelAlias.SIZE);
+  /**
+   * Used bytes on each storage tier, summed over all workers. Only updated while mWorkers is
+   * locked, but read without locking.
+   */
+  private final AtomicLongArray mUsedBytesOnTiers = new AtomicLongArray(StorageLevelAlias.SIZE);
+  /** Total capacity of all workers in bytes, the sum of mTotalBytesOnTiers. */
+  private final AtomicLong mCapacityBytes = new AtomicLong(0);
+  /** Used bytes of all workers, the sum of mUsedBytesOnTiers. */
+  private final AtomicLong mUsedBytes = new AtomicLong(0);
   /** The next worker id to use. This state must be journaled. */
   private final AtomicLong mNextWorkerId = new AtomicLong(1);
 
@@ -134,8 +166,9 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
 
   public BlockMaster(TachyonConf tachyonConf, Journal journal) {
     super(journal,
-        Executors.newFixedThreadPool(2, ThreadFactoryUtils.build("block-master-%d", true)));
+        Executors.newFixedThreadPool(3, ThreadFactoryUtils.build("block-master-%d", true)));
     mTachyonConf = tachyonConf;
+    mReplicationEnabled = mTachyonConf.getBoolean(Constants.MASTER_REPLICATION_ENABLED);
   }
 
   @Override
@@ -190,6 +223,12 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
           getExecutorService().submit(new HeartbeatThread("Lost worker detection service",
               new LostWorkerDetectionHeartbeatExecutor(),
               mTachyonConf.getInt(Constants.MASTER_HEARTBEAT_INTERVAL_MS)));
+      if (mReplicationEnabled) {
+        mHotBlockReplicationService =
+            getExecutorService().submit(new HeartbeatThread("Hot block replication service",
+                new HotBlockReplicationHeartbeatExecutor(),
+                mTachyonConf.getInt(Constants.MASTER_REPLICATION_INTERVAL_MS)));
+      }
     }
   }
 
@@ -199,6 +238,9 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
     if (mLostWorkerDetectionService != null) {
       mLostWorkerDetectionService.cancel(true);
     }
+    if (mHotBlockReplicationService != null) {
+      mHotBlockReplicationService.cancel(true);
+    }
   }
 
   /**
@@ -229,13 +271,7 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
    *         and internal web ui.
    */
   public long getCapacityBytes() {
-    long ret = 0;
-    synchronized (mWorkers) {
-      for (MasterWorkerInfo worker : mWorkers) {
-        ret += worker.getCapacityBytes();
-      }
-    }
-    return ret;
+    return mCapacityBytes.get();
   }
 
   /**
@@ -243,13 +279,7 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
    *         internal web ui.
    */
   public long getUsedBytes() {
-    long ret = 0;
-    synchronized (mWorkers) {
-      for (MasterWorkerInfo worker : mWorkers) {
-        ret += worker.getUsedBytes();
-      }
-    }
-    return ret;
+    return mUsedBytes.get();
   }
 
   /**
@@ -293,6 +323,67 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
     }
   }
 
+  /**
+   * @return the ids of the blocks which are no longer in Tachyon storage. Called by internal
+   *         masters.
+   */
+  public Set<Long> getLostBlocks() {
+    synchronized (mBlocks) {
+      return new HashSet<Long>(mLostBlocks);
+    }
+  }
+
+  /**
+   * Asks healthy workers to load the given lost blocks from the under storage. Each block is
+   * assigned to the worker with the most available bytes which has not yet been assigned
+   * maxBlocksPerWorker blocks in this call. Blocks which are no longer lost, or which no worker can
+   * hold, are skipped. Called by internal masters.
+   *
+   * @param blockIds the ids of the lost blocks to load, in priority order
+   * @param maxBlocksPerWorker the maximum number of blocks to assign to a single worker
+   * @return the ids of the blocks which were assigned to a worker
+   */
+  public List<Long> loadLostBlocks(List<Long> blockIds, int maxBlocksPerWorker) {
+    List<Long> ret = new ArrayList<Long>();
+    synchronized (mBlocks) {
+      synchronized (mWorkers) {
+        Map<Long, Integer> assignedCounts = new HashMap<Long, Integer>();
+        Map<Long, Long> availableBytes = new HashMap<Long, Long>();
+        for (MasterWorkerInfo worker : mWorkers) {
+          availableBytes.put(worker.getId(), worker.getAvailableBytes());
+        }
+        for (long blockId : blockIds) {
+          MasterBlockInfo masterBlockInfo = mBlocks.get(blockId);
+          if (masterBlockInfo == null || !mLostBlocks.contains(blockId)) {
+            continue;
+          }
+          MasterWorkerInfo target = null;
+          for (MasterWorkerInfo worker : mWorkers) {
+            Integer assigned = assignedCounts.get(worker.getId());
+            if ((assigned != null && assigned >= maxBlocksPerWorker)
+                || availableBytes.get(worker.getId()) < masterBlockInfo.getLength()) {
+              continue;
+            }
+            if (target == null
+                || availableBytes.get(worker.getId()) > availableBytes.get(target.getId())) {
+              target = worker;
+            }
+          }
+          if (target == null) {
+            continue;
+          }
+          target.updateToLoadBlock(true, blockId);
+          Integer assigned = assignedCounts.get(target.getId());
+          assignedCounts.put(target.getId(), assigned == null ? 1 : assigned + 1);
+          availableBytes.put(target.getId(),
+              availableBytes.get(target.getId()) - masterBlockInfo.getLength());
+          ret.add(blockId);
+        }
+      }
+    }
+    return ret;
+  }
+
   /**
    * @return a new block container id. Called by internal masters.
    */
@@ -323,7 +414,10 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
       synchronized (mWorkers) {
         MasterWorkerInfo workerInfo = mWorkers.getFirstByField(mIdIndex, workerId);
         workerInfo.addBlock(blockId);
+        List<Long> oldUsedBytesOnTiers = copyOf(workerInfo.getUsedBytesOnTiers());
         workerInfo.updateUsedBytes(tierAlias, usedBytesOnTier);
+        updateAggregate(mUsedBytesOnTiers, mUsedBytes, oldUsedBytesOnTiers,
+            workerInfo.getUsedBytesOnTiers());
         workerInfo.updateLastUpdatedTimeMs();
 
         MasterBlockInfo masterBlockInfo = mBlocks.get(blockId);
@@ -407,30 +501,14 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
    * @return the total bytes on each storage tier. Called by internal web ui.
    */
   public List<Long> getTotalBytesOnTiers() {
-    List<Long> ret = new ArrayList<Long>(Collections.nCopies(StorageLevelAlias.SIZE, 0L));
-    synchronized (mWorkers) {
-      for (MasterWorkerInfo worker : mWorkers) {
-        for (int i = 0; i < worker.getTotalBytesOnTiers().size(); i ++) {
-          ret.set(i, ret.get(i) + worker.getTotalBytesOnTiers().get(i));
-        }
-      }
-    }
-    return ret;
+    return toList(mTotalBytesOnTiers);
   }
 
   /**
    * @return the used bytes on each storage tier. Called by internal web ui.
    */
   public List<Long> getUsedBytesOnTiers() {
-    List<Long> ret = new ArrayList<Long>(Collections.nCopies(StorageLevelAlias.SIZE, 0L));
-    synchronized (mWorkers) {
-      for (MasterWorkerInfo worker : mWorkers) {
-        for (int i = 0; i < worker.getUsedBytesOnTiers().size(); i ++) {
-          ret.set(i, ret.get(i) + worker.getUsedBytesOnTiers().get(i));
-        }
-      }
-    }
-    return ret;
+    return toList(mUsedBytesOnTiers);
   }
 
   /**
@@ -492,7 +570,13 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
         }
 
         // Detect any lost blocks on this worker.
+        List<Long> oldTotalBytesOnTiers = copyOf(workerInfo.getTotalBytesOnTiers());
+        List<Long> oldUsedBytesOnTiers = copyOf(workerInfo.getUsedBytesOnTiers());
         Set<Long> removedBlocks = workerInfo.register(totalBytesOnTiers, usedBytesOnTiers, blocks);
+        updateAggregate(mTotalBytesOnTiers, mCapacityBytes, oldTotalBytesOnTiers,
+            workerInfo.getTotalBytesOnTiers());
+        updateAggregate(mUsedBytesOnTiers, mUsedBytes, oldUsedBytesOnTiers,
+            workerInfo.getUsedBytesOnTiers());
 
         processWorkerRemovedBlocks(workerInfo, removedBlocks);
         processWorkerAddedBlocks(workerInfo, currentBlocksOnTiers);
@@ -511,10 +595,13 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
    * @param removedBlockIds a list of block ids removed from this worker
    * @param addedBlocksOnTiers the added blocks for each storage dir. It maps storage dir id, to a
    *        list of added block for that storage dir.
+   * @param blockAccessCounts the number of accesses to each block of this worker since the last
+   *        heartbeat
    * @return an optional command for the worker to execute
    */
   public Command workerHeartbeat(long workerId, List<Long> usedBytesOnTiers,
-      List<Long> removedBlockIds, Map<Long, List<Long>> addedBlocksOnTiers) {
+      List<Long> removedBlockIds, Map<Long, List<Long>> addedBlocksOnTiers,
+      Map<Long, Long> blockAccessCounts) {
     synchronized (mBlocks) {
       synchronized (mWorkers) {
         if (!mWorkers.contains(mIdIndex, workerId)) {
@@ -524,15 +611,42 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
         MasterWorkerInfo workerInfo = mWorkers.getFirstByField(mIdIndex, workerId);
         processWorkerRemovedBlocks(workerInfo, removedBlockIds);
         processWorkerAddedBlocks(workerInfo, addedBlocksOnTiers);
+        if (mReplicationEnabled) {
+          for (Entry<Long, Long> entry : blockAccessCounts.entrySet()) {
+            Long count = mBlockAccessCounts.get(entry.getKey());
+            mBlockAccessCounts.put(entry.getKey(),
+                count == null ? entry.getValue() : count + entry.getValue());
+          }
+        }
 
+        List<Long> oldUsedBytesOnTiers = copyOf(workerInfo.getUsedBytesOnTiers());
         workerInfo.updateUsedBytes(usedBytesOnTiers);
+        updateAggregate(mUsedBytesOnTiers, mUsedBytes, oldUsedBytesOnTiers,
+            workerInfo.getUsedBytesOnTiers());
         workerInfo.updateLastUpdatedTimeMs();
 
+        // Free is sent until the worker reports the blocks removed, which takes long for blocks
+        // locked by readers. Once the last command already had all the blocks to free, the other
+        // commands take their turn, so that they are not starved by a long pending Free.
         List<Long> toRemoveBlocks = workerInfo.getToRemoveBlocks();
-        if (toRemoveBlocks.isEmpty()) {
-          return new Command(CommandType.Nothing, new ArrayList<Long>());
+        if (!toRemoveBlocks.isEmpty() && !workerInfo.isFreeSent(toRemoveBlocks)) {
+          workerInfo.setLastFreeBlocks(toRemoveBlocks);
+          return new Command(CommandType.Free, toRemoveBlocks);
         }
-        return new Command(CommandType.Free, toRemoveBlocks);
+        workerInfo.setLastFreeBlocks(new ArrayList<Long>());
+        List<Long> toLoadBlocks = workerInfo.pollToLoadBlocks();
+        if (!toLoadBlocks.isEmpty()) {
+          return new Command(CommandType.Load, toLoadBlocks);
+        }
+        List<Long> toReplicateBlocks = workerInfo.pollToReplicateBlocks();
+        if (!toReplicateBlocks.isEmpty()) {
+          return new Command(CommandType.Replicate, toReplicateBlocks);
+        }
+        if (!toRemoveBlocks.isEmpty()) {
+          workerInfo.setLastFreeBlocks(toRemoveBlocks);
+          return new Command(CommandType.Free, toRemoveBlocks);
+        }
+        return new Command(CommandType.Nothing, new ArrayList<Long>());
       }
     }
   }
@@ -591,6 +705,67 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
     }
   }
 
+  /**
+   * Applies a change of the bytes of a worker to a cluster capacity aggregate. Each tier of the
+   * aggregate and its sum are moved by the difference in a single update, so that readers, which
+   * do not lock, never see the old bytes of the worker subtracted without the new ones added.
+   *
+   * mWorkers should already be locked before calling this method.
+   *
+   * @param aggregate the per tier aggregate to update
+   * @param sum the sum of the aggregate over all tiers
+   * @param oldBytesOnTiers the bytes on each tier of the worker before the change, or null if the
+   *        worker was not registered
+   * @param newBytesOnTiers the bytes on each tier of the worker after the change, or null if the
+   *        worker is lost
+   */
+  private static void updateAggregate(AtomicLongArray aggregate, AtomicLong sum,
+      List<Long> oldBytesOnTiers, List<Long> newBytesOnTiers) {
+    long sumDelta = 0;
+    for (int i = 0; i < aggregate.length(); i ++) {
+      long delta = bytesOnTier(newBytesOnTiers, i) - bytesOnTier(oldBytesOnTiers, i);
+      if (delta != 0) {
+        aggregate.addAndGet(i, delta);
+        sumDelta += delta;
+      }
+    }
+    if (sumDelta != 0) {
+      sum.addAndGet(sumDelta);
+    }
+  }
+
+  /**
+   * @param bytesOnTiers the bytes on each tier of a worker, or null
+   * @param index the index of the tier
+   * @return the bytes on the tier, 0 if unknown
+   */
+  private static long bytesOnTier(List<Long> bytesOnTiers, int index) {
+    if (bytesOnTiers == null || index >= bytesOnTiers.size()) {
+      return 0;
+    }
+    return bytesOnTiers.get(index);
+  }
+
+  /**
+   * @param bytesOnTiers the bytes on each tier of a worker, or null
+   * @return a copy of the list, which the worker may update in place, or null
+   */
+  private static List<Long> copyOf(List<Long> bytesOnTiers) {
+    return bytesOnTiers == null ? null : new ArrayList<Long>(bytesOnTiers);
+  }
+
+  /**
+   * @param aggregate a per tier aggregate
+   * @return a snapshot of the aggregate as a list
+   */
+  private static List<Long> toList(AtomicLongArray aggregate) {
+    List<Long> ret = new ArrayList<Long>(aggregate.length());
+    for (int i = 0; i < aggregate.length(); i ++) {
+      ret.add(aggregate.get(i));
+    }
+    return ret;
+  }
+
   /**
    * Creates a {@link BlockInfo} form a given {@link MasterBlockInfo}, by populating worker
    * locations.
@@ -623,15 +798,23 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
       LOG.debug("System status checking.");
 
       int masterWorkerTimeoutMs = mTachyonConf.getInt(Constants.MASTER_WORKER_TIMEOUT_MS);
-      synchronized (mWorkers) {
-        for (MasterWorkerInfo worker : mWorkers) {
-          if (CommonUtils.getCurrentMs() - worker.getLastUpdatedTimeMs() > masterWorkerTimeoutMs) {
-            LOG.error("The worker " + worker + " got timed out!");
-            mLostWorkers.add(worker);
-            mWorkers.remove(worker);
-          } else if (mLostWorkers.contains(worker)) {
-            LOG.info("The lost worker " + worker + " is found.");
-            mLostWorkers.remove(worker);
+      synchronized (mBlocks) {
+        synchronized (mWorkers) {
+          for (MasterWorkerInfo worker : mWorkers) {
+            if (CommonUtils.getCurrentMs() - worker.getLastUpdatedTimeMs()
+                > masterWorkerTimeoutMs) {
+              LOG.error("The worker " + worker + " got timed out!");
+              mLostWorkers.add(worker);
+              mWorkers.remove(worker);
+              updateAggregate(mTotalBytesOnTiers, mCapacityBytes,
+                  worker.getTotalBytesOnTiers(), null);
+              updateAggregate(mUsedBytesOnTiers, mUsedBytes, worker.getUsedBytesOnTiers(), null);
+              // The blocks of the lost worker are no longer available from it.
+              processWorkerRemovedBlocks(worker, worker.getBlocks());
+            } else if (mLostWorkers.contains(worker)) {
+              LOG.info("The lost worker " + worker + " is found.");
+              mLostWorkers.remove(worker);
+            }
           }
         }
       }
@@ -649,4 +832,169 @@ public final class BlockMaster extends MasterBase implements ContainerIdGenerabl
       }
     }
   }
+
+  /**
+   * Periodically replicates frequently accessed blocks to other workers, so reads of a hot block
+   * are spread over several workers, and drops the extra replicas once the accesses fall. The
+   * replicas to create in one round are bounded by the replication bandwidth budget.
+   */
+  public final class HotBlockReplicationHeartbeatExecutor implements HeartbeatExecutor {
+    private final long mIntervalMs;
+    private final int mMaxReplication;
+    private final long mHotAccessCount;
+    private final long mBytesPerRound;
+
+    public HotBlockReplicationHeartbeatExecutor() {
+      mIntervalMs = mTachyonConf.getInt(Constants.MASTER_REPLICATION_INTERVAL_MS);
+      mMaxReplication = mTachyonConf.getInt(Constants.MASTER_REPLICATION_MAX);
+      mHotAccessCount = Math.max(1, mTachyonConf.getLong(
+          Constants.MASTER_REPLICATION_HOT_ACCESS_COUNT));
+      mBytesPerRound = mTachyonConf.getBytes(Constants.MASTER_REPLICATION_BANDWIDTH_BYTES_PER_SEC)
+          * mIntervalMs / Constants.SECOND_MS;
+    }
+
+    @Override
+    public void heartbeat() {
+      long nowMs = CommonUtils.getCurrentMs();
+      synchronized (mBlocks) {
+        synchronized (mWorkers) {
+          final Map<Long, Long> accessCounts = new HashMap<Long, Long>(mBlockAccessCounts);
+          mBlockAccessCounts.clear();
+          dropExtraReplicas(accessCounts, nowMs);
+          replicateHotBlocks(accessCounts, nowMs);
+        }
+      }
+    }
+
+    /**
+     * @param accessCount the number of accesses to a block in the last round
+     * @return the number of replicas the block should have
+     */
+    private int getDesiredReplication(Long accessCount) {
+      if (accessCount == null) {
+        return 1;
+      }
+      return (int) Math.min(mMaxReplication, 1 + accessCount / mHotAccessCount);
+    }
+
+    /**
+     * Forgets replica requests which did not complete within a round, and asks workers to free
+     * the extra replicas of blocks which are no longer hot. Only replicas made by this service are
+     * dropped.
+     *
+     * mBlocks and mWorkers should already be locked before calling this method.
+     */
+    private void dropExtraReplicas(Map<Long, Long> accessCounts, long nowMs) {
+      Iterator<Entry<Long, Map<Long, Long>>> iterator = mExtraReplicas.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Entry<Long, Map<Long, Long>> entry = iterator.next();
+        MasterBlockInfo masterBlockInfo = mBlocks.get(entry.getKey());
+        if (masterBlockInfo == null) {
+          iterator.remove();
+          continue;
+        }
+        Set<Long> blockWorkers = masterBlockInfo.getWorkers();
+        Iterator<Entry<Long, Long>> replicas = entry.getValue().entrySet().iterator();
+        while (replicas.hasNext()) {
+          Entry<Long, Long> replica = replicas.next();
+          if (!blockWorkers.contains(replica.getKey())
+              && nowMs - replica.getValue() > mIntervalMs) {
+            replicas.remove();
+          }
+        }
+
+        int excess = masterBlockInfo.getNumLocations()
+            - getDesiredReplication(accessCounts.get(entry.getKey()));
+        replicas = entry.getValue().entrySet().iterator();
+        while (excess > 0 && replicas.hasNext()) {
+          long workerId = replicas.next().getKey();
+          MasterWorkerInfo worker = mWorkers.getFirstByField(mIdIndex, workerId);
+          if (worker != null && blockWorkers.contains(workerId)) {
+            LOG.debug("Dropping extra replica of block {} on worker {}", entry.getKey(), workerId);
+            worker.updateToRemovedBlock(true, entry.getKey());
+            replicas.remove();
+            excess --;
+          }
+        }
+        if (entry.getValue().isEmpty()) {
+          iterator.remove();
+        }
+      }
+    }
+
+    /**
+     * Asks workers to copy the hottest blocks from the workers holding them, until each block has
+     * its desired number of replicas or the bandwidth budget of the round is used up. Each new
+     * replica goes to the worker with the most available bytes which does not hold the block yet.
+     *
+     * mBlocks and mWorkers should already be locked before calling this method.
+     */
+    private void replicateHotBlocks(final Map<Long, Long> accessCounts, long nowMs) {
+      List<Long> hotBlocks = new ArrayList<Long>();
+      for (Entry<Long, Long> entry : accessCounts.entrySet()) {
+        if (getDesiredReplication(entry.getValue()) > 1) {
+          hotBlocks.add(entry.getKey());
+        }
+      }
+      Collections.sort(hotBlocks, new Comparator<Long>() {
+        @Override
+        public int compare(Long left, Long right) {
+          return accessCounts.get(right).compareTo(accessCounts.get(left));
+        }
+      });
+
+      Map<Long, Long> availableBytes = new HashMap<Long, Long>();
+      for (MasterWorkerInfo worker : mWorkers) {
+        availableBytes.put(worker.getId(), worker.getAvailableBytes());
+      }
+      long budgetBytes = mBytesPerRound;
+      for (long blockId : hotBlocks) {
+        MasterBlockInfo masterBlockInfo = mBlocks.get(blockId);
+        if (masterBlockInfo == null || masterBlockInfo.getNumLocations() == 0) {
+          // Lost blocks are recovered from the under storage instead.
+          continue;
+        }
+        Map<Long, Long> replicas = mExtraReplicas.get(blockId);
+        if (replicas == null) {
+          replicas = new HashMap<Long, Long>();
+        }
+        Set<Long> blockWorkers = masterBlockInfo.getWorkers();
+        int pending = 0;
+        for (long workerId : replicas.keySet()) {
+          if (!blockWorkers.contains(workerId)) {
+            pending ++;
+          }
+        }
+        long length = masterBlockInfo.getLength();
+        int missing = getDesiredReplication(accessCounts.get(blockId))
+            - masterBlockInfo.getNumLocations() - pending;
+        while (missing > 0 && budgetBytes >= length) {
+          MasterWorkerInfo target = null;
+          for (MasterWorkerInfo worker : mWorkers) {
+            long workerId = worker.getId();
+            if (blockWorkers.contains(workerId) || replicas.containsKey(workerId)
+                || availableBytes.get(workerId) < length) {
+              continue;
+            }
+            if (target == null
+                || availableBytes.get(workerId) > availableBytes.get(target.getId())) {
+              target = worker;
+            }
+          }
+          if (target == null) {
+            break;
+          }
+          LOG.debug("Replicating hot block {} to worker {}", blockId, target.getId());
+          target.updateToReplicateBlock(true, blockId);
+          replicas.put(target.getId(), nowMs);
+          availableBytes.put(target.getId(), availableBytes.get(target.getId()) - length);
+          budgetBytes -= length;
+          missing --;
+        }
+        if (!replicas.isEmpty()) {
+          mExtraReplicas.put(blockId, replicas);
+        }
+      }
+    }
+  }
 }
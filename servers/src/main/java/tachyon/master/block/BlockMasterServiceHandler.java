@@ -49,10 +49,10 @@ public class BlockMasterServiceHandler implements BlockMasterService.Iface {
 
   @Override
   public Command workerHeartbeat(long workerId, List<Long> usedBytesOnTiers,
-      List<Long> removedBlockIds, Map<Long, List<Long>> addedBlocksOnTiers)
-      throws BlockInfoException, TException {
+      List<Long> removedBlockIds, Map<Long, List<Long>> addedBlocksOnTiers,
+      Map<Long, Long> blockAccessCounts) throws BlockInfoException, TException {
     return mBlockMaster.workerHeartbeat(workerId, usedBytesOnTiers, removedBlockIds,
-        addedBlocksOnTiers);
+        addedBlocksOnTiers, blockAccessCounts);
   }
 
   @Override
@@ -61,6 +61,12 @@ public final class MasterWorkerInfo {
   private Set<Long> mBlocks;
   /** IDs of blocks the worker should remove */
   private Set<Long> mToRemoveBlocks;
+  /** IDs of blocks the worker should load from the under storage */
+  private Set<Long> mToLoadBlocks;
+  /** IDs of blocks the worker should copy from other workers */
+  private Set<Long> mToReplicateBlocks;
+  /** IDs of blocks sent with the last command if it was Free, empty otherwise */
+  private Set<Long> mLastFreeBlocks;
 
   public MasterWorkerInfo(long id, NetAddress address) {
     mId = id;
@@ -69,6 +75,9 @@ public final class MasterWorkerInfo {
     mLastUpdatedTimeMs = System.currentTimeMillis();
     mBlocks = new HashSet<Long>();
     mToRemoveBlocks = new HashSet<Long>();
+    mToLoadBlocks = new HashSet<Long>();
+    mToReplicateBlocks = new HashSet<Long>();
+    mLastFreeBlocks = new HashSet<Long>();
     mIsRegistered = false;
   }
 
@@ -128,6 +137,8 @@ public final class MasterWorkerInfo {
    */
   public synchronized void addBlock(long blockId) {
     mBlocks.add(blockId);
+    mToLoadBlocks.remove(blockId);
+    mToReplicateBlocks.remove(blockId);
   }
 
   /**
@@ -205,6 +216,48 @@ public final class MasterWorkerInfo {
     return new ArrayList<Long>(mToRemoveBlocks);
   }
 
+  /**
+   * @param blockIds IDs of blocks to remove
+   * @return true if the last command sent to the worker was Free and had all the blocks
+   */
+  public synchronized boolean isFreeSent(List<Long> blockIds) {
+    return mLastFreeBlocks.containsAll(blockIds);
+  }
+
+  /**
+   * Records the blocks sent with the last command to the worker.
+   *
+   * @param blockIds IDs of the blocks sent with a Free command, or an empty list if the command
+   *        was not Free
+   */
+  public synchronized void setLastFreeBlocks(List<Long> blockIds) {
+    mLastFreeBlocks = new HashSet<Long>(blockIds);
+  }
+
+  /**
+   * Returns the IDs of blocks the worker should load from the under storage, and clears them so
+   * each block is only sent to the worker once.
+   *
+   * @return IDs of blocks the worker should load
+   */
+  public synchronized List<Long> pollToLoadBlocks() {
+    List<Long> ret = new ArrayList<Long>(mToLoadBlocks);
+    mToLoadBlocks.clear();
+    return ret;
+  }
+
+  /**
+   * Returns the IDs of blocks the worker should copy from other workers, and clears them so each
+   * block is only sent to the worker once.
+   *
+   * @return IDs of blocks the worker should replicate
+   */
+  public synchronized List<Long> pollToReplicateBlocks() {
+    List<Long> ret = new ArrayList<Long>(mToReplicateBlocks);
+    mToReplicateBlocks.clear();
+    return ret;
+  }
+
   /**
    * @return used space of the worker in bytes
    */
@@ -284,6 +337,38 @@ public final class MasterWorkerInfo {
     }
   }
 
+  /**
+   * Adds or removes a block from the to-be-loaded blocks set of the worker.
+   *
+   * @param add true if to add, to remove otherwise.
+   * @param blockId the ID of the block to be added or removed
+   */
+  public synchronized void updateToLoadBlock(boolean add, long blockId) {
+    if (add) {
+      if (!mBlocks.contains(blockId)) {
+        mToLoadBlocks.add(blockId);
+      }
+    } else {
+      mToLoadBlocks.remove(blockId);
+    }
+  }
+
+  /**
+   * Adds or removes a block from the to-be-replicated blocks set of the worker.
+   *
+   * @param add true if to add, to remove otherwise.
+   * @param blockId the ID of the block to be added or removed
+   */
+  public synchronized void updateToReplicateBlock(boolean add, long blockId) {
+    if (add) {
+      if (!mBlocks.contains(blockId)) {
+        mToReplicateBlocks.add(blockId);
+      }
+    } else {
+      mToReplicateBlocks.remove(blockId);
+    }
+  }
+
   /**
    * Set the used space of the worker in bytes.
    *
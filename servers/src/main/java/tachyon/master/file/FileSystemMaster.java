@@ -17,11 +17,16 @@ package tachyon.master.file;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.thrift.TProcessor;
 import org.slf4j.Logger;
@@ -30,6 +35,8 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Throwables;
 
 import tachyon.Constants;
+import tachyon.HeartbeatExecutor;
+import tachyon.HeartbeatThread;
 import tachyon.Pair;
 import tachyon.PrefixList;
 import tachyon.StorageLevelAlias;
@@ -72,6 +79,7 @@ import tachyon.thrift.NetAddress;
 import tachyon.thrift.SuspectedFileSizeException;
 import tachyon.thrift.TachyonException;
 import tachyon.underfs.UnderFileSystem;
+import tachyon.util.CommonUtils;
 import tachyon.util.FormatUtils;
 import tachyon.util.ThreadFactoryUtils;
 import tachyon.util.io.PathUtils;
@@ -91,6 +99,9 @@ public final class FileSystemMaster extends MasterBase {
 
   private final PrefixList mWhitelist;
 
+  /** The service that recovers lost blocks from their checkpoints in the under storage. */
+  private Future<?> mLostBlockRecoveryService;
+
   /**
    * @param baseDirectory the base journal directory
    * @return the journal directory for this master
@@ -184,11 +195,20 @@ public final class FileSystemMaster extends MasterBase {
       mInodeTree.initializeRoot();
     }
     super.start(isLeader);
+    if (isLeader && mTachyonConf.getBoolean(Constants.MASTER_LOST_BLOCK_RECOVERY_ENABLED)) {
+      mLostBlockRecoveryService =
+          getExecutorService().submit(new HeartbeatThread("Lost block recovery service",
+              new LostBlockRecoveryHeartbeatExecutor(),
+              mTachyonConf.getInt(Constants.MASTER_LOST_BLOCK_RECOVERY_INTERVAL_MS)));
+    }
   }
 
   @Override
   public void stop() throws IOException {
     super.stop();
+    if (mLostBlockRecoveryService != null) {
+      mLostBlockRecoveryService.cancel(true);
+    }
   }
 
   /**
@@ -1063,4 +1083,92 @@ public final class FileSystemMaster extends MasterBase {
       return mDependencyMap.getPriorityDependencyList();
     }
   }
+  /**
+   * Periodically asks healthy workers to load lost blocks back from the under storage, for the
+   * blocks whose file has been checkpointed. Blocks of pinned files are recovered first, then
+   * blocks of the most recently modified files. Each round schedules at most a batch of blocks, and
+   * a scheduled block is only scheduled again if it is still lost after the retry interval.
+   */
+  public final class LostBlockRecoveryHeartbeatExecutor implements HeartbeatExecutor {
+    private final int mBatchSize;
+    private final int mMaxBlocksPerWorker;
+    private final long mRetryIntervalMs;
+    /** Maps the id of a scheduled block to the time it was last scheduled, in ms */
+    private final Map<Long, Long> mScheduledTimeMs = new HashMap<Long, Long>();
+
+    public LostBlockRecoveryHeartbeatExecutor() {
+      mBatchSize = mTachyonConf.getInt(Constants.MASTER_LOST_BLOCK_RECOVERY_BATCH_SIZE);
+      mMaxBlocksPerWorker =
+          mTachyonConf.getInt(Constants.MASTER_LOST_BLOCK_RECOVERY_MAX_PER_WORKER);
+      mRetryIntervalMs =
+          mTachyonConf.getLong(Constants.MASTER_LOST_BLOCK_RECOVERY_RETRY_INTERVAL_MS);
+    }
+
+    @Override
+    public void heartbeat() {
+      Set<Long> lostBlocks = mBlockMaster.getLostBlocks();
+      // Forget the blocks which were recovered or removed since they were scheduled.
+      mScheduledTimeMs.keySet().retainAll(lostBlocks);
+      if (lostBlocks.isEmpty()) {
+        return;
+      }
+
+      long nowMs = CommonUtils.getCurrentMs();
+      final Map<Long, InodeFile> blockIdToFile = new HashMap<Long, InodeFile>();
+      List<Long> candidates = new ArrayList<Long>();
+      synchronized (mInodeTree) {
+        for (long blockId : lostBlocks) {
+          Long scheduledMs = mScheduledTimeMs.get(blockId);
+          if (scheduledMs != null && nowMs - scheduledMs < mRetryIntervalMs) {
+            continue;
+          }
+          long fileId = BlockId.createBlockId(BlockId.getContainerId(blockId),
+              BlockId.getMaxSequenceNumber());
+          Inode inode;
+          try {
+            inode = mInodeTree.getInodeById(fileId);
+          } catch (FileDoesNotExistException fdnee) {
+            continue;
+          }
+          if (inode.isDirectory() || !((InodeFile) inode).hasCheckpointed()) {
+            continue;
+          }
+          blockIdToFile.put(blockId, (InodeFile) inode);
+          candidates.add(blockId);
+        }
+      }
+      if (candidates.isEmpty()) {
+        return;
+      }
+
+      Collections.sort(candidates, new Comparator<Long>() {
+        @Override
+        public int compare(Long left, Long right) {
+          InodeFile leftFile = blockIdToFile.get(left);
+          InodeFile rightFile = blockIdToFile.get(right);
+          if (leftFile.isPinned() != rightFile.isPinned()) {
+            return leftFile.isPinned() ? -1 : 1;
+          }
+          long leftMs = leftFile.getLastModificationTimeMs();
+          long rightMs = rightFile.getLastModificationTimeMs();
+          if (leftMs != rightMs) {
+            return leftMs > rightMs ? -1 : 1;
+          }
+          return left.compareTo(right);
+        }
+      });
+      if (candidates.size() > mBatchSize) {
+        candidates = candidates.subList(0, mBatchSize);
+      }
+
+      List<Long> scheduled = mBlockMaster.loadLostBlocks(candidates, mMaxBlocksPerWorker);
+      for (long blockId : scheduled) {
+        mScheduledTimeMs.put(blockId, nowMs);
+      }
+      if (!scheduled.isEmpty()) {
+        LOG.info("Scheduled " + scheduled.size() + " lost blocks to be loaded from the under "
+            + "storage, " + (lostBlocks.size() - scheduled.size()) + " lost blocks remain.");
+      }
+    }
+  }
 }
@@ -160,5 +160,12 @@ public class WorkerSource implements Source {
         return blockDataManager.getStoreMeta().getNumberOfBlocks();
       }
     });
+
+    mMetricRegistry.register(MetricRegistry.name("BlockLockWaits"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return blockDataManager.getBlockLockWaitCount();
+      }
+    });
   }
 }
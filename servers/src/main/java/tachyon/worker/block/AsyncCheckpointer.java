@@ -0,0 +1,144 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.RateLimiter;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+import tachyon.util.ThreadFactoryUtils;
+
+/**
+ * AsyncCheckpointer writes files to the under filesystem in the background, so that clients can
+ * write to Tachyon storage only and still get their files persisted. Files are queued in a bounded
+ * queue and checkpointed by a pool of threads sharing a bandwidth limit; a failed checkpoint is
+ * retried a number of times with a growing delay. The file is pinned on this worker from the time
+ * it is queued until its checkpoint completes or is abandoned.
+ */
+public final class AsyncCheckpointer {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Block data manager writing the files and pinning their blocks */
+  private final BlockDataManager mBlockDataManager;
+  /** Maximum number of times a failed checkpoint is retried */
+  private final int mMaxRetries;
+  /** Delay before the first retry, multiplied by the attempt number for later retries */
+  private final long mRetryIntervalMs;
+  /** Limiter of the bytes written by all checkpoint threads, null for no limit */
+  private final RateLimiter mRateLimiter;
+  /** Threads checkpointing the queued files */
+  private final ThreadPoolExecutor mExecutor;
+  /** Files queued or being checkpointed, guarded by this object */
+  private final Set<Long> mPendingFiles = new HashSet<Long>();
+
+  /**
+   * Constructor for AsyncCheckpointer
+   *
+   * @param blockDataManager the block data manager to write files with
+   * @param tachyonConf the configuration values to be used
+   */
+  public AsyncCheckpointer(BlockDataManager blockDataManager, TachyonConf tachyonConf) {
+    mBlockDataManager = Preconditions.checkNotNull(blockDataManager);
+    int threads = tachyonConf.getInt(Constants.WORKER_CHECKPOINT_THREADS);
+    int queueSize = tachyonConf.getInt(Constants.WORKER_CHECKPOINT_QUEUE_SIZE);
+    Preconditions.checkArgument(threads > 0 && queueSize > 0,
+        "Checkpoint threads and queue size should be positive");
+    mMaxRetries = tachyonConf.getInt(Constants.WORKER_CHECKPOINT_MAX_RETRIES);
+    mRetryIntervalMs = tachyonConf.getLong(Constants.WORKER_CHECKPOINT_RETRY_INTERVAL_MS);
+    long capMbPerSec = tachyonConf.getInt(Constants.WORKER_PER_THREAD_CHECKPOINT_CAP_MB_SEC);
+    mRateLimiter =
+        capMbPerSec > 0 ? RateLimiter.create(threads * capMbPerSec * Constants.MB) : null;
+    mExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize),
+        ThreadFactoryUtils.build("worker-checkpoint-%d", true));
+  }
+
+  /**
+   * Queues a file to be checkpointed.
+   *
+   * @param fileId the id of the file
+   * @return true if the file is queued or being checkpointed, false if the queue is full
+   */
+  public synchronized boolean submit(final long fileId) {
+    if (!mPendingFiles.add(fileId)) {
+      return true;
+    }
+    mBlockDataManager.pinForCheckpoint(fileId);
+    try {
+      mExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          checkpoint(fileId);
+        }
+      });
+    } catch (RejectedExecutionException ree) {
+      LOG.warn("Checkpoint queue is full, rejecting file {}", fileId);
+      finish(fileId);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Stops the checkpointing, once this method is called, the object should be discarded. Files
+   * still queued are not checkpointed.
+   */
+  public void stop() {
+    mExecutor.shutdownNow();
+  }
+
+  private void checkpoint(long fileId) {
+    try {
+      for (int attempt = 1; !Thread.currentThread().isInterrupted(); attempt ++) {
+        try {
+          mBlockDataManager.persistFile(fileId, mRateLimiter);
+          LOG.info("Checkpointed file {}", fileId);
+          return;
+        } catch (IOException ioe) {
+          if (attempt > mMaxRetries) {
+            LOG.error("Failed to checkpoint file " + fileId + " after " + attempt + " attempts",
+                ioe);
+            return;
+          }
+          LOG.warn("Failed to checkpoint file {}, retrying: {}", fileId, ioe.getMessage());
+        }
+        try {
+          Thread.sleep(mRetryIntervalMs * attempt);
+        } catch (InterruptedException ie) {
+          return;
+        }
+      }
+    } finally {
+      finish(fileId);
+    }
+  }
+
+  private synchronized void finish(long fileId) {
+    mBlockDataManager.unpinForCheckpoint(fileId);
+    mPendingFiles.remove(fileId);
+  }
+}
@@ -16,21 +16,37 @@
 package tachyon.worker.block;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import org.apache.thrift.TException;
 
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.RateLimiter;
+
 import tachyon.Constants;
 import tachyon.Sessions;
+import tachyon.StorageLevelAlias;
 import tachyon.client.BlockMasterClient;
 import tachyon.client.FileSystemMasterClient;
+import tachyon.client.RemoteBlockReader;
 import tachyon.conf.TachyonConf;
 import tachyon.exception.AlreadyExistsException;
 import tachyon.exception.InvalidStateException;
 import tachyon.exception.NotFoundException;
 import tachyon.exception.OutOfSpaceException;
+import tachyon.master.block.BlockId;
+import tachyon.thrift.BlockInfo;
+import tachyon.thrift.BlockLocation;
 import tachyon.thrift.FailedToCheckpointException;
+import tachyon.thrift.FileInfo;
+import tachyon.thrift.NetAddress;
 import tachyon.underfs.UnderFileSystem;
 import tachyon.util.io.FileUtils;
 import tachyon.util.io.PathUtils;
@@ -48,6 +64,13 @@ import tachyon.worker.block.meta.TempBlockMeta;
  * thread-safe.
  */
 public final class BlockDataManager {
+  /** The size of the buffer used to copy data from the under filesystem into a block */
+  private static final int UFS_READ_BUFFER_BYTES = 4 * Constants.MB;
+  /** The maximum number of bytes requested at once when copying a block from another worker */
+  private static final long REMOTE_READ_CHUNK_BYTES = 4 * Constants.MB;
+  /** The maximum number of bytes read at once from a block when writing it to the under fs */
+  private static final long CHECKPOINT_CHUNK_BYTES = 4 * Constants.MB;
+
   /** Block store delta reporter for master heartbeat */
   private final BlockHeartbeatReporter mHeartbeatReporter;
   /** Block Store manager */
@@ -69,6 +92,16 @@ public final class BlockDataManager {
   private Sessions mSessions;
   /** Id of this worker */
   private long mWorkerId;
+  /** Asynchronous checkpointing of files requested through asyncCheckpoint */
+  private final AsyncCheckpointer mCheckpointer;
+  /** Loader of blocks read through the data server from the under filesystem */
+  private final UfsBlockLoader mUfsBlockLoader;
+  /** Read-ahead warming the blocks following those read sequentially */
+  private final BlockReadAhead mReadAhead;
+  /** Inodes pinned by the master, as last reported by PinListSync */
+  private Set<Long> mMasterPinnedInodes = Collections.emptySet();
+  /** Files pinned by this worker until their asynchronous checkpoint completes */
+  private final Set<Long> mCheckpointPinnedFiles = new HashSet<Long>();
 
   /**
    * Creates a BlockDataManager based on the configuration values.
@@ -102,6 +135,10 @@ public final class BlockDataManager {
     // Register the heartbeat reporter so it can record block store changes
     mBlockStore.registerBlockStoreEventListener(mHeartbeatReporter);
     mBlockStore.registerBlockStoreEventListener(mMetricsReporter);
+
+    mCheckpointer = new AsyncCheckpointer(this, mTachyonConf);
+    mUfsBlockLoader = new UfsBlockLoader(this, mTachyonConf);
+    mReadAhead = new BlockReadAhead(this, mTachyonConf);
   }
 
   /**
@@ -168,6 +205,168 @@ public final class BlockDataManager {
     mFileSystemMasterClient.addCheckpoint(mWorkerId, fileId, fileSize, dstPath);
   }
 
+  /**
+   * Queues a file to be checkpointed asynchronously by this worker. The blocks of the file stored
+   * on this worker are pinned until the checkpoint completes or fails.
+   *
+   * @param fileId The id of the file to checkpoint
+   * @return true if the file is queued or being checkpointed, false if the queue is full
+   */
+  public boolean asyncCheckpoint(long fileId) {
+    return mCheckpointer.submit(fileId);
+  }
+
+  /**
+   * Writes the data of a complete file to the under filesystem and reports the checkpoint to the
+   * master. The blocks stored on this worker are read locally, the other blocks are read from the
+   * worker holding them in the highest tier. Nothing is done if the file is already checkpointed.
+   *
+   * @param fileId The id of the file to checkpoint
+   * @param rateLimiter The limiter to charge the bytes written with, null for no limit
+   * @throws IOException if the file is not complete, a block cannot be read or the file cannot be
+   *         written to the under filesystem
+   */
+  public void persistFile(long fileId, RateLimiter rateLimiter) throws IOException {
+    long sessionId = Sessions.CHECKPOINT_SESSION_ID;
+    FileInfo fileInfo = mFileSystemMasterClient.getFileInfo(fileId);
+    if (fileInfo.getUfsPath() != null && !fileInfo.getUfsPath().isEmpty()) {
+      return;
+    }
+    if (!fileInfo.isIsComplete()) {
+      throw new IOException("File " + fileId + " is not complete");
+    }
+    String tmpFolder = getSessionUfsTmpFolder(sessionId);
+    if (!mUfs.exists(tmpFolder)) {
+      mUfs.mkdirs(tmpFolder, true);
+    }
+    Closer closer = Closer.create();
+    try {
+      OutputStream out = closer.register(mUfs.create(PathUtils.concatPath(tmpFolder, fileId)));
+      for (long blockId : fileInfo.getBlockIds()) {
+        copyBlockToStream(sessionId, blockId, out, rateLimiter);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+    try {
+      addCheckpoint(sessionId, fileId);
+    } catch (TException te) {
+      throw new IOException(te);
+    }
+  }
+
+  /**
+   * Writes the data of a block to a stream, from this worker if it holds the block and from
+   * another worker otherwise.
+   *
+   * @param sessionId The id of the session reading the block
+   * @param blockId The id of the block to write
+   * @param out The stream to write to
+   * @param rateLimiter The limiter to charge the bytes written with, null for no limit
+   * @throws IOException if the block cannot be read or the stream cannot be written
+   */
+  private void copyBlockToStream(long sessionId, long blockId, OutputStream out,
+      RateLimiter rateLimiter) throws IOException {
+    long lockId;
+    try {
+      lockId = mBlockStore.lockBlock(sessionId, blockId);
+    } catch (NotFoundException nfe) {
+      copyRemoteBlockToStream(blockId, out, rateLimiter);
+      return;
+    }
+    Closer closer = Closer.create();
+    try {
+      BlockReader reader =
+          closer.register(mBlockStore.getBlockReader(sessionId, blockId, lockId));
+      long length = reader.getLength();
+      for (long offset = 0; offset < length; offset += CHECKPOINT_CHUNK_BYTES) {
+        ByteBuffer data = reader.read(offset, Math.min(CHECKPOINT_CHUNK_BYTES, length - offset));
+        writeToStream(data, out, rateLimiter);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      try {
+        closer.close();
+      } finally {
+        try {
+          mBlockStore.unlockBlock(lockId);
+        } catch (NotFoundException nfe) {
+          throw new IOException(nfe);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the data of a block held by another worker to a stream.
+   *
+   * @param blockId The id of the block to write
+   * @param out The stream to write to
+   * @param rateLimiter The limiter to charge the bytes written with, null for no limit
+   * @throws IOException if no other worker holds the block, or the copy fails
+   */
+  private void copyRemoteBlockToStream(long blockId, OutputStream out, RateLimiter rateLimiter)
+      throws IOException {
+    BlockInfo blockInfo = mBlockMasterClient.getBlockInfo(blockId);
+    BlockLocation source = getRemoteSource(blockInfo);
+    if (source == null) {
+      throw new IOException("No worker holds block " + blockId);
+    }
+    NetAddress workerAddress = source.getWorkerAddress();
+    InetSocketAddress address =
+        new InetSocketAddress(workerAddress.getHost(), workerAddress.getDataPort());
+    Closer closer = Closer.create();
+    try {
+      RemoteBlockReader reader =
+          closer.register(RemoteBlockReader.Factory.createRemoteBlockReader(mTachyonConf));
+      long length = blockInfo.getLength();
+      long offset = 0;
+      while (offset < length) {
+        ByteBuffer data = reader.readRemoteBlock(address, blockId, offset,
+            Math.min(REMOTE_READ_CHUNK_BYTES, length - offset));
+        if (!data.hasRemaining()) {
+          throw new IOException("Unexpected end of block " + blockId + " from " + address
+              + " at " + offset);
+        }
+        offset += data.remaining();
+        writeToStream(data, out, rateLimiter);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * Writes the remaining data of a buffer to a stream.
+   *
+   * @param data The data to write
+   * @param out The stream to write to
+   * @param rateLimiter The limiter to charge the bytes written with, null for no limit
+   * @throws IOException if the stream cannot be written
+   */
+  private static void writeToStream(ByteBuffer data, OutputStream out, RateLimiter rateLimiter)
+      throws IOException {
+    if (rateLimiter != null && data.hasRemaining()) {
+      rateLimiter.acquire(data.remaining());
+    }
+    if (data.hasArray()) {
+      out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+      data.position(data.limit());
+      return;
+    }
+    byte[] buffer = new byte[(int) Math.min(CHECKPOINT_CHUNK_BYTES, data.remaining())];
+    while (data.hasRemaining()) {
+      int length = Math.min(buffer.length, data.remaining());
+      data.get(buffer, 0, length);
+      out.write(buffer, 0, length);
+    }
+  }
+
   /**
    * Cleans up after sessions, to prevent zombie sessions. This method is called periodically
    * by {@link SessionCleaner} thread.
@@ -272,6 +471,25 @@ public final class BlockDataManager {
     FileUtils.createBlockPath(createdBlock.getPath());
   }
 
+  /**
+   * Frees space to make a specific amount of bytes available in the location, by evicting or moving
+   * blocks according to the configured Evictor.
+   *
+   * @param sessionId the id of the session freeing space
+   * @param availableBytes the amount of free space in bytes
+   * @param location the location to free space
+   * @throws OutOfSpaceException if there is not enough space to free
+   * @throws NotFoundException if blocks in the eviction plan can not be found
+   * @throws IOException if blocks in the eviction plan fail to be moved or deleted
+   * @throws AlreadyExistsException if blocks to move already exist in their destination
+   * @throws InvalidStateException if blocks in the eviction plan are uncommitted
+   */
+  public void freeSpace(long sessionId, long availableBytes, BlockStoreLocation location)
+      throws OutOfSpaceException, NotFoundException, IOException, AlreadyExistsException,
+      InvalidStateException {
+    mBlockStore.freeSpace(sessionId, availableBytes, location);
+  }
+
   /**
    * Opens a {@link BlockWriter} for an existing temporary block. This method is only called from a
    * data server.
@@ -309,6 +527,16 @@ public final class BlockDataManager {
     return mBlockStore.getBlockStoreMeta();
   }
 
+  /**
+   * Gets the number of block lock acquisitions which had to wait for a lock hold by another
+   * session.
+   *
+   * @return the number of contended block lock acquisitions
+   */
+  public long getBlockLockWaitCount() {
+    return mBlockStore.getBlockLockWaitCount();
+  }
+
   /**
    * Gets the temporary folder for the session in the under filesystem.
    *
@@ -353,6 +581,269 @@ public final class BlockDataManager {
     return mBlockStore.lockBlock(sessionId, blockId);
   }
 
+  /**
+   * Notifies the read-ahead that a client starts reading a block, so that the following blocks of
+   * the file can be warmed if the file is read sequentially.
+   *
+   * @param blockId The id of the block being read
+   */
+  public void notifyBlockRead(long blockId) {
+    mReadAhead.onBlockRead(blockId);
+  }
+
+  /**
+   * Warms a block which is expected to be read soon. A block on a lower tier is moved to the given
+   * tier, a block which is not in Tachyon storage is loaded from the under filesystem in the
+   * background if its file is checkpointed.
+   *
+   * @param blockId The id of the block to warm
+   * @param tierAlias The alias of the tier to move the block to
+   * @throws AlreadyExistsException if the block already exists in the destination tier
+   * @throws InvalidStateException if the block is locked by another session
+   * @throws OutOfSpaceException if the tier does not have enough space to hold the block
+   * @throws IOException if the master can not be reached, or the block can not be moved
+   */
+  void prefetchBlock(long blockId, int tierAlias) throws AlreadyExistsException,
+      InvalidStateException, OutOfSpaceException, IOException {
+    try {
+      BlockMeta block = mBlockStore.getVolatileBlockMeta(blockId);
+      if (block.getBlockLocation().tierAlias() != tierAlias) {
+        moveBlock(Sessions.MIGRATE_DATA_SESSION_ID, blockId, tierAlias);
+      }
+      return;
+    } catch (NotFoundException nfe) {
+      // Not in Tachyon storage, or removed in the meantime
+    }
+    long fileId =
+        BlockId.createBlockId(BlockId.getContainerId(blockId), BlockId.getMaxSequenceNumber());
+    FileInfo fileInfo = mFileSystemMasterClient.getFileInfo(fileId);
+    String ufsPath = fileInfo.getUfsPath();
+    if (fileInfo.getBlockIds() == null || !fileInfo.getBlockIds().contains(blockId)
+        || ufsPath == null || ufsPath.isEmpty()) {
+      return;
+    }
+    mUfsBlockLoader.load(blockId);
+  }
+
+  /**
+   * Loads a block which is not in Tachyon storage from the under filesystem in the background, to
+   * serve a read of the block. Concurrent calls for the same block share one load.
+   *
+   * @param blockId The id of the block to load
+   * @return the load of the block, to read the block from while it is loaded
+   */
+  public UfsBlockLoader.BlockLoad readThroughBlock(long blockId) {
+    return mUfsBlockLoader.load(blockId);
+  }
+
+  /**
+   * Loads a block from the checkpoint of its file in the under filesystem into Tachyon managed
+   * space, and commits it so the master learns about the new location. This is used to recover
+   * blocks which are no longer in Tachyon storage.
+   *
+   * @param sessionId The id of the client
+   * @param blockId The id of the block to load
+   * @throws AlreadyExistsException if blockId already exists, either temporary or committed
+   * @throws OutOfSpaceException if this Store has no more space to hold the block
+   * @throws NotFoundException if blocks in eviction plan can not be found
+   * @throws InvalidStateException if blocks to be moved/deleted in eviction plan is uncommitted
+   * @throws IOException if the file has no checkpoint, or the block cannot be read from the under
+   *         filesystem or written to local storage
+   */
+  public void loadBlockFromUfs(long sessionId, long blockId) throws AlreadyExistsException,
+      OutOfSpaceException, NotFoundException, InvalidStateException, IOException {
+    loadBlockFromUfs(sessionId, blockId, null);
+  }
+
+  /**
+   * Loads a block from the under filesystem like {@link #loadBlockFromUfs(long, long)}, reporting
+   * the progress of the load so that readers can read the loaded part of the block before it is
+   * committed.
+   *
+   * @param sessionId The id of the client
+   * @param blockId The id of the block to load
+   * @param load The load to report the progress to, or null
+   * @throws AlreadyExistsException if blockId already exists, either temporary or committed
+   * @throws OutOfSpaceException if this Store has no more space to hold the block
+   * @throws NotFoundException if blocks in eviction plan can not be found
+   * @throws InvalidStateException if blocks to be moved/deleted in eviction plan is uncommitted
+   * @throws IOException if the file has no checkpoint, or the block cannot be read from the under
+   *         filesystem or written to local storage
+   */
+  void loadBlockFromUfs(long sessionId, long blockId, UfsBlockLoader.BlockLoad load)
+      throws AlreadyExistsException, OutOfSpaceException, NotFoundException,
+      InvalidStateException, IOException {
+    long fileId =
+        BlockId.createBlockId(BlockId.getContainerId(blockId), BlockId.getMaxSequenceNumber());
+    FileInfo fileInfo = mFileSystemMasterClient.getFileInfo(fileId);
+    String ufsPath = fileInfo.getUfsPath();
+    if (ufsPath == null || ufsPath.isEmpty()) {
+      throw new IOException("File " + fileId + " of block " + blockId + " is not checkpointed.");
+    }
+    long offset = fileInfo.getBlockSizeBytes() * BlockId.getSequenceNumber(blockId);
+    long length = Math.min(fileInfo.getBlockSizeBytes(), fileInfo.getLength() - offset);
+    if (length <= 0) {
+      throw new IOException("Block " + blockId + " is beyond the end of file " + fileId);
+    }
+
+    TempBlockMeta tempBlock =
+        mBlockStore.createBlockMeta(sessionId, blockId, BlockStoreLocation.anyTier(), length);
+    boolean copied = false;
+    try {
+      FileUtils.createBlockPath(tempBlock.getPath());
+      if (load != null) {
+        load.started(tempBlock.getPath(), length);
+      }
+      copyFromUfs(sessionId, blockId, ufsPath, offset, length, load);
+      copied = true;
+    } finally {
+      if (!copied) {
+        mBlockStore.abortBlock(sessionId, blockId);
+      }
+    }
+    if (load != null) {
+      load.committing();
+    }
+    commitBlock(sessionId, blockId);
+  }
+
+  /**
+   * Copies a range of a file in the under filesystem into an existing temporary block.
+   *
+   * @param sessionId The id of the client
+   * @param blockId The id of the temporary block to write to
+   * @param ufsPath The path of the file in the under filesystem
+   * @param offset The offset in the file to start copying from
+   * @param length The number of bytes to copy
+   * @param load The load to report the copied bytes to, or null
+   * @throws NotFoundException if the temporary block cannot be found
+   * @throws IOException if the copy fails
+   */
+  private void copyFromUfs(long sessionId, long blockId, String ufsPath, long offset, long length,
+      UfsBlockLoader.BlockLoad load) throws NotFoundException, IOException {
+    Closer closer = Closer.create();
+    try {
+      UnderFileSystem ufs = UnderFileSystem.get(ufsPath, mTachyonConf);
+      InputStream in = closer.register(ufs.open(ufsPath));
+      BlockWriter writer = closer.register(mBlockStore.getBlockWriter(sessionId, blockId));
+      long toSkip = offset;
+      while (toSkip > 0) {
+        long skipped = in.skip(toSkip);
+        if (skipped <= 0) {
+          throw new IOException("Failed to skip to " + offset + " in " + ufsPath);
+        }
+        toSkip -= skipped;
+      }
+      byte[] buf = new byte[(int) Math.min(length, UFS_READ_BUFFER_BYTES)];
+      long remaining = length;
+      while (remaining > 0) {
+        int bytesRead = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+        if (bytesRead == -1) {
+          throw new IOException("Unexpected end of " + ufsPath + " at " + (offset + length
+              - remaining));
+        }
+        writer.append(ByteBuffer.wrap(buf, 0, bytesRead));
+        remaining -= bytesRead;
+        if (load != null) {
+          load.advanced(bytesRead);
+        }
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t, NotFoundException.class);
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * Copies a block from another worker into the memory tier of this worker, to create an extra
+   * replica of the block. The copy is read from the worker holding the block in the highest tier.
+   *
+   * @param sessionId The id of the client
+   * @param blockId The id of the block to replicate
+   * @throws AlreadyExistsException if the block already exists on this worker
+   * @throws OutOfSpaceException if the memory tier does not have enough space to hold the block
+   * @throws NotFoundException if the temporary block cannot be found
+   * @throws InvalidStateException if the block cannot be committed
+   * @throws IOException if no other worker holds the block, or the copy fails
+   */
+  public void replicateBlock(long sessionId, long blockId) throws AlreadyExistsException,
+      OutOfSpaceException, NotFoundException, InvalidStateException, IOException {
+    BlockInfo blockInfo = mBlockMasterClient.getBlockInfo(blockId);
+    BlockLocation source = getRemoteSource(blockInfo);
+    if (source == null) {
+      throw new IOException("No other worker holds block " + blockId);
+    }
+
+    TempBlockMeta tempBlock = mBlockStore.createBlockMeta(sessionId, blockId,
+        BlockStoreLocation.anyDirInTier(StorageLevelAlias.MEM.getValue()), blockInfo.getLength());
+    boolean copied = false;
+    try {
+      FileUtils.createBlockPath(tempBlock.getPath());
+      copyFromWorker(sessionId, blockId, source.getWorkerAddress(), blockInfo.getLength());
+      copied = true;
+    } finally {
+      if (!copied) {
+        mBlockStore.abortBlock(sessionId, blockId);
+      }
+    }
+    commitBlock(sessionId, blockId);
+  }
+
+  /**
+   * Chooses the worker to read a block from, other than this worker.
+   *
+   * @param blockInfo The information of the block from the master
+   * @return the location of the block on the worker holding it in the highest tier, or null if no
+   *         other worker holds the block
+   */
+  private BlockLocation getRemoteSource(BlockInfo blockInfo) {
+    BlockLocation source = null;
+    for (BlockLocation location : blockInfo.getLocations()) {
+      if (location.getWorkerId() != mWorkerId
+          && (source == null || location.getTier() < source.getTier())) {
+        source = location;
+      }
+    }
+    return source;
+  }
+
+  /**
+   * Copies a block from the data server of another worker into an existing temporary block.
+   *
+   * @param sessionId The id of the client
+   * @param blockId The id of the block to copy, and of the temporary block to write to
+   * @param workerAddress The address of the worker to copy the block from
+   * @param length The length of the block
+   * @throws NotFoundException if the temporary block cannot be found
+   * @throws IOException if the copy fails
+   */
+  private void copyFromWorker(long sessionId, long blockId, NetAddress workerAddress, long length)
+      throws NotFoundException, IOException {
+    InetSocketAddress address =
+        new InetSocketAddress(workerAddress.getHost(), workerAddress.getDataPort());
+    Closer closer = Closer.create();
+    try {
+      RemoteBlockReader reader =
+          closer.register(RemoteBlockReader.Factory.createRemoteBlockReader(mTachyonConf));
+      BlockWriter writer = closer.register(mBlockStore.getBlockWriter(sessionId, blockId));
+      long offset = 0;
+      while (offset < length) {
+        ByteBuffer data = reader.readRemoteBlock(address, blockId, offset,
+            Math.min(REMOTE_READ_CHUNK_BYTES, length - offset));
+        if (!data.hasRemaining()) {
+          throw new IOException("Unexpected end of block " + blockId + " from " + address
+              + " at " + offset);
+        }
+        offset += writer.append(data);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t, NotFoundException.class);
+    } finally {
+      closer.close();
+    }
+  }
+
   /**
    * Moves a block from its current location to a target location, currently only tier level moves
    * are supported
@@ -373,6 +864,17 @@ public final class BlockDataManager {
     mBlockStore.moveBlock(sessionId, blockId, dst);
   }
 
+  /**
+   * Queues a move of a block to a tier in the background, see {@link BlockStore#moveBlockAsync}.
+   *
+   * @param sessionId The id of the session to move the block
+   * @param blockId The id of the block to move
+   * @param tierAlias The alias of the tier to move the block to
+   */
+  public void moveBlockAsync(long sessionId, long blockId, int tierAlias) {
+    mBlockStore.moveBlockAsync(sessionId, blockId, BlockStoreLocation.anyDirInTier(tierAlias));
+  }
+
   /**
    * Gets the path to the block file in local storage. The block must be a permanent block, and the
    * caller must first obtain the lock on the block.
@@ -409,6 +911,15 @@ public final class BlockDataManager {
     return mBlockStore.getBlockReader(sessionId, blockId, lockId);
   }
 
+  /**
+   * Registers a {@link BlockStoreEventListener} to the underlying block store.
+   *
+   * @param listener the listener to block store events
+   */
+  public void registerBlockStoreEventListener(BlockStoreEventListener listener) {
+    mBlockStore.registerBlockStoreEventListener(listener);
+  }
+
   /**
    * Frees a block from Tachyon managed space.
    *
@@ -423,6 +934,33 @@ public final class BlockDataManager {
     mBlockStore.removeBlock(sessionId, blockId);
   }
 
+  /**
+   * Removes a batch of blocks from Tachyon managed space. Blocks being written or read are
+   * skipped, and the removed blocks are reported to the master in the next heartbeat.
+   *
+   * @param sessionId The id of the client
+   * @param blockIds The ids of the blocks to remove
+   * @return the ids of the blocks which are no longer in Tachyon managed space
+   */
+  public List<Long> removeBlocks(long sessionId, List<Long> blockIds) {
+    return mBlockStore.removeBlocks(sessionId, blockIds);
+  }
+
+  /**
+   * Quarantines a block whose data does not match its checksums. The block is removed from Tachyon
+   * managed space and reported to the master as removed in the next heartbeat.
+   *
+   * @param sessionId The id of the client
+   * @param blockId The id of the corrupted block
+   * @throws InvalidStateException if blockId has not been committed
+   * @throws NotFoundException if block cannot be found
+   * @throws IOException if the block file cannot be set aside
+   */
+  public void quarantineBlock(long sessionId, long blockId) throws InvalidStateException,
+      NotFoundException, IOException {
+    mBlockStore.quarantineBlock(sessionId, blockId);
+  }
+
   /**
    * Request an amount of space for a block in its storage directory. The block must be a temporary
    * block.
@@ -473,6 +1011,10 @@ public final class BlockDataManager {
    * Stop the block data manager. This method should only be called when terminating the worker.
    */
   public void stop() {
+    mCheckpointer.stop();
+    mUfsBlockLoader.stop();
+    mReadAhead.stop();
+    mBlockStore.stop();
   }
 
   /**
@@ -508,6 +1050,40 @@ public final class BlockDataManager {
    * @param pinnedInodes a set of pinned inodes
    */
   public void updatePinList(Set<Long> pinnedInodes) {
+    synchronized (mCheckpointPinnedFiles) {
+      mMasterPinnedInodes = pinnedInodes;
+      updatePinnedInodes();
+    }
+  }
+
+  /**
+   * Pins a file on this worker while it is checkpointed, in addition to the pinned inodes from the
+   * master, so that its blocks are not evicted before they are written to the under filesystem.
+   *
+   * @param fileId The id of the file
+   */
+  void pinForCheckpoint(long fileId) {
+    synchronized (mCheckpointPinnedFiles) {
+      mCheckpointPinnedFiles.add(fileId);
+      updatePinnedInodes();
+    }
+  }
+
+  /**
+   * Unpins a file pinned by {@link #pinForCheckpoint}.
+   *
+   * @param fileId The id of the file
+   */
+  void unpinForCheckpoint(long fileId) {
+    synchronized (mCheckpointPinnedFiles) {
+      mCheckpointPinnedFiles.remove(fileId);
+      updatePinnedInodes();
+    }
+  }
+
+  private void updatePinnedInodes() {
+    Set<Long> pinnedInodes = new HashSet<Long>(mMasterPinnedInodes);
+    pinnedInodes.addAll(mCheckpointPinnedFiles);
     mBlockStore.updatePinnedInodes(pinnedInodes);
   }
 }
@@ -27,10 +27,14 @@ public final class BlockHeartbeatReport {
   private final Map<Long, List<Long>> mAddedBlocks;
   /** List of block ids removed in the last heartbeat period */
   private final List<Long> mRemovedBlocks;
+  /** Map of block ids to the number of times they were accessed in the last heartbeat period */
+  private final Map<Long, Long> mBlockAccessCounts;
 
-  public BlockHeartbeatReport(Map<Long, List<Long>> addedBlocks, List<Long> removedBlocks) {
+  public BlockHeartbeatReport(Map<Long, List<Long>> addedBlocks, List<Long> removedBlocks,
+      Map<Long, Long> blockAccessCounts) {
     mAddedBlocks = addedBlocks;
     mRemovedBlocks = removedBlocks;
+    mBlockAccessCounts = blockAccessCounts;
   }
 
   /**
@@ -50,4 +54,14 @@ public final class BlockHeartbeatReport {
   public List<Long> getRemovedBlocks() {
     return Collections.unmodifiableList(mRemovedBlocks);
   }
+
+  /**
+   * Gets the number of accesses to each block of this worker in the heartbeat this report
+   * represents
+   *
+   * @return a map from block ids to the number of times the block was accessed
+   */
+  public Map<Long, Long> getBlockAccessCounts() {
+    return Collections.unmodifiableMap(mBlockAccessCounts);
+  }
 }
@@ -17,12 +17,9 @@ package tachyon.worker.block;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-
-import com.google.common.collect.Lists;
 
 /**
  * Represents the delta of the block store within one heartbeat period. For now, newly committed
@@ -34,15 +31,21 @@ public final class BlockHeartbeatReporter extends BlockStoreEventListenerBase {
   /** Lock for operations on the removed and added block collections */
   private final Object mLock;
 
-  /** List of blocks that were removed in the last heartbeat period */
-  private final List<Long> mRemovedBlocks;
-  /** Map of storage dirs to a list of blocks that were added in the last heartbeat period */
-  private final Map<Long, List<Long>> mAddedBlocks;
+  /**
+   * Blocks that were removed in the last heartbeat period, kept as ranges so that recording the
+   * removal of many blocks of the same files is cheap
+   */
+  private final BlockIdRanges mRemovedBlocks;
+  /** Map of blocks that were added in the last heartbeat period to their storage dirs */
+  private final Map<Long, Long> mAddedBlocks;
+  /** Map of block ids to the number of times they were accessed in the last heartbeat period */
+  private final Map<Long, Long> mBlockAccessCounts;
 
   public BlockHeartbeatReporter() {
     mLock = new Object();
-    mRemovedBlocks = new ArrayList<Long>(100);
-    mAddedBlocks = new HashMap<Long, List<Long>>(20);
+    mRemovedBlocks = new BlockIdRanges();
+    mAddedBlocks = new LinkedHashMap<Long, Long>(100);
+    mBlockAccessCounts = new HashMap<Long, Long>(100);
   }
 
   /**
@@ -53,13 +56,31 @@ public final class BlockHeartbeatReporter extends BlockStoreEventListenerBase {
    */
   public BlockHeartbeatReport generateReport() {
     synchronized (mLock) {
-      // Copy added and removed blocks
-      Map<Long, List<Long>> addedBlocks = new HashMap<Long, List<Long>>(mAddedBlocks);
-      List<Long> removedBlocks = new ArrayList<Long>(mRemovedBlocks);
-      // Clear added and removed blocks
+      // Copy added and removed blocks, and the block access counts
+      Map<Long, List<Long>> addedBlocks = new HashMap<Long, List<Long>>(20);
+      for (Map.Entry<Long, Long> entry : mAddedBlocks.entrySet()) {
+        List<Long> dirBlocks = addedBlocks.get(entry.getValue());
+        if (dirBlocks == null) {
+          dirBlocks = new ArrayList<Long>();
+          addedBlocks.put(entry.getValue(), dirBlocks);
+        }
+        dirBlocks.add(entry.getKey());
+      }
+      List<Long> removedBlocks = mRemovedBlocks.toList();
+      Map<Long, Long> blockAccessCounts = new HashMap<Long, Long>(mBlockAccessCounts);
+      // Clear added and removed blocks, and the block access counts
       mAddedBlocks.clear();
       mRemovedBlocks.clear();
-      return new BlockHeartbeatReport(addedBlocks, removedBlocks);
+      mBlockAccessCounts.clear();
+      return new BlockHeartbeatReport(addedBlocks, removedBlocks, blockAccessCounts);
+    }
+  }
+
+  @Override
+  public void onAccessBlock(long sessionId, long blockId) {
+    synchronized (mLock) {
+      Long count = mBlockAccessCounts.get(blockId);
+      mBlockAccessCounts.put(blockId, count == null ? 1L : count + 1);
     }
   }
 
@@ -81,10 +102,9 @@ public final class BlockHeartbeatReporter extends BlockStoreEventListenerBase {
     synchronized (mLock) {
       // Remove the block from list of added blocks, in case it was added in this heartbeat period.
       removeBlockFromAddedBlocks(blockId);
-      // Add to the list of removed blocks in this heartbeat period.
-      if (!mRemovedBlocks.contains(blockId)) {
-        mRemovedBlocks.add(blockId);
-      }
+      // Add to the removed blocks in this heartbeat period.
+      mRemovedBlocks.add(blockId);
+      mBlockAccessCounts.remove(blockId);
     }
   }
 
@@ -93,10 +113,9 @@ public final class BlockHeartbeatReporter extends BlockStoreEventListenerBase {
     synchronized (mLock) {
       // Remove the block from list of added blocks, in case it was added in this heartbeat period.
       removeBlockFromAddedBlocks(blockId);
-      // Add to the list of removed blocks in this heartbeat period.
-      if (!mRemovedBlocks.contains(blockId)) {
-        mRemovedBlocks.add(blockId);
-      }
+      // Add to the removed blocks in this heartbeat period.
+      mRemovedBlocks.add(blockId);
+      mBlockAccessCounts.remove(blockId);
     }
   }
 
@@ -114,17 +133,13 @@ public final class BlockHeartbeatReporter extends BlockStoreEventListenerBase {
   }
 
   /**
-   * Adds a block to the list of added blocks in this heartbeat period.
+   * Adds a block to the added blocks in this heartbeat period.
    *
    * @param blockId The id of the block to add
    * @param storageDirId The storage directory id containing the block
    */
   private void addBlockToAddedBlocks(long blockId, long storageDirId) {
-    if (mAddedBlocks.containsKey(storageDirId)) {
-      mAddedBlocks.get(storageDirId).add(blockId);
-    } else {
-      mAddedBlocks.put(storageDirId, Lists.newArrayList(blockId));
-    }
+    mAddedBlocks.put(blockId, storageDirId);
   }
 
   /**
@@ -133,18 +148,6 @@ public final class BlockHeartbeatReporter extends BlockStoreEventListenerBase {
    * @param blockId The block to remove
    */
   private void removeBlockFromAddedBlocks(long blockId) {
-    Iterator<Entry<Long, List<Long>>> iterator = mAddedBlocks.entrySet().iterator();
-    while (iterator.hasNext()) {
-      Entry<Long, List<Long>> entry = iterator.next();
-      List<Long> blockList = entry.getValue();
-      if (blockList.contains(blockId)) {
-        blockList.remove(blockId);
-        if (blockList.isEmpty()) {
-          iterator.remove();
-        }
-        // exit the loop when already find and remove blockId from mAddedBlocks
-        break;
-      }
-    }
+    mAddedBlocks.remove(blockId);
   }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A set of block ids kept as ranges of consecutive ids. The blocks of a file have consecutive ids,
+ * so the blocks removed when whole files are freed or evicted take a few ranges instead of one
+ * entry each. This class is not thread safe.
+ */
+final class BlockIdRanges {
+  /** Ranges by their first block id, mapped to their last block id */
+  private final TreeMap<Long, Long> mRanges = new TreeMap<Long, Long>();
+  /** Number of block ids in the ranges */
+  private int mSize = 0;
+
+  /**
+   * Adds a block id, merging it with the ranges it is adjacent to.
+   *
+   * @param blockId the block id to add
+   * @return true if the id was added, false if it was already in the set
+   */
+  public boolean add(long blockId) {
+    Map.Entry<Long, Long> previous = mRanges.floorEntry(blockId);
+    if (previous != null && previous.getValue() >= blockId) {
+      return false;
+    }
+    long start = blockId;
+    if (previous != null && previous.getValue() == blockId - 1) {
+      start = previous.getKey();
+    }
+    long end = blockId;
+    if (blockId < Long.MAX_VALUE) {
+      Long next = mRanges.remove(blockId + 1);
+      if (next != null) {
+        end = next;
+      }
+    }
+    mRanges.put(start, end);
+    mSize ++;
+    return true;
+  }
+
+  /**
+   * Removes all the block ids.
+   */
+  public void clear() {
+    mRanges.clear();
+    mSize = 0;
+  }
+
+  /**
+   * @return the number of ranges of consecutive block ids
+   */
+  public int getRangeCount() {
+    return mRanges.size();
+  }
+
+  /**
+   * @return true if the set has no block id, false otherwise
+   */
+  public boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  /**
+   * @return the number of block ids in the set
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * @return the block ids of the set, in increasing order
+   */
+  public List<Long> toList() {
+    List<Long> blockIds = new ArrayList<Long>(mSize);
+    for (Map.Entry<Long, Long> range : mRanges.entrySet()) {
+      for (long blockId = range.getKey(); blockId <= range.getValue(); blockId ++) {
+        blockIds.add(blockId);
+        if (blockId == Long.MAX_VALUE) {
+          break;
+        }
+      }
+    }
+    return blockIds;
+  }
+}
@@ -15,10 +15,12 @@
 
 package tachyon.worker.block;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
@@ -26,8 +28,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Sets;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
 
 import tachyon.Constants;
 import tachyon.exception.ExceptionMessage;
@@ -41,71 +41,128 @@ import tachyon.exception.NotFoundException;
  */
 public final class BlockLockManager {
   private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
-  /** The number of locks, larger value leads to finer locking granularity, but more space. */
-  // TODO: Make this configurable
-  private static final int NUM_LOCKS = 1000;
+  /** The estimated number of threads concurrently updating the lock maps */
+  private static final int LOCK_RECORD_CONCURRENCY = 64;
 
+  /** The lock ID returned when a lock can not be acquired without waiting */
+  public static final long INVALID_LOCK_ID = -1;
   /** The unique id of each lock */
   private static final AtomicLong LOCK_ID_GEN = new AtomicLong(0);
-  /** A hashing function to map blockId to one of the locks */
-  private static final HashFunction HASH_FUNC = Hashing.murmur3_32();
 
-  /** A map from a block ID to its lock */
-  private final ClientRWLock[] mLockArray = new ClientRWLock[NUM_LOCKS];
-  /** A map from a session ID to all the locks hold by this session */
-  private final Map<Long, Set<Long>> mSessionIdToLockIdsMap = new HashMap<Long, Set<Long>>();
+  /**
+   * A map from a block ID to its lock. A lock is created when a block is first locked, and removed
+   * once no session holds or waits for it any more.
+   */
+  private final ConcurrentMap<Long, BlockLock> mBlockIdToLockMap =
+      new ConcurrentHashMap<Long, BlockLock>(16, 0.75f, LOCK_RECORD_CONCURRENCY);
+  /** The number of lock acquisitions which had to wait for a lock hold by another session */
+  private final AtomicLong mLockWaitCount = new AtomicLong(0);
+  /**
+   * A map from a session ID to all the locks hold by this session. The sets are concurrent, and
+   * are only replaced, never reused, once a session is cleaned up. A lock added to a set which has
+   * been detached in the meantime is recorded again in the new set of the session, unless the
+   * cleanup has already released it, see {@link #addLockRecord}.
+   */
+  private final ConcurrentMap<Long, Set<Long>> mSessionIdToLockIdsMap =
+      new ConcurrentHashMap<Long, Set<Long>>(16, 0.75f, LOCK_RECORD_CONCURRENCY);
   /** A map from a lock ID to the lock record of it */
-  private final Map<Long, LockRecord> mLockIdToRecordMap = new HashMap<Long, LockRecord>();
-  /** To guard access on mLockIdToRecordMap and mSessionIdToLockIdsMap */
-  private final Object mSharedMapsLock = new Object();
+  private final ConcurrentMap<Long, LockRecord> mLockIdToRecordMap =
+      new ConcurrentHashMap<Long, LockRecord>(16, 0.75f, LOCK_RECORD_CONCURRENCY);
 
-  public BlockLockManager() {
-    for (int i = 0; i < NUM_LOCKS; i ++) {
-      mLockArray[i] = new ClientRWLock();
-    }
-  }
+  public BlockLockManager() {}
 
   /**
-   * Gets index of the lock that will be used to lock the block
+   * Locks a block. Note that, even if this block does not exist, a lock id is still returned.
    *
-   * @param blockId the id of the block
-   * @return hash index of the lock
+   * @param sessionId the ID of session
+   * @param blockId the ID of block
+   * @param blockLockType READ or WRITE
+   * @return lock ID
    */
-  public static int blockHashIndex(long blockId) {
-    return Math.abs(HASH_FUNC.hashLong(blockId).asInt()) % NUM_LOCKS;
+  public long lockBlock(long sessionId, long blockId, BlockLockType blockLockType) {
+    BlockLock blockLock = acquireBlockLock(blockId);
+    Lock lock;
+    if (blockLockType == BlockLockType.READ) {
+      lock = blockLock.readLock();
+    } else {
+      lock = blockLock.writeLock();
+    }
+    if (!tryLockFairly(lock)) {
+      mLockWaitCount.incrementAndGet();
+      lock.lock();
+    }
+    return addLockRecord(sessionId, blockId, blockLock, lock);
   }
 
   /**
-   * Locks a block. Note that, lock striping is used so even this block does not exist, a lock id is
-   * still returned.
+   * Locks a block if this can be done without waiting for another session.
    *
    * @param sessionId the ID of session
    * @param blockId the ID of block
    * @param blockLockType READ or WRITE
-   * @return lock ID
+   * @return lock ID, or {@link #INVALID_LOCK_ID} if the block is locked by another session
    */
-  public long lockBlock(long sessionId, long blockId, BlockLockType blockLockType) {
-    // hashing blockId into the range of [0, NUM_LOCKS-1]
-    int index = blockHashIndex(blockId);
-    ClientRWLock blockLock = mLockArray[index];
+  public long tryLockBlock(long sessionId, long blockId, BlockLockType blockLockType) {
+    BlockLock blockLock = acquireBlockLock(blockId);
     Lock lock;
     if (blockLockType == BlockLockType.READ) {
       lock = blockLock.readLock();
     } else {
       lock = blockLock.writeLock();
     }
-    lock.lock();
+    if (!tryLockFairly(lock)) {
+      if (blockLock.release()) {
+        mBlockIdToLockMap.remove(blockId, blockLock);
+      }
+      return INVALID_LOCK_ID;
+    }
+    return addLockRecord(sessionId, blockId, blockLock, lock);
+  }
+
+  /**
+   * Acquires a lock if it is available without waiting. Unlike {@link Lock#tryLock()}, this does not
+   * barge ahead of the sessions already waiting for the lock.
+   *
+   * @param lock the lock to acquire
+   * @return true if the lock was acquired, false if it is not available or the thread was
+   *         interrupted, in which case the interrupt flag is restored
+   */
+  private boolean tryLockFairly(Lock lock) {
+    try {
+      return lock.tryLock(0, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Records a lock acquired by a session.
+   *
+   * @return the ID of the new lock
+   */
+  private long addLockRecord(long sessionId, long blockId, BlockLock blockLock, Lock lock) {
     long lockId = LOCK_ID_GEN.getAndIncrement();
-    synchronized (mSharedMapsLock) {
-      mLockIdToRecordMap.put(lockId, new LockRecord(sessionId, blockId, lock));
+    mLockIdToRecordMap.put(lockId, new LockRecord(sessionId, blockId, blockLock, lock));
+    while (true) {
       Set<Long> sessionLockIds = mSessionIdToLockIdsMap.get(sessionId);
       if (null == sessionLockIds) {
-        mSessionIdToLockIdsMap.put(sessionId, Sets.newHashSet(lockId));
-      } else {
-        sessionLockIds.add(lockId);
+        Set<Long> newSessionLockIds = Sets.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        sessionLockIds = mSessionIdToLockIdsMap.putIfAbsent(sessionId, newSessionLockIds);
+        if (null == sessionLockIds) {
+          sessionLockIds = newSessionLockIds;
+        }
+      }
+      sessionLockIds.add(lockId);
+      // If the set is still the session's after the add, a later cleanupSession detaches it first
+      // and then sees this lock when iterating it. Otherwise a concurrent cleanupSession may have
+      // missed the lock, so it is recorded in the new set of the session, unless the cleanup did
+      // see it and released it already. The removal of the lock record decides who releases it.
+      if (mSessionIdToLockIdsMap.get(sessionId) == sessionLockIds
+          || !mLockIdToRecordMap.containsKey(lockId)) {
+        return lockId;
       }
     }
-    return lockId;
   }
 
   /**
@@ -115,47 +172,34 @@ public final class BlockLockManager {
    * @throws NotFoundException if no lock is associated with this lock id
    */
   public void unlockBlock(long lockId) throws NotFoundException {
-    Lock lock;
-    synchronized (mSharedMapsLock) {
-      LockRecord record = mLockIdToRecordMap.get(lockId);
-      if (record == null) {
-        throw new NotFoundException(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_LOCK_ID, lockId);
-      }
-      long sessionId = record.sessionId();
-      lock = record.lock();
-      mLockIdToRecordMap.remove(lockId);
-      Set<Long> sessionLockIds = mSessionIdToLockIdsMap.get(sessionId);
+    // Removing the record first guarantees the lock is released at most once.
+    LockRecord record = mLockIdToRecordMap.remove(lockId);
+    if (record == null) {
+      throw new NotFoundException(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_LOCK_ID, lockId);
+    }
+    Set<Long> sessionLockIds = mSessionIdToLockIdsMap.get(record.sessionId());
+    if (sessionLockIds != null) {
       sessionLockIds.remove(lockId);
-      if (sessionLockIds.isEmpty()) {
-        mSessionIdToLockIdsMap.remove(sessionId);
-      }
     }
-    lock.unlock();
+    unlock(record);
   }
 
   // TODO: temporary, remove me later.
   public void unlockBlock(long sessionId, long blockId) throws NotFoundException {
-    synchronized (mSharedMapsLock) {
-      Set<Long> sessionLockIds = mSessionIdToLockIdsMap.get(sessionId);
+    Set<Long> sessionLockIds = mSessionIdToLockIdsMap.get(sessionId);
+    if (sessionLockIds != null) {
       for (long lockId : sessionLockIds) {
         LockRecord record = mLockIdToRecordMap.get(lockId);
-        if (null == record) {
-          throw new NotFoundException(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_LOCK_ID, lockId);
-        }
-        if (blockId == record.blockId()) {
-          mLockIdToRecordMap.remove(lockId);
+        if (null != record && blockId == record.blockId()
+            && mLockIdToRecordMap.remove(lockId, record)) {
           sessionLockIds.remove(lockId);
-          if (sessionLockIds.isEmpty()) {
-            mSessionIdToLockIdsMap.remove(sessionId);
-          }
-          Lock lock = record.lock();
-          lock.unlock();
+          unlock(record);
           return;
         }
       }
-      throw new NotFoundException(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_BLOCK_AND_SESSION,
-          blockId, sessionId);
     }
+    throw new NotFoundException(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_BLOCK_AND_SESSION,
+        blockId, sessionId);
   }
 
   /**
@@ -170,19 +214,17 @@ public final class BlockLockManager {
    */
   public void validateLock(long sessionId, long blockId, long lockId)
       throws NotFoundException, InvalidStateException {
-    synchronized (mSharedMapsLock) {
-      LockRecord record = mLockIdToRecordMap.get(lockId);
-      if (null == record) {
-        throw new NotFoundException(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_LOCK_ID, lockId);
-      }
-      if (sessionId != record.sessionId()) {
-        throw new InvalidStateException(ExceptionMessage.LOCK_ID_FOR_DIFFERENT_SESSION, lockId,
-            record.sessionId(), sessionId);
-      }
-      if (blockId != record.blockId()) {
-        throw new InvalidStateException(ExceptionMessage.LOCK_ID_FOR_DIFFERENT_BLOCK, lockId,
-            record.blockId(), blockId);
-      }
+    LockRecord record = mLockIdToRecordMap.get(lockId);
+    if (null == record) {
+      throw new NotFoundException(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_LOCK_ID, lockId);
+    }
+    if (sessionId != record.sessionId()) {
+      throw new InvalidStateException(ExceptionMessage.LOCK_ID_FOR_DIFFERENT_SESSION, lockId,
+          record.sessionId(), sessionId);
+    }
+    if (blockId != record.blockId()) {
+      throw new InvalidStateException(ExceptionMessage.LOCK_ID_FOR_DIFFERENT_BLOCK, lockId,
+          record.blockId(), blockId);
     }
   }
 
@@ -192,22 +234,19 @@ public final class BlockLockManager {
    * @param sessionId the ID of the session to cleanup
    */
   public void cleanupSession(long sessionId) {
-    synchronized (mSharedMapsLock) {
-      Set<Long> sessionLockIds = mSessionIdToLockIdsMap.get(sessionId);
-      if (null == sessionLockIds) {
-        return;
-      }
-      for (long lockId : sessionLockIds) {
-        LockRecord record = mLockIdToRecordMap.get(lockId);
-        if (null == record) {
-          LOG.error(ExceptionMessage.LOCK_RECORD_NOT_FOUND_FOR_LOCK_ID.getMessage(lockId));
-          continue;
-        }
-        Lock lock = record.lock();
-        lock.unlock();
-        mLockIdToRecordMap.remove(lockId);
+    Set<Long> sessionLockIds = mSessionIdToLockIdsMap.get(sessionId);
+    if (null == sessionLockIds) {
+      return;
+    }
+    // Locks added to the set after it is detached are moved to a new set by addLockRecord
+    mSessionIdToLockIdsMap.remove(sessionId, sessionLockIds);
+    for (long lockId : sessionLockIds) {
+      LockRecord record = mLockIdToRecordMap.remove(lockId);
+      if (null == record) {
+        // The lock has been released concurrently.
+        continue;
       }
-      mSessionIdToLockIdsMap.remove(sessionId);
+      unlock(record);
     }
   }
 
@@ -217,12 +256,103 @@ public final class BlockLockManager {
    * @return a set of locked blocks
    */
   public Set<Long> getLockedBlocks() {
-    synchronized (mSharedMapsLock) {
-      Set<Long> set = new HashSet<Long>();
-      for (LockRecord lockRecord : mLockIdToRecordMap.values()) {
-        set.add(lockRecord.blockId());
+    Set<Long> set = new HashSet<Long>();
+    for (LockRecord lockRecord : mLockIdToRecordMap.values()) {
+      set.add(lockRecord.blockId());
+    }
+    return set;
+  }
+
+  /**
+   * @return the number of block lock acquisitions which had to wait for a lock hold by another
+   *         session
+   */
+  public long getLockWaitCount() {
+    return mLockWaitCount.get();
+  }
+
+  /**
+   * @return the number of blocks which currently have a lock object
+   */
+  public int getNumBlockLocks() {
+    return mBlockIdToLockMap.size();
+  }
+
+  /**
+   * Gets the lock of a block, creating it if necessary, and takes a reference to it. The reference
+   * must be given back by {@link #unlock(LockRecord)}.
+   *
+   * @param blockId the ID of the block
+   * @return the lock of the block
+   */
+  private BlockLock acquireBlockLock(long blockId) {
+    while (true) {
+      BlockLock blockLock = mBlockIdToLockMap.get(blockId);
+      if (null == blockLock) {
+        BlockLock newBlockLock = new BlockLock();
+        blockLock = mBlockIdToLockMap.putIfAbsent(blockId, newBlockLock);
+        if (null == blockLock) {
+          blockLock = newBlockLock;
+        }
+      }
+      if (blockLock.retain()) {
+        return blockLock;
       }
-      return set;
+      // The lock is being reclaimed by another thread, wait for it to be removed from the map.
+      Thread.yield();
+    }
+  }
+
+  /**
+   * Releases the lock of a lock record, and reclaims the block lock if it is no longer used.
+   *
+   * @param record the lock record
+   */
+  private void unlock(LockRecord record) {
+    record.lock().unlock();
+    if (record.blockLock().release()) {
+      mBlockIdToLockMap.remove(record.blockId(), record.blockLock());
+    }
+  }
+
+  /**
+   * Wraps a {@link ClientRWLock} with a count of the lock records using or waiting for it. Once
+   * the count drops to zero the lock is reclaimed, and can no longer be retained.
+   */
+  private static final class BlockLock {
+    /** The underlying lock */
+    private final ClientRWLock mRWLock = new ClientRWLock();
+    /** The number of references, or -1 once the lock has been reclaimed */
+    private final AtomicInteger mReferences = new AtomicInteger(0);
+
+    Lock readLock() {
+      return mRWLock.readLock();
+    }
+
+    Lock writeLock() {
+      return mRWLock.writeLock();
+    }
+
+    /**
+     * @return true if a reference was taken, false if the lock has already been reclaimed
+     */
+    boolean retain() {
+      while (true) {
+        int references = mReferences.get();
+        if (references < 0) {
+          return false;
+        }
+        if (mReferences.compareAndSet(references, references + 1)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * @return true if this was the last reference and the lock has been reclaimed
+     */
+    boolean release() {
+      return mReferences.decrementAndGet() == 0 && mReferences.compareAndSet(0, -1);
     }
   }
 
@@ -232,11 +362,13 @@ public final class BlockLockManager {
   private static final class LockRecord {
     private final long mSessionId;
     private final long mBlockId;
+    private final BlockLock mBlockLock;
     private final Lock mLock;
 
-    LockRecord(long sessionId, long blockId, Lock lock) {
+    LockRecord(long sessionId, long blockId, BlockLock blockLock, Lock lock) {
       mSessionId = sessionId;
       mBlockId = blockId;
+      mBlockLock = blockLock;
       mLock = lock;
     }
 
@@ -248,6 +380,10 @@ public final class BlockLockManager {
       return mBlockId;
     }
 
+    BlockLock blockLock() {
+      return mBlockLock;
+    }
+
     Lock lock() {
       return mLock;
     }
@@ -16,21 +16,32 @@
 package tachyon.worker.block;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.RateLimiter;
+
 import tachyon.Constants;
 import tachyon.Sessions;
 import tachyon.client.BlockMasterClient;
 import tachyon.conf.TachyonConf;
+import tachyon.exception.AlreadyExistsException;
 import tachyon.exception.InvalidStateException;
 import tachyon.exception.NotFoundException;
+import tachyon.exception.OutOfSpaceException;
 import tachyon.thrift.Command;
 import tachyon.thrift.NetAddress;
 import tachyon.util.CommonUtils;
+import tachyon.util.ThreadFactoryUtils;
 
 /**
  * Task that carries out the necessary block worker to master communications, including register and
@@ -65,9 +76,19 @@ public final class BlockMasterSync implements Runnable {
   private volatile boolean mRunning;
   /** The id of the worker */
   private long mWorkerId;
-  /** The thread pool to remove block */
+  /** The thread pool to load and replicate blocks */
   private final ExecutorService mFixedExecutionService =
           Executors.newFixedThreadPool(DEFAULT_BLOCK_REMOVER_POOL_SIZE);
+  /** The thread removing the blocks freed by the master, one batch after another */
+  private final ExecutorService mBlockRemoverService =
+      Executors.newSingleThreadExecutor(ThreadFactoryUtils.build("block-remover-%d", true));
+  /** Blocks queued for removal, which the master asks to free again until they are reported */
+  private final Set<Long> mPendingRemovals =
+      Sets.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+  /** Maximum number of blocks removed in one batch */
+  private final int mRemoveBatchSize;
+  /** Limits the number of blocks removed per second, null if unlimited */
+  private final RateLimiter mRemoveRateLimiter;
 
   BlockMasterSync(BlockDataManager blockDataManager, TachyonConf tachyonConf,
       NetAddress workerAddress, BlockMasterClient masterClient) {
@@ -79,6 +100,10 @@ public final class BlockMasterSync implements Runnable {
         mTachyonConf.getInt(Constants.WORKER_TO_MASTER_HEARTBEAT_INTERVAL_MS);
     mHeartbeatTimeoutMs =
         mTachyonConf.getInt(Constants.WORKER_HEARTBEAT_TIMEOUT_MS);
+    mRemoveBatchSize = mTachyonConf.getInt(Constants.WORKER_BLOCK_REMOVE_BATCH_SIZE);
+    Preconditions.checkArgument(mRemoveBatchSize > 0, "Block remove batch size should be positive");
+    int removeRate = mTachyonConf.getInt(Constants.WORKER_BLOCK_REMOVE_RATE);
+    mRemoveRateLimiter = removeRate > 0 ? RateLimiter.create(removeRate) : null;
 
     mRunning = true;
     mWorkerId = 0;
@@ -143,7 +168,8 @@ public final class BlockMasterSync implements Runnable {
       try {
         Command cmdFromMaster =
             mMasterClient.workerHeartbeat(mWorkerId, storeMeta.getUsedBytesOnTiers(),
-                blockReport.getRemovedBlocks(), blockReport.getAddedBlocks());
+                blockReport.getRemovedBlocks(), blockReport.getAddedBlocks(),
+                blockReport.getBlockAccessCounts());
         lastHeartbeatMs = System.currentTimeMillis();
         handleMasterCommand(cmdFromMaster);
       } catch (Exception ioe) {
@@ -167,7 +193,8 @@ public final class BlockMasterSync implements Runnable {
   }
 
   /**
-   * Handles a master command. The command is one of Unknown, Nothing, Register, Free, or Delete.
+   * Handles a master command. The command is one of Unknown, Nothing, Register, Free, Delete, Load,
+   * or Replicate.
    * This call will block until the command is complete.
    *
    * @param cmd the command to execute.
@@ -185,9 +212,20 @@ public final class BlockMasterSync implements Runnable {
         break;
       // Master requests blocks to be removed from Tachyon managed space.
       case Free:
+        removeBlocks(cmd.mData);
+        break;
+      // Master requests lost blocks to be loaded from the under storage.
+      case Load:
         for (long block : cmd.mData) {
-          mFixedExecutionService.execute(new BlockRemover(mBlockDataManager,
-                  Sessions.MASTER_COMMAND_SESSION_ID, block));
+          mFixedExecutionService.execute(new BlockLoader(mBlockDataManager,
+              Sessions.MASTER_COMMAND_SESSION_ID, block));
+        }
+        break;
+      // Master requests extra replicas of hot blocks to be copied from other workers.
+      case Replicate:
+        for (long block : cmd.mData) {
+          mFixedExecutionService.execute(new BlockReplicator(mBlockDataManager,
+              Sessions.MASTER_COMMAND_SESSION_ID, block));
         }
         break;
       // No action required
@@ -207,14 +245,73 @@ public final class BlockMasterSync implements Runnable {
   }
 
   /**
-   * Thread to remove block from master
+   * Queues the removal of blocks freed by the master, in batches. Blocks already queued are
+   * skipped, since the master asks to free a block on every heartbeat until its removal is
+   * reported.
+   *
+   * @param blockIds the ids of the blocks to remove
+   */
+  private void removeBlocks(List<Long> blockIds) {
+    List<Long> batch = new ArrayList<Long>();
+    for (long blockId : blockIds) {
+      if (!mPendingRemovals.add(blockId)) {
+        continue;
+      }
+      batch.add(blockId);
+      if (batch.size() == mRemoveBatchSize) {
+        mBlockRemoverService.execute(new BlockRemover(mBlockDataManager,
+            Sessions.MASTER_COMMAND_SESSION_ID, batch));
+        batch = new ArrayList<Long>();
+      }
+    }
+    if (!batch.isEmpty()) {
+      mBlockRemoverService.execute(new BlockRemover(mBlockDataManager,
+          Sessions.MASTER_COMMAND_SESSION_ID, batch));
+    }
+  }
+
+  /**
+   * Thread to remove a batch of blocks freed by the master
    */
   private class BlockRemover implements Runnable {
+    private BlockDataManager mBlockDataManager;
+    private long mSessionId;
+    private List<Long> mBlockIds;
+
+    public BlockRemover(BlockDataManager blockDataManager, long sessionId, List<Long> blockIds) {
+      mBlockDataManager = blockDataManager;
+      mSessionId = sessionId;
+      mBlockIds = blockIds;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (mRemoveRateLimiter != null) {
+          mRemoveRateLimiter.acquire(mBlockIds.size());
+        }
+        List<Long> removed = mBlockDataManager.removeBlocks(mSessionId, mBlockIds);
+        if (removed.size() < mBlockIds.size()) {
+          LOG.info("Failed master free block cmd for " + (mBlockIds.size() - removed.size())
+              + " of " + mBlockIds.size() + " blocks due to concurrent access.");
+        }
+      } catch (RuntimeException re) {
+        LOG.error("Failed master free block cmd for " + mBlockIds.size() + " blocks.", re);
+      } finally {
+        mPendingRemovals.removeAll(mBlockIds);
+      }
+    }
+  }
+
+  /**
+   * Thread to load a lost block from the under storage
+   */
+  private class BlockLoader implements Runnable {
     private BlockDataManager mBlockDataManager;
     private long mSessionId;
     private long mBlockId;
 
-    public BlockRemover(BlockDataManager blockDataManager, long sessionId, long blockId) {
+    public BlockLoader(BlockDataManager blockDataManager, long sessionId, long blockId) {
       mBlockDataManager = blockDataManager;
       mSessionId = sessionId;
       mBlockId = blockId;
@@ -223,15 +320,53 @@ public final class BlockMasterSync implements Runnable {
     @Override
     public void run() {
       try {
-        mBlockDataManager.removeBlock(mSessionId, mBlockId);
+        mBlockDataManager.loadBlockFromUfs(mSessionId, mBlockId);
+      } catch (AlreadyExistsException aee) {
+        LOG.warn("Failed master load block cmd for: " + mBlockId + " due to block existing.");
+      } catch (OutOfSpaceException oose) {
+        LOG.warn("Failed master load block cmd for: " + mBlockId + " due to lack of space.");
       } catch (IOException ioe) {
-        LOG.warn("Failed master free block cmd for: " + mBlockId + " due to concurrent read.");
-      } catch (InvalidStateException e) {
-        LOG.warn("Failed master free block cmd for: " + mBlockId + " due to block uncommitted.");
-      } catch (NotFoundException e) {
-        LOG.warn("Failed master free block cmd for: " + mBlockId + " due to block not found.");
+        LOG.warn("Failed master load block cmd for: " + mBlockId + " due to " + ioe.getMessage());
+      } catch (InvalidStateException ise) {
+        LOG.warn("Failed master load block cmd for: " + mBlockId + " due to " + ise.getMessage());
+      } catch (NotFoundException nfe) {
+        LOG.warn("Failed master load block cmd for: " + mBlockId + " due to " + nfe.getMessage());
       }
     }
+  }
 
+  /**
+   * Thread to copy a block from another worker
+   */
+  private class BlockReplicator implements Runnable {
+    private BlockDataManager mBlockDataManager;
+    private long mSessionId;
+    private long mBlockId;
+
+    public BlockReplicator(BlockDataManager blockDataManager, long sessionId, long blockId) {
+      mBlockDataManager = blockDataManager;
+      mSessionId = sessionId;
+      mBlockId = blockId;
+    }
+
+    @Override
+    public void run() {
+      try {
+        mBlockDataManager.replicateBlock(mSessionId, mBlockId);
+      } catch (AlreadyExistsException aee) {
+        LOG.warn("Failed master replicate block cmd for: " + mBlockId + " due to block existing.");
+      } catch (OutOfSpaceException oose) {
+        LOG.warn("Failed master replicate block cmd for: " + mBlockId + " due to lack of space.");
+      } catch (IOException ioe) {
+        LOG.warn("Failed master replicate block cmd for: " + mBlockId + " due to "
+            + ioe.getMessage());
+      } catch (InvalidStateException ise) {
+        LOG.warn("Failed master replicate block cmd for: " + mBlockId + " due to "
+            + ise.getMessage());
+      } catch (NotFoundException nfe) {
+        LOG.warn("Failed master replicate block cmd for: " + mBlockId + " due to "
+            + nfe.getMessage());
+      }
+    }
   }
 }
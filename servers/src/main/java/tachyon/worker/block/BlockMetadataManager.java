@@ -43,8 +43,9 @@ import tachyon.worker.block.meta.TempBlockMeta;
  * Manages the metadata of all blocks in managed space. This information is used by the
  * TieredBlockStore, Allocator and Evictor.
  * <p>
- * This class is NOT thread-safe. All operations on block metadata such as StorageTier, StorageDir
- * should go through this class.
+ * All operations on block metadata such as StorageTier, StorageDir should go through this class.
+ * Lookups are thread-safe, while the methods changing the metadata of a block must be called with
+ * the metadata locks of the StorageDirs involved held (see {@link StorageDir#getMetadataLock()}).
  */
 // TODO: consider how to better expose information to Evictor and Allocator.
 public class BlockMetadataManager {
@@ -349,13 +350,38 @@ public class BlockMetadataManager {
    */
   public BlockMeta moveBlockMeta(BlockMeta blockMeta, TempBlockMeta tempBlockMeta)
       throws NotFoundException, OutOfSpaceException, AlreadyExistsException {
+    return moveBlockMeta(blockMeta, tempBlockMeta, blockMeta.getStoredSize());
+  }
+
+  /**
+   * Moves an existing block to another location currently hold by a temp block, where its file
+   * has a different size because it has been compressed or decompressed by the move.
+   *
+   * @param blockMeta the meta data of the block to move
+   * @param tempBlockMeta a placeholder in the destination directory
+   * @param storedSize the size of the block file in the destination directory
+   * @return the new block metadata if success, absent otherwise
+   * @throws NotFoundException when the block to move is not found
+   * @throws AlreadyExistsException when the block to move already exists in the destination
+   * @throws OutOfSpaceException when destination have no extra space to hold the block to move
+   */
+  public BlockMeta moveBlockMeta(BlockMeta blockMeta, TempBlockMeta tempBlockMeta,
+      long storedSize) throws NotFoundException, OutOfSpaceException, AlreadyExistsException {
     StorageDir srcDir = blockMeta.getParentDir();
     StorageDir dstDir = tempBlockMeta.getParentDir();
-    srcDir.removeBlockMeta(blockMeta);
     BlockMeta newBlockMeta =
-        new BlockMeta(blockMeta.getBlockId(), blockMeta.getBlockSize(), dstDir);
+        new BlockMeta(blockMeta.getBlockId(), blockMeta.getBlockSize(), storedSize, dstDir);
+    if (srcDir == dstDir) {
+      srcDir.removeBlockMeta(blockMeta);
+      dstDir.removeTempBlockMeta(tempBlockMeta);
+      dstDir.addBlockMeta(newBlockMeta);
+      return newBlockMeta;
+    }
+    // Add the block to its destination before removing it from the source, so that lookups
+    // running concurrently without any dir lock always find the block in one of the two dirs.
     dstDir.removeTempBlockMeta(tempBlockMeta);
     dstDir.addBlockMeta(newBlockMeta);
+    srcDir.removeBlockMeta(blockMeta);
     return newBlockMeta;
   }
 
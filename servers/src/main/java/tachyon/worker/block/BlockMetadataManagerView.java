@@ -16,7 +16,6 @@
 package tachyon.worker.block;
 
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -47,8 +46,8 @@ public class BlockMetadataManagerView {
   private List<StorageTierView> mTierViews = new ArrayList<StorageTierView>();
   /** A list of pinned inodes */
   private final Set<Long> mPinnedInodes = new HashSet<Long>();
-  /** Indices of locks that are being used */
-  private final BitSet mInUseLocks = new BitSet();
+  /** A list of locked blocks */
+  private final Set<Long> mInUseBlocks = new HashSet<Long>();
   /** A map from tier alias to StorageTierView */
   private Map<Integer, StorageTierView> mAliasToTierViews = new HashMap<Integer, StorageTierView>();
 
@@ -64,10 +63,7 @@ public class BlockMetadataManagerView {
       Set<Long> lockedBlocks) {
     mMetadataManager = Preconditions.checkNotNull(manager);
     mPinnedInodes.addAll(Preconditions.checkNotNull(pinnedInodes));
-    Preconditions.checkNotNull(lockedBlocks);
-    for (Long blockId : lockedBlocks) {
-      mInUseLocks.set(BlockLockManager.blockHashIndex(blockId));
-    }
+    mInUseBlocks.addAll(Preconditions.checkNotNull(lockedBlocks));
 
     // iteratively create all StorageTierViews and StorageDirViews
     for (StorageTier tier : manager.getTiers()) {
@@ -106,12 +102,7 @@ public class BlockMetadataManagerView {
    * @return boolean, true if block is locked
    */
   public boolean isBlockLocked(long blockId) {
-    int index = BlockLockManager.blockHashIndex(blockId);
-    if (index < mInUseLocks.length()) {
-      return mInUseLocks.get(index);
-    } else {
-      return false;
-    }
+    return mInUseBlocks.contains(blockId);
   }
 
   /**
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+import tachyon.util.ThreadFactoryUtils;
+import tachyon.util.io.FileUtils;
+import tachyon.worker.block.io.BlockCompression;
+
+/**
+ * Moves block files between tiers for a {@link TieredBlockStore}. Each destination tier has its own
+ * pool of mover threads, so a batch of moves into a tier runs concurrently without holding up the
+ * thread queueing it, and its own bandwidth limit, so moves do not saturate the disks of the
+ * tier. A block file is renamed when the source and destination are on the same file system, and
+ * otherwise copied with {@link FileChannel#transferTo}, which lets the kernel copy the data
+ * without passing it through the worker's heap. Blocks moved into a tier with compression enabled
+ * are compressed on the way, and compressed blocks moved out of it are decompressed.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class BlockMover {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Number of bytes copied by one transferTo call, and charged to the bandwidth limit at once */
+  private static final long TRANSFER_CHUNK_BYTES = 8 * Constants.MB;
+
+  /** Number of mover threads for each destination tier */
+  private final int mThreadsPerTier;
+  /** Maximum bytes per second copied into each tier, non-positive for no limit */
+  private final long mBytesPerSecPerTier;
+  /** Mover thread pools by destination tier alias */
+  private final Map<Integer, ListeningExecutorService> mExecutors =
+      new HashMap<Integer, ListeningExecutorService>();
+  /** Whether the mover has been shut down, after which no more moves are accepted */
+  private boolean mShutdown = false;
+  /** Bandwidth limiters by destination tier alias */
+  private final Map<Integer, RateLimiter> mRateLimiters = new HashMap<Integer, RateLimiter>();
+
+  /**
+   * Creates a new block mover.
+   *
+   * @param tachyonConf the configuration values to be used
+   */
+  public BlockMover(TachyonConf tachyonConf) {
+    mThreadsPerTier = tachyonConf.getInt(Constants.WORKER_TIERED_STORE_MOVER_THREADS);
+    Preconditions.checkArgument(mThreadsPerTier > 0, "%s must be positive",
+        Constants.WORKER_TIERED_STORE_MOVER_THREADS);
+    mBytesPerSecPerTier = tachyonConf.getBytes(Constants.WORKER_TIERED_STORE_MOVER_BANDWIDTH);
+  }
+
+  /**
+   * Queues a batch of moves into a tier on the mover threads of the tier, and returns without
+   * waiting for them.
+   *
+   * @param tierAlias the alias of the destination tier of the moves
+   * @param moves the moves to run
+   * @return a future which completes once all the moves have completed, and fails with the first
+   *         error thrown by a move if any, or with an IOException if the mover has been shut down
+   */
+  public ListenableFuture<Void> runMoves(int tierAlias, List<Callable<Void>> moves) {
+    final List<ListenableFuture<Void>> futures =
+        new ArrayList<ListenableFuture<Void>>(moves.size());
+    try {
+      ListeningExecutorService executor = getExecutor(tierAlias);
+      for (Callable<Void> move : moves) {
+        futures.add(executor.submit(move));
+      }
+    } catch (RejectedExecutionException ree) {
+      // Moves already queued are cancelled by the shutdown
+      return Futures.immediateFailedFuture(new IOException("Block mover has been shut down"));
+    }
+    // Waits for all the moves, so that no move is still running when the batch fails
+    return Futures.transform(Futures.successfulAsList(futures),
+        new AsyncFunction<List<Void>, Void>() {
+          @Override
+          public ListenableFuture<Void> apply(List<Void> results) {
+            for (Future<Void> future : futures) {
+              try {
+                Uninterruptibles.getUninterruptibly(future);
+              } catch (ExecutionException ee) {
+                return Futures.immediateFailedFuture(ee.getCause());
+              } catch (CancellationException ce) {
+                return Futures.immediateFailedFuture(
+                    new IOException("Block mover has been shut down"));
+              }
+            }
+            return Futures.immediateFuture(null);
+          }
+        });
+  }
+
+  /**
+   * Waits for moves queued by {@link #runMoves}.
+   *
+   * @param moves the future of the moves
+   * @throws IOException the first I/O error thrown by a move
+   */
+  public static void waitForMoves(Future<Void> moves) throws IOException {
+    try {
+      Uninterruptibles.getUninterruptibly(moves);
+    } catch (ExecutionException ee) {
+      Throwables.propagateIfInstanceOf(ee.getCause(), IOException.class);
+      throw Throwables.propagate(ee.getCause());
+    }
+  }
+
+  /**
+   * Stops the mover threads. Moves which have not started yet are cancelled, and moves queued
+   * afterwards fail. This method should only be called when terminating the worker.
+   */
+  public synchronized void shutdown() {
+    mShutdown = true;
+    for (ExecutorService executor : mExecutors.values()) {
+      for (Runnable pending : executor.shutdownNow()) {
+        if (pending instanceof Future) {
+          ((Future<?>) pending).cancel(false);
+        }
+      }
+    }
+    mExecutors.clear();
+  }
+
+  /**
+   * Moves a block file into a tier. The file is renamed if possible, and otherwise copied within
+   * the bandwidth limit of the tier and then deleted.
+   *
+   * @param srcPath the path of the block file
+   * @param dstPath the path to move the block file to
+   * @param tierAlias the alias of the destination tier
+   * @throws IOException if the file can not be moved
+   */
+  public void moveFile(String srcPath, String dstPath, int tierAlias) throws IOException {
+    File srcFile = new File(srcPath);
+    File dstFile = new File(dstPath);
+    if (srcFile.renameTo(dstFile)) {
+      return;
+    }
+    RateLimiter rateLimiter = getRateLimiter(tierAlias);
+    Closer closer = Closer.create();
+    boolean copied = false;
+    try {
+      FileChannel src = closer.register(new FileInputStream(srcFile)).getChannel();
+      FileChannel dst = closer.register(new FileOutputStream(dstFile)).getChannel();
+      long size = src.size();
+      long position = 0;
+      while (position < size) {
+        long length = Math.min(TRANSFER_CHUNK_BYTES, size - position);
+        if (rateLimiter != null) {
+          rateLimiter.acquire((int) length);
+        }
+        position += src.transferTo(position, length, dst);
+      }
+      copied = true;
+    } finally {
+      closer.close();
+      if (!copied && dstFile.exists() && !dstFile.delete()) {
+        LOG.error("Failed to delete partially copied block file {}", dstPath);
+      }
+    }
+    FileUtils.delete(srcPath);
+  }
+
+  /**
+   * Compresses a raw block file into a tier, see {@link BlockCompression#compress}, within the
+   * bandwidth limit of the tier, and then deletes the raw file.
+   *
+   * @param srcPath the path of the raw block file
+   * @param dstPath the path of the compressed block file to create
+   * @param tierAlias the alias of the destination tier
+   * @return the length of the compressed block file
+   * @throws IOException if the file can not be compressed
+   */
+  public long compressFile(String srcPath, String dstPath, int tierAlias) throws IOException {
+    acquire(tierAlias, new File(srcPath).length());
+    long storedSize = BlockCompression.compress(srcPath, dstPath);
+    FileUtils.delete(srcPath);
+    return storedSize;
+  }
+
+  /**
+   * Decompresses a compressed block file into a tier, see {@link BlockCompression#decompress},
+   * within the bandwidth limit of the tier, and then deletes the compressed file and its index.
+   *
+   * @param srcPath the path of the compressed block file
+   * @param dstPath the path of the raw block file to create
+   * @param tierAlias the alias of the destination tier
+   * @return the length of the raw block file
+   * @throws IOException if the file can not be decompressed
+   */
+  public long decompressFile(String srcPath, String dstPath, int tierAlias) throws IOException {
+    acquire(tierAlias, BlockCompression.readIndex(srcPath).getLength());
+    BlockCompression.decompress(srcPath, dstPath);
+    FileUtils.delete(srcPath);
+    FileUtils.delete(BlockCompression.getIndexPath(srcPath));
+    return new File(dstPath).length();
+  }
+
+  private void acquire(int tierAlias, long bytes) {
+    RateLimiter rateLimiter = getRateLimiter(tierAlias);
+    // The whole file is charged up front, RateLimiter makes the next moves wait for it
+    if (rateLimiter != null && bytes > 0) {
+      rateLimiter.acquire((int) Math.min(bytes, Integer.MAX_VALUE));
+    }
+  }
+
+  private synchronized ListeningExecutorService getExecutor(int tierAlias) {
+    if (mShutdown) {
+      throw new RejectedExecutionException("Block mover has been shut down");
+    }
+    ListeningExecutorService executor = mExecutors.get(tierAlias);
+    if (executor == null) {
+      executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(mThreadsPerTier,
+          ThreadFactoryUtils.build("block-mover-" + tierAlias + "-%d", true)));
+      mExecutors.put(tierAlias, executor);
+    }
+    return executor;
+  }
+
+  private synchronized RateLimiter getRateLimiter(int tierAlias) {
+    if (mBytesPerSecPerTier <= 0) {
+      return null;
+    }
+    RateLimiter rateLimiter = mRateLimiters.get(tierAlias);
+    if (rateLimiter == null) {
+      rateLimiter = RateLimiter.create(mBytesPerSecPerTier);
+      mRateLimiters.put(tierAlias, rateLimiter);
+    }
+    return rateLimiter;
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+import tachyon.master.block.BlockId;
+import tachyon.util.ThreadFactoryUtils;
+
+/**
+ * BlockReadAhead detects files read sequentially block after block, and warms the next blocks of
+ * such files before they are requested, so that readers do not stall at every block boundary.
+ * Warming a block moves it to the top tier if it is on a lower tier, or loads it from the under
+ * filesystem if it is not in Tachyon storage. When a file is read out of order, the warming of its
+ * blocks which has not started yet is cancelled.
+ */
+public final class BlockReadAhead {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Maximum number of files whose read pattern is tracked, the least recently read are dropped */
+  private static final int MAX_TRACKED_FILES = 1024;
+  /** Block data manager warming the blocks */
+  private final BlockDataManager mBlockDataManager;
+  /** Number of blocks warmed ahead of a sequential reader, 0 if read-ahead is disabled */
+  private final int mBlocks;
+  /** Alias of the top tier */
+  private final int mTopTierAlias;
+  /** Threads warming the blocks */
+  private final ExecutorService mExecutor;
+  /** Read patterns by container ID, guarded by this object */
+  private final Map<Long, ReadPattern> mPatterns =
+      new LinkedHashMap<Long, ReadPattern>(16, 0.75f, true) {
+        private static final long serialVersionUID = -3806513624394758204L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ReadPattern> eldest) {
+          return size() > MAX_TRACKED_FILES;
+        }
+      };
+
+  /**
+   * Constructor for BlockReadAhead
+   *
+   * @param blockDataManager the block data manager to warm blocks with
+   * @param tachyonConf the configuration values to be used
+   */
+  public BlockReadAhead(BlockDataManager blockDataManager, TachyonConf tachyonConf) {
+    mBlockDataManager = Preconditions.checkNotNull(blockDataManager);
+    mBlocks = tachyonConf.getInt(Constants.WORKER_READ_AHEAD_BLOCKS);
+    int threads = tachyonConf.getInt(Constants.WORKER_READ_AHEAD_THREADS);
+    Preconditions.checkArgument(mBlocks >= 0, "Read-ahead blocks should not be negative");
+    Preconditions.checkArgument(threads > 0, "Read-ahead threads should be positive");
+    mTopTierAlias = tachyonConf.getEnum(
+        String.format(Constants.WORKER_TIERED_STORAGE_LEVEL_ALIAS_FORMAT, 0),
+        StorageLevelAlias.class).getValue();
+    // Threads are only started when the first block is warmed
+    mExecutor = Executors.newFixedThreadPool(threads,
+        ThreadFactoryUtils.build("block-read-ahead-%d", true));
+  }
+
+  /**
+   * Records a read of a block. If the previous read of the file was of the preceding block, the
+   * blocks following this one which are not warmed yet are scheduled to be warmed. Otherwise the
+   * pending warming of the file is cancelled.
+   *
+   * @param blockId the id of the block being read
+   */
+  public synchronized void onBlockRead(long blockId) {
+    if (mBlocks == 0) {
+      return;
+    }
+    long containerId = BlockId.getContainerId(blockId);
+    long seqNum = BlockId.getSequenceNumber(blockId);
+    ReadPattern pattern = mPatterns.get(containerId);
+    if (pattern == null) {
+      mPatterns.put(containerId, new ReadPattern(seqNum));
+      return;
+    }
+    if (seqNum == pattern.mLastSeqNum) {
+      return;
+    }
+    if (seqNum != pattern.mLastSeqNum + 1) {
+      pattern.reset(seqNum);
+      return;
+    }
+    pattern.mLastSeqNum = seqNum;
+    pattern.removeDone();
+    long first = Math.max(pattern.mWarmedUpTo, seqNum) + 1;
+    long last = Math.min(seqNum + mBlocks, BlockId.getMaxSequenceNumber() - 1);
+    for (long next = first; next <= last; next ++) {
+      final long nextBlockId = BlockId.createBlockId(containerId, next);
+      try {
+        pattern.mPending.add(mExecutor.submit(new Runnable() {
+          @Override
+          public void run() {
+            warm(nextBlockId);
+          }
+        }));
+      } catch (RejectedExecutionException ree) {
+        return;
+      }
+      pattern.mWarmedUpTo = next;
+    }
+  }
+
+  /**
+   * Stops the read-ahead, once this method is called, the object should be discarded. Blocks not
+   * warmed yet are not warmed.
+   */
+  public void stop() {
+    mExecutor.shutdownNow();
+  }
+
+  private void warm(long blockId) {
+    try {
+      mBlockDataManager.prefetchBlock(blockId, mTopTierAlias);
+    } catch (Exception e) {
+      // Best effort, the block is read as usual when it is requested
+      LOG.warn("Failed to read ahead block " + blockId + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * The read pattern of one file.
+   */
+  private static final class ReadPattern {
+    /** Sequence number of the last block read */
+    private long mLastSeqNum;
+    /** Sequence number of the last block scheduled to be warmed */
+    private long mWarmedUpTo;
+    /** Warming of blocks of the file which may not have completed yet */
+    private final List<Future<?>> mPending = new ArrayList<Future<?>>();
+
+    private ReadPattern(long seqNum) {
+      mLastSeqNum = seqNum;
+      mWarmedUpTo = seqNum;
+    }
+
+    /**
+     * Starts a new pattern at the given block, cancelling the warming which has not started.
+     */
+    private void reset(long seqNum) {
+      for (Future<?> future : mPending) {
+        future.cancel(false);
+      }
+      mPending.clear();
+      mLastSeqNum = seqNum;
+      mWarmedUpTo = seqNum;
+    }
+
+    private void removeDone() {
+      Iterator<Future<?>> it = mPending.iterator();
+      while (it.hasNext()) {
+        if (it.next().isDone()) {
+          it.remove();
+        }
+      }
+    }
+  }
+}
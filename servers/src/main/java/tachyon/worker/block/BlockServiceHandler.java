@@ -16,6 +16,7 @@
 package tachyon.worker.block;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.thrift.TException;
@@ -31,6 +32,7 @@ import tachyon.exception.NotFoundException;
 import tachyon.exception.OutOfSpaceException;
 import tachyon.thrift.FileDoesNotExistException;
 import tachyon.thrift.WorkerService;
+import tachyon.worker.block.io.BlockCompression;
 
 /**
  * Handles all thrift RPC calls to the worker. This class is a thrift server implementation and is
@@ -81,10 +83,17 @@ public final class BlockServiceHandler implements WorkerService.Iface {
     }
   }
 
-  // TODO: Make this supported again
+  /**
+   * Queues a complete file to be written to the under storage system by this worker in the
+   * background. The worker reports the checkpoint to the master once the file is written.
+   *
+   * @param fileId the id of the file to checkpoint
+   * @return true if the file is queued or being checkpointed, false if the queue is full
+   * @throws TException if the underlying worker RPC fails
+   */
   @Override
   public boolean asyncCheckpoint(long fileId) throws TException {
-    return false;
+    return mWorker.asyncCheckpoint(fileId);
   }
 
   /**
@@ -151,19 +160,30 @@ public final class BlockServiceHandler implements WorkerService.Iface {
   /**
    * Lock the file in Tachyon's space while the session is reading it, and the path of the block
    * file locked will be returned, if the block file is not found, FileDoesNotExistException will be
-   * thrown.
+   * thrown. A compressed block is not locked, it is moved to the top tier in the background.
    *
    * @param blockId the id of the block to be locked
    * @param sessionId the id of the session
-   * @throws FileDoesNotExistException if the underlying file is not found
+   * @throws FileDoesNotExistException if the underlying file is not found or is compressed
    * @throws TException if the underlying worker RPC fails
    */
   @Override
   public String lockBlock(long blockId, long sessionId)
       throws FileDoesNotExistException, TException {
+    mWorker.notifyBlockRead(blockId);
     try {
       long lockId = mWorker.lockBlock(sessionId, blockId);
-      return mWorker.readBlock(sessionId, blockId, lockId);
+      String path = mWorker.readBlock(sessionId, blockId, lockId);
+      if (!BlockCompression.isCompressed(path)) {
+        return path;
+      }
+      // Local clients map the block file, which they can not do with a compressed block. The block
+      // is decompressed into the top tier in the background, and meanwhile clients read it through
+      // the data server, which decompresses it.
+      mWorker.unlockBlock(lockId);
+      mWorker.moveBlockAsync(Sessions.MIGRATE_DATA_SESSION_ID, blockId,
+          StorageLevelAlias.MEM.getValue());
+      throw new FileDoesNotExistException("Block " + blockId + " is compressed");
     } catch (NotFoundException nfe) {
       // TODO: reconsider this, maybe it is because lockId can not be found
       throw new FileDoesNotExistException(nfe.getMessage());
@@ -172,6 +192,32 @@ public final class BlockServiceHandler implements WorkerService.Iface {
     }
   }
 
+  /**
+   * Locks a batch of blocks for a local session in one call, see {@link #lockBlock(long, long)}.
+   * The locks belong to the session, so they are held as long as the session heartbeats and are
+   * released when the session times out.
+   *
+   * @param sessionId the id of the session
+   * @param blockIds the ids of the blocks to be locked
+   * @return the paths of the block files in the order of blockIds, an empty string for each block
+   *         which can not be locked
+   */
+  @Override
+  public List<String> lockBlocks(long sessionId, List<Long> blockIds) {
+    List<String> paths = new ArrayList<String>(blockIds.size());
+    for (long blockId : blockIds) {
+      try {
+        paths.add(lockBlock(blockId, sessionId));
+      } catch (FileDoesNotExistException fdne) {
+        paths.add("");
+      } catch (TException te) {
+        LOG.warn("Failed to lock block " + blockId + " for session " + sessionId, te);
+        paths.add("");
+      }
+    }
+    return paths;
+  }
+
   /**
    * Used to promote block on under storage layer to top storage layer when there are more than one
    * storage layers in Tachyon's space. return true if the block is successfully promoted, false
@@ -276,6 +322,24 @@ public final class BlockServiceHandler implements WorkerService.Iface {
     }
   }
 
+  /**
+   * Unlocks a batch of blocks locked by a session. Blocks which are not locked by the session are
+   * ignored.
+   *
+   * @param sessionId the id of the client requesting the unlock
+   * @param blockIds the ids of the blocks to unlock
+   */
+  @Override
+  public void unlockBlocks(long sessionId, List<Long> blockIds) {
+    for (long blockId : blockIds) {
+      try {
+        mWorker.unlockBlock(sessionId, blockId);
+      } catch (NotFoundException nfe) {
+        LOG.warn("Block " + blockId + " is not locked by session " + sessionId);
+      }
+    }
+  }
+
   /**
    * Local session send heartbeat to local worker to keep its temporary folder.
    *
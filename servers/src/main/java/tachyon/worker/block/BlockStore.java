@@ -16,6 +16,7 @@
 package tachyon.worker.block;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 import tachyon.exception.AlreadyExistsException;
@@ -237,6 +238,17 @@ interface BlockStore {
       BlockStoreLocation newLocation) throws NotFoundException, AlreadyExistsException,
       InvalidStateException, OutOfSpaceException, IOException;
 
+  /**
+   * Queues a move of an existing block to a new location on the mover threads, and returns
+   * without waiting for it. A block whose move is already queued is not queued again, and a move
+   * which fails is only logged.
+   *
+   * @param sessionId the ID of the session to move the block
+   * @param blockId the ID of an existing block
+   * @param newLocation the location of the destination, in a single tier
+   */
+  void moveBlockAsync(long sessionId, long blockId, BlockStoreLocation newLocation);
+
   /**
    * Removes an existing block. If the block can not be found in this store.
    *
@@ -249,6 +261,17 @@ interface BlockStore {
   void removeBlock(long sessionId, long blockId) throws InvalidStateException, NotFoundException,
       IOException;
 
+  /**
+   * Removes a batch of blocks, skipping those which are being written or are locked by other
+   * sessions. Blocks which can not be found are treated as removed, and all the removed blocks are
+   * reported to the listeners as removed by the worker.
+   *
+   * @param sessionId the ID of the session to remove the blocks
+   * @param blockIds the IDs of the blocks to remove
+   * @return the IDs of the blocks which are no longer in this store
+   */
+  List<Long> removeBlocks(long sessionId, List<Long> blockIds);
+
   /**
    * Removes an existing block. If the block can not be found in this store.
    *
@@ -262,6 +285,19 @@ interface BlockStore {
   void removeBlock(long sessionId, long blockId, BlockStoreLocation location) throws
       InvalidStateException, NotFoundException, IOException;
 
+  /**
+   * Quarantines a corrupted block: its file is set aside for inspection and the block is removed
+   * from this store, as if it had been removed by the worker.
+   *
+   * @param sessionId the ID of the session quarantining the block
+   * @param blockId the ID of an existing block
+   * @throws InvalidStateException if blockId has not been committed
+   * @throws NotFoundException if block can not be found
+   * @throws IOException if the block file cannot be set aside
+   */
+  void quarantineBlock(long sessionId, long blockId) throws InvalidStateException,
+      NotFoundException, IOException;
+
   /**
    * Notifies the block store that a block was accessed so the block store could update accordingly
    * the registered listeners such as evictor and allocator on block access.
@@ -280,6 +316,14 @@ interface BlockStore {
    */
   BlockStoreMeta getBlockStoreMeta();
 
+  /**
+   * Gets the number of block lock acquisitions which had to wait for a lock hold by another
+   * session, since the store was created.
+   *
+   * @return the number of contended block lock acquisitions
+   */
+  long getBlockLockWaitCount();
+
   /**
    * Checks if the storage has a given block.
    *
@@ -298,7 +342,9 @@ interface BlockStore {
   void cleanupSession(long sessionId);
 
   /**
-   * Frees space to make a specific amount of bytes available in the location.
+   * Frees space to make a specific amount of bytes available in the location. Blocks to evict are
+   * removed before returning, while blocks to move to other tiers may still be moving. Nothing is
+   * freed while the moves of a previous call are still running.
    *
    * @param sessionId the session ID
    * @param availableBytes the amount of free space in bytes
@@ -321,6 +367,12 @@ interface BlockStore {
       throws OutOfSpaceException, NotFoundException, IOException, AlreadyExistsException,
       InvalidStateException;
 
+  /**
+   * Stops the background work of this store, such as moving blocks between tiers. This method
+   * should only be called when terminating the worker.
+   */
+  void stop();
+
   /**
    * Registers a {@link BlockStoreEventListener} to this block store.
    *
@@ -66,6 +66,10 @@ public final class BlockWorker {
   private final PinListSync mPinListSync;
   /** Runnable responsible for clean up potential zombie sessions. */
   private final SessionCleaner mSessionCleanerThread;
+  /** Runnable responsible for freeing space ahead of writers, null if disabled. */
+  private final SpaceReserver mSpaceReserver;
+  /** Runnable responsible for promoting hot blocks to the top tier, null if disabled. */
+  private final TierPromoter mTierPromoter;
   /** Logic for handling RPC requests. */
   private final BlockServiceHandler mServiceHandler;
   /** Logic for managing block store and under file system store. */
@@ -205,10 +209,10 @@ public final class BlockWorker {
             mStartTimeMs, mTachyonConf);
 
     // Setup Worker to Master Syncer
-    // We create three threads for two syncers and one cleaner: mBlockMasterSync,
-    // mPinListSync and mSessionCleanerThread
+    // We create five threads for two syncers, one cleaner, one space reserver and one promoter:
+    // mBlockMasterSync, mPinListSync, mSessionCleanerThread, mSpaceReserver and mTierPromoter
     mSyncExecutorService =
-        Executors.newFixedThreadPool(3, ThreadFactoryUtils.build("worker-heartbeat-%d", true));
+        Executors.newFixedThreadPool(5, ThreadFactoryUtils.build("worker-heartbeat-%d", true));
 
     mBlockMasterSync =
         new BlockMasterSync(mBlockDataManager, mTachyonConf, mWorkerNetAddress, mBlockMasterClient);
@@ -222,6 +226,21 @@ public final class BlockWorker {
     // Setup session cleaner
     mSessionCleanerThread = new SessionCleaner(mBlockDataManager, mTachyonConf);
 
+    // Setup space reserver
+    if (mTachyonConf.getBoolean(Constants.WORKER_SPACE_RESERVER_ENABLED)) {
+      mSpaceReserver = new SpaceReserver(mBlockDataManager, mTachyonConf);
+    } else {
+      mSpaceReserver = null;
+    }
+
+    // Setup tier promoter, it counts block accesses as a block store event listener
+    if (mTachyonConf.getBoolean(Constants.WORKER_TIER_PROMOTER_ENABLED)) {
+      mTierPromoter = new TierPromoter(mBlockDataManager, mTachyonConf);
+      mBlockDataManager.registerBlockStoreEventListener(mTierPromoter);
+    } else {
+      mTierPromoter = null;
+    }
+
     // Setup session metadata mapping
     // TODO: Have a top level register that gets the worker id.
     long workerId = mBlockMasterSync.getWorkerId();
@@ -262,6 +281,16 @@ public final class BlockWorker {
     // Start the session cleanup checker to perform the periodical checking
     mSyncExecutorService.submit(mSessionCleanerThread);
 
+    // Start the space reserver to free space ahead of writers
+    if (mSpaceReserver != null) {
+      mSyncExecutorService.submit(mSpaceReserver);
+    }
+
+    // Start the tier promoter to move hot blocks up
+    if (mTierPromoter != null) {
+      mSyncExecutorService.submit(mTierPromoter);
+    }
+
     mWebServer.startWebServer();
     mThriftServer.serve();
   }
@@ -278,6 +307,12 @@ public final class BlockWorker {
     mBlockMasterSync.stop();
     mPinListSync.stop();
     mSessionCleanerThread.stop();
+    if (mSpaceReserver != null) {
+      mSpaceReserver.stop();
+    }
+    if (mTierPromoter != null) {
+      mTierPromoter.stop();
+    }
     mBlockMasterClient.close();
     mMasterClientExecutorService.shutdown();
     mSyncExecutorService.shutdown();
@@ -70,6 +70,7 @@ public final class ClientRWLock implements ReadWriteLock {
       try {
         return mAvailable.tryAcquire(mPermits, time, unit);
       } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
         return false;
       }
     }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+import tachyon.Sessions;
+import tachyon.StorageDirId;
+import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+import tachyon.util.CommonUtils;
+
+/**
+ * SpaceReserver periodically checks the usage of each StorageDir, and when it crosses the high
+ * watermark of its tier, evicts or moves blocks with the configured Evictor until the usage is
+ * back under the low watermark. This keeps free space ahead of the writers, so that creating or
+ * growing a block rarely has to evict on its critical path. Watermarks are configured per tier
+ * alias.
+ */
+public final class SpaceReserver implements Runnable {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Block data manager responsible for interacting with Tachyon and UFS storage */
+  private final BlockDataManager mBlockDataManager;
+  /** Milliseconds between each check */
+  private final long mCheckIntervalMs;
+  /** High watermark ratio of each tier alias, indexed by the alias value minus one */
+  private final double[] mHighWatermarks = new double[StorageLevelAlias.SIZE];
+  /** Low watermark ratio of each tier alias, indexed by the alias value minus one */
+  private final double[] mLowWatermarks = new double[StorageLevelAlias.SIZE];
+
+  /** Flag to indicate if the checking should continue */
+  private volatile boolean mRunning;
+
+  /**
+   * Constructor for SpaceReserver
+   *
+   * @param blockDataManager the blockDataManager to free space on
+   * @param tachyonConf the configuration values to be used
+   */
+  public SpaceReserver(BlockDataManager blockDataManager, TachyonConf tachyonConf) {
+    mBlockDataManager = blockDataManager;
+    mCheckIntervalMs = tachyonConf.getLong(Constants.WORKER_SPACE_RESERVER_INTERVAL_MS);
+    for (StorageLevelAlias alias : StorageLevelAlias.values()) {
+      double high = tachyonConf.getDouble(
+          String.format(Constants.WORKER_SPACE_RESERVER_HIGH_WATERMARK_FORMAT, alias.name()));
+      double low = tachyonConf.getDouble(
+          String.format(Constants.WORKER_SPACE_RESERVER_LOW_WATERMARK_FORMAT, alias.name()));
+      Preconditions.checkArgument(0 <= low && low <= high && high <= 1,
+          "Invalid space reserver watermarks for " + alias + ": low " + low + ", high " + high);
+      mHighWatermarks[alias.getValue() - 1] = high;
+      mLowWatermarks[alias.getValue() - 1] = low;
+    }
+
+    mRunning = true;
+  }
+
+  /**
+   * Main loop for the reserver, continuously frees space in dirs above their high watermark
+   */
+  @Override
+  public void run() {
+    long lastCheckMs = System.currentTimeMillis();
+    while (mRunning) {
+      // Check the time since last check, and wait until it is within check interval
+      long lastIntervalMs = System.currentTimeMillis() - lastCheckMs;
+      long toSleepMs = mCheckIntervalMs - lastIntervalMs;
+      if (toSleepMs > 0) {
+        CommonUtils.sleepMs(LOG, toSleepMs);
+      } else {
+        LOG.warn("Space reservation took: " + lastIntervalMs + ", expected: " + mCheckIntervalMs);
+      }
+
+      reserveSpace();
+      lastCheckMs = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Frees space in every dir whose usage is above the high watermark of its tier, down to the low
+   * watermark. Dirs on lower tiers are processed first, so that blocks moved down from upper tiers
+   * find space there.
+   */
+  void reserveSpace() {
+    BlockStoreMeta storeMeta = mBlockDataManager.getStoreMeta();
+    Map<Long, Long> capacityBytesOnDirs = storeMeta.getCapacityBytesOnDirs();
+    Map<Long, Long> usedBytesOnDirs = storeMeta.getUsedBytesOnDirs();
+    List<Long> dirIds = new ArrayList<Long>(capacityBytesOnDirs.keySet());
+    Collections.sort(dirIds, new Comparator<Long>() {
+      @Override
+      public int compare(Long dirId1, Long dirId2) {
+        return StorageDirId.compareStorageLevel(dirId2, dirId1);
+      }
+    });
+
+    for (long dirId : dirIds) {
+      int aliasIndex = StorageDirId.getStorageLevelAliasValue(dirId) - 1;
+      long capacityBytes = capacityBytesOnDirs.get(dirId);
+      long usedBytes = usedBytesOnDirs.get(dirId);
+      if (usedBytes <= capacityBytes * mHighWatermarks[aliasIndex]) {
+        continue;
+      }
+      long bytesToBeAvailable =
+          capacityBytes - (long) (capacityBytes * mLowWatermarks[aliasIndex]);
+      BlockStoreLocation location =
+          new BlockStoreLocation(StorageDirId.getStorageLevelAliasValue(dirId),
+              StorageDirId.getStorageLevel(dirId), StorageDirId.getStorageDirIndex(dirId));
+      try {
+        mBlockDataManager.freeSpace(Sessions.MIGRATE_DATA_SESSION_ID, bytesToBeAvailable,
+            location);
+      } catch (Exception e) {
+        // Best effort, writers still evict synchronously when they run out of space
+        LOG.warn("Failed to reserve " + bytesToBeAvailable + " bytes in " + location + ": "
+            + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Stops the checking, once this method is called, the object should be discarded
+   */
+  public void stop() {
+    mRunning = false;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+import tachyon.Pair;
+import tachyon.Sessions;
+import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+import tachyon.exception.NotFoundException;
+import tachyon.util.CommonUtils;
+import tachyon.worker.block.meta.BlockMeta;
+
+/**
+ * TierPromoter counts the accesses to each block and periodically moves the blocks accessed most
+ * often on lower tiers up to the top tier, so that reads of a hot block which was once evicted
+ * to a slower tier become fast again without clients calling promoteBlock. Blocks are moved in
+ * bounded batches whose total size is capped by a bandwidth limit. A round may exceed its byte
+ * budget with its last block, so blocks larger than the budget are promoted too, and the excess is
+ * taken from the budget of the following rounds. When the top tier is full,
+ * moving a block up frees space there with the configured Evictor, which moves colder blocks down.
+ */
+public final class TierPromoter extends BlockStoreEventListenerBase implements Runnable {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Block data manager responsible for interacting with Tachyon and UFS storage */
+  private final BlockDataManager mBlockDataManager;
+  /** Milliseconds between each promotion round */
+  private final long mCheckIntervalMs;
+  /** Minimum number of accesses in an interval for a block to be promoted */
+  private final int mAccessThreshold;
+  /** Maximum number of blocks promoted in a round */
+  private final int mBatchSize;
+  /** Maximum number of bytes promoted in a round */
+  private final long mBytesPerRound;
+  /** Bytes promoted beyond the budget of past rounds, to be taken from the following rounds */
+  private long mExcessBytes = 0;
+  /** Alias of the top tier */
+  private final int mTopTierAlias;
+  /** Number of accesses to each block since the last round */
+  private final ConcurrentHashMap<Long, AtomicInteger> mAccessCounts =
+      new ConcurrentHashMap<Long, AtomicInteger>();
+
+  /** Flag to indicate if the promotion should continue */
+  private volatile boolean mRunning;
+
+  /**
+   * Constructor for TierPromoter
+   *
+   * @param blockDataManager the blockDataManager to move blocks with
+   * @param tachyonConf the configuration values to be used
+   */
+  public TierPromoter(BlockDataManager blockDataManager, TachyonConf tachyonConf) {
+    mBlockDataManager = blockDataManager;
+    mCheckIntervalMs = tachyonConf.getLong(Constants.WORKER_TIER_PROMOTER_INTERVAL_MS);
+    mAccessThreshold = tachyonConf.getInt(Constants.WORKER_TIER_PROMOTER_ACCESS_THRESHOLD);
+    mBatchSize = tachyonConf.getInt(Constants.WORKER_TIER_PROMOTER_BATCH_SIZE);
+    long bandwidth = tachyonConf.getBytes(Constants.WORKER_TIER_PROMOTER_BANDWIDTH);
+    Preconditions.checkArgument(mCheckIntervalMs > 0 && mBatchSize > 0 && bandwidth > 0,
+        "Tier promoter interval, batch size and bandwidth should be positive");
+    mBytesPerRound = bandwidth * mCheckIntervalMs / Constants.SECOND_MS;
+    mTopTierAlias = tachyonConf.getEnum(
+        String.format(Constants.WORKER_TIERED_STORAGE_LEVEL_ALIAS_FORMAT, 0),
+        StorageLevelAlias.class).getValue();
+
+    mRunning = true;
+  }
+
+  @Override
+  public void onAccessBlock(long sessionId, long blockId) {
+    AtomicInteger count = mAccessCounts.get(blockId);
+    if (count == null) {
+      AtomicInteger newCount = new AtomicInteger();
+      count = mAccessCounts.putIfAbsent(blockId, newCount);
+      if (count == null) {
+        count = newCount;
+      }
+    }
+    count.incrementAndGet();
+  }
+
+  @Override
+  public void onRemoveBlockByClient(long sessionId, long blockId) {
+    mAccessCounts.remove(blockId);
+  }
+
+  @Override
+  public void onRemoveBlockByWorker(long sessionId, long blockId) {
+    mAccessCounts.remove(blockId);
+  }
+
+  /**
+   * Main loop for the promoter, promotes hot blocks once per interval
+   */
+  @Override
+  public void run() {
+    long lastCheckMs = System.currentTimeMillis();
+    while (mRunning) {
+      // Check the time since last check, and wait until it is within check interval
+      long lastIntervalMs = System.currentTimeMillis() - lastCheckMs;
+      long toSleepMs = mCheckIntervalMs - lastIntervalMs;
+      if (toSleepMs > 0) {
+        CommonUtils.sleepMs(LOG, toSleepMs);
+      } else {
+        LOG.warn("Tier promotion took: " + lastIntervalMs + ", expected: " + mCheckIntervalMs);
+      }
+
+      promoteHotBlocks();
+      lastCheckMs = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Moves the blocks accessed at least the threshold number of times since the last round to the
+   * top tier, most accessed first, until the batch size or the byte budget of the round is reached.
+   * Access counts are reset afterwards. This method is only called from one thread at a time.
+   */
+  void promoteHotBlocks() {
+    List<Pair<Long, Integer>> hotBlocks = new ArrayList<Pair<Long, Integer>>();
+    Iterator<Map.Entry<Long, AtomicInteger>> it = mAccessCounts.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Long, AtomicInteger> entry = it.next();
+      // Accesses racing with the reset are lost, which only delays the promotion of a block
+      it.remove();
+      int count = entry.getValue().get();
+      if (count >= mAccessThreshold) {
+        hotBlocks.add(new Pair<Long, Integer>(entry.getKey(), count));
+      }
+    }
+    Collections.sort(hotBlocks, new Comparator<Pair<Long, Integer>>() {
+      @Override
+      public int compare(Pair<Long, Integer> block1, Pair<Long, Integer> block2) {
+        return block2.getSecond().compareTo(block1.getSecond());
+      }
+    });
+
+    long budgetBytes = mBytesPerRound - mExcessBytes;
+    int promotedBlocks = 0;
+    long promotedBytes = 0;
+    for (Pair<Long, Integer> hotBlock : hotBlocks) {
+      if (promotedBlocks >= mBatchSize || promotedBytes >= budgetBytes) {
+        break;
+      }
+      long blockId = hotBlock.getFirst();
+      BlockMeta block;
+      try {
+        block = mBlockDataManager.getVolatileBlockMeta(blockId);
+      } catch (NotFoundException nfe) {
+        continue;
+      }
+      if (block.getBlockLocation().tierAlias() == mTopTierAlias) {
+        continue;
+      }
+      try {
+        mBlockDataManager.moveBlock(Sessions.MIGRATE_DATA_SESSION_ID, blockId, mTopTierAlias);
+        promotedBlocks ++;
+        promotedBytes += block.getBlockSize();
+      } catch (Exception e) {
+        // Best effort, the block is promoted in a later round if it stays hot
+        LOG.warn("Failed to promote block " + blockId + ": " + e.getMessage());
+      }
+    }
+    mExcessBytes = Math.max(0, promotedBytes - budgetBytes);
+    if (promotedBlocks > 0) {
+      LOG.debug("Promoted {} blocks of {} bytes to the top tier", promotedBlocks, promotedBytes);
+    }
+  }
+
+  /**
+   * Stops the promotion, once this method is called, the object should be discarded
+   */
+  public void stop() {
+    mRunning = false;
+  }
+}
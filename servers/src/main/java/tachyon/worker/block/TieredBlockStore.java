@@ -17,6 +17,7 @@ package tachyon.worker.block;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -24,23 +25,30 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import tachyon.Constants;
 import tachyon.Pair;
+import tachyon.Sessions;
+import tachyon.StorageLevelAlias;
 import tachyon.conf.TachyonConf;
 import tachyon.exception.AlreadyExistsException;
 import tachyon.exception.ExceptionMessage;
 import tachyon.exception.InvalidStateException;
 import tachyon.exception.NotFoundException;
 import tachyon.exception.OutOfSpaceException;
+import tachyon.util.io.BufferUtils;
 import tachyon.util.io.FileUtils;
 import tachyon.util.io.PathUtils;
 import tachyon.worker.WorkerContext;
@@ -48,8 +56,14 @@ import tachyon.worker.block.allocator.Allocator;
 import tachyon.worker.block.evictor.BlockTransferInfo;
 import tachyon.worker.block.evictor.EvictionPlan;
 import tachyon.worker.block.evictor.Evictor;
+import tachyon.worker.block.io.ArenaBlockReader;
+import tachyon.worker.block.io.ArenaBlockWriter;
+import tachyon.worker.block.io.BlockArena;
+import tachyon.worker.block.io.BlockChecksum;
+import tachyon.worker.block.io.BlockCompression;
 import tachyon.worker.block.io.BlockReader;
 import tachyon.worker.block.io.BlockWriter;
+import tachyon.worker.block.io.CompressedBlockReader;
 import tachyon.worker.block.io.LocalFileBlockReader;
 import tachyon.worker.block.io.LocalFileBlockWriter;
 import tachyon.worker.block.meta.BlockMeta;
@@ -71,36 +85,57 @@ import tachyon.worker.block.meta.TempBlockMeta;
  * block lock for this block via {@link TieredBlockStore#mLockManager}. This block lock is a
  * read/write lock, guarding both the metadata operations and the following I/O on this block. It
  * coordinates different threads (clients) when accessing the same block concurrently.</li>
- * <li>Any metadata operation (read or write) must go through {@link TieredBlockStore#mMetaManager}
- * and guarded by {@link TieredBlockStore#mMetadataLock}. This is also a read/write lock and
- * coordinates different threads (clients) when accessing the shared data structure for metadata.
+ * <li>Any metadata operation (read or write) must go through {@link TieredBlockStore#mMetaManager}.
+ * Metadata reads are lock-free. Metadata writes are guarded by the metadata lock of each
+ * {@link StorageDir} they change, so that operations on different dirs (e.g., a block move on a
+ * slow tier and a block creation on the top tier) run concurrently. Operations spanning two dirs
+ * acquire the dir locks in the order of {@link StorageDir#compareLockOrder} to avoid deadlocks.
  * </li>
- * <li>Method {@link #createBlockMeta} does not acquire the block lock, because it only creates a
- * temp block which is only visible to its writer before committed (thus no concurrent access).</li>
+ * <li>Method {@link #createBlockMeta} only holds the block lock while the temp block is added, to
+ * prevent two writers from creating the same block. Afterwards, a temp block is only visible to
+ * its writer before committed (thus no concurrent access).</li>
+ * <li>Allocator and Evictor are not thread-safe, so calls into them are serialized by
+ * synchronizing on them. These calls only inspect in-memory metadata.</li>
  * <li>Eviction is done in {@link #freeSpaceInternal} and it is on the basis of best effort. For
- * operations that may trigger this eviction (e.g., move, create, requestSpace), retry is used</li>
+ * operations that may trigger this eviction (e.g., move, create, requestSpace), retry is used.
+ * The moves of an eviction plan into one tier run concurrently on the threads of the
+ * {@link BlockMover}, each under its own block lock, and one tier after another from the bottom
+ * tier up. Operations which need the freed space wait for the moves, {@link #freeSpace} only
+ * queues them.</li>
+ * <li>When the off-heap arena is enabled, the data of MEM tier blocks is loaded into it on first
+ * read under the block read lock, and dropped from it under the block write lock when the block is
+ * moved or removed.</li>
  * </ul>
  */
 public final class TieredBlockStore implements BlockStore {
   private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
   // TODO: change maxRetry to be configurable.
   private static final int MAX_RETRIES = 3;
+  /** Suffix of the files of quarantined blocks, which are deleted when the worker restarts */
+  private static final String QUARANTINE_SUFFIX = ".corrupt";
 
   private final TachyonConf mTachyonConf;
   private final BlockMetadataManager mMetaManager;
   private final BlockLockManager mLockManager;
   private final Allocator mAllocator;
   private final Evictor mEvictor;
+  /** Off-heap arena serving the data of MEM tier blocks to readers, null if disabled */
+  private final BlockArena mArena;
+  /** Whether committed blocks get checksum files */
+  private final boolean mChecksumEnabled;
+  /** Mover running the moves of eviction plans and copying block files between tiers */
+  private final BlockMover mMover;
+  /** Guards {@link #mPendingFreeSpace} */
+  private final Object mFreeSpaceLock = new Object();
+  /** The moves queued by the last {@link #freeSpace} */
+  private ListenableFuture<Void> mPendingFreeSpace = Futures.immediateFuture(null);
   private final List<BlockStoreEventListener> mBlockStoreEventListeners =
       new ArrayList<BlockStoreEventListener>();
   /** A set of pinned inodes fetched from the master */
   private final Set<Long> mPinnedInodes = new HashSet<Long>();
-  /** Lock to guard metadata operations */
-  private final ReentrantReadWriteLock mMetadataLock = new ReentrantReadWriteLock();
-  /** ReadLock provided by {@link #mMetadataReadLock} to guard metadata read operations */
-  private final Lock mMetadataReadLock = mMetadataLock.readLock();
-  /** WriteLock provided by {@link #mMetadataReadLock} to guard metadata write operations */
-  private final Lock mMetadataWriteLock = mMetadataLock.writeLock();
+  /** Blocks whose moves queued by {@link #moveBlockAsync} have not completed yet */
+  private final Set<Long> mPendingAsyncMoves =
+      Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
 
   public TieredBlockStore() {
     mTachyonConf = WorkerContext.getConf();
@@ -120,14 +155,27 @@ public final class TieredBlockStore implements BlockStore {
     if (mEvictor instanceof BlockStoreEventListener) {
       registerBlockStoreEventListener((BlockStoreEventListener) mEvictor);
     }
+
+    // The MEM tier sets aside part of its quota for the arena, so the memory is counted once
+    long arenaBytes = 0;
+    for (StorageTier tier : mMetaManager.getTiers()) {
+      arenaBytes += tier.getArenaBytes();
+    }
+    if (arenaBytes > 0) {
+      mArena = new BlockArena(arenaBytes,
+          (int) mTachyonConf.getBytes(Constants.WORKER_TIERED_STORE_ARENA_SLAB_SIZE));
+    } else {
+      mArena = null;
+    }
+    mChecksumEnabled = mTachyonConf.getBoolean(Constants.WORKER_TIERED_STORE_CHECKSUM_ENABLED);
+    mMover = new BlockMover(mTachyonConf);
   }
 
   @Override
   public long lockBlock(long sessionId, long blockId) throws NotFoundException {
+    verifyIndexedBlock(sessionId, blockId);
     long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.READ);
-    mMetadataReadLock.lock();
     boolean hasBlock = mMetaManager.hasBlockMeta(blockId);
-    mMetadataReadLock.unlock();
     if (hasBlock) {
       return lockId;
     }
@@ -152,26 +200,29 @@ public final class TieredBlockStore implements BlockStore {
     // NOTE: a temp block is supposed to only be visible by its own writer, unnecessary to acquire
     // block lock here since no sharing
     // TODO: handle the case where multiple writers compete for the same block
-    mMetadataReadLock.lock();
-    try {
-      TempBlockMeta tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
-      return new LocalFileBlockWriter(tempBlockMeta);
-    } finally {
-      mMetadataReadLock.unlock();
-    }
+    TempBlockMeta tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
+    return new LocalFileBlockWriter(tempBlockMeta);
   }
 
   @Override
   public BlockReader getBlockReader(long sessionId, long blockId, long lockId)
       throws NotFoundException, InvalidStateException, IOException {
     mLockManager.validateLock(sessionId, blockId, lockId);
-    mMetadataReadLock.lock();
-    try {
-      BlockMeta blockMeta = mMetaManager.getBlockMeta(blockId);
-      return new LocalFileBlockReader(blockMeta);
-    } finally {
-      mMetadataReadLock.unlock();
+    BlockMeta blockMeta = mMetaManager.getBlockMeta(blockId);
+    if (mArena != null
+        && blockMeta.getBlockLocation().tierAlias() == StorageLevelAlias.MEM.getValue()) {
+      BlockArena.ArenaBlock arenaBlock = mArena.acquire(blockId);
+      if (arenaBlock == null) {
+        arenaBlock = loadIntoArena(blockMeta);
+      }
+      if (arenaBlock != null) {
+        return new ArenaBlockReader(arenaBlock);
+      }
     }
+    if (BlockCompression.isCompressed(blockMeta.getPath())) {
+      return new CompressedBlockReader(blockMeta);
+    }
+    return new LocalFileBlockReader(blockMeta);
   }
 
   @Override
@@ -188,7 +239,7 @@ public final class TieredBlockStore implements BlockStore {
         // Failed to create a temp block, so trigger Evictor to make some space.
         // NOTE: a successful {@link freeSpaceInternal} here does not ensure the subsequent
         // allocation also successful, because these two operations are not atomic.
-        freeSpaceInternal(sessionId, initialBlockSize, location);
+        BlockMover.waitForMoves(freeSpaceInternal(sessionId, initialBlockSize, location));
       }
     }
     // TODO: we are probably seeing a rare transient failure, maybe define and throw some other
@@ -200,24 +251,14 @@ public final class TieredBlockStore implements BlockStore {
   // TODO: make this method to return a snapshot
   @Override
   public BlockMeta getVolatileBlockMeta(long blockId) throws NotFoundException {
-    mMetadataReadLock.lock();
-    try {
-      return mMetaManager.getBlockMeta(blockId);
-    } finally {
-      mMetadataReadLock.unlock();
-    }
+    return mMetaManager.getBlockMeta(blockId);
   }
 
   @Override
   public BlockMeta getBlockMeta(long sessionId, long blockId, long lockId) throws NotFoundException,
       InvalidStateException {
     mLockManager.validateLock(sessionId, blockId, lockId);
-    mMetadataReadLock.lock();
-    try {
-      return mMetaManager.getBlockMeta(blockId);
-    } finally {
-      mMetadataReadLock.unlock();
-    }
+    return mMetaManager.getBlockMeta(blockId);
   }
 
   @Override
@@ -252,7 +293,8 @@ public final class TieredBlockStore implements BlockStore {
         return;
       }
       if (i < MAX_RETRIES) {
-        freeSpaceInternal(sessionId, additionalBytes, requestResult.getSecond());
+        BlockMover.waitForMoves(
+            freeSpaceInternal(sessionId, additionalBytes, requestResult.getSecond()));
       }
     }
     throw new OutOfSpaceException(ExceptionMessage.NO_SPACE_FOR_BLOCK_ALLOCATION, additionalBytes,
@@ -282,13 +324,43 @@ public final class TieredBlockStore implements BlockStore {
         return;
       }
       if (i < MAX_RETRIES) {
-        freeSpaceInternal(sessionId, moveResult.blockSize(), newLocation);
+        BlockMover.waitForMoves(
+            freeSpaceInternal(sessionId, moveResult.blockSize(), newLocation));
       }
     }
     throw new OutOfSpaceException(ExceptionMessage.NO_SPACE_FOR_BLOCK_MOVE, newLocation, blockId,
         MAX_RETRIES);
   }
 
+  @Override
+  public void moveBlockAsync(final long sessionId, final long blockId,
+      final BlockStoreLocation newLocation) {
+    if (!mPendingAsyncMoves.add(blockId)) {
+      return;
+    }
+    Callable<Void> move = new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        moveBlock(sessionId, blockId, newLocation);
+        return null;
+      }
+    };
+    Futures.addCallback(mMover.runMoves(newLocation.tierAlias(), Collections.singletonList(move)),
+        new FutureCallback<Void>() {
+          @Override
+          public void onSuccess(Void result) {
+            mPendingAsyncMoves.remove(blockId);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            mPendingAsyncMoves.remove(blockId);
+            LOG.warn("Failed to move block " + blockId + " to " + newLocation + ": "
+                + t.getMessage());
+          }
+        });
+  }
+
   @Override
   public void removeBlock(long sessionId, long blockId) throws InvalidStateException,
       NotFoundException, IOException {
@@ -306,11 +378,120 @@ public final class TieredBlockStore implements BlockStore {
     }
   }
 
+  @Override
+  public List<Long> removeBlocks(long sessionId, List<Long> blockIds) {
+    List<Long> removed = new ArrayList<Long>(blockIds.size());
+    List<Long> lockIds = new ArrayList<Long>(blockIds.size());
+    Map<StorageDir, List<BlockMeta>> deletedByDir = new HashMap<StorageDir, List<BlockMeta>>();
+    try {
+      for (long blockId : blockIds) {
+        // Blocks read by clients are skipped rather than waited for, so that a large batch does
+        // not stall behind readers. They are removed when the master asks again.
+        long lockId = mLockManager.tryLockBlock(sessionId, blockId, BlockLockType.WRITE);
+        if (lockId == BlockLockManager.INVALID_LOCK_ID) {
+          continue;
+        }
+        lockIds.add(lockId);
+        if (mMetaManager.hasTempBlockMeta(blockId)) {
+          continue;
+        }
+        BlockMeta blockMeta;
+        try {
+          blockMeta = mMetaManager.getBlockMeta(blockId);
+        } catch (NotFoundException nfe) {
+          removed.add(blockId);
+          continue;
+        }
+        // Heavy IO is guarded by block lock but not metadata lock.
+        try {
+          FileUtils.delete(blockMeta.getPath());
+          deleteSideFiles(blockMeta.getPath());
+        } catch (IOException ioe) {
+          LOG.warn("Failed to delete block " + blockId + ": " + ioe.getMessage());
+          continue;
+        }
+        if (mArena != null) {
+          mArena.remove(blockId);
+        }
+        List<BlockMeta> deleted = deletedByDir.get(blockMeta.getParentDir());
+        if (deleted == null) {
+          deleted = new ArrayList<BlockMeta>();
+          deletedByDir.put(blockMeta.getParentDir(), deleted);
+        }
+        deleted.add(blockMeta);
+      }
+      // One metadata critical section per dir for the whole batch
+      for (Map.Entry<StorageDir, List<BlockMeta>> entry : deletedByDir.entrySet()) {
+        StorageDir dir = entry.getKey();
+        dir.getMetadataLock().lock();
+        try {
+          for (BlockMeta blockMeta : entry.getValue()) {
+            mMetaManager.removeBlockMeta(blockMeta);
+            removed.add(blockMeta.getBlockId());
+          }
+        } catch (NotFoundException nfe) {
+          throw Throwables.propagate(nfe); // we shall never reach here
+        } finally {
+          dir.getMetadataLock().unlock();
+        }
+      }
+    } finally {
+      for (long lockId : lockIds) {
+        try {
+          mLockManager.unlockBlock(lockId);
+        } catch (NotFoundException nfe) {
+          throw Throwables.propagate(nfe); // we shall never reach here
+        }
+      }
+    }
+    synchronized (mBlockStoreEventListeners) {
+      for (BlockStoreEventListener listener : mBlockStoreEventListeners) {
+        for (long blockId : removed) {
+          listener.onRemoveBlockByWorker(sessionId, blockId);
+        }
+      }
+    }
+    return removed;
+  }
+
+  @Override
+  public void quarantineBlock(long sessionId, long blockId) throws InvalidStateException,
+      NotFoundException, IOException {
+    long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.WRITE);
+    try {
+      if (mMetaManager.hasTempBlockMeta(blockId)) {
+        throw new InvalidStateException(ExceptionMessage.REMOVE_UNCOMMITTED_BLOCK, blockId);
+      }
+      BlockMeta blockMeta = mMetaManager.getBlockMeta(blockId);
+      String filePath = blockMeta.getPath();
+      LOG.warn("Quarantining corrupted block {} to {}{}", blockId, filePath, QUARANTINE_SUFFIX);
+      // Heavy IO is guarded by block lock but not metadata lock. This may throw IOException.
+      FileUtils.move(filePath, filePath + QUARANTINE_SUFFIX);
+      deleteSideFiles(filePath);
+      if (mArena != null) {
+        mArena.remove(blockId);
+      }
+
+      StorageDir dir = blockMeta.getParentDir();
+      dir.getMetadataLock().lock();
+      try {
+        mMetaManager.removeBlockMeta(blockMeta);
+      } finally {
+        dir.getMetadataLock().unlock();
+      }
+    } finally {
+      mLockManager.unlockBlock(lockId);
+    }
+    synchronized (mBlockStoreEventListeners) {
+      for (BlockStoreEventListener listener : mBlockStoreEventListeners) {
+        listener.onRemoveBlockByWorker(sessionId, blockId);
+      }
+    }
+  }
+
   @Override
   public void accessBlock(long sessionId, long blockId) throws NotFoundException {
-    mMetadataReadLock.lock();
     boolean hasBlock = mMetaManager.hasBlockMeta(blockId);
-    mMetadataReadLock.unlock();
     if (!hasBlock) {
       throw new NotFoundException(ExceptionMessage.NO_BLOCK_ID_FOUND, blockId);
     }
@@ -322,10 +503,33 @@ public final class TieredBlockStore implements BlockStore {
   }
 
   @Override
-  public void freeSpace(long sessionId, long availableBytes, BlockStoreLocation location)
+  public void freeSpace(long sessionId, long availableBytes, final BlockStoreLocation location)
       throws NotFoundException, OutOfSpaceException, IOException, AlreadyExistsException {
     // TODO: consider whether to retry here
-    freeSpaceInternal(sessionId, availableBytes, location);
+    ListenableFuture<Void> movesDone;
+    synchronized (mFreeSpaceLock) {
+      // A new plan would pick the blocks still being moved by the last one
+      if (!mPendingFreeSpace.isDone()) {
+        LOG.debug("Moves to free space are still running, not freeing space in {}", location);
+        return;
+      }
+      movesDone = freeSpaceInternal(sessionId, availableBytes, location);
+      mPendingFreeSpace = movesDone;
+    }
+    Futures.addCallback(movesDone, new FutureCallback<Void>() {
+      @Override
+      public void onSuccess(Void result) {}
+
+      @Override
+      public void onFailure(Throwable t) {
+        LOG.warn("Failed to free space in " + location + ": " + t.getMessage());
+      }
+    });
+  }
+
+  @Override
+  public void stop() {
+    mMover.shutdown();
   }
 
   @Override
@@ -334,13 +538,7 @@ public final class TieredBlockStore implements BlockStore {
     mLockManager.cleanupSession(sessionId);
 
     // Collect a list of temp blocks the given session owns and abort all of them with best effort
-    List<TempBlockMeta> tempBlocksToRemove;
-    mMetadataReadLock.lock();
-    try {
-      tempBlocksToRemove = mMetaManager.getSessionTempBlocks(sessionId);
-    } finally {
-      mMetadataReadLock.unlock();
-    }
+    List<TempBlockMeta> tempBlocksToRemove = mMetaManager.getSessionTempBlocks(sessionId);
     for (TempBlockMeta tempBlockMeta : tempBlocksToRemove) {
       try {
         abortBlockInternal(sessionId, tempBlockMeta.getBlockId());
@@ -373,18 +571,18 @@ public final class TieredBlockStore implements BlockStore {
 
   @Override
   public boolean hasBlockMeta(long blockId) {
-    mMetadataReadLock.lock();
     boolean hasBlock = mMetaManager.hasBlockMeta(blockId);
-    mMetadataReadLock.unlock();
     return hasBlock;
   }
 
   @Override
   public BlockStoreMeta getBlockStoreMeta() {
-    mMetadataReadLock.lock();
-    BlockStoreMeta storeMeta = mMetaManager.getBlockStoreMeta();
-    mMetadataReadLock.unlock();
-    return storeMeta;
+    return mMetaManager.getBlockStoreMeta();
+  }
+
+  @Override
+  public long getBlockLockWaitCount() {
+    return mLockManager.getLockWaitCount();
   }
 
   @Override
@@ -395,8 +593,8 @@ public final class TieredBlockStore implements BlockStore {
   }
 
   /**
-   * Checks if a blockId is available for a new temp block. This method must be enclosed by
-   * {@link #mMetadataLock}.
+   * Checks if a blockId is available for a new temp block. This method must be enclosed by the
+   * block lock of blockId to be accurate.
    *
    * @param blockId the ID of block
    * @throws AlreadyExistsException if blockId already exists
@@ -412,7 +610,7 @@ public final class TieredBlockStore implements BlockStore {
 
   /**
    * Checks if blockId is a temporary block and owned by sessionId. This method must be enclosed by
-   * {@link #mMetadataLock}.
+   * the block lock of blockId.
    *
    * @param sessionId the ID of session
    * @param blockId the ID of block
@@ -447,27 +645,22 @@ public final class TieredBlockStore implements BlockStore {
       AlreadyExistsException, InvalidStateException, IOException {
     long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.WRITE);
     try {
-      String path;
-      TempBlockMeta tempBlockMeta;
-      mMetadataReadLock.lock();
-      try {
-        checkTempBlockOwnedBySession(sessionId, blockId);
-        tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
-        path = tempBlockMeta.getPath();
-      } finally {
-        mMetadataReadLock.unlock();
-      }
+      checkTempBlockOwnedBySession(sessionId, blockId);
+      TempBlockMeta tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
+      String path = tempBlockMeta.getPath();
 
       // Heavy IO is guarded by block lock but not metadata lock. This may throw IOException.
       FileUtils.delete(path);
+      deleteSideFiles(path);
 
-      mMetadataWriteLock.lock();
+      StorageDir dir = tempBlockMeta.getParentDir();
+      dir.getMetadataLock().lock();
       try {
         mMetaManager.abortTempBlockMeta(tempBlockMeta);
       } catch (NotFoundException nfe) {
         throw Throwables.propagate(nfe); // We shall never reach here
       } finally {
-        mMetadataWriteLock.unlock();
+        dir.getMetadataLock().unlock();
       }
     } finally {
       mLockManager.unlockBlock(lockId);
@@ -487,30 +680,31 @@ public final class TieredBlockStore implements BlockStore {
    */
   private BlockStoreLocation commitBlockInternal(long sessionId, long blockId)
       throws AlreadyExistsException, InvalidStateException, NotFoundException, IOException {
+    BlockStoreLocation loc;
+    boolean computeChecksum;
     long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.WRITE);
     try {
       // When committing TempBlockMeta, the final BlockMeta calculates the block size according to
       // the actual file size of this TempBlockMeta. Therefore, commitTempBlockMeta must happen
       // after moving actual block file to its committed path.
-      BlockStoreLocation loc;
-      String srcPath;
-      String dstPath;
-      TempBlockMeta tempBlockMeta;
-      mMetadataReadLock.lock();
-      try {
-        checkTempBlockOwnedBySession(sessionId, blockId);
-        tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
-        srcPath = tempBlockMeta.getPath();
-        dstPath = tempBlockMeta.getCommitPath();
-        loc = tempBlockMeta.getBlockLocation();
-      } finally {
-        mMetadataReadLock.unlock();
-      }
+      checkTempBlockOwnedBySession(sessionId, blockId);
+      TempBlockMeta tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
+      String srcPath = tempBlockMeta.getPath();
+      String dstPath = tempBlockMeta.getCommitPath();
+      loc = tempBlockMeta.getBlockLocation();
+      StorageDir dir = tempBlockMeta.getParentDir();
 
       // Heavy IO is guarded by block lock but not metadata lock. This may throw IOException.
-      FileUtils.move(srcPath, dstPath);
+      // Blocks written by local clients bypass the worker's writers, so their checksums are
+      // computed after the commit. Until then reads of the block are not verified.
+      computeChecksum = mChecksumEnabled && !hasValidChecksumFile(srcPath);
+      if (computeChecksum && new File(BlockChecksum.getChecksumPath(srcPath)).exists()) {
+        FileUtils.delete(BlockChecksum.getChecksumPath(srcPath));
+      }
+      long blockSize = new File(srcPath).length();
+      moveIntoDir(dir, blockId, blockSize, blockSize, srcPath, dstPath);
 
-      mMetadataWriteLock.lock();
+      dir.getMetadataLock().lock();
       try {
         mMetaManager.commitTempBlockMeta(tempBlockMeta);
       } catch (AlreadyExistsException aee) {
@@ -520,12 +714,62 @@ public final class TieredBlockStore implements BlockStore {
       } catch (OutOfSpaceException ose) {
         throw Throwables.propagate(ose); // we shall never reach here
       } finally {
-        mMetadataWriteLock.unlock();
+        dir.getMetadataLock().unlock();
       }
-      return loc;
     } finally {
       mLockManager.unlockBlock(lockId);
     }
+    if (computeChecksum) {
+      computeChecksumAsync(blockId, loc.tierAlias());
+    }
+    return loc;
+  }
+
+  /**
+   * Computes the checksums of a committed block on the mover threads of its tier, see
+   * {@link BlockChecksum#compute}. The block is read locked meanwhile, so that it is not moved or
+   * removed while its checksum file is written.
+   *
+   * @param blockId the ID of the block
+   * @param tierAlias the alias of the tier of the block
+   */
+  private void computeChecksumAsync(final long blockId, int tierAlias) {
+    Callable<Void> compute = new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        long lockId =
+            mLockManager.lockBlock(Sessions.CHECKSUM_SESSION_ID, blockId, BlockLockType.READ);
+        try {
+          if (!mMetaManager.hasBlockMeta(blockId)) {
+            return null;
+          }
+          String path = mMetaManager.getBlockMeta(blockId).getPath();
+          if (!hasValidChecksumFile(path)) {
+            BlockChecksum.compute(path);
+          }
+          return null;
+        } catch (NotFoundException nfe) {
+          return null;
+        } finally {
+          try {
+            mLockManager.unlockBlock(lockId);
+          } catch (NotFoundException nfe) {
+            LOG.error("Failed to unlock block {} after computing its checksums", blockId);
+          }
+        }
+      }
+    };
+    Futures.addCallback(mMover.runMoves(tierAlias, Collections.singletonList(compute)),
+        new FutureCallback<Void>() {
+          @Override
+          public void onSuccess(Void result) {}
+
+          @Override
+          public void onFailure(Throwable t) {
+            LOG.warn("Failed to compute the checksums of block " + blockId + ": "
+                + t.getMessage());
+          }
+        });
   }
 
   /**
@@ -540,45 +784,70 @@ public final class TieredBlockStore implements BlockStore {
    * @return a temp block created if successful, or null if allocation failed (instead of throwing
    *         OutOfSpaceException because allocation failure could be an expected case)
    * @throws AlreadyExistsException if there is already a block with the same block id
+   * @throws NotFoundException if the block lock of a new block can not be released
    */
   private TempBlockMeta createBlockMetaInternal(long sessionId, long blockId,
       BlockStoreLocation location, long initialBlockSize, boolean newBlock)
-      throws AlreadyExistsException {
-    // NOTE: a temp block is supposed to be visible for its own writer, unnecessary to acquire
-    // block lock here since no sharing
-    mMetadataWriteLock.lock();
+      throws AlreadyExistsException, NotFoundException {
+    if (!newBlock) {
+      // The caller already holds the block lock of this block
+      return allocateTempBlockMeta(sessionId, blockId, location, initialBlockSize);
+    }
+    // Fail fast without waiting on the block lock, e.g., when the block is committed and being read
+    checkTempBlockIdAvailable(blockId);
+    // The block lock prevents two writers from creating the same block in different dirs
+    long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.WRITE);
     try {
-      if (newBlock) {
-        checkTempBlockIdAvailable(blockId);
-      }
-      StorageDirView dirView =
+      checkTempBlockIdAvailable(blockId);
+      return allocateTempBlockMeta(sessionId, blockId, location, initialBlockSize);
+    } finally {
+      mLockManager.unlockBlock(lockId);
+    }
+  }
+
+  /**
+   * Allocates space for a temp block and adds it to the metadata of the allocated StorageDir. This
+   * method must be enclosed by the block lock of blockId.
+   *
+   * @param sessionId session Id
+   * @param blockId block Id
+   * @param location location to create the block
+   * @param initialBlockSize initial block size in bytes
+   * @return a temp block created if successful, or null if allocation failed
+   */
+  private TempBlockMeta allocateTempBlockMeta(long sessionId, long blockId,
+      BlockStoreLocation location, long initialBlockSize) {
+    StorageDirView dirView;
+    synchronized (mAllocator) {
+      dirView =
           mAllocator.allocateBlockWithView(sessionId, initialBlockSize, location, getUpdatedView());
-      if (dirView == null) {
-        // Allocator fails to find a proper place for this new block.
-        return null;
-      }
-      // TODO: Add tempBlock to corresponding storageDir and remove the use of
-      // StorageDirView.createTempBlockMeta
-      TempBlockMeta tempBlock = dirView.createTempBlockMeta(sessionId, blockId, initialBlockSize);
-      try {
-        // Add allocated temp block to metadata manager. This should never fail if allocator
-        // correctly assigns a StorageDir.
-        mMetaManager.addTempBlockMeta(tempBlock);
-      } catch (OutOfSpaceException ose) {
-        // If we reach here, allocator is not working properly
-        LOG.error("Unexpected failure: " + initialBlockSize + " bytes allocated at " + location
-            + " by allocator, but addTempBlockMeta failed");
-        throw Throwables.propagate(ose);
-      } catch (AlreadyExistsException aee) {
-        // If we reach here, allocator is not working properly
-        LOG.error("Unexpected failure: " + initialBlockSize + " bytes allocated at " + location
-            + " by allocator, but addTempBlockMeta failed");
-        throw Throwables.propagate(aee);
-      }
-      return tempBlock;
+    }
+    if (dirView == null) {
+      // Allocator fails to find a proper place for this new block.
+      return null;
+    }
+    // TODO: Add tempBlock to corresponding storageDir and remove the use of
+    // StorageDirView.createTempBlockMeta
+    TempBlockMeta tempBlock = dirView.createTempBlockMeta(sessionId, blockId, initialBlockSize);
+    StorageDir dir = tempBlock.getParentDir();
+    dir.getMetadataLock().lock();
+    try {
+      // Add allocated temp block to metadata manager. This fails only if another block took the
+      // space of the dir after the allocator chose it, in which case the allocation is retried.
+      mMetaManager.addTempBlockMeta(tempBlock);
+    } catch (OutOfSpaceException ose) {
+      LOG.debug("{} bytes allocated at {} by allocator, but taken concurrently", initialBlockSize,
+          dir.toBlockStoreLocation());
+      return null;
+    } catch (AlreadyExistsException aee) {
+      // If we reach here, allocator is not working properly
+      LOG.error("Unexpected failure: " + initialBlockSize + " bytes allocated at " + location
+          + " by allocator, but addTempBlockMeta failed");
+      throw Throwables.propagate(aee);
     } finally {
-      mMetadataWriteLock.unlock();
+      dir.getMetadataLock().unlock();
     }
+    return tempBlock;
   }
 
   /**
@@ -594,10 +863,11 @@ public final class TieredBlockStore implements BlockStore {
       throws NotFoundException {
     // NOTE: a temp block is supposed to be visible for its own writer, unnecessary to acquire
     // block lock here since no sharing
-    mMetadataWriteLock.lock();
+    TempBlockMeta tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
+    StorageDir dir = tempBlockMeta.getParentDir();
+    dir.getMetadataLock().lock();
     try {
-      TempBlockMeta tempBlockMeta = mMetaManager.getTempBlockMeta(blockId);
-      if (tempBlockMeta.getParentDir().getAvailableBytes() < additionalBytes) {
+      if (dir.getAvailableBytes() < additionalBytes) {
         return new Pair<Boolean, BlockStoreLocation>(false, tempBlockMeta.getBlockLocation());
       }
       // Increase the size of this temp block
@@ -609,32 +879,33 @@ public final class TieredBlockStore implements BlockStore {
       }
       return new Pair<Boolean, BlockStoreLocation>(true, null);
     } finally {
-      mMetadataWriteLock.unlock();
+      dir.getMetadataLock().unlock();
     }
   }
 
   /**
    * Tries to get an eviction plan to free a certain amount of space in the given location, and
-   * carries out this plan with the best effort.
+   * carries out this plan with the best effort. Blocks to evict are removed before returning, and
+   * blocks to move are queued on the {@link BlockMover}.
    *
    * @param sessionId the session Id
    * @param availableBytes amount of space in bytes to free
    * @param location location of space
+   * @return a future which completes once all the blocks have been moved, see
+   *         {@link BlockMover#runMoves}
    * @throws OutOfSpaceException if it is impossible to achieve the free requirement
-   * @throws IOException if I/O errors occur when removing or moving block files
+   * @throws IOException if I/O errors occur when removing block files
    */
-  private void freeSpaceInternal(long sessionId, long availableBytes, BlockStoreLocation location)
+  private ListenableFuture<Void> freeSpaceInternal(final long sessionId, long availableBytes,
+      BlockStoreLocation location)
       throws OutOfSpaceException, IOException {
     EvictionPlan plan;
-    mMetadataReadLock.lock();
-    try {
+    synchronized (mEvictor) {
       plan = mEvictor.freeSpaceWithView(availableBytes, location, getUpdatedView());
-      // Absent plan means failed to evict enough space.
-      if (null == plan) {
-        throw new OutOfSpaceException(ExceptionMessage.NO_EVICTION_PLAN_TO_FREE_SPACE);
-      }
-    } finally {
-      mMetadataReadLock.unlock();
+    }
+    // Absent plan means failed to evict enough space.
+    if (null == plan) {
+      throw new OutOfSpaceException(ExceptionMessage.NO_EVICTION_PLAN_TO_FREE_SPACE);
     }
 
     // 1. remove blocks to make room.
@@ -670,38 +941,260 @@ public final class TieredBlockStore implements BlockStore {
     // 2.2. sort tiers according in reversed order: bottom tier first and top tier last.
     List<Integer> dstTierAlias = new ArrayList<Integer>(blocksGroupedByDestTier.keySet());
     Collections.sort(dstTierAlias, Collections.reverseOrder());
-    // 2.3. move blocks in the order of their dst tiers.
-    for (int alias : dstTierAlias) {
-      Set<BlockTransferInfo> toMove = blocksGroupedByDestTier.get(alias);
-      for (BlockTransferInfo entry : toMove) {
-        long blockId = entry.getBlockId();
-        BlockStoreLocation oldLocation = entry.getSrcLocation();
-        BlockStoreLocation newLocation = entry.getDstLocation();
-        MoveBlockResult moveResult;
-        try {
-          moveResult = moveBlockInternal(sessionId, blockId, oldLocation, newLocation);
-        } catch (InvalidStateException ise) {
-          // Evictor is not working properly
-          LOG.error("Failed to evict blockId " + blockId + ", this is temp block");
-          continue;
-        } catch (AlreadyExistsException aee) {
-          continue;
-        } catch (NotFoundException nfe) {
-          LOG.info("Failed to move blockId " + blockId + ", it could be already deleted");
-          continue;
-        }
-        if (moveResult.success()) {
-          synchronized (mBlockStoreEventListeners) {
-            for (BlockStoreEventListener listener : mBlockStoreEventListeners) {
-              listener.onMoveBlockByWorker(sessionId, blockId, moveResult.srcLocation(),
-                  newLocation);
-            }
+    // 2.3. move blocks in the order of their dst tiers, the blocks into one tier concurrently. The
+    // moves into a tier are queued once those into the tier below have completed.
+    ListenableFuture<Void> movesDone = Futures.immediateFuture(null);
+    for (final int alias : dstTierAlias) {
+      final List<Callable<Void>> moves = new ArrayList<Callable<Void>>();
+      for (final BlockTransferInfo entry : blocksGroupedByDestTier.get(alias)) {
+        moves.add(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            evictBlockByMove(sessionId, entry);
+            return null;
           }
+        });
+      }
+      movesDone = Futures.transform(movesDone, new AsyncFunction<Void, Void>() {
+        @Override
+        public ListenableFuture<Void> apply(Void input) {
+          return mMover.runMoves(alias, moves);
+        }
+      });
+    }
+    return movesDone;
+  }
+
+  /**
+   * Moves a block as planned by the evictor, and notifies the listeners if the block was moved.
+   *
+   * @param sessionId the session Id
+   * @param entry the planned move
+   * @throws IOException if I/O errors occur when moving the block file
+   */
+  private void evictBlockByMove(long sessionId, BlockTransferInfo entry) throws IOException {
+    long blockId = entry.getBlockId();
+    BlockStoreLocation oldLocation = entry.getSrcLocation();
+    BlockStoreLocation newLocation = entry.getDstLocation();
+    MoveBlockResult moveResult;
+    try {
+      moveResult = moveBlockInternal(sessionId, blockId, oldLocation, newLocation);
+    } catch (InvalidStateException ise) {
+      // Evictor is not working properly
+      LOG.error("Failed to evict blockId " + blockId + ", this is temp block");
+      return;
+    } catch (AlreadyExistsException aee) {
+      return;
+    } catch (NotFoundException nfe) {
+      LOG.info("Failed to move blockId " + blockId + ", it could be already deleted");
+      return;
+    }
+    if (moveResult.success()) {
+      synchronized (mBlockStoreEventListeners) {
+        for (BlockStoreEventListener listener : mBlockStoreEventListeners) {
+          listener.onMoveBlockByWorker(sessionId, blockId, moveResult.srcLocation(), newLocation);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks the file of a block restored from a block index the first time the block is locked or
+   * moved. If the file is missing or its length differs from the indexed size, e.g., because the
+   * worker crashed after recording the block in the index but before renaming its file into the
+   * dir, the block is removed as if evicted.
+   *
+   * @param sessionId the ID of the session locking the block
+   * @param blockId the ID of the block
+   * @throws NotFoundException if the lock of the block can not be released
+   */
+  private void verifyIndexedBlock(long sessionId, long blockId) throws NotFoundException {
+    try {
+      if (mMetaManager.getBlockMeta(blockId).getParentDir().isBlockVerified(blockId)) {
+        return;
+      }
+    } catch (NotFoundException nfe) {
+      // Missing blocks are reported by the caller
+      return;
+    }
+    boolean removed = false;
+    long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.WRITE);
+    try {
+      // The block may have been moved or removed before the lock was taken
+      if (!mMetaManager.hasBlockMeta(blockId)) {
+        return;
+      }
+      BlockMeta blockMeta = mMetaManager.getBlockMeta(blockId);
+      StorageDir dir = blockMeta.getParentDir();
+      if (dir.isBlockVerified(blockId)) {
+        return;
+      }
+      File file = new File(blockMeta.getPath());
+      if (file.isFile() && file.length() == blockMeta.getStoredSize()) {
+        dir.markBlockVerified(blockId);
+        return;
+      }
+      LOG.warn("File of block {} does not match the block index, removing the block", blockId);
+      if (file.exists() && !file.delete()) {
+        LOG.error("Failed to delete file {} of block {}", file, blockId);
+      }
+      try {
+        deleteSideFiles(blockMeta.getPath());
+      } catch (IOException ioe) {
+        LOG.error("Failed to delete the side files of block {}", blockId, ioe);
+      }
+      dir.getMetadataLock().lock();
+      try {
+        mMetaManager.removeBlockMeta(blockMeta);
+      } finally {
+        dir.getMetadataLock().unlock();
+      }
+      removed = true;
+    } finally {
+      mLockManager.unlockBlock(lockId);
+    }
+    if (removed) {
+      synchronized (mBlockStoreEventListeners) {
+        for (BlockStoreEventListener listener : mBlockStoreEventListeners) {
+          listener.onRemoveBlockByWorker(sessionId, blockId);
         }
       }
     }
   }
 
+  /**
+   * Moves the checksum and compression index files of a block along with its block file, if the
+   * block has them. Checksums are of the raw data, so they stay valid when the block is compressed.
+   *
+   * @param srcPath the path of the block file before the move
+   * @param dstPath the path of the block file after the move
+   * @throws IOException if the checksum file can not be moved
+   */
+  private static void moveSideFiles(String srcPath, String dstPath) throws IOException {
+    String srcChecksumPath = BlockChecksum.getChecksumPath(srcPath);
+    if (new File(srcChecksumPath).exists()) {
+      FileUtils.move(srcChecksumPath, BlockChecksum.getChecksumPath(dstPath));
+    }
+    String srcIndexPath = BlockCompression.getIndexPath(srcPath);
+    if (new File(srcIndexPath).exists()) {
+      FileUtils.move(srcIndexPath, BlockCompression.getIndexPath(dstPath));
+    }
+  }
+
+  /**
+   * Renames a block file and its side files into a dir, after recording the block in the block
+   * index of the dir, see {@link StorageDir#recordIndexedBlock}. The side files are renamed first,
+   * so that a block file in the dir always has its side files.
+   *
+   * @param dir the dir to move the block into
+   * @param blockId the ID of the block
+   * @param blockSize the size of the block in bytes
+   * @param storedSize the size of the block file in bytes
+   * @param srcPath the path of the block file to move
+   * @param dstPath the commit path of the block in the dir
+   * @throws IOException if the files can not be renamed
+   */
+  private static void moveIntoDir(StorageDir dir, long blockId, long blockSize, long storedSize,
+      String srcPath, String dstPath) throws IOException {
+    dir.getMetadataLock().lock();
+    try {
+      dir.recordIndexedBlock(blockId, blockSize, storedSize);
+    } finally {
+      dir.getMetadataLock().unlock();
+    }
+    boolean moved = false;
+    try {
+      moveSideFiles(srcPath, dstPath);
+      FileUtils.move(srcPath, dstPath);
+      moved = true;
+    } finally {
+      if (!moved) {
+        dir.getMetadataLock().lock();
+        try {
+          dir.cancelIndexedBlock(blockId);
+        } finally {
+          dir.getMetadataLock().unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the checksum and compression index files of a block, if the block has them.
+   *
+   * @param path the path of the block file
+   * @throws IOException if the checksum file can not be deleted
+   */
+  private static void deleteSideFiles(String path) throws IOException {
+    String checksumPath = BlockChecksum.getChecksumPath(path);
+    if (new File(checksumPath).exists()) {
+      FileUtils.delete(checksumPath);
+    }
+    String indexPath = BlockCompression.getIndexPath(path);
+    if (new File(indexPath).exists()) {
+      FileUtils.delete(indexPath);
+    }
+  }
+
+  /**
+   * Checks that a block has a checksum file with one checksum per chunk of the block file. A block
+   * partly written by a local client has too few checksums.
+   *
+   * @param path the path of the block file
+   * @return true if the checksum file exists and has the expected length, false otherwise
+   */
+  private static boolean hasValidChecksumFile(String path) {
+    File checksumFile = new File(BlockChecksum.getChecksumPath(path));
+    long chunks = (new File(path).length() + BlockChecksum.CHUNK_BYTES - 1)
+        / BlockChecksum.CHUNK_BYTES;
+    return checksumFile.isFile() && checksumFile.length() == 4 * chunks;
+  }
+
+  /**
+   * Copies the data of a block from its file into the off-heap arena. The caller must hold a lock
+   * on the block.
+   *
+   * @param blockMeta the metadata of the block
+   * @return the block in the arena retained for the caller, or null if the arena is full
+   * @throws IOException if I/O errors occur when reading the block file
+   */
+  private BlockArena.ArenaBlock loadIntoArena(BlockMeta blockMeta) throws IOException {
+    BlockArena.ArenaBlock arenaBlock =
+        mArena.allocate(blockMeta.getBlockId(), blockMeta.getBlockSize());
+    if (arenaBlock == null) {
+      LOG.debug("No space in the arena for block {}, reading it from its file",
+          blockMeta.getBlockId());
+      return null;
+    }
+    LocalFileBlockReader fileReader = null;
+    ArenaBlockWriter arenaWriter = new ArenaBlockWriter(arenaBlock);
+    try {
+      fileReader = new LocalFileBlockReader(blockMeta);
+      if (fileReader.getLength() != arenaBlock.getLength()) {
+        throw new IOException("Block file " + blockMeta.getPath() + " has length "
+            + fileReader.getLength() + " instead of " + arenaBlock.getLength());
+      }
+      // Copy one slab at a time so that only a slab of the file is mapped at once
+      long offset = 0;
+      while (offset < arenaBlock.getLength()) {
+        long length = Math.min(mArena.getSlabBytes(), arenaBlock.getLength() - offset);
+        ByteBuffer data = fileReader.read(offset, length);
+        arenaWriter.append(data);
+        BufferUtils.cleanDirectBuffer(data);
+        offset += length;
+      }
+    } catch (IOException ioe) {
+      arenaBlock.release();
+      throw ioe;
+    } finally {
+      arenaWriter.close();
+      if (fileReader != null) {
+        fileReader.close();
+      }
+    }
+    return mArena.publish(arenaBlock);
+  }
+
   /**
    * Get the most updated view with most recent information on pinned inodes, and currently locked
    * blocks.
@@ -733,27 +1226,16 @@ public final class TieredBlockStore implements BlockStore {
   private MoveBlockResult moveBlockInternal(long sessionId, long blockId,
       BlockStoreLocation oldLocation, BlockStoreLocation newLocation) throws NotFoundException,
       AlreadyExistsException, InvalidStateException, IOException {
+    verifyIndexedBlock(sessionId, blockId);
     long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.WRITE);
     try {
-      long blockSize;
-      String srcFilePath;
-      String dstFilePath;
-      BlockMeta srcBlockMeta;
-      BlockStoreLocation srcLocation;
-      BlockStoreLocation dstLocation;
-
-      mMetadataReadLock.lock();
-      try {
-        if (mMetaManager.hasTempBlockMeta(blockId)) {
-          throw new InvalidStateException(ExceptionMessage.MOVE_UNCOMMITTED_BLOCK, blockId);
-        }
-        srcBlockMeta = mMetaManager.getBlockMeta(blockId);
-        srcLocation = srcBlockMeta.getBlockLocation();
-        srcFilePath = srcBlockMeta.getPath();
-        blockSize = srcBlockMeta.getBlockSize();
-      } finally {
-        mMetadataReadLock.unlock();
+      if (mMetaManager.hasTempBlockMeta(blockId)) {
+        throw new InvalidStateException(ExceptionMessage.MOVE_UNCOMMITTED_BLOCK, blockId);
       }
+      BlockMeta srcBlockMeta = mMetaManager.getBlockMeta(blockId);
+      BlockStoreLocation srcLocation = srcBlockMeta.getBlockLocation();
+      String srcFilePath = srcBlockMeta.getPath();
+      long blockSize = srcBlockMeta.getBlockSize();
 
       if (!oldLocation.equals(srcLocation) && !oldLocation.equals(BlockStoreLocation.anyTier())) {
         throw new NotFoundException("Block " + blockId + " not found at location: " + oldLocation);
@@ -763,17 +1245,36 @@ public final class TieredBlockStore implements BlockStore {
       if (dstTempBlock == null) {
         return new MoveBlockResult(false, blockSize, null, null);
       }
-      dstLocation = dstTempBlock.getBlockLocation();
-      dstFilePath = dstTempBlock.getCommitPath();
+      BlockStoreLocation dstLocation = dstTempBlock.getBlockLocation();
+      StorageDir srcDir = srcBlockMeta.getParentDir();
+      StorageDir dstDir = dstTempBlock.getParentDir();
+      // The file is staged at the temp path, and renamed in once its size is recorded in the index
+      String stagedFilePath = dstTempBlock.getPath();
+      String dstFilePath = dstTempBlock.getCommitPath();
 
       // Heavy IO is guarded by block lock but not metadata lock. This may throw IOException.
-      FileUtils.move(srcFilePath, dstFilePath);
+      FileUtils.createBlockPath(stagedFilePath);
+      boolean srcCompressed = BlockCompression.isCompressed(srcFilePath);
+      boolean dstCompressed = dstDir.getParentTier().isCompressionEnabled();
+      long storedSize = srcBlockMeta.getStoredSize();
+      if (srcCompressed == dstCompressed) {
+        mMover.moveFile(srcFilePath, stagedFilePath, dstLocation.tierAlias());
+      } else if (dstCompressed) {
+        storedSize = mMover.compressFile(srcFilePath, stagedFilePath, dstLocation.tierAlias());
+      } else {
+        storedSize = mMover.decompressFile(srcFilePath, stagedFilePath, dstLocation.tierAlias());
+      }
+      moveSideFiles(srcFilePath, stagedFilePath);
+      moveIntoDir(dstDir, blockId, blockSize, storedSize, stagedFilePath, dstFilePath);
+      if (mArena != null) {
+        mArena.remove(blockId);
+      }
 
-      mMetadataWriteLock.lock();
+      lockDirs(srcDir, dstDir);
       try {
         // If this metadata update fails, we panic for now.
         // TODO: implement rollback scheme to recover from IO failures
-        mMetaManager.moveBlockMeta(srcBlockMeta, dstTempBlock);
+        mMetaManager.moveBlockMeta(srcBlockMeta, dstTempBlock, storedSize);
       } catch (AlreadyExistsException aee) {
         throw Throwables.propagate(aee); // we shall never reach here
       } catch (NotFoundException nfe) {
@@ -783,7 +1284,7 @@ public final class TieredBlockStore implements BlockStore {
         // moveBlockMeta.
         throw Throwables.propagate(ose);
       } finally {
-        mMetadataWriteLock.unlock();
+        unlockDirs(srcDir, dstDir);
       }
 
       return new MoveBlockResult(true, blockSize, srcLocation, dstLocation);
@@ -806,39 +1307,69 @@ public final class TieredBlockStore implements BlockStore {
       throws InvalidStateException, NotFoundException, IOException {
     long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.WRITE);
     try {
-      String filePath;
-      BlockMeta blockMeta;
-      mMetadataReadLock.lock();
-      try {
-        if (mMetaManager.hasTempBlockMeta(blockId)) {
-          throw new InvalidStateException(ExceptionMessage.REMOVE_UNCOMMITTED_BLOCK, blockId);
-        }
-        blockMeta = mMetaManager.getBlockMeta(blockId);
-        filePath = blockMeta.getPath();
-      } finally {
-        mMetadataReadLock.unlock();
+      if (mMetaManager.hasTempBlockMeta(blockId)) {
+        throw new InvalidStateException(ExceptionMessage.REMOVE_UNCOMMITTED_BLOCK, blockId);
       }
+      BlockMeta blockMeta = mMetaManager.getBlockMeta(blockId);
+      String filePath = blockMeta.getPath();
 
       if (!location.equals(blockMeta.getBlockLocation())
           && !location.equals(BlockStoreLocation.anyTier())) {
         throw new NotFoundException("Block " + blockId + " not found at location: " + location);
       }
       // Heavy IO is guarded by block lock but not metadata lock. This may throw IOException.
-      FileUtils.delete(filePath);
+      // The file of a block restored from the block index may be missing.
+      if (blockMeta.getParentDir().isBlockVerified(blockId) || new File(filePath).exists()) {
+        FileUtils.delete(filePath);
+      }
+      deleteSideFiles(filePath);
+      if (mArena != null) {
+        mArena.remove(blockId);
+      }
 
-      mMetadataWriteLock.lock();
+      StorageDir dir = blockMeta.getParentDir();
+      dir.getMetadataLock().lock();
       try {
         mMetaManager.removeBlockMeta(blockMeta);
       } catch (NotFoundException nfe) {
         throw Throwables.propagate(nfe); // we shall never reach here
       } finally {
-        mMetadataWriteLock.unlock();
+        dir.getMetadataLock().unlock();
       }
     } finally {
       mLockManager.unlockBlock(lockId);
     }
   }
 
+  /**
+   * Locks the metadata of two StorageDirs in the order of {@link StorageDir#compareLockOrder}, so
+   * that concurrent operations spanning the same dirs can not deadlock. The two dirs may be the
+   * same.
+   *
+   * @param dir1 the first dir to lock
+   * @param dir2 the second dir to lock
+   */
+  private static void lockDirs(StorageDir dir1, StorageDir dir2) {
+    if (StorageDir.compareLockOrder(dir1, dir2) <= 0) {
+      dir1.getMetadataLock().lock();
+      dir2.getMetadataLock().lock();
+    } else {
+      dir2.getMetadataLock().lock();
+      dir1.getMetadataLock().lock();
+    }
+  }
+
+  /**
+   * Unlocks the metadata of two StorageDirs locked by {@link #lockDirs}.
+   *
+   * @param dir1 the first dir to unlock
+   * @param dir2 the second dir to unlock
+   */
+  private static void unlockDirs(StorageDir dir1, StorageDir dir2) {
+    dir1.getMetadataLock().unlock();
+    dir2.getMetadataLock().unlock();
+  }
+
   /**
    * updates the pinned blocks
    *
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+import tachyon.Sessions;
+import tachyon.conf.TachyonConf;
+import tachyon.exception.AlreadyExistsException;
+import tachyon.util.ThreadFactoryUtils;
+import tachyon.worker.block.io.LocalFileBlockReader;
+
+/**
+ * UfsBlockLoader loads blocks which are not in Tachyon storage from the checkpoints of their files
+ * in the under filesystem, so that the data server can serve reads of cold blocks itself. Requests
+ * for a block that is already being loaded share the load in progress, so the under filesystem is
+ * read once per block. Readers do not wait for the whole block: a range can be read from the
+ * temporary block file as soon as the load has written it.
+ */
+public final class UfsBlockLoader {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Block data manager writing the loaded blocks */
+  private final BlockDataManager mBlockDataManager;
+  /** Threads reading the blocks from the under filesystem */
+  private final ExecutorService mExecutor;
+  /** Loads in progress by block ID */
+  private final ConcurrentHashMap<Long, BlockLoad> mLoads =
+      new ConcurrentHashMap<Long, BlockLoad>();
+
+  /**
+   * Constructor for UfsBlockLoader
+   *
+   * @param blockDataManager the block data manager to load blocks with
+   * @param tachyonConf the configuration values to be used
+   */
+  public UfsBlockLoader(BlockDataManager blockDataManager, TachyonConf tachyonConf) {
+    mBlockDataManager = Preconditions.checkNotNull(blockDataManager);
+    int threads = tachyonConf.getInt(Constants.WORKER_READ_THROUGH_THREADS);
+    Preconditions.checkArgument(threads > 0, "Read-through threads should be positive");
+    mExecutor = Executors.newFixedThreadPool(threads,
+        ThreadFactoryUtils.build("ufs-block-loader-%d", true));
+  }
+
+  /**
+   * Starts loading a block from the under filesystem, or joins the load of the block in progress.
+   *
+   * @param blockId the id of the block
+   * @return the load of the block
+   */
+  public BlockLoad load(final long blockId) {
+    final BlockLoad load = new BlockLoad(blockId);
+    BlockLoad existing = mLoads.putIfAbsent(blockId, load);
+    if (existing != null) {
+      return existing;
+    }
+    try {
+      mExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          runLoad(load);
+        }
+      });
+    } catch (RejectedExecutionException ree) {
+      mLoads.remove(blockId, load);
+      load.finish(new IOException("Failed to schedule the load of block " + blockId, ree));
+    }
+    return load;
+  }
+
+  /**
+   * Stops the loading, once this method is called, the object should be discarded. Loads in
+   * progress are failed, so that their readers return.
+   */
+  public void stop() {
+    mExecutor.shutdownNow();
+    for (BlockLoad load : mLoads.values()) {
+      load.finish(new IOException("Block loader is stopped"));
+    }
+  }
+
+  private void runLoad(BlockLoad load) {
+    long blockId = load.getBlockId();
+    try {
+      mBlockDataManager.loadBlockFromUfs(Sessions.READ_THROUGH_SESSION_ID, blockId, load);
+      LOG.info("Loaded block {} from the under filesystem", blockId);
+      load.finish(null);
+    } catch (AlreadyExistsException aee) {
+      // The block was written or loaded by someone else in the meantime, read it from the store
+      load.finish(null);
+    } catch (Exception e) {
+      LOG.error("Failed to load block " + blockId + " from the under filesystem", e);
+      load.finish(e);
+    } finally {
+      mLoads.remove(blockId, load);
+    }
+  }
+
+  /**
+   * The state of the load of one block, shared by all the readers of the block. The loader reports
+   * its progress through the package-private methods, readers wait for the range they need with
+   * {@link #openReader}.
+   */
+  public static final class BlockLoad {
+    private final long mBlockId;
+    /** Path of the temporary block file, null until the block is created */
+    private String mPath = null;
+    /** Length of the block, -1 until the block is created */
+    private long mLength = -1;
+    /** Number of bytes written to the temporary block file */
+    private long mLoadedBytes = 0;
+    /** Whether the temporary block is being or has been committed */
+    private boolean mCommitting = false;
+    private boolean mDone = false;
+    private Throwable mFailure = null;
+
+    BlockLoad(long blockId) {
+      mBlockId = blockId;
+    }
+
+    /**
+     * @return the id of the block
+     */
+    public long getBlockId() {
+      return mBlockId;
+    }
+
+    /**
+     * Waits until a range of the block has been loaded, and opens the temporary block file to read
+     * it. The file stays readable through the returned reader after the load commits or aborts the
+     * block. The reader does not verify checksums, since the chunk at the end of the loaded data
+     * may still change.
+     *
+     * @param offset the offset of the range in the block
+     * @param length the length of the range in bytes, or -1 to read to the end of the block
+     * @param timeoutMs the maximum time to wait for the range in milliseconds
+     * @return a reader of the temporary block file, or null if the block has been committed and
+     *         should be read from the block store instead
+     * @throws IOException if the load fails, the range is beyond the end of the block, the range
+     *         is not loaded within the timeout, or the thread is interrupted
+     */
+    public synchronized LocalFileBlockReader openReader(long offset, long length, long timeoutMs)
+        throws IOException {
+      long deadlineMs = System.currentTimeMillis() + timeoutMs;
+      try {
+        while (!mDone && !mCommitting && mPath == null) {
+          waitUntil(deadlineMs);
+        }
+        if (mFailure == null && !mCommitting && !mDone) {
+          long end = length == -1 ? mLength : offset + length;
+          if (offset > mLength || end > mLength) {
+            throw new IOException("Range at " + offset + " with length " + length
+                + " is beyond the length " + mLength + " of block " + mBlockId);
+          }
+          while (!mDone && !mCommitting && mLoadedBytes < end) {
+            waitUntil(deadlineMs);
+          }
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for block " + mBlockId, ie);
+      }
+      if (mFailure != null) {
+        throw new IOException("Failed to load block " + mBlockId, mFailure);
+      }
+      if (mCommitting || mDone) {
+        return null;
+      }
+      // Opened while holding the lock, so the block can not be committed, i.e. moved, before
+      return new LocalFileBlockReader(mPath);
+    }
+
+    private void waitUntil(long deadlineMs) throws IOException, InterruptedException {
+      long remainingMs = deadlineMs - System.currentTimeMillis();
+      if (remainingMs <= 0) {
+        throw new IOException("Timed out waiting for block " + mBlockId + " to be loaded, "
+            + mLoadedBytes + " of " + mLength + " bytes loaded");
+      }
+      wait(remainingMs);
+    }
+
+    /**
+     * @return the length of the block, or -1 if the block has not been created yet
+     */
+    public synchronized long getLength() {
+      return mLength;
+    }
+
+    synchronized void started(String path, long length) {
+      mPath = path;
+      mLength = length;
+      notifyAll();
+    }
+
+    synchronized void advanced(long bytes) {
+      mLoadedBytes += bytes;
+      notifyAll();
+    }
+
+    synchronized void committing() {
+      mCommitting = true;
+      notifyAll();
+    }
+
+    synchronized void finish(Throwable failure) {
+      if (mDone) {
+        return;
+      }
+      mDone = true;
+      mFailure = failure;
+      notifyAll();
+    }
+  }
+}
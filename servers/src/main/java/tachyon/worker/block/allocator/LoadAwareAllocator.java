@@ -0,0 +1,108 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.allocator;
+
+import tachyon.worker.block.BlockMetadataManagerView;
+import tachyon.worker.block.BlockStoreLocation;
+import tachyon.worker.block.meta.StorageDirView;
+import tachyon.worker.block.meta.StorageTierView;
+
+/**
+ * An allocator that allocates a block in the least loaded storage dir that is able to store it, to
+ * spread the I/O of a tier over all of its disks. A dir is less loaded than another if it has fewer
+ * reads and writes in progress, or as many but fewer bytes recently transferred; dirs with the same
+ * load are ordered by free space. It always allocates to the highest tier if the requested block
+ * store location is any tier.
+ */
+public class LoadAwareAllocator implements Allocator {
+  private BlockMetadataManagerView mManagerView;
+
+  public LoadAwareAllocator(BlockMetadataManagerView view) {
+    mManagerView = view;
+  }
+
+  @Override
+  public StorageDirView allocateBlockWithView(long sessionId, long blockSize,
+      BlockStoreLocation location, BlockMetadataManagerView view) {
+    mManagerView = view;
+    return allocateBlock(sessionId, blockSize, location);
+  }
+
+  /**
+   * Should only be accessed by {@link allocateBlockWithView} inside class. Allocates a block from
+   * the given block store location. The location can be a specific location, or
+   * {@link BlockStoreLocation#anyTier()} or {@link BlockStoreLocation#anyDirInTier(int)}.
+   *
+   * @param sessionId the ID of session to apply for the block allocation
+   * @param blockSize the size of block in bytes
+   * @param location the location in block store
+   * @return a StorageDirView in which to create the temp block meta if success, null otherwise
+   * @throws IllegalArgumentException if block location is invalid
+   */
+  private StorageDirView allocateBlock(long sessionId, long blockSize,
+      BlockStoreLocation location) {
+    StorageDirView candidateDirView = null;
+
+    if (location.equals(BlockStoreLocation.anyTier())) {
+      for (StorageTierView tierView : mManagerView.getTierViews()) {
+        candidateDirView = getCandidateDirInTier(tierView, blockSize);
+        if (candidateDirView != null) {
+          break;
+        }
+      }
+    } else if (location.equals(BlockStoreLocation.anyDirInTier(location.tierAlias()))) {
+      StorageTierView tierView = mManagerView.getTierView(location.tierAlias());
+      candidateDirView = getCandidateDirInTier(tierView, blockSize);
+    } else {
+      StorageTierView tierView = mManagerView.getTierView(location.tierAlias());
+      StorageDirView dirView = tierView.getDirView(location.dir());
+      if (dirView.getAvailableBytes() >= blockSize) {
+        candidateDirView = dirView;
+      }
+    }
+
+    return candidateDirView;
+  }
+
+  /**
+   * Finds the least loaded directory view in a tier view that is able to store the block.
+   *
+   * @param tierView the storage tier view
+   * @param blockSize the size of block in bytes
+   * @return the storage directory view if found, null otherwise
+   */
+  private StorageDirView getCandidateDirInTier(StorageTierView tierView, long blockSize) {
+    StorageDirView candidateDirView = null;
+    int minInFlight = 0;
+    long minRecentBytes = 0;
+    for (StorageDirView dirView : tierView.getDirViews()) {
+      if (dirView.getAvailableBytes() < blockSize) {
+        continue;
+      }
+      int inFlight = dirView.getInFlightIOCount();
+      long recentBytes = dirView.getRecentIOBytes();
+      if (candidateDirView == null || inFlight < minInFlight
+          || (inFlight == minInFlight && (recentBytes < minRecentBytes
+              || (recentBytes == minRecentBytes
+                  && dirView.getAvailableBytes() > candidateDirView.getAvailableBytes())))) {
+        candidateDirView = dirView;
+        minInFlight = inFlight;
+        minRecentBytes = recentBytes;
+      }
+    }
+    return candidateDirView;
+  }
+}
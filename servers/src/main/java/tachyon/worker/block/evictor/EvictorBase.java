@@ -94,7 +94,7 @@ public abstract class EvictorBase extends BlockStoreEventListenerBase implements
             int tierAlias = block.getParentDir().getParentTier().getTierAlias();
             int dirIndex = block.getParentDir().getDirIndex();
             dirCandidates.add(mManagerView.getTierView(tierAlias).getDirView(dirIndex), blockId,
-                block.getBlockSize());
+                block.getStoredSize());
           }
         }
       } catch (NotFoundException nfe) {
@@ -121,7 +121,7 @@ public abstract class EvictorBase extends BlockStoreEventListenerBase implements
         try {
           BlockMeta block = mManagerView.getBlockMeta(blockId);
           if (null != block) {
-            candidateDirView.markBlockMoveOut(blockId, block.getBlockSize());
+            candidateDirView.markBlockMoveOut(blockId, block.getStoredSize());
             plan.toEvict().add(new Pair<Long, BlockStoreLocation>(blockId,
                 candidateDirView.toBlockStoreLocation()));
           }
@@ -148,12 +148,12 @@ public abstract class EvictorBase extends BlockStoreEventListenerBase implements
             // continue. Normally this should not happen.
             plan.toEvict().add(new Pair<Long, BlockStoreLocation>(blockId,
                 block.getBlockLocation()));
-            candidateDirView.markBlockMoveOut(blockId, block.getBlockSize());
+            candidateDirView.markBlockMoveOut(blockId, block.getStoredSize());
             continue;
           }
           plan.toMove().add(new BlockTransferInfo(blockId, block.getBlockLocation(),
               nextDirView.toBlockStoreLocation()));
-          candidateDirView.markBlockMoveOut(blockId, block.getBlockSize());
+          candidateDirView.markBlockMoveOut(blockId, block.getStoredSize());
           nextDirView.markBlockMoveIn(blockId, block.getBlockSize());
         } catch (NotFoundException nfe) {
           continue;
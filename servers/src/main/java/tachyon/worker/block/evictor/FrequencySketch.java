@@ -0,0 +1,115 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.evictor;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A compact count-min sketch estimating the access frequency of blocks, as used by TinyLFU. Each
+ * block is counted by four 4-bit counters packed sixteen to a long, and its frequency is the
+ * minimum of them, so the estimate never undercounts but saturates at 15. After a number of
+ * increments proportional to the expected number of blocks, all counters are halved, so that the
+ * sketch forgets old accesses and keeps tracking the recent popularity of blocks.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class FrequencySketch {
+  /** Seeds of the four hash functions */
+  private static final long[] SEEDS =
+      {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  /** Mask to clear the high bit of each 4-bit counter after shifting a word right by one */
+  private static final long RESET_MASK = 0x7777777777777777L;
+  /** Maximum value of a 4-bit counter */
+  static final int MAX_COUNT = 15;
+  /** Number of increments per expected block before the counters are halved */
+  private static final int SAMPLE_FACTOR = 10;
+
+  private final long[] mTable;
+  private final int mCounterMask;
+  private final long mSampleSize;
+  /** Number of increments since the last reset */
+  private long mSize;
+
+  /**
+   * @param expectedBlocks the expected number of distinct blocks to track
+   */
+  FrequencySketch(int expectedBlocks) {
+    Preconditions.checkArgument(expectedBlocks > 0, "Expected number of blocks must be positive");
+    // One long (16 counters) per expected block keeps collisions between blocks rare
+    int tableLength = Integer.highestOneBit(Math.max(expectedBlocks - 1, 1)) << 1;
+    mTable = new long[tableLength];
+    mCounterMask = tableLength * 16 - 1;
+    mSampleSize = (long) SAMPLE_FACTOR * expectedBlocks;
+  }
+
+  /**
+   * Estimates the access frequency of a block.
+   *
+   * @param blockId the id of the block
+   * @return the estimated frequency, in the range of [0, 15]
+   */
+  int frequency(long blockId) {
+    int frequency = MAX_COUNT;
+    for (long seed : SEEDS) {
+      frequency = Math.min(frequency, getCount(indexOf(blockId, seed)));
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access to a block, halving all counters when the sample size is reached.
+   *
+   * @param blockId the id of the block
+   * @return true if the counters have been halved
+   */
+  boolean increment(long blockId) {
+    boolean incremented = false;
+    for (long seed : SEEDS) {
+      int index = indexOf(blockId, seed);
+      if (getCount(index) < MAX_COUNT) {
+        mTable[index >>> 4] += 1L << ((index & 15) << 2);
+        incremented = true;
+      }
+    }
+    if (incremented && ++ mSize >= mSampleSize) {
+      reset();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Halves all counters to age the recorded frequencies.
+   */
+  private void reset() {
+    for (int i = 0; i < mTable.length; i ++) {
+      mTable[i] = (mTable[i] >>> 1) & RESET_MASK;
+    }
+    mSize /= 2;
+  }
+
+  private int getCount(int index) {
+    return (int) ((mTable[index >>> 4] >>> ((index & 15) << 2)) & MAX_COUNT);
+  }
+
+  private int indexOf(long blockId, long seed) {
+    long hash = (blockId + seed) * seed;
+    hash ^= hash >>> 29;
+    hash *= 0xbf58476d1ce4e5b9L;
+    hash ^= hash >>> 32;
+    return (int) hash & mCounterMask;
+  }
+}
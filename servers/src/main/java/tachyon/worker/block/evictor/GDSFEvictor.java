@@ -0,0 +1,259 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.evictor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+import tachyon.exception.NotFoundException;
+import tachyon.worker.block.BlockMetadataManagerView;
+import tachyon.worker.block.BlockStoreLocation;
+import tachyon.worker.block.allocator.Allocator;
+import tachyon.worker.block.meta.BlockMeta;
+import tachyon.worker.block.meta.StorageDirView;
+import tachyon.worker.block.meta.StorageTierView;
+
+/**
+ * This class is used to evict blocks by GreedyDual-Size-Frequency (GDSF), which aims at the byte
+ * hit ratio of each tier rather than the block hit ratio. GDSF evicts blocks with minimum
+ * priority, where the priority of a block is L + frequency * cost / size:
+ * <ul>
+ * <li>frequency is the number of accesses to the block since it was committed;</li>
+ * <li>size is the size of the block in bytes, so that a large block has to be accessed more often
+ * than a small one to stay, as it frees more space when evicted;</li>
+ * <li>cost is the cost of getting the block back once evicted. A block evicted from an upper tier
+ * is moved to the next tier and costs 1.0 to read back, while a block evicted from the last tier
+ * has to be re-fetched from the under filesystem, which costs
+ * {@link Constants#WORKER_EVICT_STRATEGY_GDSF_UFS_COST_RATIO} times more;</li>
+ * <li>L is an inflation value, set to the priority of the last evicted block and captured by each
+ * block when it is accessed. Blocks which are not accessed any more age as L grows, so that they
+ * are eventually evicted even if they were once frequently accessed.</li>
+ * </ul>
+ * Size and cost depend on the current location of a block, so priorities are computed from the
+ * block metadata when blocks are ranked for eviction.
+ */
+public final class GDSFEvictor extends EvictorBase {
+  /** Cost of reading back a block moved to the next tier */
+  private static final double NEXT_TIER_COST = 1.0;
+  /** Orders blocks by ascending priority and then by last access time */
+  private static final Comparator<RankedBlock> PRIORITY_COMPARATOR =
+      new Comparator<RankedBlock>() {
+        @Override
+        public int compare(RankedBlock block1, RankedBlock block2) {
+          int res = Double.compare(block1.mPriority, block2.mPriority);
+          if (res != 0) {
+            return res;
+          }
+          return block1.mLastAccessTime < block2.mLastAccessTime ? -1
+              : (block1.mLastAccessTime == block2.mLastAccessTime ? 0 : 1);
+        }
+      };
+
+  /** Map from block id to the access statistics of the block */
+  private final Map<Long, BlockStat> mBlockStats = new HashMap<Long, BlockStat>();
+  /** Priorities of the blocks ranked by the last eviction, to inflate L when they are evicted */
+  private final Map<Long, Double> mRankedPriorities = new HashMap<Long, Double>();
+  /** Cost of re-fetching a block evicted from the last tier from the under filesystem */
+  private final double mUfsCost;
+
+  // All fields below are guarded by the monitor of this evictor
+  /** The inflation value L */
+  private double mInflation = 0.0;
+  /** Logic time count, to break ties between blocks of equal priority in LRU order */
+  private long mLogicTimeCount = 0L;
+
+  /**
+   * @param view a view of block metadata information
+   * @param allocator an allocation policy
+   */
+  public GDSFEvictor(BlockMetadataManagerView view, Allocator allocator) {
+    super(view, allocator);
+    mUfsCost = NEXT_TIER_COST
+        * new TachyonConf().getDouble(Constants.WORKER_EVICT_STRATEGY_GDSF_UFS_COST_RATIO);
+    Preconditions.checkArgument(mUfsCost > 0, "UFS cost ratio should be positive");
+
+    // Preloading blocks, they are considered accessed once
+    for (StorageTierView tier : mManagerView.getTierViews()) {
+      for (StorageDirView dir : tier.getDirViews()) {
+        for (BlockMeta block : dir.getEvictableBlocks()) {
+          updateOnAccessAndCommit(block.getBlockId());
+        }
+      }
+    }
+  }
+
+  @Override
+  public synchronized EvictionPlan freeSpaceWithView(long bytesToBeAvailable,
+      BlockStoreLocation location, BlockMetadataManagerView view) {
+    mRankedPriorities.clear();
+    return super.freeSpaceWithView(bytesToBeAvailable, location, view);
+  }
+
+  /**
+   * Ranks all blocks present in the current view in ascending order of priority. Blocks which are
+   * pinned or locked cannot be evicted and are left out.
+   */
+  @Override
+  protected Iterator<Map.Entry<Long, Object>> getBlockIterator() {
+    final List<RankedBlock> rankedBlocks = new ArrayList<RankedBlock>(mBlockStats.size());
+    Iterator<Map.Entry<Long, BlockStat>> statIt = mBlockStats.entrySet().iterator();
+    while (statIt.hasNext()) {
+      Map.Entry<Long, BlockStat> entry = statIt.next();
+      BlockMeta block;
+      try {
+        block = mManagerView.getBlockMeta(entry.getKey());
+      } catch (NotFoundException nfe) {
+        statIt.remove();
+        continue;
+      }
+      if (block != null) {
+        double priority = calculatePriority(entry.getValue(), block);
+        mRankedPriorities.put(entry.getKey(), priority);
+        rankedBlocks.add(new RankedBlock(entry.getKey(), priority, entry.getValue()));
+      }
+    }
+    Collections.sort(rankedBlocks, PRIORITY_COMPARATOR);
+
+    final Iterator<RankedBlock> it = rankedBlocks.iterator();
+    return new Iterator<Map.Entry<Long, Object>>() {
+      private RankedBlock mLast;
+
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override
+      public Map.Entry<Long, Object> next() {
+        mLast = it.next();
+        return new AbstractMap.SimpleImmutableEntry<Long, Object>(mLast.mBlockId,
+            mLast.mPriority);
+      }
+
+      @Override
+      public void remove() {
+        it.remove();
+        mBlockStats.remove(mLast.mBlockId);
+      }
+    };
+  }
+
+  /**
+   * Calculates the priority of a block at its current location.
+   *
+   * @param stat the access statistics of the block
+   * @param block the metadata of the block
+   * @return the priority of the block
+   */
+  private double calculatePriority(BlockStat stat, BlockMeta block) {
+    StorageTierView tierView = mManagerView.getTierView(block.getBlockLocation().tierAlias());
+    double cost = mManagerView.getNextTier(tierView) == null ? mUfsCost : NEXT_TIER_COST;
+    // Empty blocks free no space, keep them behind blocks of one byte
+    long size = Math.max(block.getBlockSize(), 1L);
+    return stat.mInflation + stat.mFrequency * cost / size;
+  }
+
+  @Override
+  public void onAccessBlock(long sessionId, long blockId) {
+    updateOnAccessAndCommit(blockId);
+  }
+
+  @Override
+  public void onCommitBlock(long sessionId, long blockId, BlockStoreLocation location) {
+    updateOnAccessAndCommit(blockId);
+  }
+
+  @Override
+  public void onMoveBlockByWorker(long sessionId, long blockId, BlockStoreLocation oldLocation,
+      BlockStoreLocation newLocation) {
+    // The block is evicted from its old tier but stays cached, so it keeps its statistics
+    updateOnEvict(blockId);
+  }
+
+  @Override
+  public void onRemoveBlockByClient(long sessionId, long blockId) {
+    updateOnRemoveBlock(blockId);
+  }
+
+  @Override
+  public synchronized void onRemoveBlockByWorker(long sessionId, long blockId) {
+    updateOnEvict(blockId);
+    updateOnRemoveBlock(blockId);
+  }
+
+  private synchronized void updateOnAccessAndCommit(long blockId) {
+    mLogicTimeCount ++;
+    BlockStat stat = mBlockStats.get(blockId);
+    if (stat == null) {
+      stat = new BlockStat();
+      mBlockStats.put(blockId, stat);
+    }
+    stat.mFrequency ++;
+    stat.mInflation = mInflation;
+    stat.mLastAccessTime = mLogicTimeCount;
+  }
+
+  /**
+   * Inflates L to the priority of a block evicted by the worker, if it was ranked for eviction.
+   *
+   * @param blockId id of the evicted block
+   */
+  private synchronized void updateOnEvict(long blockId) {
+    Double priority = mRankedPriorities.remove(blockId);
+    if (priority != null) {
+      mInflation = Math.max(mInflation, priority);
+    }
+  }
+
+  private synchronized void updateOnRemoveBlock(long blockId) {
+    mBlockStats.remove(blockId);
+  }
+
+  /**
+   * Access statistics of a block, guarded by the monitor of this evictor.
+   */
+  private static final class BlockStat {
+    private long mFrequency;
+    /** L captured at the last access */
+    private double mInflation;
+    private long mLastAccessTime;
+  }
+
+  /**
+   * A block with its priority.
+   */
+  private static final class RankedBlock {
+    private final long mBlockId;
+    private final double mPriority;
+    private final long mLastAccessTime;
+
+    RankedBlock(long blockId, double priority, BlockStat stat) {
+      mBlockId = blockId;
+      mPriority = priority;
+      mLastAccessTime = stat.mLastAccessTime;
+    }
+  }
+}
@@ -92,7 +92,7 @@ public final class GreedyEvictor implements Evictor {
     List<BlockMeta> victimBlocks = new ArrayList<BlockMeta>();
     for (BlockMeta block : selectedDirView.getEvictableBlocks()) {
       victimBlocks.add(block);
-      bytesAvailableInDir += block.getBlockSize();
+      bytesAvailableInDir += block.getStoredSize();
       if (bytesAvailableInDir >= availableBytes) {
         break;
       }
@@ -15,15 +15,13 @@
 
 package tachyon.worker.block.evictor;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.TreeSet;
 
 import com.google.common.base.Preconditions;
 
@@ -47,20 +45,29 @@ import tachyon.worker.block.meta.StorageTierView;
  * combines LRU and LFU, it evicts blocks with small frequency or large recency. When
  * {@link #mStepFactor} is close to 0, LRFU is close to LFU. Conversely, LRFU is close to LRU
  * when {@link #mStepFactor} is close to 1.
+ * <p>
+ * Since all CRF values decay by the same factor as time passes, their order never changes unless a
+ * block is accessed. So instead of decaying every CRF before each eviction, this class keeps the
+ * CRF of each block normalized to logic time 0, i.e. CRF(t) * pow({@link #mAttenuationFactor},
+ * t * {@link #mStepFactor}), in a sorted set. Normalized CRF grows exponentially with logic time,
+ * so its natural logarithm is stored to avoid overflow. Accesses and removals update a single entry
+ * in O(log n), and eviction iterates blocks in ascending order of CRF without a full pass.
  */
 public final class LRFUEvictor extends EvictorBase {
-  // Map from block id to the last updated logic time count
-  private final Map<Long, Long> mBlockIdToLastUpdateTime = new ConcurrentHashMap<Long, Long>();
-  // Map from block id to the CRF value of the block
-  private final Map<Long, Double> mBlockIdToCRFValue = new ConcurrentHashMap<Long, Double>();
+  /** Map from block id to the natural logarithm of the normalized CRF value of the block */
+  private final Map<Long, Double> mBlockIdToLogCRF = new HashMap<Long, Double>();
+  /** Blocks sorted in ascending order of CRF, ties are broken by block id */
+  private final TreeSet<BlockCRF> mSortedBlocks = new TreeSet<BlockCRF>();
   // In the range of [0, 1]. Closer to 0, LRFU closer to LFU. Closer to 1, LRFU closer to LRU
   private final double mStepFactor;
   // In the range of [2, INF]
   private final double mAttenuationFactor;
+  /** The natural logarithm of the weight gained by an access for each unit of logic time */
+  private final double mLogWeightPerTime;
   private final TachyonConf mTachyonConf;
 
-  //logic time count
-  private AtomicLong mLogicTimeCount = new AtomicLong(0L);
+  // logic time count, guarded by the monitor of this evictor
+  private long mLogicTimeCount = 0L;
 
   /**
    * @param view a view of block metadata information
@@ -77,78 +84,68 @@ public final class LRFUEvictor extends EvictorBase {
         "Step factor should be in the range of [0.0, 1.0]");
     Preconditions.checkArgument(mAttenuationFactor >= 2.0,
         "Attenuation factor should be no less than 2.0");
+    mLogWeightPerTime = mStepFactor * Math.log(mAttenuationFactor);
 
-    // Preloading blocks
+    // Preloading blocks, their CRF is 0.0 whose logarithm is negative infinity
     for (StorageTierView tier : mManagerView.getTierViews()) {
       for (StorageDirView dir : tier.getDirViews()) {
         for (BlockMeta block : dir.getEvictableBlocks()) {
-          mBlockIdToLastUpdateTime.put(block.getBlockId(), 0L);
-          mBlockIdToCRFValue.put(block.getBlockId(), 0.0);
+          setLogCRF(block.getBlockId(), Double.NEGATIVE_INFINITY);
         }
       }
     }
   }
 
   /**
-   * Calculates weight of an access, which is the function value of
-   * F(t) = pow (1.0 / {@link #mAttenuationFactor}, t * {@link #mStepFactor})
+   * Calculates the natural logarithm of the normalized weight of an access, which is
+   * log(F(-t)) = t * {@link #mStepFactor} * log({@link #mAttenuationFactor}).
    *
-   * @param logicTimeInterval time interval since that access to current
-   * @return Function value of F(t)
+   * @param logicTime logic time of the access
+   * @return the logarithm of the normalized weight of the access
    */
-  private double calculateAccessWeight(long logicTimeInterval) {
-    return Math.pow(1.0 / mAttenuationFactor, logicTimeInterval * mStepFactor);
+  private double calculateLogAccessWeight(long logicTime) {
+    return logicTime * mLogWeightPerTime;
   }
 
   @Override
-  public EvictionPlan freeSpaceWithView(long bytesToBeAvailable, BlockStoreLocation location,
-      BlockMetadataManagerView view) {
-    synchronized (mBlockIdToLastUpdateTime) {
-      updateCRFValue();
-      mManagerView = view;
-
-      List<BlockTransferInfo> toMove = new ArrayList<BlockTransferInfo>();
-      List<Pair<Long, BlockStoreLocation>> toEvict =
-          new ArrayList<Pair<Long, BlockStoreLocation>>();
-      EvictionPlan plan = new EvictionPlan(toMove, toEvict);
-      StorageDirView candidateDir = cascadingEvict(bytesToBeAvailable, location, plan);
-
-      mManagerView.clearBlockMarks();
-      if (candidateDir == null) {
-        return null;
-      }
+  public synchronized EvictionPlan freeSpaceWithView(long bytesToBeAvailable,
+      BlockStoreLocation location, BlockMetadataManagerView view) {
+    mManagerView = view;
+
+    List<BlockTransferInfo> toMove = new ArrayList<BlockTransferInfo>();
+    List<Pair<Long, BlockStoreLocation>> toEvict =
+        new ArrayList<Pair<Long, BlockStoreLocation>>();
+    EvictionPlan plan = new EvictionPlan(toMove, toEvict);
+    StorageDirView candidateDir = cascadingEvict(bytesToBeAvailable, location, plan);
 
-      return plan;
+    mManagerView.clearBlockMarks();
+    if (candidateDir == null) {
+      return null;
     }
+
+    return plan;
   }
 
   @Override
   protected Iterator<Map.Entry<Long, Object>> getBlockIterator() {
-    return (Iterator) getSortedCRF().iterator();
-  }
+    final Iterator<BlockCRF> it = mSortedBlocks.iterator();
+    return new Iterator<Map.Entry<Long, Object>>() {
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
 
-  /**
-   * Sorts all blocks in ascending order of CRF
-   *
-   * @return the sorted CRF of all blocks
-   */
-  private List<Map.Entry<Long, Double>> getSortedCRF() {
-    List<Map.Entry<Long, Double>> sortedCRF =
-        new ArrayList<Map.Entry<Long, Double>>(mBlockIdToCRFValue.entrySet());
-    Collections.sort(sortedCRF, new Comparator<Map.Entry<Long, Double>>() {
       @Override
-      public int compare(Entry<Long, Double> o1, Entry<Long, Double> o2) {
-        double res = o1.getValue() - o2.getValue();
-        if (res < 0) {
-          return -1;
-        } else if (res > 0) {
-          return 1;
-        } else {
-          return 0;
-        }
+      public Map.Entry<Long, Object> next() {
+        BlockCRF next = it.next();
+        return new AbstractMap.SimpleImmutableEntry<Long, Object>(next.mBlockId, next.mLogCRF);
       }
-    });
-    return sortedCRF;
+
+      @Override
+      public void remove() {
+        it.remove();
+      }
+    };
   }
 
   @Override
@@ -173,67 +170,109 @@ public final class LRFUEvictor extends EvictorBase {
 
   @Override
   protected void onRemoveBlockFromIterator(long blockId) {
-    mBlockIdToLastUpdateTime.remove(blockId);
-    mBlockIdToCRFValue.remove(blockId);
+    // The entry in mSortedBlocks has already been removed by the iterator
+    mBlockIdToLogCRF.remove(blockId);
   }
 
   /**
-   * This function is used to update CRF of all the blocks according to current logic time. When
-   * some block is accessed in some time, only CRF of that block itself will be updated to current
-   * time, other blocks who are not accessed recently will only be updated until
-   * {@link #freeSpaceWithView(long, BlockStoreLocation, BlockMetadataManagerView)} is called
-   * because blocks need to be sorted in the increasing order of CRF. When this function is called,
-   * {@link #mBlockIdToLastUpdateTime} and {@link #mBlockIdToCRFValue} need to be locked in case
-   * of the changing of values.
+   * Sets the logarithm of the normalized CRF of a block, replacing its old entry in
+   * {@link #mSortedBlocks} if any. Must be called with the monitor of this evictor held.
+   *
+   * @param blockId id of the block
+   * @param logCRF the logarithm of the normalized CRF of the block
    */
-  private void updateCRFValue() {
-    long currentLogicTime = mLogicTimeCount.get();
-    for (Entry<Long, Double> entry : mBlockIdToCRFValue.entrySet()) {
-      long blockId = entry.getKey();
-      double crfValue = entry.getValue();
-      mBlockIdToCRFValue.put(blockId, crfValue
-          * calculateAccessWeight(currentLogicTime - mBlockIdToLastUpdateTime.get(blockId)));
-      mBlockIdToLastUpdateTime.put(blockId, currentLogicTime);
+  private void setLogCRF(long blockId, double logCRF) {
+    Double oldLogCRF = mBlockIdToLogCRF.put(blockId, logCRF);
+    if (oldLogCRF != null) {
+      mSortedBlocks.remove(new BlockCRF(blockId, oldLogCRF));
     }
+    mSortedBlocks.add(new BlockCRF(blockId, logCRF));
   }
 
   /**
-   * Updates {@link #mBlockIdToLastUpdateTime} and {@link #mBlockIdToCRFValue} when block is
-   * accessed or committed. Only CRF of the accessed or committed block will be updated, CRF
-   * of other blocks will be lazily updated (only when {@link #updateCRFValue()} is called).
-   * If the block is updated at the first time, CRF of the block will be set to 1.0, otherwise
-   * the CRF of the block will be set to {1.0 + old CRF * F(current time - last update time)}.
+   * Updates the CRF of a block when it is accessed or committed. If the block is updated at the
+   * first time, its CRF is set to 1.0, otherwise its CRF is set to
+   * {1.0 + old CRF * F(current time - last update time)}. In the normalized logarithmic form, this
+   * adds the weight of an access at the current logic time to the old value.
    *
    * @param blockId id of the block to be accessed or committed
    */
-  private void updateOnAccessAndCommit(long blockId) {
-    synchronized (mBlockIdToLastUpdateTime) {
-      long currentLogicTime = mLogicTimeCount.incrementAndGet();
-      // update CRF value
-      // CRF(currentLogicTime)=CRF(lastUpdateTime)*F(currentLogicTime-lastUpdateTime)+F(0)
-      if (mBlockIdToCRFValue.containsKey(blockId)) {
-        mBlockIdToCRFValue.put(blockId, mBlockIdToCRFValue.get(blockId)
-            * calculateAccessWeight(currentLogicTime - mBlockIdToLastUpdateTime.get(blockId))
-            + 1.0);
-      } else {
-        mBlockIdToCRFValue.put(blockId, 1.0);
-      }
-      // update currentLogicTime to lastUpdateTime
-      mBlockIdToLastUpdateTime.put(blockId, currentLogicTime);
+  private synchronized void updateOnAccessAndCommit(long blockId) {
+    mLogicTimeCount ++;
+    double logWeight = calculateLogAccessWeight(mLogicTimeCount);
+    Double oldLogCRF = mBlockIdToLogCRF.get(blockId);
+    if (oldLogCRF == null) {
+      setLogCRF(blockId, logWeight);
+    } else {
+      setLogCRF(blockId, logAddExp(oldLogCRF, logWeight));
     }
   }
 
   /**
-   * Updates {@link #mBlockIdToLastUpdateTime} and {@link #mBlockIdToCRFValue} when block is
-   * removed.
+   * Removes the CRF of a block when it is removed.
    *
    * @param blockId id of the block to be removed
    */
-  private void updateOnRemoveBlock(long blockId) {
-    synchronized (mBlockIdToLastUpdateTime) {
-      mLogicTimeCount.incrementAndGet();
-      mBlockIdToCRFValue.remove(blockId);
-      mBlockIdToLastUpdateTime.remove(blockId);
+  private synchronized void updateOnRemoveBlock(long blockId) {
+    mLogicTimeCount ++;
+    Double oldLogCRF = mBlockIdToLogCRF.remove(blockId);
+    if (oldLogCRF != null) {
+      mSortedBlocks.remove(new BlockCRF(blockId, oldLogCRF));
+    }
+  }
+
+  /**
+   * Computes log(exp(a) + exp(b)) without overflowing.
+   *
+   * @param a the first logarithm
+   * @param b the second logarithm
+   * @return the logarithm of the sum
+   */
+  private static double logAddExp(double a, double b) {
+    double max = Math.max(a, b);
+    if (max == Double.NEGATIVE_INFINITY) {
+      return max;
+    }
+    return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+  }
+
+  /**
+   * A block with its normalized CRF, ordered by ascending CRF and then by block id.
+   */
+  private static final class BlockCRF implements Comparable<BlockCRF> {
+    private final long mBlockId;
+    private final double mLogCRF;
+
+    BlockCRF(long blockId, double logCRF) {
+      mBlockId = blockId;
+      mLogCRF = logCRF;
+    }
+
+    @Override
+    public int compareTo(BlockCRF other) {
+      int res = Double.compare(mLogCRF, other.mLogCRF);
+      if (res != 0) {
+        return res;
+      }
+      return mBlockId < other.mBlockId ? -1 : (mBlockId == other.mBlockId ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BlockCRF)) {
+        return false;
+      }
+      BlockCRF that = (BlockCRF) o;
+      return mBlockId == that.mBlockId && Double.compare(mLogCRF, that.mLogCRF) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      long bits = Double.doubleToLongBits(mLogCRF);
+      return 31 * (int) (mBlockId ^ (mBlockId >>> 32)) + (int) (bits ^ (bits >>> 32));
     }
   }
 }
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.evictor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+import tachyon.worker.block.BlockMetadataManagerView;
+import tachyon.worker.block.BlockStoreLocation;
+import tachyon.worker.block.allocator.Allocator;
+import tachyon.worker.block.meta.BlockMeta;
+import tachyon.worker.block.meta.StorageDirView;
+import tachyon.worker.block.meta.StorageTierView;
+
+/**
+ * This class is used to evict blocks by W-TinyLFU, which resists scans that would flush the hot
+ * working set out of an LRU cache. Blocks are kept in three LRU segments:
+ * <ul>
+ * <li>window: newly committed blocks, about 1% of all blocks;</li>
+ * <li>probation: blocks pushed out of the window or demoted from the protected segment;</li>
+ * <li>protected: blocks accessed again while on probation, about 80% of the rest.</li>
+ * </ul>
+ * The access frequency of blocks is estimated by a {@link FrequencySketch}. Blocks are evicted
+ * from the window and probation segments first, least frequently used first and least recently
+ * used among equally frequent ones. Blocks in the protected segment are only evicted after that,
+ * in LRU order. Blocks of a scan are accessed once, so they are evicted before the hot blocks even
+ * when they push those out of the window or the protected segment.
+ * <p>
+ * The window and probation segments keep their blocks grouped by frequency as they are accessed,
+ * so eviction visits them in order without sorting. The frequency of a block is only re-estimated
+ * when it is accessed, or halved with all others when the sketch ages its counters.
+ */
+public final class TinyLFUEvictor extends EvictorBase {
+  /** Share of all blocks kept in the window segment */
+  private static final double WINDOW_RATIO = 0.01;
+  /** Share of the blocks outside the window kept in the protected segment */
+  private static final double PROTECTED_RATIO = 0.8;
+  private static final boolean UNUSED_MAP_VALUE = true;
+
+  private final FrequencySegment mWindow = new FrequencySegment();
+  private final FrequencySegment mProbation = new FrequencySegment();
+  /** Insertion-ordered segment from blockId to a placeholder, least recently used first */
+  private final Map<Long, Boolean> mProtected = new LinkedHashMap<Long, Boolean>();
+  private final FrequencySketch mSketch;
+
+  /**
+   * @param view a view of block metadata information
+   * @param allocator an allocation policy
+   */
+  public TinyLFUEvictor(BlockMetadataManagerView view, Allocator allocator) {
+    super(view, allocator);
+    TachyonConf conf = new TachyonConf();
+    mSketch =
+        new FrequencySketch(conf.getInt(Constants.WORKER_EVICT_STRATEGY_TINYLFU_EXPECTED_BLOCKS));
+
+    // preload existing blocks loaded by StorageDir to Evictor, nothing is known about their access
+    for (StorageTierView tierView : mManagerView.getTierViews()) {
+      for (StorageDirView dirView : tierView.getDirViews()) {
+        for (BlockMeta blockMeta : dirView.getEvictableBlocks()) { // all blocks with initial view
+          mProbation.put(blockMeta.getBlockId(), 0);
+        }
+      }
+    }
+  }
+
+  @Override
+  public synchronized EvictionPlan freeSpaceWithView(long bytesToBeAvailable,
+      BlockStoreLocation location, BlockMetadataManagerView view) {
+    return super.freeSpaceWithView(bytesToBeAvailable, location, view);
+  }
+
+  @Override
+  protected Iterator<Map.Entry<Long, Object>> getBlockIterator() {
+    return new EvictionOrderIterator();
+  }
+
+  @Override
+  public synchronized void onAccessBlock(long sessionId, long blockId) {
+    if (mSketch.increment(blockId)) {
+      mWindow.halveFrequencies();
+      mProbation.halveFrequencies();
+    }
+    int frequency = mSketch.frequency(blockId);
+    if (mWindow.remove(blockId) != null) {
+      mWindow.put(blockId, frequency);
+    } else if (mProbation.remove(blockId) != null) {
+      mProtected.put(blockId, UNUSED_MAP_VALUE);
+      balance();
+    } else if (mProtected.remove(blockId) != null) {
+      mProtected.put(blockId, UNUSED_MAP_VALUE);
+    } else {
+      mWindow.put(blockId, frequency);
+      balance();
+    }
+  }
+
+  @Override
+  public synchronized void onCommitBlock(long sessionId, long blockId,
+      BlockStoreLocation location) {
+    onAccessBlock(sessionId, blockId);
+  }
+
+  @Override
+  public synchronized void onRemoveBlockByClient(long sessionId, long blockId) {
+    removeBlock(blockId);
+  }
+
+  @Override
+  public synchronized void onRemoveBlockByWorker(long sessionId, long blockId) {
+    removeBlock(blockId);
+  }
+
+  private void removeBlock(long blockId) {
+    if (mWindow.remove(blockId) == null && mProbation.remove(blockId) == null) {
+      mProtected.remove(blockId);
+    }
+  }
+
+  /**
+   * Moves the least recently used blocks of the window and protected segments to the probation
+   * segment when they exceed their share of all blocks.
+   */
+  private void balance() {
+    int total = mWindow.size() + mProbation.size() + mProtected.size();
+    int windowCapacity = Math.max(1, (int) (total * WINDOW_RATIO));
+    int protectedCapacity = (int) ((total - windowCapacity) * PROTECTED_RATIO);
+    while (mWindow.size() > windowCapacity) {
+      long blockId = mWindow.leastRecentlyUsed();
+      mProbation.put(blockId, mWindow.remove(blockId));
+    }
+    Iterator<Long> it = mProtected.keySet().iterator();
+    while (mProtected.size() > protectedCapacity && it.hasNext()) {
+      long blockId = it.next();
+      it.remove();
+      mProbation.put(blockId, mSketch.frequency(blockId));
+    }
+  }
+
+  /**
+   * An LRU segment which also groups its blocks by the frequency recorded when they were last
+   * accessed, least recently used first within each frequency.
+   */
+  private static final class FrequencySegment {
+    /** Map from blockId to its recorded frequency, least recently used first */
+    private final Map<Long, Integer> mBlocks = new LinkedHashMap<Long, Integer>();
+    /** Blocks with each recorded frequency, indexed by the frequency */
+    private final List<Set<Long>> mBuckets =
+        new ArrayList<Set<Long>>(FrequencySketch.MAX_COUNT + 1);
+
+    FrequencySegment() {
+      for (int i = 0; i <= FrequencySketch.MAX_COUNT; i ++) {
+        mBuckets.add(new LinkedHashSet<Long>());
+      }
+    }
+
+    /** Adds a block as the most recently used one, it must not be in the segment yet */
+    void put(long blockId, int frequency) {
+      mBlocks.put(blockId, frequency);
+      mBuckets.get(frequency).add(blockId);
+    }
+
+    /** @return the recorded frequency of the removed block, or null if it was not here */
+    Integer remove(long blockId) {
+      Integer frequency = mBlocks.remove(blockId);
+      if (frequency != null) {
+        mBuckets.get(frequency).remove(blockId);
+      }
+      return frequency;
+    }
+
+    int size() {
+      return mBlocks.size();
+    }
+
+    long leastRecentlyUsed() {
+      return mBlocks.keySet().iterator().next();
+    }
+
+    /**
+     * Follows the sketch halving its counters. Buckets are merged pairwise in ascending order, so
+     * a bucket is always emptied before the higher ones are merged into it.
+     */
+    void halveFrequencies() {
+      for (int frequency = 1; frequency < mBuckets.size(); frequency ++) {
+        Set<Long> bucket = mBuckets.get(frequency);
+        for (long blockId : bucket) {
+          mBlocks.put(blockId, frequency / 2);
+        }
+        mBuckets.get(frequency / 2).addAll(bucket);
+        bucket.clear();
+      }
+    }
+
+    /**
+     * @param frequency a recorded frequency
+     * @return an iterator over the blocks with the frequency, which supports removal
+     */
+    Iterator<Long> iterator(int frequency) {
+      final Iterator<Long> it = mBuckets.get(frequency).iterator();
+      return new Iterator<Long>() {
+        private long mLastBlockId;
+
+        @Override
+        public boolean hasNext() {
+          return it.hasNext();
+        }
+
+        @Override
+        public Long next() {
+          mLastBlockId = it.next();
+          return mLastBlockId;
+        }
+
+        @Override
+        public void remove() {
+          it.remove();
+          mBlocks.remove(mLastBlockId);
+        }
+      };
+    }
+  }
+
+  /**
+   * Iterates blocks in eviction order: blocks of the window and probation segments in ascending
+   * order of their recorded frequency, ties broken by recency with the window first, then blocks
+   * of the protected segment in LRU order. Only used within {@link #freeSpaceWithView}, with the
+   * monitor of this evictor held.
+   */
+  private final class EvictionOrderIterator implements Iterator<Map.Entry<Long, Object>> {
+    /** Iterators of the window and probation blocks of each frequency, then of protected blocks */
+    private final List<Iterator<Long>> mIts =
+        new ArrayList<Iterator<Long>>(2 * FrequencySketch.MAX_COUNT + 3);
+    private int mIndex = 0;
+    /** The iterator which returned the last block, null if it is already removed */
+    private Iterator<Long> mLastIt;
+
+    EvictionOrderIterator() {
+      for (int frequency = 0; frequency <= FrequencySketch.MAX_COUNT; frequency ++) {
+        mIts.add(mWindow.iterator(frequency));
+        mIts.add(mProbation.iterator(frequency));
+      }
+      mIts.add(mProtected.keySet().iterator());
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (mIndex < mIts.size()) {
+        if (mIts.get(mIndex).hasNext()) {
+          return true;
+        }
+        mIndex ++;
+      }
+      return false;
+    }
+
+    @Override
+    public Map.Entry<Long, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      mLastIt = mIts.get(mIndex);
+      return new AbstractMap.SimpleImmutableEntry<Long, Object>(mLastIt.next(), UNUSED_MAP_VALUE);
+    }
+
+    @Override
+    public void remove() {
+      if (mLastIt == null) {
+        throw new IllegalStateException();
+      }
+      mLastIt.remove();
+      mLastIt = null;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This class provides read access to a block stored in a {@link BlockArena}. Reads that fall
+ * within one slab return a read-only view of the slab without copying, so the data server sends
+ * the data straight from direct memory. Reads spanning several slabs are copied into a new buffer.
+ * <p>
+ * The reader holds a reference to the block, which is released on {@link #close}.
+ */
+public final class ArenaBlockReader implements BlockReader {
+  private final BlockArena.ArenaBlock mBlock;
+  private final ReadableByteChannel mChannel = new ReadableByteChannel() {
+    /** Position of the channel in the block */
+    private long mChannelPosition = 0;
+    private boolean mChannelOpen = true;
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (mClosed || !mChannelOpen) {
+        throw new ClosedChannelException();
+      }
+      if (mChannelPosition >= mBlock.getLength()) {
+        return -1;
+      }
+      int length = (int) Math.min(dst.remaining(), mBlock.getLength() - mChannelPosition);
+      copy(mChannelPosition, length, dst);
+      mChannelPosition += length;
+      return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return !mClosed && mChannelOpen;
+    }
+
+    @Override
+    public void close() {
+      mChannelOpen = false;
+    }
+  };
+  private boolean mClosed = false;
+
+  /**
+   * Constructs a reader of a block in an arena. The reader takes over a reference to the block
+   * that the caller has retained.
+   *
+   * @param block the retained block to read
+   */
+  public ArenaBlockReader(BlockArena.ArenaBlock block) {
+    mBlock = Preconditions.checkNotNull(block);
+  }
+
+  @Override
+  public ReadableByteChannel getChannel() {
+    return mChannel;
+  }
+
+  @Override
+  public long getLength() {
+    return mBlock.getLength();
+  }
+
+  @Override
+  public ByteBuffer read(long offset, long length) throws IOException {
+    if (length == -1L) {
+      length = mBlock.getLength() - offset;
+    }
+    Preconditions.checkArgument(offset >= 0 && length >= 0 && offset + length <= getLength(),
+        "offset=%s, length=%s, exceeding blockSize=%s", offset, length, getLength());
+    if (length == 0) {
+      return ByteBuffer.allocate(0);
+    }
+    int slabBytes = mBlock.getSlabBytes();
+    int slabIndex = (int) (offset / slabBytes);
+    int slabOffset = (int) (offset % slabBytes);
+    if (slabOffset + length <= slabBytes) {
+      ByteBuffer slab = mBlock.getSlab(slabIndex);
+      slab.position(slabOffset);
+      slab.limit((int) (slabOffset + length));
+      return slab.slice().asReadOnlyBuffer();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) length);
+    copy(offset, (int) length, buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  private void copy(long offset, int length, ByteBuffer dst) {
+    int slabBytes = mBlock.getSlabBytes();
+    long position = offset;
+    long end = offset + length;
+    while (position < end) {
+      ByteBuffer slab = mBlock.getSlab((int) (position / slabBytes));
+      int slabOffset = (int) (position % slabBytes);
+      int chunk = (int) Math.min(slabBytes - slabOffset, end - position);
+      slab.position(slabOffset);
+      slab.limit(slabOffset + chunk);
+      dst.put(slab);
+      position += chunk;
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!mClosed) {
+      mClosed = true;
+      mBlock.release();
+    }
+  }
+}
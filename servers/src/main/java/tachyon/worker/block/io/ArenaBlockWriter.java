@@ -0,0 +1,114 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This class provides write access to a block allocated in a {@link BlockArena}. Data is appended
+ * to the slabs of the block in order. Closing the writer does not release the block; the owner of
+ * the block publishes or releases it.
+ */
+public final class ArenaBlockWriter implements BlockWriter {
+  private final BlockArena.ArenaBlock mBlock;
+  private final WritableByteChannel mChannel = new WritableByteChannel() {
+    private boolean mChannelOpen = true;
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      if (mClosed || !mChannelOpen) {
+        throw new ClosedChannelException();
+      }
+      int length = src.remaining();
+      writeInternal(src);
+      return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return !mClosed && mChannelOpen;
+    }
+
+    @Override
+    public void close() {
+      mChannelOpen = false;
+    }
+  };
+  /** Number of bytes written to the block so far */
+  private long mPosition = 0;
+  private boolean mClosed = false;
+
+  /**
+   * Constructs a writer to an allocated block of an arena.
+   *
+   * @param block the block to write to
+   */
+  public ArenaBlockWriter(BlockArena.ArenaBlock block) {
+    mBlock = Preconditions.checkNotNull(block);
+  }
+
+  @Override
+  public WritableByteChannel getChannel() {
+    return mChannel;
+  }
+
+  @Override
+  public long append(ByteBuffer inputBuf) throws IOException {
+    // Write a duplicate so that the position of the input buffer is left untouched
+    ByteBuffer src = inputBuf.duplicate();
+    int length = src.remaining();
+    writeInternal(src);
+    return length;
+  }
+
+  /**
+   * @return the number of bytes written to the block so far
+   */
+  public long getPosition() {
+    return mPosition;
+  }
+
+  private void writeInternal(ByteBuffer src) throws IOException {
+    if (mClosed) {
+      throw new ClosedChannelException();
+    }
+    if (mPosition + src.remaining() > mBlock.getLength()) {
+      throw new IOException("Writing " + src.remaining() + " bytes at " + mPosition
+          + " exceeds the length " + mBlock.getLength() + " of block " + mBlock.getBlockId());
+    }
+    while (src.hasRemaining()) {
+      int slabBytes = mBlock.getSlabBytes();
+      ByteBuffer slab = mBlock.getSlab((int) (mPosition / slabBytes));
+      slab.position((int) (mPosition % slabBytes));
+      int chunk = Math.min(slab.remaining(), src.remaining());
+      ByteBuffer part = src.duplicate();
+      part.limit(part.position() + chunk);
+      slab.put(part);
+      src.position(src.position() + chunk);
+      mPosition += chunk;
+    }
+  }
+
+  @Override
+  public void close() {
+    mClosed = true;
+  }
+}
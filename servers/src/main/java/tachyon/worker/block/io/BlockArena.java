@@ -0,0 +1,256 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.util.io.BufferUtils;
+
+/**
+ * An off-heap arena managed by the worker to hold the data of blocks in direct memory. The arena is
+ * divided into slabs of a fixed size, which are allocated lazily up to the capacity of the arena
+ * and then recycled through a free list, so blocks of any size can be stored without
+ * fragmentation.
+ * <p>
+ * A block is first allocated with {@link #allocate}, filled through an {@link ArenaBlockWriter} and
+ * then made visible to readers with {@link #publish}. Blocks are reference counted: the arena holds
+ * one reference until the block is removed, and each {@link ArenaBlockReader} holds another, so the
+ * slabs of a removed block are only recycled after its last reader is closed.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class BlockArena implements Closeable {
+  private final int mSlabBytes;
+  private final int mMaxSlabs;
+  /** Slabs not used by any block */
+  private final Deque<ByteBuffer> mFreeSlabs = new ArrayDeque<ByteBuffer>();
+  /** Published blocks by their IDs */
+  private final Map<Long, ArenaBlock> mBlocks = new HashMap<Long, ArenaBlock>();
+  /** Number of slabs allocated from direct memory so far */
+  private int mAllocatedSlabs = 0;
+  private boolean mClosed = false;
+
+  /**
+   * Creates a new arena.
+   *
+   * @param capacityBytes the maximum number of bytes of direct memory to use
+   * @param slabBytes the size of each slab in bytes
+   */
+  public BlockArena(long capacityBytes, int slabBytes) {
+    Preconditions.checkArgument(slabBytes > 0, "Slab size must be positive");
+    Preconditions.checkArgument(capacityBytes >= slabBytes,
+        "Arena capacity %s is smaller than the slab size %s", capacityBytes, slabBytes);
+    mSlabBytes = slabBytes;
+    mMaxSlabs = (int) Math.min(Integer.MAX_VALUE, capacityBytes / slabBytes);
+  }
+
+  /**
+   * @return the size of each slab in bytes
+   */
+  public int getSlabBytes() {
+    return mSlabBytes;
+  }
+
+  /**
+   * @return the number of bytes of the arena not used by any block
+   */
+  public synchronized long getAvailableBytes() {
+    return (long) (mMaxSlabs - mAllocatedSlabs + mFreeSlabs.size()) * mSlabBytes;
+  }
+
+  /**
+   * Allocates slabs for a block. The block is not visible to {@link #acquire} until it is
+   * published.
+   *
+   * @param blockId the ID of the block
+   * @param length the length of the block in bytes
+   * @return the allocated block, or null if the arena does not have enough free space
+   */
+  public synchronized ArenaBlock allocate(long blockId, long length) {
+    Preconditions.checkArgument(length >= 0, "Block length must be non-negative");
+    Preconditions.checkState(!mClosed, "Arena is closed");
+    long numSlabs = (length + mSlabBytes - 1) / mSlabBytes;
+    if (numSlabs > mMaxSlabs - mAllocatedSlabs + mFreeSlabs.size()) {
+      return null;
+    }
+    ByteBuffer[] slabs = new ByteBuffer[(int) numSlabs];
+    for (int i = 0; i < slabs.length; i ++) {
+      ByteBuffer slab = mFreeSlabs.poll();
+      if (slab == null) {
+        slab = ByteBuffer.allocateDirect(mSlabBytes);
+        mAllocatedSlabs ++;
+      }
+      slabs[i] = slab;
+    }
+    return new ArenaBlock(blockId, length, slabs);
+  }
+
+  /**
+   * Makes an allocated block visible to readers. If the block has been published already, e.g., by
+   * a concurrent loader, the given copy is released and the existing one is kept.
+   *
+   * @param block the block to publish, which must have been fully written
+   * @return the published block, retained for the caller
+   */
+  public synchronized ArenaBlock publish(ArenaBlock block) {
+    ArenaBlock existing = mBlocks.get(block.getBlockId());
+    if (existing != null) {
+      block.release();
+      existing.retain();
+      return existing;
+    }
+    mBlocks.put(block.getBlockId(), block);
+    block.retain();
+    return block;
+  }
+
+  /**
+   * Gets a published block and retains it. The caller must call {@link ArenaBlock#release} when
+   * done with the block.
+   *
+   * @param blockId the ID of the block
+   * @return the block, or null if the block is not in the arena
+   */
+  public synchronized ArenaBlock acquire(long blockId) {
+    ArenaBlock block = mBlocks.get(blockId);
+    if (block != null) {
+      block.retain();
+    }
+    return block;
+  }
+
+  /**
+   * Removes a block from the arena. Its slabs are recycled once no reader holds the block.
+   *
+   * @param blockId the ID of the block
+   * @return true if the block was in the arena, false otherwise
+   */
+  public boolean remove(long blockId) {
+    ArenaBlock block;
+    synchronized (this) {
+      block = mBlocks.remove(blockId);
+    }
+    if (block == null) {
+      return false;
+    }
+    block.release();
+    return true;
+  }
+
+  /**
+   * Frees the direct memory of all free slabs. Slabs of blocks still held by readers are freed by
+   * the garbage collector.
+   */
+  @Override
+  public synchronized void close() {
+    mClosed = true;
+    mBlocks.clear();
+    ByteBuffer slab;
+    while ((slab = mFreeSlabs.poll()) != null) {
+      BufferUtils.cleanDirectBuffer(slab);
+    }
+  }
+
+  private synchronized void recycle(ByteBuffer[] slabs) {
+    for (ByteBuffer slab : slabs) {
+      if (mClosed) {
+        BufferUtils.cleanDirectBuffer(slab);
+      } else {
+        slab.clear();
+        mFreeSlabs.push(slab);
+      }
+    }
+  }
+
+  /**
+   * The data of one block in the arena, stored in a sequence of slabs.
+   */
+  public final class ArenaBlock {
+    private final long mBlockId;
+    private final long mLength;
+    private final ByteBuffer[] mSlabs;
+    /** Starts with one reference held by the allocator */
+    private final AtomicInteger mRefCount = new AtomicInteger(1);
+
+    private ArenaBlock(long blockId, long length, ByteBuffer[] slabs) {
+      mBlockId = blockId;
+      mLength = length;
+      mSlabs = slabs;
+    }
+
+    /**
+     * @return the ID of the block
+     */
+    public long getBlockId() {
+      return mBlockId;
+    }
+
+    /**
+     * @return the length of the block in bytes
+     */
+    public long getLength() {
+      return mLength;
+    }
+
+    /**
+     * @return the size of each slab of the block in bytes
+     */
+    public int getSlabBytes() {
+      return mSlabBytes;
+    }
+
+    /**
+     * Returns a view of a slab of the block. The view shares the content of the slab, but has its
+     * own position and limit, and is limited to the data of the block.
+     *
+     * @param index the index of the slab
+     * @return the view of the slab, positioned at 0
+     */
+    public ByteBuffer getSlab(int index) {
+      ByteBuffer slab = mSlabs[index].duplicate();
+      slab.clear();
+      slab.limit((int) Math.min(mSlabBytes, mLength - (long) index * mSlabBytes));
+      return slab;
+    }
+
+    /**
+     * Adds a reference to the block.
+     */
+    public void retain() {
+      Preconditions.checkState(mRefCount.getAndIncrement() > 0, "Block %s has been released",
+          mBlockId);
+    }
+
+    /**
+     * Removes a reference to the block, recycling its slabs when no reference is left.
+     */
+    public void release() {
+      int refCount = mRefCount.decrementAndGet();
+      Preconditions.checkState(refCount >= 0, "Block %s has been released", mBlockId);
+      if (refCount == 0) {
+        recycle(mSlabs);
+      }
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+
+/**
+ * Utility methods for the checksums of block files. The data of a block is divided into chunks of
+ * {@link #CHUNK_BYTES}, and the CRC32 of each chunk is stored as a 4-byte integer at offset
+ * {@code 4 * chunkIndex} of a checksum file next to the block file. The last chunk of a block may
+ * be shorter than the others.
+ */
+public final class BlockChecksum {
+  /** Size of the chunks of a block covered by one checksum */
+  public static final int CHUNK_BYTES = 64 * Constants.KB;
+  /** Suffix appended to the path of a block file to get the path of its checksum file */
+  public static final String CHECKSUM_FILE_SUFFIX = ".crc";
+  private static final int CHECKSUM_BYTES = 4;
+
+  private BlockChecksum() {}
+
+  /**
+   * @param blockPath the path of a block file
+   * @return the path of the checksum file of the block
+   */
+  public static String getChecksumPath(String blockPath) {
+    return blockPath + CHECKSUM_FILE_SUFFIX;
+  }
+
+  /**
+   * Keeps the checksums of a block up to date while data is appended at its end. The CRC32 of the
+   * last chunk is carried from one append to the next, so the data of a chunk is only read back
+   * from the block file once, when the first append starts in the middle of a chunk, e.g., for a
+   * block written by a previous writer.
+   * <p>
+   * This class is not thread-safe.
+   */
+  public static final class Updater {
+    /** Number of checksums written to the checksum file at once */
+    private static final int CHECKSUMS_PER_WRITE = 64;
+    /** Size of the buffer copying the data of direct buffers and of the block file */
+    private static final int COPY_BYTES = 8 * Constants.KB;
+
+    private final FileChannel mBlockChannel;
+    private final FileChannel mChecksumChannel;
+    private final CRC32 mCrc = new CRC32();
+    private final ByteBuffer mChecksums =
+        ByteBuffer.allocate(CHECKSUMS_PER_WRITE * CHECKSUM_BYTES);
+    /** Index of the chunk of the first checksum in mChecksums */
+    private long mChecksumsChunk;
+    /** Created on first use, as heap buffers are read in place */
+    private byte[] mCopyBuffer;
+    /** Length of the block covered by the checksums, -1 until the first append */
+    private long mLength = -1;
+
+    /**
+     * @param blockChannel the channel of the block file
+     * @param checksumChannel the channel of the checksum file
+     */
+    public Updater(FileChannel blockChannel, FileChannel checksumChannel) {
+      mBlockChannel = Preconditions.checkNotNull(blockChannel);
+      mChecksumChannel = Preconditions.checkNotNull(checksumChannel);
+    }
+
+    /**
+     * Updates the checksums for data appended at the end of the block.
+     *
+     * @param offset the offset where the data was appended, which must be the previous block length
+     * @param data the appended data, its position is left untouched
+     * @throws IOException if the block file can not be read or the checksum file can not be written
+     */
+    public void update(long offset, ByteBuffer data) throws IOException {
+      ByteBuffer src = data.duplicate();
+      if (!src.hasRemaining()) {
+        return;
+      }
+      if (offset != mLength) {
+        resume(offset);
+      }
+      mChecksumsChunk = mLength / CHUNK_BYTES;
+      while (src.hasRemaining()) {
+        int length = (int) Math.min(CHUNK_BYTES - mLength % CHUNK_BYTES, src.remaining());
+        updateCrc(src, length);
+        mLength += length;
+        boolean chunkFull = mLength % CHUNK_BYTES == 0;
+        if (chunkFull || !src.hasRemaining()) {
+          // The checksum of a partial last chunk is written too, and overwritten once it grows
+          mChecksums.putInt((int) mCrc.getValue());
+          if (chunkFull) {
+            mCrc.reset();
+          }
+          if (!mChecksums.hasRemaining()) {
+            flushChecksums();
+          }
+        }
+      }
+      flushChecksums();
+    }
+
+    /**
+     * Restarts the CRC32 of the last chunk from the data of the block file before an offset.
+     */
+    private void resume(long offset) throws IOException {
+      mCrc.reset();
+      long position = offset - offset % CHUNK_BYTES;
+      while (position < offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(copyBuffer(), 0,
+            (int) Math.min(COPY_BYTES, offset - position));
+        readFully(mBlockChannel, buffer, position);
+        mCrc.update(buffer.array(), 0, buffer.position());
+        position += buffer.position();
+      }
+      mLength = offset;
+    }
+
+    private void updateCrc(ByteBuffer src, int length) {
+      if (src.hasArray()) {
+        mCrc.update(src.array(), src.arrayOffset() + src.position(), length);
+        src.position(src.position() + length);
+        return;
+      }
+      byte[] buffer = copyBuffer();
+      int remaining = length;
+      while (remaining > 0) {
+        int copied = Math.min(buffer.length, remaining);
+        src.get(buffer, 0, copied);
+        mCrc.update(buffer, 0, copied);
+        remaining -= copied;
+      }
+    }
+
+    private void flushChecksums() throws IOException {
+      mChecksums.flip();
+      long position = mChecksumsChunk * CHECKSUM_BYTES;
+      mChecksumsChunk += mChecksums.remaining() / CHECKSUM_BYTES;
+      while (mChecksums.hasRemaining()) {
+        position += mChecksumChannel.write(mChecksums, position);
+      }
+      mChecksums.clear();
+    }
+
+    private byte[] copyBuffer() {
+      if (mCopyBuffer == null) {
+        mCopyBuffer = new byte[COPY_BYTES];
+      }
+      return mCopyBuffer;
+    }
+  }
+
+  /**
+   * Computes the checksums of a whole block file and writes them to its checksum file. The
+   * checksums are written aside and renamed over the checksum file, so that readers of the block
+   * never see a partly written checksum file.
+   *
+   * @param blockPath the path of the block file
+   * @throws IOException if the block file can not be read or the checksum file can not be written
+   */
+  public static void compute(String blockPath) throws IOException {
+    File tmpFile = new File(getChecksumPath(blockPath) + ".tmp");
+    RandomAccessFile blockFile = new RandomAccessFile(blockPath, "r");
+    try {
+      DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      try {
+        FileChannel blockChannel = blockFile.getChannel();
+        byte[] chunk = new byte[CHUNK_BYTES];
+        CRC32 crc = new CRC32();
+        long length = blockChannel.size();
+        for (long offset = 0; offset < length; offset += CHUNK_BYTES) {
+          int chunkLength = (int) Math.min(CHUNK_BYTES, length - offset);
+          readFully(blockChannel, ByteBuffer.wrap(chunk, 0, chunkLength), offset);
+          crc.reset();
+          crc.update(chunk, 0, chunkLength);
+          output.writeInt((int) crc.getValue());
+        }
+      } finally {
+        output.close();
+      }
+    } finally {
+      blockFile.close();
+    }
+    File checksumFile = new File(getChecksumPath(blockPath));
+    if (!tmpFile.renameTo(checksumFile)) {
+      throw new IOException("Failed to rename " + tmpFile + " to " + checksumFile);
+    }
+  }
+
+  /**
+   * Verifies a range of chunks of a block against their checksums.
+   *
+   * @param blockChannel the channel of the block file
+   * @param checksumChannel the channel of the checksum file
+   * @param firstChunk the index of the first chunk to verify
+   * @param lastChunk the index of the last chunk to verify
+   * @throws ChecksumMismatchException if a chunk does not match its checksum
+   * @throws IOException if the block file or the checksum file can not be read
+   */
+  public static void verify(FileChannel blockChannel, FileChannel checksumChannel,
+      long firstChunk, long lastChunk) throws IOException {
+    Preconditions.checkArgument(firstChunk <= lastChunk, "Invalid chunk range %s to %s",
+        firstChunk, lastChunk);
+    ByteBuffer checksums =
+        ByteBuffer.allocate((int) (lastChunk - firstChunk + 1) * CHECKSUM_BYTES);
+    try {
+      readFully(checksumChannel, checksums, firstChunk * CHECKSUM_BYTES);
+    } catch (EOFException eofe) {
+      throw new ChecksumMismatchException("Missing checksums of chunks " + firstChunk + " to "
+          + lastChunk);
+    }
+    checksums.flip();
+    long blockLength = blockChannel.size();
+    byte[] chunk = new byte[CHUNK_BYTES];
+    CRC32 crc = new CRC32();
+    for (long index = firstChunk; index <= lastChunk; index ++) {
+      long start = index * CHUNK_BYTES;
+      int length = (int) Math.min(CHUNK_BYTES, blockLength - start);
+      if (length <= 0) {
+        throw new ChecksumMismatchException("Chunk " + index + " is beyond the block length "
+            + blockLength);
+      }
+      readFully(blockChannel, ByteBuffer.wrap(chunk, 0, length), start);
+      crc.reset();
+      crc.update(chunk, 0, length);
+      if ((int) crc.getValue() != checksums.getInt()) {
+        throw new ChecksumMismatchException("Chunk " + index + " does not match its checksum");
+      }
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, offset);
+      if (read == -1) {
+        throw new EOFException("Unexpected end of file at " + offset);
+      }
+      offset += read;
+    }
+  }
+}
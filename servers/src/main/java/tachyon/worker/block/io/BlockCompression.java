@@ -0,0 +1,341 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.google.common.io.Closer;
+
+import tachyon.Constants;
+
+/**
+ * Utility methods for compressed block files. The data of a block is divided into chunks of
+ * {@link #CHUNK_BYTES}, and each chunk is deflated on its own, so that a range of the block can be
+ * read by inflating only the chunks covering it. An index file next to the block file records the
+ * length of the block and the end offset of each chunk in the block file; a block file is
+ * compressed if and only if it has an index file.
+ */
+public final class BlockCompression {
+  /** Size of the chunks of a block compressed on their own */
+  public static final int CHUNK_BYTES = 64 * Constants.KB;
+  /** Suffix appended to the path of a block file to get the path of its index file */
+  public static final String INDEX_FILE_SUFFIX = ".cidx";
+  /** Suffix of the files being written, which can not be parsed into a block ID */
+  private static final String TMP_FILE_SUFFIX = ".tmp";
+  private static final int MAGIC = 0x54425A49;
+  private static final int VERSION = 1;
+
+  private BlockCompression() {}
+
+  /**
+   * @param blockPath the path of a block file
+   * @return the path of the index file of the block
+   */
+  public static String getIndexPath(String blockPath) {
+    return blockPath + INDEX_FILE_SUFFIX;
+  }
+
+  /**
+   * @param blockPath the path of a block file
+   * @return true if the block file is compressed, false otherwise
+   */
+  public static boolean isCompressed(String blockPath) {
+    return new File(getIndexPath(blockPath)).isFile();
+  }
+
+  /**
+   * Compresses a raw block file into a new block file and its index file. The files are written
+   * aside and renamed into place, the index first, so that a block file never appears without the
+   * index it needs. The source file is left untouched.
+   *
+   * @param srcPath the path of the raw block file
+   * @param dstPath the path of the compressed block file to create
+   * @return the length of the compressed block file
+   * @throws IOException if the source can not be read or the destination can not be written
+   */
+  public static long compress(String srcPath, String dstPath) throws IOException {
+    File tmpFile = new File(dstPath + TMP_FILE_SUFFIX);
+    long length;
+    long[] chunkEnds;
+    Closer closer = Closer.create();
+    try {
+      InputStream input = closer.register(new FileInputStream(srcPath));
+      OutputStream output =
+          closer.register(new BufferedOutputStream(new FileOutputStream(tmpFile), CHUNK_BYTES));
+      length = new File(srcPath).length();
+      chunkEnds = new long[(int) ((length + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        byte[] buf = new byte[CHUNK_BYTES];
+        long written = 0;
+        for (int index = 0; index < chunkEnds.length; index ++) {
+          int chunkLength = (int) Math.min(CHUNK_BYTES, length - (long) index * CHUNK_BYTES);
+          readFully(input, chunk, chunkLength);
+          deflater.reset();
+          deflater.setInput(chunk, 0, chunkLength);
+          deflater.finish();
+          while (!deflater.finished()) {
+            int deflated = deflater.deflate(buf);
+            output.write(buf, 0, deflated);
+            written += deflated;
+          }
+          chunkEnds[index] = written;
+        }
+      } finally {
+        deflater.end();
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+    writeIndex(dstPath, length, chunkEnds);
+    rename(tmpFile, new File(dstPath));
+    return chunkEnds.length == 0 ? 0 : chunkEnds[chunkEnds.length - 1];
+  }
+
+  /**
+   * Decompresses a compressed block file into a new raw block file. The raw file is written aside
+   * and renamed into place. The source file and its index are left untouched.
+   *
+   * @param srcPath the path of the compressed block file
+   * @param dstPath the path of the raw block file to create
+   * @throws IOException if the source can not be read or is corrupted, or the destination can not
+   *         be written
+   */
+  public static void decompress(String srcPath, String dstPath) throws IOException {
+    Index index = readIndex(srcPath);
+    File tmpFile = new File(dstPath + TMP_FILE_SUFFIX);
+    Closer closer = Closer.create();
+    try {
+      FileChannel input = closer.register(new FileInputStream(srcPath)).getChannel();
+      OutputStream output =
+          closer.register(new BufferedOutputStream(new FileOutputStream(tmpFile), CHUNK_BYTES));
+      Inflater inflater = new Inflater();
+      try {
+        byte[] chunk = new byte[index.getChunkBytes()];
+        for (int i = 0; i < index.getChunkCount(); i ++) {
+          int chunkLength = readChunk(input, index, i, inflater, chunk);
+          output.write(chunk, 0, chunkLength);
+        }
+      } finally {
+        inflater.end();
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+    rename(tmpFile, new File(dstPath));
+  }
+
+  /**
+   * Reads the index of a compressed block.
+   *
+   * @param blockPath the path of the compressed block file
+   * @return the index of the block
+   * @throws IOException if the index file can not be read or is corrupted
+   */
+  public static Index readIndex(String blockPath) throws IOException {
+    String indexPath = getIndexPath(blockPath);
+    DataInputStream input =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(indexPath)));
+    try {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        throw new IOException("Compression index " + indexPath + " has an unknown format");
+      }
+      int chunkBytes = input.readInt();
+      long length = input.readLong();
+      if (chunkBytes <= 0 || length < 0) {
+        throw new IOException("Compression index " + indexPath + " is corrupted");
+      }
+      long[] chunkEnds = new long[(int) ((length + chunkBytes - 1) / chunkBytes)];
+      for (int i = 0; i < chunkEnds.length; i ++) {
+        chunkEnds[i] = input.readLong();
+      }
+      return new Index(chunkBytes, length, chunkEnds);
+    } catch (EOFException eofe) {
+      throw new IOException("Compression index " + indexPath + " is truncated", eofe);
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Reads and inflates one chunk of a compressed block.
+   *
+   * @param channel the channel of the compressed block file
+   * @param index the index of the block
+   * @param chunkIndex the index of the chunk to read
+   * @param inflater the inflater to use, which is reset first
+   * @param out the buffer to inflate the chunk into, at least as large as a chunk
+   * @return the number of bytes of the chunk
+   * @throws IOException if the chunk can not be read or is corrupted
+   */
+  public static int readChunk(FileChannel channel, Index index, int chunkIndex,
+      Inflater inflater, byte[] out) throws IOException {
+    long start = index.getChunkStart(chunkIndex);
+    int compressedLength = (int) (index.getChunkEnd(chunkIndex) - start);
+    int chunkLength = index.getChunkLength(chunkIndex);
+    ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+    long position = start;
+    while (compressed.hasRemaining()) {
+      int read = channel.read(compressed, position);
+      if (read == -1) {
+        throw new IOException("Unexpected end of compressed block at " + position);
+      }
+      position += read;
+    }
+    inflater.reset();
+    inflater.setInput(compressed.array(), 0, compressedLength);
+    int inflated = 0;
+    try {
+      while (inflated < chunkLength && !inflater.finished()) {
+        int count = inflater.inflate(out, inflated, chunkLength - inflated);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        inflated += count;
+      }
+    } catch (DataFormatException dfe) {
+      throw new IOException("Chunk " + chunkIndex + " of compressed block is corrupted", dfe);
+    }
+    if (inflated != chunkLength || !inflater.finished()) {
+      throw new IOException("Chunk " + chunkIndex + " of compressed block has " + inflated
+          + " bytes instead of " + chunkLength);
+    }
+    return chunkLength;
+  }
+
+  private static void writeIndex(String blockPath, long length, long[] chunkEnds)
+      throws IOException {
+    File tmpFile = new File(getIndexPath(blockPath) + TMP_FILE_SUFFIX);
+    DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+    try {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(CHUNK_BYTES);
+      output.writeLong(length);
+      for (long chunkEnd : chunkEnds) {
+        output.writeLong(chunkEnd);
+      }
+    } finally {
+      output.close();
+    }
+    rename(tmpFile, new File(getIndexPath(blockPath)));
+  }
+
+  private static void readFully(InputStream input, byte[] buf, int length) throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      int read = input.read(buf, offset, length - offset);
+      if (read == -1) {
+        throw new EOFException("Unexpected end of block file at " + offset);
+      }
+      offset += read;
+    }
+  }
+
+  private static void rename(File src, File dst) throws IOException {
+    if (!src.renameTo(dst)) {
+      throw new IOException("Failed to rename " + src + " to " + dst);
+    }
+  }
+
+  /**
+   * The index of a compressed block.
+   */
+  public static final class Index {
+    private final int mChunkBytes;
+    private final long mLength;
+    private final long[] mChunkEnds;
+
+    private Index(int chunkBytes, long length, long[] chunkEnds) {
+      mChunkBytes = chunkBytes;
+      mLength = length;
+      mChunkEnds = chunkEnds;
+    }
+
+    /**
+     * @return the size of the chunks of the block, before compression
+     */
+    public int getChunkBytes() {
+      return mChunkBytes;
+    }
+
+    /**
+     * @return the length of the block, before compression
+     */
+    public long getLength() {
+      return mLength;
+    }
+
+    /**
+     * @return the length of the compressed block file
+     */
+    public long getCompressedLength() {
+      return mChunkEnds.length == 0 ? 0 : mChunkEnds[mChunkEnds.length - 1];
+    }
+
+    /**
+     * @return the number of chunks of the block
+     */
+    public int getChunkCount() {
+      return mChunkEnds.length;
+    }
+
+    /**
+     * @param chunkIndex the index of a chunk
+     * @return the offset of the chunk in the compressed block file
+     */
+    public long getChunkStart(int chunkIndex) {
+      return chunkIndex == 0 ? 0 : mChunkEnds[chunkIndex - 1];
+    }
+
+    /**
+     * @param chunkIndex the index of a chunk
+     * @return the end offset of the chunk in the compressed block file
+     */
+    public long getChunkEnd(int chunkIndex) {
+      return mChunkEnds[chunkIndex];
+    }
+
+    /**
+     * @param chunkIndex the index of a chunk
+     * @return the length of the chunk, before compression
+     */
+    public int getChunkLength(int chunkIndex) {
+      return (int) Math.min(mChunkBytes, mLength - (long) chunkIndex * mChunkBytes);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the data of a block does not match its stored checksums. The block is corrupted and
+ * should be quarantined.
+ */
+public final class ChecksumMismatchException extends IOException {
+  private static final long serialVersionUID = 4215328187613405391L;
+
+  /**
+   * @param message the detail message
+   */
+  public ChecksumMismatchException(String message) {
+    super(message);
+  }
+}
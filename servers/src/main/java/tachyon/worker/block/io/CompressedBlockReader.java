@@ -0,0 +1,154 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.Inflater;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Closer;
+
+import tachyon.worker.block.meta.BlockMeta;
+
+/**
+ * This class provides read access to a block data file stored compressed in managed storage, see
+ * {@link BlockCompression}. Reads inflate the chunks covering the requested range into heap
+ * buffers, so they are not zero-copy.
+ * <p>
+ * This class does not provide thread-safety. Corresponding lock must be acquired.
+ */
+public final class CompressedBlockReader implements BlockReader {
+  private final String mFilePath;
+  private final FileChannel mLocalFileChannel;
+  private final Closer mCloser = Closer.create();
+  private final BlockCompression.Index mIndex;
+  private final Inflater mInflater = new Inflater();
+  /** Last chunk inflated, kept for reads of consecutive ranges of the same chunk */
+  private final byte[] mChunk;
+  /** Index of the chunk in {@link #mChunk}, -1 if none */
+  private int mChunkIndex = -1;
+  /** Channel reading the block sequentially, created on demand */
+  private ReadableByteChannel mChannel = null;
+
+  /**
+   * Constructs a Block reader given the metadata of this block.
+   *
+   * @param blockMeta metadata of this block
+   * @throws IOException if its file or index can not be read
+   */
+  public CompressedBlockReader(BlockMeta blockMeta) throws IOException {
+    this(Preconditions.checkNotNull(blockMeta).getPath());
+  }
+
+  /**
+   * Constructs a Block reader given the file path of the block.
+   *
+   * @param path file path of the block
+   * @throws IOException if its file or index can not be read
+   */
+  public CompressedBlockReader(String path) throws IOException {
+    mFilePath = Preconditions.checkNotNull(path);
+    mIndex = BlockCompression.readIndex(mFilePath);
+    RandomAccessFile localFile = mCloser.register(new RandomAccessFile(mFilePath, "r"));
+    mLocalFileChannel = mCloser.register(localFile.getChannel());
+    if (mLocalFileChannel.size() != mIndex.getCompressedLength()) {
+      mCloser.close();
+      throw new IOException("Compressed block file " + mFilePath + " has length "
+          + mLocalFileChannel.size() + " instead of " + mIndex.getCompressedLength());
+    }
+    mChunk = new byte[mIndex.getChunkBytes()];
+  }
+
+  @Override
+  public ReadableByteChannel getChannel() {
+    if (mChannel == null) {
+      mChannel = new ReadableByteChannel() {
+        private long mPosition = 0;
+        private boolean mOpen = true;
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+          if (mPosition >= mIndex.getLength()) {
+            return -1;
+          }
+          int length = (int) Math.min(dst.remaining(), mIndex.getLength() - mPosition);
+          copyTo(mPosition, length, dst);
+          mPosition += length;
+          return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+          return mOpen;
+        }
+
+        @Override
+        public void close() {
+          mOpen = false;
+        }
+      };
+    }
+    return mChannel;
+  }
+
+  @Override
+  public long getLength() {
+    return mIndex.getLength();
+  }
+
+  @Override
+  public ByteBuffer read(long offset, long length) throws IOException {
+    if (length == -1L) {
+      length = mIndex.getLength() - offset;
+    }
+    Preconditions.checkArgument(offset >= 0 && offset + length <= mIndex.getLength(),
+        "offset=%s, length=%s, exceeding fileSize=%s", offset, length, mIndex.getLength());
+    ByteBuffer data = ByteBuffer.allocate((int) length);
+    copyTo(offset, (int) length, data);
+    data.flip();
+    return data;
+  }
+
+  @Override
+  public void close() throws IOException {
+    mInflater.end();
+    mCloser.close();
+  }
+
+  /**
+   * Inflates a range of the block into a buffer.
+   */
+  private void copyTo(long offset, int length, ByteBuffer dst) throws IOException {
+    long position = offset;
+    long end = offset + length;
+    while (position < end) {
+      int chunkIndex = (int) (position / mIndex.getChunkBytes());
+      if (chunkIndex != mChunkIndex) {
+        mChunkIndex = -1;
+        BlockCompression.readChunk(mLocalFileChannel, mIndex, chunkIndex, mInflater, mChunk);
+        mChunkIndex = chunkIndex;
+      }
+      int chunkOffset = (int) (position - (long) chunkIndex * mIndex.getChunkBytes());
+      int count = (int) Math.min(mIndex.getChunkLength(chunkIndex) - chunkOffset, end - position);
+      dst.put(mChunk, chunkOffset, count);
+      position += count;
+    }
+  }
+}
@@ -15,11 +15,14 @@
 
 package tachyon.worker.block.io;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.util.BitSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,9 +32,11 @@ import com.google.common.io.Closer;
 
 import tachyon.Constants;
 import tachyon.worker.block.meta.BlockMeta;
+import tachyon.worker.block.meta.StorageDirLoad;
 
 /**
- * This class provides read access to a block data file locally stored in managed storage.
+ * This class provides read access to a block data file locally stored in managed storage. If the
+ * block has a checksum file, the chunks covered by each read are verified against it.
  * <p>
  * This class does not provide thread-safety. Corresponding lock must be acquired.
  */
@@ -42,6 +47,12 @@ public final class LocalFileBlockReader implements BlockReader {
   private final FileChannel mLocalFileChannel;
   private final Closer mCloser = Closer.create();
   private final long mFileSize;
+  /** Channel of the checksum file of the block, null if the block has no checksums */
+  private final FileChannel mChecksumChannel;
+  /** Chunks of the block verified by this reader */
+  private final BitSet mVerifiedChunks = new BitSet();
+  /** Load of the dir of the block, null if the reader was not created from block metadata */
+  private final StorageDirLoad mLoad;
 
   /**
    * Constructs a Block reader given the metadata of this block.
@@ -50,7 +61,7 @@ public final class LocalFileBlockReader implements BlockReader {
    * @throws IOException if its file can not be open with "r" mode
    */
   public LocalFileBlockReader(BlockMeta blockMeta) throws IOException {
-    this(Preconditions.checkNotNull(blockMeta).getPath());
+    this(Preconditions.checkNotNull(blockMeta).getPath(), blockMeta.getParentDir().getLoad());
   }
 
   /**
@@ -60,10 +71,32 @@ public final class LocalFileBlockReader implements BlockReader {
    * @throws IOException if its file can not be open with "r" mode
    */
   public LocalFileBlockReader(String path) throws IOException {
+    this(path, null);
+  }
+
+  private LocalFileBlockReader(String path, StorageDirLoad load) throws IOException {
     mFilePath = Preconditions.checkNotNull(path);
+    mLoad = load;
     mLocalFile = mCloser.register(new RandomAccessFile(mFilePath, "r"));
     mLocalFileChannel = mCloser.register(mLocalFile.getChannel());
     mFileSize = mLocalFile.length();
+    String checksumPath = BlockChecksum.getChecksumPath(mFilePath);
+    if (new File(checksumPath).isFile()) {
+      RandomAccessFile checksumFile = mCloser.register(new RandomAccessFile(checksumPath, "r"));
+      mChecksumChannel = mCloser.register(checksumFile.getChannel());
+    } else {
+      mChecksumChannel = null;
+    }
+    if (mLoad != null) {
+      mLoad.onReadStarted();
+      // Registered last so that it runs once, after the files are closed
+      mCloser.register(new Closeable() {
+        @Override
+        public void close() {
+          mLoad.onReadFinished();
+        }
+      });
+    }
   }
 
   @Override
@@ -84,9 +117,50 @@ public final class LocalFileBlockReader implements BlockReader {
     if (length == -1L) {
       length = mFileSize - offset;
     }
+    verify(offset, length);
+    recordTransfer(length);
     return mLocalFileChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
   }
 
+  /**
+   * Accounts bytes read from the block to the load of its dir. Callers that read through
+   * {@link #getChannel} directly must call this method with the number of bytes they read.
+   *
+   * @param length the number of bytes read
+   */
+  public void recordTransfer(long length) {
+    if (mLoad != null) {
+      mLoad.recordBytes(length);
+    }
+  }
+
+  /**
+   * Verifies a range of the block against its checksums, if the block has any. Each chunk is only
+   * verified once per reader. Callers that read through {@link #getChannel} directly must call
+   * this method first.
+   *
+   * @param offset the offset of the range in the block
+   * @param length the length of the range in bytes
+   * @throws ChecksumMismatchException if the data of the range does not match its checksums
+   * @throws IOException if the block or its checksums can not be read
+   */
+  public void verify(long offset, long length) throws IOException {
+    if (mChecksumChannel == null || length <= 0) {
+      return;
+    }
+    int firstChunk = (int) (offset / BlockChecksum.CHUNK_BYTES);
+    int lastChunk = (int) ((offset + length - 1) / BlockChecksum.CHUNK_BYTES);
+    int chunk = mVerifiedChunks.nextClearBit(firstChunk);
+    while (chunk <= lastChunk) {
+      // Verify the run of unverified chunks starting at chunk in one pass
+      int nextVerified = mVerifiedChunks.nextSetBit(chunk);
+      int end = (nextVerified == -1 || nextVerified > lastChunk) ? lastChunk + 1 : nextVerified;
+      BlockChecksum.verify(mLocalFileChannel, mChecksumChannel, chunk, end - 1);
+      mVerifiedChunks.set(chunk, end);
+      chunk = mVerifiedChunks.nextClearBit(end);
+    }
+  }
+
   @Override
   public void close() throws IOException {
     mCloser.close();
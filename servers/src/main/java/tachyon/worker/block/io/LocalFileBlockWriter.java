@@ -28,11 +28,15 @@ import com.google.common.base.Preconditions;
 import com.google.common.io.Closer;
 
 import tachyon.Constants;
-import tachyon.util.io.BufferUtils;
+import tachyon.util.io.FileChannelWriter;
+import tachyon.worker.WorkerContext;
+import tachyon.worker.block.meta.StorageDirLoad;
 import tachyon.worker.block.meta.TempBlockMeta;
 
 /**
  * This class provides write access to a temp block data file locally stored in managed storage.
+ * When block checksums are enabled, the checksums of the appended chunks are updated in the
+ * checksum file of the block after each append, see {@link BlockChecksum}.
  * <p>
  * This class does not provide thread-safety. Corresponding lock must be acquired.
  */
@@ -41,6 +45,11 @@ public final class LocalFileBlockWriter implements BlockWriter {
   private final String mFilePath;
   private final RandomAccessFile mLocalFile;
   private final FileChannel mLocalFileChannel;
+  private final FileChannelWriter mWriter;
+  /** Updates the checksum file of the block, null if checksums are disabled */
+  private final BlockChecksum.Updater mChecksumUpdater;
+  /** Load of the dir of the block, null if the writer was not created from block metadata */
+  private final StorageDirLoad mLoad;
   private final Closer mCloser = Closer.create();
 
   /**
@@ -50,7 +59,8 @@ public final class LocalFileBlockWriter implements BlockWriter {
    * @throws IOException if its file can not be open with "rw" mode
    */
   public LocalFileBlockWriter(TempBlockMeta tempBlockMeta) throws IOException {
-    this(Preconditions.checkNotNull(tempBlockMeta).getPath());
+    this(Preconditions.checkNotNull(tempBlockMeta).getPath(),
+        tempBlockMeta.getParentDir().getLoad());
   }
 
   /**
@@ -60,14 +70,50 @@ public final class LocalFileBlockWriter implements BlockWriter {
    * @throws IOException if its file can not be open with "rw" mode
    */
   public LocalFileBlockWriter(String path) throws IOException {
+    this(path, null);
+  }
+
+  private LocalFileBlockWriter(String path, StorageDirLoad load) throws IOException {
     mFilePath = Preconditions.checkNotNull(path);
+    mLoad = load;
     mLocalFile = mCloser.register(new RandomAccessFile(mFilePath, "rw"));
     mLocalFileChannel = mCloser.register(mLocalFile.getChannel());
+    mWriter = FileChannelWriter.create(WorkerContext.getConf().getEnum(
+        Constants.WORKER_BLOCK_WRITE_MODE, FileChannelWriter.Mode.class), mLocalFileChannel);
+    if (WorkerContext.getConf().getBoolean(Constants.WORKER_TIERED_STORE_CHECKSUM_ENABLED)) {
+      RandomAccessFile checksumFile = mCloser.register(
+          new RandomAccessFile(BlockChecksum.getChecksumPath(mFilePath), "rw"));
+      mChecksumUpdater = new BlockChecksum.Updater(mLocalFileChannel,
+          mCloser.register(checksumFile.getChannel()));
+    } else {
+      mChecksumUpdater = null;
+    }
   }
 
   @Override
   public WritableByteChannel getChannel() {
-    return mLocalFileChannel;
+    if (mChecksumUpdater == null) {
+      return mLocalFileChannel;
+    }
+    // Writes must go through append to keep the checksums up to date
+    return new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer src) throws IOException {
+        int length = (int) append(src);
+        src.position(src.position() + length);
+        return length;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return mLocalFileChannel.isOpen();
+      }
+
+      @Override
+      public void close() throws IOException {
+        LocalFileBlockWriter.this.close();
+      }
+    };
   }
 
   @Override
@@ -84,12 +130,14 @@ public final class LocalFileBlockWriter implements BlockWriter {
    * @throws IOException
    */
   private long write(long offset, ByteBuffer inputBuf) throws IOException {
-    int inputBufLength = inputBuf.limit();
-    ByteBuffer outputBuf =
-        mLocalFileChannel.map(FileChannel.MapMode.READ_WRITE, offset, inputBufLength);
-    outputBuf.put(inputBuf);
-    int bytesWritten = outputBuf.limit();
-    BufferUtils.cleanDirectBuffer(outputBuf);
+    // Write a duplicate so that the position of the input buffer is left untouched
+    int bytesWritten = mWriter.write(offset, inputBuf.duplicate());
+    if (mChecksumUpdater != null) {
+      mChecksumUpdater.update(offset, inputBuf);
+    }
+    if (mLoad != null) {
+      mLoad.recordBytes(bytesWritten);
+    }
     return bytesWritten;
   }
 
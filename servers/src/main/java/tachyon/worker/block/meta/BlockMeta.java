@@ -22,6 +22,8 @@ import java.io.File;
  */
 public final class BlockMeta extends BlockMetaBase {
   private final long mBlockSize;
+  /** Size of the block file, smaller than the block size if the block is compressed */
+  private final long mStoredSize;
 
   /**
    * @param blockId the block id
@@ -29,8 +31,19 @@ public final class BlockMeta extends BlockMetaBase {
    * @param dir the parent directory
    */
   public BlockMeta(long blockId, long blockSize, StorageDir dir) {
+    this(blockId, blockSize, blockSize, dir);
+  }
+
+  /**
+   * @param blockId the block id
+   * @param blockSize the block size
+   * @param storedSize the size of the block file
+   * @param dir the parent directory
+   */
+  public BlockMeta(long blockId, long blockSize, long storedSize, StorageDir dir) {
     super(blockId, dir);
     mBlockSize = blockSize;
+    mStoredSize = storedSize;
   }
 
   /**
@@ -40,6 +53,7 @@ public final class BlockMeta extends BlockMetaBase {
     super(tempBlock.getBlockId(), tempBlock.getParentDir());
     // NOTE: TempBlockMeta must be committed after the actual data block file is moved.
     mBlockSize = new File(tempBlock.getCommitPath()).length();
+    mStoredSize = mBlockSize;
   }
 
   @Override
@@ -47,6 +61,16 @@ public final class BlockMeta extends BlockMetaBase {
     return mBlockSize;
   }
 
+  /**
+   * Gets the size of the block file, i.e. the space used by the block in its dir. This differs from
+   * {@link #getBlockSize} when the block is compressed.
+   *
+   * @return the size of the block file in bytes
+   */
+  public long getStoredSize() {
+    return mStoredSize;
+  }
+
   @Override
   public String getPath() {
     return commitPath(mDir, mBlockId);
@@ -23,7 +23,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,16 +43,22 @@ import tachyon.exception.InvalidStateException;
 import tachyon.exception.NotFoundException;
 import tachyon.exception.OutOfSpaceException;
 import tachyon.util.io.FileUtils;
+import tachyon.worker.WorkerContext;
 import tachyon.worker.block.BlockStoreLocation;
+import tachyon.worker.block.io.BlockChecksum;
+import tachyon.worker.block.io.BlockCompression;
 
 /**
  * Represents a directory in a storage tier. It has a fixed capacity allocated to it on
  * instantiation. It contains the set of blocks currently in the storage directory.
  * <p>
- * This class does not guarantee thread safety.
+ * Lookups on this dir are thread-safe, but operations that add, remove or resize blocks must hold
+ * the lock returned by {@link #getMetadataLock()} so that the space accounting stays consistent.
  */
 public final class StorageDir {
   private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Number of stale records the index may hold beyond twice the live blocks before compaction */
+  private static final int INDEX_COMPACTION_SLACK = 1024;
   private final long mCapacityBytes;
   /** A map from block ID to block meta data */
   private Map<Long, BlockMeta> mBlockIdToBlockMap;
@@ -62,6 +71,17 @@ public final class StorageDir {
   private String mDirPath;
   private int mDirIndex;
   private StorageTier mTier;
+  /** Lock to guard the metadata mutations in this dir */
+  private final Lock mMetadataLock = new ReentrantLock();
+  /** Index of the committed blocks in this dir, null if disabled or failed */
+  private volatile StorageDirIndex mIndex;
+  /** Blocks recorded in the index whose files are being moved in, guarded by the metadata lock */
+  private final Map<Long, BlockMeta> mPendingIndexBlocks = new HashMap<Long, BlockMeta>();
+  /** IDs of blocks restored from the index whose files have not been checked yet */
+  private final Set<Long> mUnverifiedBlockIds =
+      Sets.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+  /** I/O load of this dir, used to place new blocks on idle dirs */
+  private final StorageDirLoad mLoad = new StorageDirLoad();
 
   private StorageDir(StorageTier tier, int dirIndex, long capacityBytes, String dirPath) {
     mTier = Preconditions.checkNotNull(tier);
@@ -70,9 +90,9 @@ public final class StorageDir {
     mAvailableBytes = new AtomicLong(capacityBytes);
     mCommittedBytes = new AtomicLong(0);
     mDirPath = dirPath;
-    mBlockIdToBlockMap = new HashMap<Long, BlockMeta>(200);
-    mBlockIdToTempBlockMap = new HashMap<Long, TempBlockMeta>(200);
-    mSessionIdToTempBlockIdsMap = new HashMap<Long, Set<Long>>(200);
+    mBlockIdToBlockMap = new ConcurrentHashMap<Long, BlockMeta>(200);
+    mBlockIdToTempBlockMap = new ConcurrentHashMap<Long, TempBlockMeta>(200);
+    mSessionIdToTempBlockIdsMap = new ConcurrentHashMap<Long, Set<Long>>(200);
   }
 
   /**
@@ -102,8 +122,15 @@ public final class StorageDir {
   /**
    * Initializes meta data for existing blocks in this StorageDir.
    *
-   * Only paths satisfying the contract defined in {@link BlockMetaBase#commitPath} are legal,
-   * should be in format like {dir}/{blockId}. other paths will be deleted.
+   * If the block index is enabled and the index file of this dir can be read, the blocks in the
+   * index are restored with their indexed sizes without listing the dir. Their files are only
+   * checked when the blocks are first used, see {@link #isBlockVerified}. Temp blocks of sessions
+   * cut short by a crash, and side files of blocks removed right before a crash, stay on disk until
+   * the next scan. Otherwise, i.e., if the index is missing, corrupted or disabled, the dir is
+   * scanned. Either way the index is then rewritten from the result.
+   *
+   * When scanning, only paths satisfying the contract defined in {@link BlockMetaBase#commitPath}
+   * are legal, should be in format like {dir}/{blockId}. other paths will be deleted.
    *
    * @throws AlreadyExistsException when meta data of existing committed blocks already exists
    * @throws IOException if the storage directory cannot be created with the appropriate permissions
@@ -113,11 +140,57 @@ public final class StorageDir {
     // Create the storage directory path
     FileUtils.createStorageDirPath(mDirPath);
 
+    if (WorkerContext.getConf().getBoolean(Constants.WORKER_TIERED_STORE_INDEX_ENABLED)) {
+      mIndex = new StorageDirIndex(mDirPath);
+      Map<Long, StorageDirIndex.Entry> entries = mIndex.load();
+      if (entries != null) {
+        restoreMeta(entries);
+        LOG.info("Restored {} blocks of {} from its block index", entries.size(), mDirPath);
+      } else {
+        LOG.info("No valid block index in {}, scanning the dir", mDirPath);
+        scanMeta();
+      }
+      try {
+        // Compacts the index, and drops a record cut short by a crash
+        mIndex.rewrite(mBlockIdToBlockMap.values());
+      } catch (IOException ioe) {
+        disableIndex(ioe);
+      }
+    } else {
+      scanMeta();
+    }
+  }
+
+  /**
+   * Initializes meta data for the blocks recorded in the block index, without checking their files.
+   *
+   * @param entries the blocks in the index by their IDs
+   * @throws AlreadyExistsException when meta data of existing committed blocks already exists
+   * @throws OutOfSpaceException when meta data can not be added due to limited left space
+   */
+  private void restoreMeta(Map<Long, StorageDirIndex.Entry> entries)
+      throws AlreadyExistsException, OutOfSpaceException {
+    for (Map.Entry<Long, StorageDirIndex.Entry> entry : entries.entrySet()) {
+      long blockId = entry.getKey();
+      addBlockMetaInternal(new BlockMeta(blockId, entry.getValue().getBlockSize(),
+          entry.getValue().getStoredSize(), this));
+      mUnverifiedBlockIds.add(blockId);
+    }
+  }
+
+  /**
+   * Initializes meta data for existing blocks by listing the files in this StorageDir.
+   *
+   * @throws AlreadyExistsException when meta data of existing committed blocks already exists
+   * @throws OutOfSpaceException when meta data can not be added due to limited left space
+   */
+  private void scanMeta() throws AlreadyExistsException, OutOfSpaceException {
     File dir = new File(mDirPath);
     File[] paths = dir.listFiles();
     if (paths == null) {
       return;
     }
+    List<File> sideFiles = new ArrayList<File>();
     for (File path : paths) {
       if (!path.isFile()) {
         LOG.error("{} in StorageDir is not a file", path.getAbsolutePath());
@@ -127,10 +200,16 @@ public final class StorageDir {
         } catch (IOException ioe) {
           LOG.error("can not delete directory {}: {}", path.getAbsolutePath(), ioe);
         }
+      } else if (path.getName().equals(StorageDirIndex.INDEX_FILE_NAME)) {
+        continue;
+      } else if (path.getName().endsWith(BlockChecksum.CHECKSUM_FILE_SUFFIX)
+          || path.getName().endsWith(BlockCompression.INDEX_FILE_SUFFIX)) {
+        // Checked once all block files are known
+        sideFiles.add(path);
       } else {
         try {
           long blockId = Long.valueOf(path.getName());
-          addBlockMeta(new BlockMeta(blockId, path.length(), this));
+          addBlockMetaInternal(scanBlockMeta(blockId, path));
         } catch (NumberFormatException nfe) {
           LOG.error("filename of {} in StorageDir can not be parsed into long",
               path.getAbsolutePath());
@@ -142,6 +221,42 @@ public final class StorageDir {
         }
       }
     }
+    // Delete the checksum and compression index files of blocks that no longer exist
+    for (File sideFile : sideFiles) {
+      String name = sideFile.getName();
+      String blockName = name.substring(0, name.lastIndexOf('.'));
+      boolean hasBlock;
+      try {
+        hasBlock = hasBlockMeta(Long.valueOf(blockName));
+      } catch (NumberFormatException nfe) {
+        hasBlock = false;
+      }
+      if (!hasBlock && !sideFile.delete()) {
+        LOG.error("can not delete file {}", sideFile.getAbsolutePath());
+      }
+    }
+  }
+
+  /**
+   * Creates the meta data of a block found by listing this dir. The size of a compressed block is
+   * read from its compression index.
+   *
+   * @param blockId the ID of the block
+   * @param path the block file
+   * @return the meta data of the block
+   */
+  private BlockMeta scanBlockMeta(long blockId, File path) {
+    String blockPath = path.getAbsolutePath();
+    if (BlockCompression.isCompressed(blockPath)) {
+      try {
+        long blockSize = BlockCompression.readIndex(blockPath).getLength();
+        return new BlockMeta(blockId, blockSize, path.length(), this);
+      } catch (IOException ioe) {
+        // The index is deleted as an orphan, and the block fails verification when read
+        LOG.error("can not read the compression index of {}", blockPath, ioe);
+      }
+    }
+    return new BlockMeta(blockId, path.length(), this);
   }
 
   /**
@@ -177,6 +292,22 @@ public final class StorageDir {
     return mDirPath;
   }
 
+  /**
+   * @return the I/O load of this dir
+   */
+  public StorageDirLoad getLoad() {
+    return mLoad;
+  }
+
+  /**
+   * Gets the number of temp blocks in this dir, i.e., the blocks being written.
+   *
+   * @return the number of temp blocks
+   */
+  public int getTempBlockCount() {
+    return mBlockIdToTempBlockMap.size();
+  }
+
   /**
    * Returns the StorageTier containing this StorageDir.
    *
@@ -195,6 +326,36 @@ public final class StorageDir {
     return mDirIndex;
   }
 
+  /**
+   * Returns the lock guarding the metadata mutations in this dir. Operations spanning several dirs
+   * must acquire their locks in the order defined by {@link #compareLockOrder}.
+   *
+   * @return the metadata lock of this dir
+   */
+  public Lock getMetadataLock() {
+    return mMetadataLock;
+  }
+
+  /**
+   * Compares two dirs by the order in which their metadata locks must be acquired: first by the
+   * level of their tiers, then by their indexes in the tier.
+   *
+   * @param dir1 the first dir
+   * @param dir2 the second dir
+   * @return a negative integer, zero, or a positive integer as dir1 is to be locked before, is the
+   *         same as, or is to be locked after dir2
+   */
+  public static int compareLockOrder(StorageDir dir1, StorageDir dir2) {
+    int level1 = dir1.getParentTier().getTierLevel();
+    int level2 = dir2.getParentTier().getTierLevel();
+    if (level1 != level2) {
+      return level1 < level2 ? -1 : 1;
+    }
+    int index1 = dir1.getDirIndex();
+    int index2 = dir2.getDirIndex();
+    return index1 < index2 ? -1 : (index1 == index2 ? 0 : 1);
+  }
+
   // TODO: deprecate this method.
   public long getStorageDirId() {
     int level = mTier.getTierLevel();
@@ -278,9 +439,67 @@ public final class StorageDir {
    * @throws OutOfSpaceException when not enough space to hold block
    */
   public void addBlockMeta(BlockMeta blockMeta) throws OutOfSpaceException, AlreadyExistsException {
+    addBlockMetaInternal(blockMeta);
+    if (mPendingIndexBlocks.remove(blockMeta.getBlockId()) != null) {
+      // Already recorded by recordIndexedBlock
+      return;
+    }
+    if (mIndex != null) {
+      try {
+        mIndex.appendAdd(blockMeta.getBlockId(), blockMeta.getBlockSize(),
+            blockMeta.getStoredSize());
+        compactIndexIfNeeded();
+      } catch (IOException ioe) {
+        disableIndex(ioe);
+      }
+    }
+  }
+
+  /**
+   * Records a block in the block index before its file is renamed into this dir, so that the index
+   * does not miss the file if the worker crashes before the block is added by
+   * {@link #addBlockMeta}. If the file can not be moved in, {@link #cancelIndexedBlock} must be
+   * called. Does nothing if the index is disabled. Must be called with the metadata lock.
+   *
+   * @param blockId the ID of the block
+   * @param blockSize the size of the block in bytes
+   * @param storedSize the size of the block file in bytes
+   */
+  public void recordIndexedBlock(long blockId, long blockSize, long storedSize) {
+    if (mIndex == null) {
+      return;
+    }
+    mPendingIndexBlocks.put(blockId, new BlockMeta(blockId, blockSize, storedSize, this));
+    try {
+      mIndex.appendAdd(blockId, blockSize, storedSize);
+    } catch (IOException ioe) {
+      disableIndex(ioe);
+    }
+  }
+
+  /**
+   * Forgets a block recorded by {@link #recordIndexedBlock} whose file was not moved in. The record
+   * is left in the index, and the block is dropped when the index is compacted or, after a crash,
+   * when the missing file is found. Must be called with the metadata lock.
+   *
+   * @param blockId the ID of the block
+   */
+  public void cancelIndexedBlock(long blockId) {
+    mPendingIndexBlocks.remove(blockId);
+  }
+
+  /**
+   * Adds the metadata of a block into this storage dir without recording it in the index.
+   *
+   * @param blockMeta the meta data of the block
+   * @throws AlreadyExistsException if blockId already exists
+   * @throws OutOfSpaceException when not enough space to hold block
+   */
+  private void addBlockMetaInternal(BlockMeta blockMeta)
+      throws OutOfSpaceException, AlreadyExistsException {
     Preconditions.checkNotNull(blockMeta);
     long blockId = blockMeta.getBlockId();
-    long blockSize = blockMeta.getBlockSize();
+    long blockSize = blockMeta.getStoredSize();
 
     if (getAvailableBytes() < blockSize) {
       StorageLevelAlias alias =
@@ -326,7 +545,9 @@ public final class StorageDir {
     mBlockIdToTempBlockMap.put(blockId, tempBlockMeta);
     Set<Long> sessionTempBlocks = mSessionIdToTempBlockIdsMap.get(sessionId);
     if (sessionTempBlocks == null) {
-      mSessionIdToTempBlockIdsMap.put(sessionId, Sets.newHashSet(blockId));
+      sessionTempBlocks = Sets.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+      sessionTempBlocks.add(blockId);
+      mSessionIdToTempBlockIdsMap.put(sessionId, sessionTempBlocks);
     } else {
       sessionTempBlocks.add(blockId);
     }
@@ -346,7 +567,63 @@ public final class StorageDir {
     if (deletedBlockMeta == null) {
       throw new NotFoundException(ExceptionMessage.BLOCK_META_NOT_FOUND, blockId);
     }
-    reclaimSpace(blockMeta.getBlockSize(), true);
+    mUnverifiedBlockIds.remove(blockId);
+    reclaimSpace(blockMeta.getStoredSize(), true);
+    // A block moved within this dir has already been recorded again by recordIndexedBlock
+    if (mIndex != null && !mPendingIndexBlocks.containsKey(blockId)) {
+      try {
+        mIndex.appendRemove(blockId);
+        compactIndexIfNeeded();
+      } catch (IOException ioe) {
+        disableIndex(ioe);
+      }
+    }
+  }
+
+  /**
+   * Checks whether the file of a block has been verified. Blocks restored from the block index are
+   * unverified until {@link #markBlockVerified} is called; all other blocks are verified.
+   *
+   * @param blockId the ID of the block
+   * @return true if the block is verified or not in this dir, false otherwise
+   */
+  public boolean isBlockVerified(long blockId) {
+    return !mUnverifiedBlockIds.contains(blockId);
+  }
+
+  /**
+   * Marks the file of a block restored from the block index as checked.
+   *
+   * @param blockId the ID of the block
+   */
+  public void markBlockVerified(long blockId) {
+    mUnverifiedBlockIds.remove(blockId);
+  }
+
+  /**
+   * Rewrites the index when most of its records are stale. Must be called with the metadata lock.
+   *
+   * @throws IOException if the index file can not be written
+   */
+  private void compactIndexIfNeeded() throws IOException {
+    if (mIndex.getRecordCount() > 2L * mBlockIdToBlockMap.size() + INDEX_COMPACTION_SLACK) {
+      List<BlockMeta> blocks = new ArrayList<BlockMeta>(mBlockIdToBlockMap.values());
+      blocks.addAll(mPendingIndexBlocks.values());
+      mIndex.rewrite(blocks);
+    }
+  }
+
+  /**
+   * Stops maintaining the index after a failure, and deletes it so that the next start scans this
+   * dir.
+   *
+   * @param cause the failure
+   */
+  private void disableIndex(IOException cause) {
+    LOG.error("Failed to update the block index of {}, disabling it", mDirPath, cause);
+    mIndex.delete();
+    mIndex = null;
+    mPendingIndexBlocks.clear();
   }
 
   /**
@@ -445,7 +722,11 @@ public final class StorageDir {
     }
     List<TempBlockMeta> sessionTempBlocks = new ArrayList<TempBlockMeta>();
     for (long blockId : sessionTempBlockIds) {
-      sessionTempBlocks.add(mBlockIdToTempBlockMap.get(blockId));
+      TempBlockMeta tempBlockMeta = mBlockIdToTempBlockMap.get(blockId);
+      // The temp block may be committed or aborted concurrently
+      if (tempBlockMeta != null) {
+        sessionTempBlocks.add(tempBlockMeta);
+      }
     }
     return sessionTempBlocks;
   }
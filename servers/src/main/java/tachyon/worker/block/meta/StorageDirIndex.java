@@ -0,0 +1,318 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.meta;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import tachyon.Constants;
+import tachyon.util.io.PathUtils;
+
+/**
+ * An append-only index of the committed blocks of a {@link StorageDir}, stored as a file in the
+ * dir. The index lets a worker restore the metadata of a dir from one sequential read of the index
+ * file, instead of listing the dir and inspecting every block file in it.
+ * <p>
+ * The file starts with a header, followed by fixed-size records. Each record adds or removes a
+ * block, and carries the block ID, the block size, the size of the block file, which is smaller
+ * for a compressed block, the time of the record and a CRC32 checksum. The record of an added
+ * block is appended before the block file is renamed into the dir, and the record of a removed
+ * block after the file is deleted. So after a crash the index may refer to a block file that is
+ * missing, which is found when the block is first used, but it never misses a block file.
+ * <p>
+ * The time of a record is the time the block was added or the index was compacted, not the last
+ * access of the block, so the order of the evictors is not restored from the index.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class StorageDirIndex implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(Constants.LOGGER_TYPE);
+  /** Name of the index file in a dir, which can not be parsed into a block ID */
+  public static final String INDEX_FILE_NAME = ".blockindex";
+  private static final int MAGIC = 0x54424958;
+  /** Version 2 added the size of the block file, older indexes are rebuilt by a scan */
+  private static final int VERSION = 2;
+  private static final byte ADD = 1;
+  private static final byte REMOVE = 2;
+  /** Type, block ID, block size, stored size, time */
+  private static final int RECORD_DATA_BYTES = 1 + 8 + 8 + 8 + 8;
+  private static final int RECORD_BYTES = RECORD_DATA_BYTES + 4;
+
+  private final String mIndexPath;
+  /** Stream appending records to the index file, null if not opened for append */
+  private DataOutputStream mOutput = null;
+  /** Number of records in the index file */
+  private long mRecordCount = 0;
+
+  /**
+   * The state of a block restored from the index.
+   */
+  public static final class Entry {
+    private final long mBlockSize;
+    private final long mStoredSize;
+    private final long mTimeMs;
+
+    private Entry(long blockSize, long storedSize, long timeMs) {
+      mBlockSize = blockSize;
+      mStoredSize = storedSize;
+      mTimeMs = timeMs;
+    }
+
+    /**
+     * @return the size of the block in bytes
+     */
+    public long getBlockSize() {
+      return mBlockSize;
+    }
+
+    /**
+     * @return the size of the block file in bytes, see {@link BlockMeta#getStoredSize}
+     */
+    public long getStoredSize() {
+      return mStoredSize;
+    }
+
+    /**
+     * @return the time the block was recorded, in milliseconds since the epoch, which is not the
+     *         time of its last access
+     */
+    public long getTimeMs() {
+      return mTimeMs;
+    }
+  }
+
+  /**
+   * Creates an index for the given dir path. The index file is not read or created until
+   * {@link #load} or {@link #rewrite} is called.
+   *
+   * @param dirPath the path of the dir to index
+   */
+  public StorageDirIndex(String dirPath) {
+    mIndexPath = PathUtils.concatPath(Preconditions.checkNotNull(dirPath), INDEX_FILE_NAME);
+  }
+
+  /**
+   * @return the path of the index file
+   */
+  public String getIndexPath() {
+    return mIndexPath;
+  }
+
+  /**
+   * @return the number of records in the index file, live or not
+   */
+  public synchronized long getRecordCount() {
+    return mRecordCount;
+  }
+
+  /**
+   * Reads the blocks recorded in the index file. A record cut short at the end of the file, e.g.,
+   * by a crash during an append, is ignored.
+   *
+   * @return the blocks in the index by their IDs, or null if the index file does not exist or is
+   *         corrupted
+   */
+  public synchronized Map<Long, Entry> load() {
+    File file = new File(mIndexPath);
+    if (!file.isFile()) {
+      return null;
+    }
+    Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>();
+    long recordCount = 0;
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(
+          new BufferedInputStream(new FileInputStream(file), 64 * Constants.KB));
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        LOG.warn("Block index {} has an unknown format", mIndexPath);
+        return null;
+      }
+      byte[] record = new byte[RECORD_BYTES];
+      while (true) {
+        try {
+          input.readFully(record);
+        } catch (EOFException eofe) {
+          break;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        byte type = buffer.get();
+        long blockId = buffer.getLong();
+        long blockSize = buffer.getLong();
+        long storedSize = buffer.getLong();
+        long timeMs = buffer.getLong();
+        if (buffer.getInt() != checksum(record)) {
+          LOG.warn("Block index {} has a corrupted record at {}", mIndexPath, recordCount);
+          return null;
+        }
+        if (type == ADD) {
+          entries.put(blockId, new Entry(blockSize, storedSize, timeMs));
+        } else if (type == REMOVE) {
+          entries.remove(blockId);
+        } else {
+          LOG.warn("Block index {} has a record of unknown type {}", mIndexPath, type);
+          return null;
+        }
+        recordCount ++;
+      }
+    } catch (IOException ioe) {
+      LOG.warn("Failed to read block index {}: {}", mIndexPath, ioe.getMessage());
+      return null;
+    } finally {
+      if (input != null) {
+        try {
+          input.close();
+        } catch (IOException ioe) {
+          LOG.warn("Failed to close block index {}", mIndexPath);
+        }
+      }
+    }
+    mRecordCount = recordCount;
+    return entries;
+  }
+
+  /**
+   * Replaces the index file with one that only records the given blocks, and opens it for append.
+   * The new file is written aside and renamed over the old one, so a crash during the rewrite
+   * leaves the old file in place.
+   *
+   * @param blocks the blocks currently in the dir
+   * @throws IOException if the index file can not be written
+   */
+  public synchronized void rewrite(Collection<BlockMeta> blocks) throws IOException {
+    closeOutput();
+    File tmpFile = new File(mIndexPath + ".tmp");
+    DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * Constants.KB));
+    try {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      long timeMs = System.currentTimeMillis();
+      for (BlockMeta block : blocks) {
+        output.write(record(ADD, block.getBlockId(), block.getBlockSize(), block.getStoredSize(),
+            timeMs));
+      }
+      output.flush();
+    } finally {
+      output.close();
+    }
+    File file = new File(mIndexPath);
+    if (!tmpFile.renameTo(file)) {
+      throw new IOException("Failed to rename " + tmpFile + " to " + file);
+    }
+    mRecordCount = blocks.size();
+    openOutput();
+  }
+
+  /**
+   * Records that a block has been added to the dir. The index must have been opened by
+   * {@link #rewrite}.
+   *
+   * @param blockId the ID of the block
+   * @param blockSize the size of the block in bytes
+   * @param storedSize the size of the block file in bytes
+   * @throws IOException if the record can not be written
+   */
+  public synchronized void appendAdd(long blockId, long blockSize, long storedSize)
+      throws IOException {
+    append(record(ADD, blockId, blockSize, storedSize, System.currentTimeMillis()));
+  }
+
+  /**
+   * Records that a block has been removed from the dir.
+   *
+   * @param blockId the ID of the block
+   * @throws IOException if the record can not be written
+   */
+  public synchronized void appendRemove(long blockId) throws IOException {
+    append(record(REMOVE, blockId, 0, 0, System.currentTimeMillis()));
+  }
+
+  /**
+   * Closes and deletes the index file, so that the next start scans the dir instead.
+   */
+  public synchronized void delete() {
+    closeOutput();
+    File file = new File(mIndexPath);
+    if (file.exists() && !file.delete()) {
+      LOG.error("Failed to delete block index {}", mIndexPath);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    closeOutput();
+  }
+
+  private void append(byte[] record) throws IOException {
+    Preconditions.checkState(mOutput != null, "Block index %s is not open", mIndexPath);
+    // One unbuffered write per record, so that the record reaches the OS before returning and
+    // survives a crash of the worker process
+    mOutput.write(record);
+    mRecordCount ++;
+  }
+
+  private void openOutput() throws IOException {
+    mOutput = new DataOutputStream(new FileOutputStream(mIndexPath, true));
+  }
+
+  private void closeOutput() {
+    if (mOutput != null) {
+      try {
+        mOutput.close();
+      } catch (IOException ioe) {
+        LOG.warn("Failed to close block index {}", mIndexPath);
+      }
+      mOutput = null;
+    }
+  }
+
+  private static byte[] record(byte type, long blockId, long blockSize, long storedSize,
+      long timeMs) {
+    byte[] record = new byte[RECORD_BYTES];
+    ByteBuffer buffer = ByteBuffer.wrap(record);
+    buffer.put(type);
+    buffer.putLong(blockId);
+    buffer.putLong(blockSize);
+    buffer.putLong(storedSize);
+    buffer.putLong(timeMs);
+    buffer.putInt(checksum(record));
+    return record;
+  }
+
+  private static int checksum(byte[] record) {
+    CRC32 crc = new CRC32();
+    crc.update(record, 0, RECORD_DATA_BYTES);
+    return (int) crc.getValue();
+  }
+}
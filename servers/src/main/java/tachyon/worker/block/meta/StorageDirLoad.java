@@ -0,0 +1,83 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.meta;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tachyon.Constants;
+
+/**
+ * Tracks the I/O load of a {@link StorageDir}: the number of block readers open on the dir and the
+ * number of bytes recently read from or written to it. Recent bytes decay exponentially with a
+ * half-life of one second, so they approximate the current throughput of the dir.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class StorageDirLoad {
+  private static final double HALF_LIFE_MS = Constants.SECOND_MS;
+
+  private final AtomicInteger mActiveReads = new AtomicInteger(0);
+  /** Bytes transferred, decayed up to mLastUpdateMs */
+  private double mRecentBytes = 0;
+  private long mLastUpdateMs = System.currentTimeMillis();
+
+  /**
+   * Records that a block reader has been opened on the dir.
+   */
+  public void onReadStarted() {
+    mActiveReads.incrementAndGet();
+  }
+
+  /**
+   * Records that a block reader on the dir has been closed.
+   */
+  public void onReadFinished() {
+    mActiveReads.decrementAndGet();
+  }
+
+  /**
+   * @return the number of block readers open on the dir
+   */
+  public int getActiveReads() {
+    return mActiveReads.get();
+  }
+
+  /**
+   * Records bytes read from or written to the dir.
+   *
+   * @param bytes the number of bytes transferred
+   */
+  public synchronized void recordBytes(long bytes) {
+    decay(System.currentTimeMillis());
+    mRecentBytes += bytes;
+  }
+
+  /**
+   * @return the number of bytes recently transferred, decayed by their age
+   */
+  public synchronized long getRecentBytes() {
+    decay(System.currentTimeMillis());
+    return (long) mRecentBytes;
+  }
+
+  private void decay(long nowMs) {
+    long elapsedMs = nowMs - mLastUpdateMs;
+    if (elapsedMs > 0) {
+      mRecentBytes *= Math.pow(0.5, elapsedMs / HALF_LIFE_MS);
+      mLastUpdateMs = nowMs;
+    }
+  }
+}
@@ -103,6 +103,25 @@ public final class StorageDirView {
     return mDir.getAvailableBytes() + mBlocksToMoveOutSize - mBlocksToMoveInSize;
   }
 
+  /**
+   * Gets the number of reads and writes in progress on this dir, i.e., the number of block readers
+   * open on the dir plus the number of temp blocks being written to it.
+   *
+   * @return the number of reads and writes in progress
+   */
+  public int getInFlightIOCount() {
+    return mDir.getLoad().getActiveReads() + mDir.getTempBlockCount();
+  }
+
+  /**
+   * Gets the bytes recently read from or written to this dir, see {@link StorageDirLoad}.
+   *
+   * @return the number of bytes recently transferred
+   */
+  public long getRecentIOBytes() {
+    return mDir.getLoad().getRecentBytes();
+  }
+
   /**
    * Gets committed bytes for this dir. This includes all blocks, locked, pinned, committed etc.
    *
@@ -122,7 +141,7 @@ public final class StorageDirView {
     for (BlockMeta blockMeta : mDir.getBlocks()) {
       long blockId = blockMeta.getBlockId();
       if (mManagerView.isBlockEvictable(blockId)) {
-        bytes += blockMeta.getBlockSize();
+        bytes += blockMeta.getStoredSize();
       }
     }
     return bytes;
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.google.common.base.Preconditions;
+
 import tachyon.Constants;
 import tachyon.StorageLevelAlias;
 import tachyon.exception.AlreadyExistsException;
@@ -40,8 +42,12 @@ public final class StorageTier {
   private final int mTierAlias;
   /** Level of this tier in tiered storage, highest level is 0 */
   private final int mTierLevel;
+  /** Whether blocks moved into this tier are compressed, never true for the MEM tier */
+  private final boolean mCompressionEnabled;
   /** Total capacity of all StorageDirs in bytes */
   private long mCapacityBytes;
+  /** Bytes of the quota of this tier set aside for the off-heap block arena, 0 if none */
+  private long mArenaBytes;
   private List<StorageDir> mDirs;
 
   private StorageTier(int tierLevel) {
@@ -52,6 +58,12 @@ public final class StorageTier {
     StorageLevelAlias alias = WorkerContext.getConf()
         .getEnum(tierLevelAliasProp, StorageLevelAlias.class);
     mTierAlias = alias.getValue();
+
+    String compressionProp =
+        String.format(Constants.WORKER_TIERED_STORAGE_LEVEL_COMPRESSION_ENABLED_FORMAT, tierLevel);
+    // MEM blocks stay raw so that they can be read zero-copy
+    mCompressionEnabled = alias != StorageLevelAlias.MEM
+        && Boolean.parseBoolean(WorkerContext.getConf().get(compressionProp, "false"));
   }
 
   private void initStorageTier() throws AlreadyExistsException, IOException,
@@ -74,14 +86,28 @@ public final class StorageTier {
 
     mDirs = new ArrayList<StorageDir>(dirPaths.length);
 
+    // The arena holds copies of MEM tier blocks, so its share of the quota is taken from the dirs
+    double arenaRatio = 0;
+    if (mTierAlias == StorageLevelAlias.MEM.getValue()
+        && WorkerContext.getConf().getBoolean(Constants.WORKER_TIERED_STORE_ARENA_ENABLED)) {
+      arenaRatio = WorkerContext.getConf().getDouble(Constants.WORKER_TIERED_STORE_ARENA_RATIO);
+      Preconditions.checkArgument(arenaRatio > 0 && arenaRatio < 1,
+          "Arena ratio should be in the range (0, 1)");
+    }
+
     long totalCapacity = 0;
+    long totalArenaBytes = 0;
     for (int i = 0; i < dirPaths.length; i ++) {
       int index = i >= dirQuotas.length ? dirQuotas.length - 1 : i;
       long capacity = FormatUtils.parseSpaceSize(dirQuotas[index]);
+      long arenaBytes = (long) (capacity * arenaRatio);
+      capacity -= arenaBytes;
       totalCapacity += capacity;
+      totalArenaBytes += arenaBytes;
       mDirs.add(StorageDir.newStorageDir(this, i, capacity, dirPaths[i]));
     }
     mCapacityBytes = totalCapacity;
+    mArenaBytes = totalArenaBytes;
   }
 
   /**
@@ -113,6 +139,13 @@ public final class StorageTier {
     return mTierLevel;
   }
 
+  /**
+   * @return true if blocks moved into this tier are compressed, false otherwise
+   */
+  public boolean isCompressionEnabled() {
+    return mCompressionEnabled;
+  }
+
   /**
    * @return the capacity (in bytes)
    */
@@ -120,6 +153,14 @@ public final class StorageTier {
     return mCapacityBytes;
   }
 
+  /**
+   * @return the bytes of the configured quota of this tier set aside for the off-heap block arena,
+   *         which are not part of the capacity of its dirs
+   */
+  public long getArenaBytes() {
+    return mArenaBytes;
+  }
+
   /**
    * @return the remaining capacity (in bytes)
    */
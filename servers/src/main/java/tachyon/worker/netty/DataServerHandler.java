@@ -25,7 +25,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -48,12 +47,20 @@ import tachyon.network.protocol.databuffer.DataBuffer;
 import tachyon.network.protocol.databuffer.DataByteBuffer;
 import tachyon.network.protocol.databuffer.DataFileChannel;
 import tachyon.worker.block.BlockDataManager;
+import tachyon.worker.block.UfsBlockLoader;
 import tachyon.worker.block.io.BlockReader;
 import tachyon.worker.block.io.BlockWriter;
+import tachyon.worker.block.io.ChecksumMismatchException;
+import tachyon.worker.block.io.LocalFileBlockReader;
 
 /**
  * This class has the main logic of the read path to process {@link RPCRequest} messages and return
  * {@link RPCResponse} messages.
+ * <p>
+ * Connections are kept open across requests, and the requests of a connection are answered in the
+ * order they arrive. Each response carries the id of the request it answers, so that clients can
+ * have several requests outstanding on one connection. Connections are only closed by the server
+ * when a message can not be decoded or handled.
  */
 @ChannelHandler.Sharable
 public final class DataServerHandler extends SimpleChannelInboundHandler<RPCMessage> {
@@ -62,12 +69,18 @@ public final class DataServerHandler extends SimpleChannelInboundHandler<RPCMess
   private final BlockDataManager mDataManager;
   private final TachyonConf mTachyonConf;
   private final FileTransferType mTransferType;
+  /** Whether blocks not in Tachyon storage are loaded from the under filesystem to serve reads */
+  private final boolean mReadThroughEnabled;
+  /** The maximum time to wait for the requested range of a block being loaded */
+  private final long mReadThroughTimeoutMs;
 
   public DataServerHandler(final BlockDataManager dataManager, TachyonConf tachyonConf) {
     mDataManager = Preconditions.checkNotNull(dataManager);
     mTachyonConf = Preconditions.checkNotNull(tachyonConf);
     mTransferType =
         mTachyonConf.getEnum(Constants.WORKER_NETTY_FILE_TRANSFER_TYPE, FileTransferType.class);
+    mReadThroughEnabled = mTachyonConf.getBoolean(Constants.WORKER_READ_THROUGH_ENABLED);
+    mReadThroughTimeoutMs = mTachyonConf.getLong(Constants.WORKER_READ_THROUGH_TIMEOUT_MS);
   }
 
   @Override
@@ -99,16 +112,27 @@ public final class DataServerHandler extends SimpleChannelInboundHandler<RPCMess
     final long blockId = req.getBlockId();
     final long offset = req.getOffset();
     final long len = req.getLength();
+    mDataManager.notifyBlockRead(blockId);
     long lockId;
     try {
       lockId = mDataManager.lockBlock(Sessions.DATASERVER_SESSION_ID, blockId);
-    } catch (NotFoundException ioe) {
-      LOG.error("Failed to lock block: " + blockId, ioe);
-      RPCBlockReadResponse resp =
-          RPCBlockReadResponse.createErrorResponse(req, RPCResponse.Status.BLOCK_LOCK_ERROR);
-      ChannelFuture future = ctx.writeAndFlush(resp);
-      future.addListener(ChannelFutureListener.CLOSE);
-      return;
+    } catch (NotFoundException nfe) {
+      if (!mReadThroughEnabled) {
+        LOG.error("Failed to lock block: " + blockId, nfe);
+        replyBlockLockError(ctx, req);
+        return;
+      }
+      try {
+        if (handleReadThrough(ctx, req)) {
+          return;
+        }
+        // The load committed the block before the range was read, so read it from the store
+        lockId = mDataManager.lockBlock(Sessions.DATASERVER_SESSION_ID, blockId);
+      } catch (Exception e) {
+        LOG.error("Failed to read block " + blockId + " through from the under filesystem", e);
+        replyBlockLockError(ctx, req);
+        return;
+      }
     }
 
     BlockReader reader;
@@ -119,24 +143,24 @@ public final class DataServerHandler extends SimpleChannelInboundHandler<RPCMess
     } catch (InvalidStateException fpe) {
       throw new IOException(fpe);
     }
+    boolean corrupted = false;
     try {
       req.validate();
       final long fileLength = reader.getLength();
       validateBounds(req, fileLength);
       final long readLength = returnLength(offset, len, fileLength);
-      RPCBlockReadResponse resp = new RPCBlockReadResponse(blockId, offset, readLength,
-          getDataBuffer(req, reader, readLength), RPCResponse.Status.SUCCESS);
+      RPCBlockReadResponse resp = new RPCBlockReadResponse(req.getRequestId(), blockId, offset,
+          readLength, getDataBuffer(req, reader, readLength), RPCResponse.Status.SUCCESS);
       ChannelFuture future = ctx.writeAndFlush(resp);
-      future.addListener(ChannelFutureListener.CLOSE);
       future.addListener(new ClosableResourceChannelListener(reader));
       mDataManager.accessBlock(Sessions.DATASERVER_SESSION_ID, blockId);
       LOG.info("Preparation for responding to remote block request for: " + blockId + " done.");
     } catch (Exception e) {
       LOG.error("The file is not here : " + e.getMessage(), e);
+      corrupted = e instanceof ChecksumMismatchException;
       RPCBlockReadResponse resp =
           RPCBlockReadResponse.createErrorResponse(req, RPCResponse.Status.FILE_DNE);
-      ChannelFuture future = ctx.writeAndFlush(resp);
-      future.addListener(ChannelFutureListener.CLOSE);
+      ctx.writeAndFlush(resp);
       if (reader != null) {
         reader.close();
       }
@@ -147,6 +171,62 @@ public final class DataServerHandler extends SimpleChannelInboundHandler<RPCMess
         throw new IOException(nfe);
       }
     }
+    if (corrupted) {
+      // Quarantining needs the write lock, so it is done after the read lock is released
+      try {
+        mDataManager.quarantineBlock(Sessions.DATASERVER_SESSION_ID, blockId);
+      } catch (Exception e) {
+        LOG.error("Failed to quarantine corrupted block " + blockId, e);
+      }
+    }
+  }
+
+  /**
+   * Serves a read of a block which is not in Tachyon storage from the load of the block from the
+   * under filesystem. The response is sent as soon as the requested range has been loaded. This
+   * waits for the load, so the handler runs on its own threads rather than the event loop when
+   * read-through is enabled, see {@link NettyDataServer}.
+   *
+   * @param ctx the context of the channel
+   * @param req the read request
+   * @return true if the response was sent, false if the block has been committed and should be
+   *         read from the block store instead
+   * @throws IOException if the block can not be loaded or read, or the range is not loaded in
+   *         time
+   */
+  private boolean handleReadThrough(final ChannelHandlerContext ctx,
+      final RPCBlockReadRequest req) throws IOException {
+    req.validate();
+    UfsBlockLoader.BlockLoad load = mDataManager.readThroughBlock(req.getBlockId());
+    LocalFileBlockReader reader = load.openReader(req.getOffset(), req.getLength(),
+        mReadThroughTimeoutMs);
+    if (reader == null) {
+      return false;
+    }
+    boolean sent = false;
+    try {
+      long readLength = returnLength(req.getOffset(), req.getLength(), load.getLength());
+      // The channel is sent as is, since the end of the block is still being written
+      DataBuffer data =
+          new DataFileChannel((FileChannel) reader.getChannel(), req.getOffset(), readLength);
+      RPCBlockReadResponse resp = new RPCBlockReadResponse(req.getRequestId(), req.getBlockId(),
+          req.getOffset(), readLength, data, RPCResponse.Status.SUCCESS);
+      ChannelFuture future = ctx.writeAndFlush(resp);
+      future.addListener(new ClosableResourceChannelListener(reader));
+      sent = true;
+    } finally {
+      if (!sent) {
+        reader.close();
+      }
+    }
+    return true;
+  }
+
+  private void replyBlockLockError(final ChannelHandlerContext ctx,
+      final RPCBlockReadRequest req) {
+    RPCBlockReadResponse resp =
+        RPCBlockReadResponse.createErrorResponse(req, RPCResponse.Status.BLOCK_LOCK_ERROR);
+    ctx.writeAndFlush(resp);
   }
 
   // TODO: This write request handler is very simple in order to be stateless. Therefore, the block
@@ -181,17 +261,15 @@ public final class DataServerHandler extends SimpleChannelInboundHandler<RPCMess
       writer = mDataManager.getTempBlockWriterRemote(sessionId, blockId);
       writer.append(buffer);
 
-      RPCBlockWriteResponse resp =
-          new RPCBlockWriteResponse(sessionId, blockId, offset, length, RPCResponse.Status.SUCCESS);
+      RPCBlockWriteResponse resp = new RPCBlockWriteResponse(req.getRequestId(), sessionId,
+          blockId, offset, length, RPCResponse.Status.SUCCESS);
       ChannelFuture future = ctx.writeAndFlush(resp);
-      future.addListener(ChannelFutureListener.CLOSE);
       future.addListener(new ClosableResourceChannelListener(writer));
     } catch (Exception e) {
       LOG.error("Error writing remote block : " + e.getMessage(), e);
       RPCBlockWriteResponse resp =
           RPCBlockWriteResponse.createErrorResponse(req, RPCResponse.Status.WRITE_ERROR);
-      ChannelFuture future = ctx.writeAndFlush(resp);
-      future.addListener(ChannelFutureListener.CLOSE);
+      ctx.writeAndFlush(resp);
       if (writer != null) {
         writer.close();
       }
@@ -235,11 +313,18 @@ public final class DataServerHandler extends SimpleChannelInboundHandler<RPCMess
       case TRANSFER: // intend to fall through as TRANSFER is the default type.
       default:
         if (reader.getChannel() instanceof FileChannel) {
+          if (reader instanceof LocalFileBlockReader) {
+            // The channel is sent as is, so the range is verified and accounted for here
+            LocalFileBlockReader fileReader = (LocalFileBlockReader) reader;
+            fileReader.verify(req.getOffset(), readLength);
+            fileReader.recordTransfer(readLength);
+          }
           return new DataFileChannel((FileChannel) reader.getChannel(), req.getOffset(),
               readLength);
         }
-        reader.close();
-        throw new IllegalArgumentException("Only FileChannel is supported!");
+        // Blocks outside of files, e.g. in the off-heap arena, are sent from their buffers
+        ByteBuffer buffer = reader.read(req.getOffset(), (int) readLength);
+        return new DataByteBuffer(buffer, readLength);
     }
   }
 }
@@ -28,10 +28,13 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 
 import tachyon.Constants;
 import tachyon.conf.TachyonConf;
 import tachyon.network.ChannelType;
+import tachyon.util.ThreadFactoryUtils;
 import tachyon.util.network.NettyUtils;
 import tachyon.worker.DataServer;
 import tachyon.worker.block.BlockDataManager;
@@ -45,13 +48,25 @@ public final class NettyDataServer implements DataServer {
   private final TachyonConf mTachyonConf;
   // Use a shared handler for all pipelines.
   private final DataServerHandler mDataServerHandler;
+  // Runs the handler off the event loop when read-through requests may wait for loads, else null.
+  private final EventExecutorGroup mHandlerGroup;
 
   public NettyDataServer(final InetSocketAddress address, final BlockDataManager dataManager,
       final TachyonConf tachyonConf) {
     mTachyonConf = Preconditions.checkNotNull(tachyonConf);
     mDataServerHandler =
         new DataServerHandler(Preconditions.checkNotNull(dataManager), mTachyonConf);
-    mBootstrap = createBootstrap().childHandler(new PipelineHandler(mDataServerHandler));
+    if (mTachyonConf.getBoolean(Constants.WORKER_READ_THROUGH_ENABLED)) {
+      int handlerThreads = mTachyonConf.getInt(Constants.WORKER_READ_THROUGH_HANDLER_THREADS);
+      Preconditions.checkArgument(handlerThreads > 0,
+          "Read-through handler threads should be positive");
+      mHandlerGroup = new DefaultEventExecutorGroup(handlerThreads,
+          ThreadFactoryUtils.build("data-server-handler-%d", true));
+    } else {
+      mHandlerGroup = null;
+    }
+    mBootstrap = createBootstrap().childHandler(
+        new PipelineHandler(mDataServerHandler, mHandlerGroup));
 
     try {
       mChannelFuture = mBootstrap.bind(address).sync();
@@ -67,6 +82,9 @@ public final class NettyDataServer implements DataServer {
     mChannelFuture.channel().close().awaitUninterruptibly();
     mBootstrap.group().shutdownGracefully(quietPeriodSecs, timeoutSecs, TimeUnit.SECONDS);
     mBootstrap.childGroup().shutdownGracefully(quietPeriodSecs, timeoutSecs, TimeUnit.SECONDS);
+    if (mHandlerGroup != null) {
+      mHandlerGroup.shutdownGracefully(quietPeriodSecs, timeoutSecs, TimeUnit.SECONDS);
+    }
   }
 
   private ServerBootstrap createBootstrap() {
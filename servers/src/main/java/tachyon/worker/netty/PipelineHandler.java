@@ -19,6 +19,7 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.EventExecutorGroup;
 
 import tachyon.network.protocol.RPCMessage;
 import tachyon.network.protocol.RPCMessageDecoder;
@@ -29,9 +30,21 @@ import tachyon.network.protocol.RPCMessageEncoder;
  */
 public final class PipelineHandler extends ChannelInitializer<SocketChannel> {
   private final DataServerHandler mDataServerHandler;
+  /** The executors running the data server handler, or null to run it on the event loop */
+  private final EventExecutorGroup mHandlerGroup;
 
   public PipelineHandler(final DataServerHandler handler) {
+    this(handler, null);
+  }
+
+  /**
+   * @param handler the data server handler shared by the channels
+   * @param handlerGroup the executors to run the handler on, or null to run it on the event loop
+   *        of the channel
+   */
+  public PipelineHandler(final DataServerHandler handler, final EventExecutorGroup handlerGroup) {
     mDataServerHandler = handler;
+    mHandlerGroup = handlerGroup;
   }
 
   @Override
@@ -41,6 +54,6 @@ public final class PipelineHandler extends ChannelInitializer<SocketChannel> {
     pipeline.addLast("frameDecoder", RPCMessage.createFrameDecoder());
     pipeline.addLast("RPCMessageDecoder", new RPCMessageDecoder());
     pipeline.addLast("RPCMessageEncoder", new RPCMessageEncoder());
-    pipeline.addLast("dataServerHandler", mDataServerHandler);
+    pipeline.addLast(mHandlerGroup, "dataServerHandler", mDataServerHandler);
   }
 }
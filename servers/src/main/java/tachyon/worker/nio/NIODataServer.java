@@ -216,6 +216,7 @@ public final class NIODataServer implements Runnable, DataServer {
       final long blockId = tMessage.getBlockId();
       LOG.info("Get request for blockId: {}", blockId);
 
+      mDataManager.notifyBlockRead(blockId);
       long lockId = mDataManager.lockBlock(Sessions.DATASERVER_SESSION_ID, blockId);
       BlockReader reader =
           mDataManager.readBlockRemote(Sessions.DATASERVER_SESSION_ID, blockId, lockId);
@@ -232,7 +233,7 @@ public final class NIODataServer implements Runnable, DataServer {
         reader.close();
       }
       DataServerMessage tResponseMessage = DataServerMessage.createBlockResponseMessage(true,
-          blockId, tMessage.getOffset(), dataLen, data);
+          tMessage.getRequestId(), blockId, tMessage.getOffset(), dataLen, data);
       tResponseMessage.setLockId(lockId);
       mSendingData.put(socketChannel, tResponseMessage);
     }
@@ -301,12 +302,17 @@ public final class NIODataServer implements Runnable, DataServer {
     }
 
     if (sendMessage.finishSending() || closeChannel) {
-      try {
-        key.channel().close();
-      } catch (IOException e) {
-        LOG.error(e.getMessage());
+      if (closeChannel) {
+        try {
+          key.channel().close();
+        } catch (IOException e) {
+          LOG.error(e.getMessage());
+        }
+        key.cancel();
+      } else {
+        // Keep the connection open for the next requests of the client.
+        key.interestOps(SelectionKey.OP_READ);
       }
-      key.cancel();
       mReceivingData.remove(socketChannel);
       mSendingData.remove(socketChannel);
       sendMessage.close();
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.master.block;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.powermock.reflect.Whitebox;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import tachyon.Constants;
+import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+import tachyon.master.journal.Journal;
+import tachyon.thrift.Command;
+import tachyon.thrift.CommandType;
+import tachyon.thrift.NetAddress;
+
+/**
+ * Unit tests for tachyon.master.block.BlockMaster.
+ */
+public final class BlockMasterTest {
+  private static final long BLOCK_ID = 1L;
+  private static final int MEM = StorageLevelAlias.MEM.getValue();
+
+  private final TachyonConf mTachyonConf = new TachyonConf();
+  private BlockMaster mBlockMaster;
+  private long mWorker1;
+  private long mWorker2;
+  private long mWorker3;
+
+  @Rule
+  public TemporaryFolder mTestFolder = new TemporaryFolder();
+
+  @Before
+  public void before() throws Exception {
+    mTachyonConf.set(Constants.MASTER_REPLICATION_ENABLED, "true");
+    mTachyonConf.set(Constants.MASTER_REPLICATION_MAX, "2");
+    mTachyonConf.set(Constants.MASTER_REPLICATION_HOT_ACCESS_COUNT, "10");
+    Journal blockJournal = new Journal(mTestFolder.newFolder().getAbsolutePath(), mTachyonConf);
+    mBlockMaster = new BlockMaster(mTachyonConf, blockJournal);
+    mBlockMaster.start(true);
+    // Replication rounds are driven by the test.
+    ((Future<?>) Whitebox.getInternalState(mBlockMaster, "mHotBlockReplicationService"))
+        .cancel(true);
+
+    mWorker1 = registerWorker(new NetAddress("host1", 80, 81), Constants.MB);
+    mWorker2 = registerWorker(new NetAddress("host2", 80, 81), Constants.MB);
+    mWorker3 = registerWorker(new NetAddress("host3", 80, 81), 2 * Constants.MB);
+    mBlockMaster.commitBlock(mWorker1, Constants.KB, MEM, BLOCK_ID, Constants.KB);
+  }
+
+  private long registerWorker(NetAddress address, long capacityBytes) {
+    long workerId = mBlockMaster.getWorkerId(address);
+    mBlockMaster.workerRegister(workerId, Lists.newArrayList(capacityBytes),
+        Lists.newArrayList(0L), Maps.<Long, List<Long>>newHashMap());
+    return workerId;
+  }
+
+  private Command heartbeat(long workerId, Map<Long, Long> blockAccessCounts) {
+    return mBlockMaster.workerHeartbeat(workerId, Lists.newArrayList(0L),
+        Lists.<Long>newArrayList(), Maps.<Long, List<Long>>newHashMap(), blockAccessCounts);
+  }
+
+  @Test
+  public void capacityAggregatesTest() {
+    Assert.assertEquals(4 * Constants.MB, mBlockMaster.getCapacityBytes());
+    Assert.assertEquals(Constants.KB, mBlockMaster.getUsedBytes());
+    Assert.assertEquals(4 * Constants.MB, (long) mBlockMaster.getTotalBytesOnTiers().get(0));
+    Assert.assertEquals(Constants.KB, (long) mBlockMaster.getUsedBytesOnTiers().get(0));
+
+    // Heartbeats replace the used bytes of the worker
+    mBlockMaster.workerHeartbeat(mWorker2, Lists.newArrayList(3L * Constants.KB),
+        Lists.<Long>newArrayList(), Maps.<Long, List<Long>>newHashMap(),
+        Maps.<Long, Long>newHashMap());
+    Assert.assertEquals(4 * Constants.KB, mBlockMaster.getUsedBytes());
+    Assert.assertEquals(4 * Constants.KB, (long) mBlockMaster.getUsedBytesOnTiers().get(0));
+
+    // Re-registering a worker replaces all of its bytes
+    mBlockMaster.workerRegister(mWorker3, Lists.newArrayList((long) Constants.MB),
+        Lists.newArrayList((long) Constants.KB), Maps.<Long, List<Long>>newHashMap());
+    Assert.assertEquals(3 * Constants.MB, mBlockMaster.getCapacityBytes());
+    Assert.assertEquals(5 * Constants.KB, mBlockMaster.getUsedBytes());
+    Assert.assertEquals(3 * Constants.MB, (long) mBlockMaster.getTotalBytesOnTiers().get(0));
+    Assert.assertEquals(0L, (long) mBlockMaster.getTotalBytesOnTiers().get(1));
+  }
+
+  @Test
+  public void hotBlockReplicationTest() {
+    BlockMaster.HotBlockReplicationHeartbeatExecutor replicator =
+        mBlockMaster.new HotBlockReplicationHeartbeatExecutor();
+
+    // A block accessed less than the hot access count is not replicated
+    heartbeat(mWorker1, ImmutableMap.of(BLOCK_ID, 9L));
+    replicator.heartbeat();
+    Assert.assertEquals(CommandType.Nothing, heartbeat(mWorker3, ImmutableMap.<Long, Long>of())
+        .getMCommandType());
+
+    // A hot block is replicated once, to the worker with the most available space
+    heartbeat(mWorker1, ImmutableMap.of(BLOCK_ID, 100L));
+    replicator.heartbeat();
+    Command command = heartbeat(mWorker3, ImmutableMap.<Long, Long>of());
+    Assert.assertEquals(CommandType.Replicate, command.getMCommandType());
+    Assert.assertEquals(Lists.newArrayList(BLOCK_ID), command.getMData());
+    Assert.assertEquals(CommandType.Nothing, heartbeat(mWorker2, ImmutableMap.<Long, Long>of())
+        .getMCommandType());
+    mBlockMaster.commitBlock(mWorker3, Constants.KB, MEM, BLOCK_ID, Constants.KB);
+
+    // The block is still hot, the extra replica is kept
+    heartbeat(mWorker3, ImmutableMap.of(BLOCK_ID, 100L));
+    replicator.heartbeat();
+    Assert.assertEquals(CommandType.Nothing, heartbeat(mWorker3, ImmutableMap.<Long, Long>of())
+        .getMCommandType());
+
+    // The block is no longer hot, the extra replica is dropped but the original copy is kept
+    replicator.heartbeat();
+    command = heartbeat(mWorker3, ImmutableMap.<Long, Long>of());
+    Assert.assertEquals(CommandType.Free, command.getMCommandType());
+    Assert.assertEquals(Lists.newArrayList(BLOCK_ID), command.getMData());
+    Assert.assertEquals(CommandType.Nothing, heartbeat(mWorker1, ImmutableMap.<Long, Long>of())
+        .getMCommandType());
+  }
+
+  @Test
+  public void pendingFreeDoesNotStarveReplicationTest() {
+    long otherBlockId = BLOCK_ID + 1;
+    mBlockMaster.commitBlock(mWorker1, 2 * Constants.KB, MEM, otherBlockId, Constants.KB);
+    BlockMaster.HotBlockReplicationHeartbeatExecutor replicator =
+        mBlockMaster.new HotBlockReplicationHeartbeatExecutor();
+    heartbeat(mWorker1, ImmutableMap.of(BLOCK_ID, 100L));
+    replicator.heartbeat();
+    Assert.assertEquals(CommandType.Replicate, heartbeat(mWorker3, ImmutableMap.<Long, Long>of())
+        .getMCommandType());
+    mBlockMaster.commitBlock(mWorker3, Constants.KB, MEM, BLOCK_ID, Constants.KB);
+    replicator.heartbeat();
+    Assert.assertEquals(CommandType.Free, heartbeat(mWorker3, ImmutableMap.<Long, Long>of())
+        .getMCommandType());
+
+    // The worker does not remove the block, e.g. because a reader keeps it locked, while another
+    // block gets hot
+    heartbeat(mWorker1, ImmutableMap.of(otherBlockId, 100L));
+    replicator.heartbeat();
+    Command command = heartbeat(mWorker3, ImmutableMap.<Long, Long>of());
+    Assert.assertEquals(CommandType.Replicate, command.getMCommandType());
+    Assert.assertEquals(Lists.newArrayList(otherBlockId), command.getMData());
+    // Free is sent again until the worker reports the block removed
+    command = heartbeat(mWorker3, ImmutableMap.<Long, Long>of());
+    Assert.assertEquals(CommandType.Free, command.getMCommandType());
+    Assert.assertEquals(Lists.newArrayList(BLOCK_ID), command.getMData());
+  }
+
+  @Test
+  public void hotBlockReplicationBandwidthTest() {
+    // The bandwidth budget of a round is smaller than the block
+    mTachyonConf.set(Constants.MASTER_REPLICATION_BANDWIDTH_BYTES_PER_SEC, "1B");
+    BlockMaster.HotBlockReplicationHeartbeatExecutor replicator =
+        mBlockMaster.new HotBlockReplicationHeartbeatExecutor();
+    heartbeat(mWorker1, ImmutableMap.of(BLOCK_ID, 100L));
+    replicator.heartbeat();
+    Assert.assertEquals(CommandType.Nothing, heartbeat(mWorker3, ImmutableMap.<Long, Long>of())
+        .getMCommandType());
+  }
+}
@@ -126,6 +126,25 @@ public final class MasterWorkerInfoTest {
     Assert.assertTrue(mInfo.getToRemoveBlocks().isEmpty());
   }
 
+  @Test
+  public void updateToLoadBlockTest() {
+    // load an existing block
+    mInfo.updateToLoadBlock(true, 1L);
+    Assert.assertTrue(mInfo.pollToLoadBlocks().isEmpty());
+    // load block 10, it is only returned once
+    mInfo.updateToLoadBlock(true, 10L);
+    Assert.assertEquals(Lists.newArrayList(10L), mInfo.pollToLoadBlocks());
+    Assert.assertTrue(mInfo.pollToLoadBlocks().isEmpty());
+    // cancel the load
+    mInfo.updateToLoadBlock(true, 10L);
+    mInfo.updateToLoadBlock(false, 10L);
+    Assert.assertTrue(mInfo.pollToLoadBlocks().isEmpty());
+    // the load completes once the block is added
+    mInfo.updateToLoadBlock(true, 10L);
+    mInfo.addBlock(10L);
+    Assert.assertTrue(mInfo.pollToLoadBlocks().isEmpty());
+  }
+
   @Test
   public void updateUsedBytesTest() {
     Assert.assertEquals(Constants.KB * 2L, mInfo.getUsedBytes());
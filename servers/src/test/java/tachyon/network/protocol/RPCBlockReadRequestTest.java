@@ -23,6 +23,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 
 public class RPCBlockReadRequestTest {
+  private static final long REQUEST_ID = 5;
   private static final long BLOCK_ID = 11;
   private static final long OFFSET = 22;
   private static final long LENGTH = 33;
@@ -31,6 +32,7 @@ public class RPCBlockReadRequestTest {
 
   private void assertValid(long blockId, long offset, long length, RPCBlockReadRequest req) {
     Assert.assertEquals(RPCMessage.Type.RPC_BLOCK_READ_REQUEST, req.getType());
+    Assert.assertEquals(REQUEST_ID, req.getRequestId());
     Assert.assertEquals(blockId, req.getBlockId());
     Assert.assertEquals(offset, req.getOffset());
     Assert.assertEquals(length, req.getLength());
@@ -60,7 +62,7 @@ public class RPCBlockReadRequestTest {
 
   @Test
   public void encodedLengthTest() {
-    RPCBlockReadRequest req = new RPCBlockReadRequest(BLOCK_ID, OFFSET, LENGTH);
+    RPCBlockReadRequest req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH);
     int encodedLength = req.getEncodedLength();
     req.encode(mBuffer);
     Assert.assertEquals(encodedLength, mBuffer.readableBytes());
@@ -68,7 +70,7 @@ public class RPCBlockReadRequestTest {
 
   @Test
   public void encodeDecodeTest() {
-    RPCBlockReadRequest req = new RPCBlockReadRequest(BLOCK_ID, OFFSET, LENGTH);
+    RPCBlockReadRequest req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH);
     req.encode(mBuffer);
     RPCBlockReadRequest req2 = RPCBlockReadRequest.decode(mBuffer);
     assertValid(BLOCK_ID, OFFSET, LENGTH, req);
@@ -77,27 +79,27 @@ public class RPCBlockReadRequestTest {
 
   @Test
   public void validateTest() {
-    RPCBlockReadRequest req = new RPCBlockReadRequest(BLOCK_ID, OFFSET, LENGTH);
+    RPCBlockReadRequest req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH);
     assertValid(req);
   }
 
   @Test
   public void validLengthTest() {
-    RPCBlockReadRequest req = new RPCBlockReadRequest(BLOCK_ID, OFFSET, -1);
+    RPCBlockReadRequest req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, -1);
     assertValid(req);
-    req = new RPCBlockReadRequest(BLOCK_ID, OFFSET, 0);
+    req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, 0);
     assertValid(req);
   }
 
   @Test
   public void negativeOffsetTest() {
-    RPCBlockReadRequest req = new RPCBlockReadRequest(BLOCK_ID, -1, LENGTH);
+    RPCBlockReadRequest req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, -1, LENGTH);
     assertInvalid(req);
   }
 
   @Test
   public void invalidLengthTest() {
-    RPCBlockReadRequest req = new RPCBlockReadRequest(BLOCK_ID, OFFSET, -100);
+    RPCBlockReadRequest req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, -100);
     assertInvalid(req);
   }
 }
@@ -29,6 +29,7 @@ import io.netty.buffer.Unpooled;
 import tachyon.network.protocol.databuffer.DataByteBuffer;
 
 public class RPCBlockReadResponseTest {
+  private static final long REQUEST_ID = 5;
   private static final long BLOCK_ID = 1;
   private static final long OFFSET = 2;
   // The RPCMessageEncoder sends the payload separately from the message, so these unit tests only
@@ -44,6 +45,7 @@ public class RPCBlockReadResponseTest {
   private void assertValid(long blockId, long offset, long length, RPCResponse.Status status,
       RPCBlockReadResponse resp) {
     Assert.assertEquals(RPCMessage.Type.RPC_BLOCK_READ_RESPONSE, resp.getType());
+    Assert.assertEquals(REQUEST_ID, resp.getRequestId());
     Assert.assertEquals(blockId, resp.getBlockId());
     Assert.assertEquals(offset, resp.getOffset());
     Assert.assertEquals(length, resp.getLength());
@@ -65,7 +67,8 @@ public class RPCBlockReadResponseTest {
 
   @Test
   public void encodedLengthTest() {
-    RPCBlockReadResponse resp = new RPCBlockReadResponse(BLOCK_ID, OFFSET, LENGTH, null, STATUS);
+    RPCBlockReadResponse resp =
+        new RPCBlockReadResponse(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH, null, STATUS);
     int encodedLength = resp.getEncodedLength();
     resp.encode(mBuffer);
     Assert.assertEquals(encodedLength, mBuffer.readableBytes());
@@ -73,7 +76,8 @@ public class RPCBlockReadResponseTest {
 
   @Test
   public void encodeDecodeTest() {
-    RPCBlockReadResponse resp = new RPCBlockReadResponse(BLOCK_ID, OFFSET, LENGTH, null, STATUS);
+    RPCBlockReadResponse resp =
+        new RPCBlockReadResponse(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH, null, STATUS);
     resp.encode(mBuffer);
     RPCBlockReadResponse resp2 = RPCBlockReadResponse.decode(mBuffer);
     assertValid(BLOCK_ID, OFFSET, LENGTH, STATUS, resp);
@@ -82,7 +86,8 @@ public class RPCBlockReadResponseTest {
 
   @Test
   public void validateTest() {
-    RPCBlockReadResponse resp = new RPCBlockReadResponse(BLOCK_ID, OFFSET, LENGTH, null, STATUS);
+    RPCBlockReadResponse resp =
+        new RPCBlockReadResponse(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH, null, STATUS);
     assertValid(resp);
   }
 
@@ -90,14 +95,15 @@ public class RPCBlockReadResponseTest {
   public void getPayloadDataBufferTest() {
     int length = 10;
     DataByteBuffer payload = new DataByteBuffer(ByteBuffer.allocate(length), length);
-    RPCBlockReadResponse resp = new RPCBlockReadResponse(BLOCK_ID, OFFSET, LENGTH, payload, STATUS);
+    RPCBlockReadResponse resp =
+        new RPCBlockReadResponse(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH, payload, STATUS);
     assertValid(resp);
     Assert.assertEquals(payload, resp.getPayloadDataBuffer());
   }
 
   @Test
   public void createErrorResponseTest() {
-    RPCBlockReadRequest req = new RPCBlockReadRequest(BLOCK_ID, OFFSET, LENGTH);
+    RPCBlockReadRequest req = new RPCBlockReadRequest(REQUEST_ID, BLOCK_ID, OFFSET, LENGTH);
 
     for (RPCResponse.Status status : RPCResponse.Status.values()) {
       if (status == RPCResponse.Status.SUCCESS) {
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+
+/**
+ * Unit tests for {@link AsyncCheckpointer}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({BlockDataManager.class})
+public class AsyncCheckpointerTest {
+  private static final long FILE_ID = 1;
+  private static final long TIMEOUT_MS = 10 * Constants.SECOND_MS;
+
+  private BlockDataManager mBlockDataManager;
+  private AsyncCheckpointer mCheckpointer;
+
+  @Before
+  public void before() throws Exception {
+    TachyonConf conf = new TachyonConf();
+    conf.set(Constants.WORKER_CHECKPOINT_THREADS, "1");
+    conf.set(Constants.WORKER_CHECKPOINT_QUEUE_SIZE, "1");
+    conf.set(Constants.WORKER_CHECKPOINT_MAX_RETRIES, "2");
+    conf.set(Constants.WORKER_CHECKPOINT_RETRY_INTERVAL_MS, "1");
+    mBlockDataManager = PowerMockito.mock(BlockDataManager.class);
+    mCheckpointer = new AsyncCheckpointer(mBlockDataManager, conf);
+  }
+
+  @After
+  public void after() {
+    mCheckpointer.stop();
+  }
+
+  @Test
+  public void checkpointTest() throws Exception {
+    Assert.assertTrue(mCheckpointer.submit(FILE_ID));
+    Mockito.verify(mBlockDataManager, Mockito.timeout(TIMEOUT_MS))
+        .unpinForCheckpoint(FILE_ID);
+    Mockito.verify(mBlockDataManager).pinForCheckpoint(FILE_ID);
+    Mockito.verify(mBlockDataManager).persistFile(Matchers.eq(FILE_ID),
+        Matchers.any(RateLimiter.class));
+  }
+
+  @Test
+  public void retryTest() throws Exception {
+    Mockito.doThrow(new IOException("UFS unavailable")).when(mBlockDataManager)
+        .persistFile(Matchers.eq(FILE_ID), Matchers.any(RateLimiter.class));
+    Assert.assertTrue(mCheckpointer.submit(FILE_ID));
+    Mockito.verify(mBlockDataManager, Mockito.timeout(TIMEOUT_MS))
+        .unpinForCheckpoint(FILE_ID);
+    // The first attempt and two retries
+    Mockito.verify(mBlockDataManager, Mockito.times(3)).persistFile(Matchers.eq(FILE_ID),
+        Matchers.any(RateLimiter.class));
+  }
+
+  @Test
+  public void queueFullTest() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        started.countDown();
+        release.await();
+        return null;
+      }
+    }).when(mBlockDataManager).persistFile(Matchers.anyLong(), Matchers.any(RateLimiter.class));
+
+    // One file is checkpointed by the only thread, one waits in the queue, the third is rejected
+    Assert.assertTrue(mCheckpointer.submit(1));
+    Assert.assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    Assert.assertTrue(mCheckpointer.submit(2));
+    Assert.assertFalse(mCheckpointer.submit(3));
+    Mockito.verify(mBlockDataManager).unpinForCheckpoint(3);
+    // A file already pending is not queued twice
+    Assert.assertTrue(mCheckpointer.submit(2));
+    release.countDown();
+  }
+}
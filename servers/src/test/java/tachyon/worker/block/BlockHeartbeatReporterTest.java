@@ -134,4 +134,23 @@ public class BlockHeartbeatReporterTest {
     Assert.assertEquals(1, removedBlocks.size());
     Assert.assertTrue(removedBlocks.contains(block1));
   }
+
+  // Tests a report correctly counts block accesses and resets the counts for the next period
+  @Test
+  public void generateReportAccessTest() {
+    Long block1 = 1L;
+    Long block2 = 2L;
+    mReporter.onAccessBlock(SESSION_ID, block1);
+    mReporter.onAccessBlock(SESSION_ID, block1);
+    mReporter.onAccessBlock(SESSION_ID, block2);
+    removeBlock(block2);
+
+    // Block1 was accessed twice, and block2 should not be reported since it was removed
+    Map<Long, Long> accessCounts = mReporter.generateReport().getBlockAccessCounts();
+    Assert.assertEquals(1, accessCounts.size());
+    Assert.assertEquals(Long.valueOf(2), accessCounts.get(block1));
+
+    // The counts should be reset for the next heartbeat period
+    Assert.assertTrue(mReporter.generateReport().getBlockAccessCounts().isEmpty());
+  }
 }
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for {@link BlockIdRanges}.
+ */
+public class BlockIdRangesTest {
+  private BlockIdRanges mRanges;
+
+  @Before
+  public void before() {
+    mRanges = new BlockIdRanges();
+  }
+
+  @Test
+  public void mergeTest() {
+    Assert.assertTrue(mRanges.isEmpty());
+    mRanges.add(5);
+    mRanges.add(7);
+    mRanges.add(3);
+    Assert.assertEquals(3, mRanges.getRangeCount());
+    // 6 joins the ranges of 5 and 7, 4 joins the ranges of 3 and 5-7
+    mRanges.add(6);
+    Assert.assertEquals(2, mRanges.getRangeCount());
+    mRanges.add(4);
+    Assert.assertEquals(1, mRanges.getRangeCount());
+    Assert.assertEquals(Lists.newArrayList(3L, 4L, 5L, 6L, 7L), mRanges.toList());
+    Assert.assertEquals(5, mRanges.size());
+  }
+
+  @Test
+  public void duplicateTest() {
+    Assert.assertTrue(mRanges.add(1));
+    Assert.assertTrue(mRanges.add(2));
+    Assert.assertFalse(mRanges.add(1));
+    Assert.assertFalse(mRanges.add(2));
+    Assert.assertEquals(2, mRanges.size());
+    Assert.assertEquals(Lists.newArrayList(1L, 2L), mRanges.toList());
+  }
+
+  @Test
+  public void clearTest() {
+    for (long blockId = 0; blockId < 1000; blockId ++) {
+      mRanges.add(blockId);
+    }
+    Assert.assertEquals(1, mRanges.getRangeCount());
+    mRanges.clear();
+    Assert.assertTrue(mRanges.isEmpty());
+    Assert.assertTrue(mRanges.toList().isEmpty());
+  }
+}
@@ -15,6 +15,14 @@
 
 package tachyon.worker.block;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -54,6 +62,24 @@ public class BlockLockManagerTest {
     Assert.assertNotEquals(lockId1, lockId2);
   }
 
+  @Test
+  public void tryLockBlockTest() throws Exception {
+    long readLockId = mLockManager.lockBlock(TEST_SESSION_ID, TEST_BLOCK_ID, BlockLockType.READ);
+    // A write lock can not be taken without waiting for the reader
+    Assert.assertEquals(BlockLockManager.INVALID_LOCK_ID,
+        mLockManager.tryLockBlock(TEST_SESSION_ID + 1, TEST_BLOCK_ID, BlockLockType.WRITE));
+    Assert.assertNotEquals(BlockLockManager.INVALID_LOCK_ID,
+        mLockManager.tryLockBlock(TEST_SESSION_ID + 1, TEST_BLOCK_ID, BlockLockType.READ));
+    mLockManager.unlockBlock(readLockId);
+    mLockManager.cleanupSession(TEST_SESSION_ID + 1);
+    // The lock objects are reclaimed, including the one of the failed attempt
+    Assert.assertEquals(0, mLockManager.getNumBlockLocks());
+    long writeLockId =
+        mLockManager.tryLockBlock(TEST_SESSION_ID, TEST_BLOCK_ID, BlockLockType.WRITE);
+    Assert.assertNotEquals(BlockLockManager.INVALID_LOCK_ID, writeLockId);
+    mLockManager.unlockBlock(writeLockId);
+  }
+
   @Test
   public void unlockNonExistingLockTest() throws Exception {
     long badLockId = 1;
@@ -108,4 +134,126 @@ public class BlockLockManagerTest {
     // Because sessionId2 has been cleaned up, expect validating sessionId2 to throw IOException
     mLockManager.validateLock(sessionId2, TEST_BLOCK_ID, lockId2);
   }
+
+  @Test(timeout = 10000)
+  public void concurrentLockUnlockTest() throws Exception {
+    final int numThreads = 8;
+    final int numIterations = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    for (int i = 0; i < numThreads; i ++) {
+      final long sessionId = TEST_SESSION_ID + i;
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          for (int j = 0; j < numIterations; j ++) {
+            long blockId = j % 10;
+            long lockId = mLockManager.lockBlock(sessionId, blockId, BlockLockType.READ);
+            mLockManager.validateLock(sessionId, blockId, lockId);
+            mLockManager.unlockBlock(lockId);
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    // All the lock records are gone, and every lock has been released
+    Assert.assertTrue(mLockManager.getLockedBlocks().isEmpty());
+    for (long blockId = 0; blockId < 10; blockId ++) {
+      mLockManager.unlockBlock(mLockManager.lockBlock(TEST_SESSION_ID, blockId,
+          BlockLockType.WRITE));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void concurrentLockCleanupTest() throws Exception {
+    final int numIterations = 10000;
+    final CountDownLatch started = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Void> future = executor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        started.await();
+        for (int i = 0; i < numIterations; i ++) {
+          mLockManager.cleanupSession(TEST_SESSION_ID);
+        }
+        return null;
+      }
+    });
+    started.countDown();
+    // Each block is locked once, so the locks never wait for the read permits of a block, whether
+    // or not the cleanups have released the earlier locks
+    for (int i = 0; i < numIterations; i ++) {
+      mLockManager.lockBlock(TEST_SESSION_ID, i, BlockLockType.READ);
+    }
+    future.get();
+    executor.shutdown();
+    // A lock acquired during a cleanup is released by the next cleanup instead of leaking
+    mLockManager.cleanupSession(TEST_SESSION_ID);
+    Assert.assertTrue(mLockManager.getLockedBlocks().isEmpty());
+    Assert.assertEquals(0, mLockManager.getNumBlockLocks());
+  }
+
+  @Test
+  public void reclaimUnusedLockTest() throws Exception {
+    long lockId1 = mLockManager.lockBlock(TEST_SESSION_ID, TEST_BLOCK_ID, BlockLockType.READ);
+    long lockId2 = mLockManager.lockBlock(TEST_SESSION_ID, TEST_BLOCK_ID, BlockLockType.READ);
+    Assert.assertEquals(1, mLockManager.getNumBlockLocks());
+    mLockManager.unlockBlock(lockId1);
+    Assert.assertEquals(1, mLockManager.getNumBlockLocks());
+    mLockManager.unlockBlock(lockId2);
+    // The lock of the block is reclaimed once nobody holds it
+    Assert.assertEquals(0, mLockManager.getNumBlockLocks());
+  }
+
+  @Test(timeout = 10000)
+  public void lockWaitCountTest() throws Exception {
+    // Locks of different blocks never contend
+    long lockId = mLockManager.lockBlock(TEST_SESSION_ID, TEST_BLOCK_ID, BlockLockType.WRITE);
+    for (long blockId = 0; blockId < 1000; blockId ++) {
+      if (blockId != TEST_BLOCK_ID) {
+        mLockManager.unlockBlock(mLockManager.lockBlock(TEST_SESSION_ID, blockId,
+            BlockLockType.WRITE));
+      }
+    }
+    Assert.assertEquals(0, mLockManager.getLockWaitCount());
+
+    // A reader of the write locked block has to wait
+    Thread reader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        mLockManager.lockBlock(TEST_SESSION_ID + 1, TEST_BLOCK_ID, BlockLockType.READ);
+      }
+    });
+    reader.start();
+    while (mLockManager.getLockWaitCount() == 0) {
+      Thread.sleep(10);
+    }
+    mLockManager.unlockBlock(lockId);
+    reader.join();
+    Assert.assertEquals(1, mLockManager.getLockWaitCount());
+  }
+
+  @Test(timeout = 10000)
+  public void lockDoesNotBargeAheadOfWaitersTest() throws Exception {
+    long lockId = mLockManager.lockBlock(TEST_SESSION_ID, TEST_BLOCK_ID, BlockLockType.READ);
+    Thread writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        mLockManager.lockBlock(TEST_SESSION_ID + 1, TEST_BLOCK_ID, BlockLockType.WRITE);
+      }
+    });
+    writer.start();
+    while (writer.getState() != Thread.State.WAITING) {
+      Thread.sleep(10);
+    }
+    // A new reader queues up behind the waiting writer instead of starving it
+    Assert.assertEquals(BlockLockManager.INVALID_LOCK_ID,
+        mLockManager.tryLockBlock(TEST_SESSION_ID + 2, TEST_BLOCK_ID, BlockLockType.READ));
+    mLockManager.unlockBlock(lockId);
+    writer.join();
+  }
 }
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+import tachyon.util.io.BufferUtils;
+
+public final class BlockMoverTest {
+  private static final int THREADS = 4;
+  private static final int TIER_ALIAS = 2;
+
+  private BlockMover mMover;
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  @Before
+  public void before() {
+    TachyonConf conf = new TachyonConf();
+    conf.set(Constants.WORKER_TIERED_STORE_MOVER_THREADS, Integer.toString(THREADS));
+    conf.set(Constants.WORKER_TIERED_STORE_MOVER_BANDWIDTH, "1MB");
+    mMover = new BlockMover(conf);
+  }
+
+  @Test
+  public void moveFileTest() throws Exception {
+    String srcPath = new File(mFolder.newFolder(), "1").getAbsolutePath();
+    String dstPath = new File(mFolder.newFolder(), "1").getAbsolutePath();
+    BufferUtils.writeBufferToFile(srcPath, BufferUtils.getIncreasingByteArray(100));
+
+    mMover.moveFile(srcPath, dstPath, TIER_ALIAS);
+    Assert.assertFalse(new File(srcPath).exists());
+    Assert.assertEquals(100, new File(dstPath).length());
+  }
+
+  @Test
+  public void runMovesConcurrentlyTest() throws Exception {
+    // Every move waits for all the others to start, which only completes if they run concurrently
+    final CountDownLatch started = new CountDownLatch(THREADS);
+    List<Callable<Void>> moves = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < THREADS; i ++) {
+      moves.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          started.countDown();
+          Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+          return null;
+        }
+      });
+    }
+    BlockMover.waitForMoves(mMover.runMoves(TIER_ALIAS, moves));
+    Assert.assertEquals(0, started.getCount());
+  }
+
+  @Test
+  public void runMovesThrowsIOExceptionTest() throws Exception {
+    final CountDownLatch completed = new CountDownLatch(THREADS - 1);
+    List<Callable<Void>> moves = new ArrayList<Callable<Void>>();
+    moves.add(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        throw new IOException("move failed");
+      }
+    });
+    for (int i = 1; i < THREADS; i ++) {
+      moves.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          completed.countDown();
+          return null;
+        }
+      });
+    }
+    try {
+      BlockMover.waitForMoves(mMover.runMoves(TIER_ALIAS, moves));
+      Assert.fail("The failure of a move should be thrown");
+    } catch (IOException ioe) {
+      Assert.assertEquals("move failed", ioe.getMessage());
+    }
+    // The other moves have still completed
+    Assert.assertEquals(0, completed.getCount());
+  }
+
+  @Test(timeout = 10000)
+  public void runMovesReturnsBeforeMovesTest() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    List<Callable<Void>> moves = new ArrayList<Callable<Void>>();
+    moves.add(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        release.await();
+        return null;
+      }
+    });
+    Future<Void> movesDone = mMover.runMoves(TIER_ALIAS, moves);
+    Assert.assertFalse(movesDone.isDone());
+    release.countDown();
+    BlockMover.waitForMoves(movesDone);
+  }
+
+  @Test(timeout = 10000)
+  public void shutdownTest() throws Exception {
+    final CountDownLatch started = new CountDownLatch(THREADS);
+    final CountDownLatch release = new CountDownLatch(1);
+    List<Callable<Void>> moves = new ArrayList<Callable<Void>>();
+    // The moves beyond the threads never start, and are cancelled by the shutdown
+    for (int i = 0; i < 2 * THREADS; i ++) {
+      moves.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          started.countDown();
+          Uninterruptibles.awaitUninterruptibly(release);
+          return null;
+        }
+      });
+    }
+    Future<Void> movesDone = mMover.runMoves(TIER_ALIAS, moves);
+    started.await();
+    mMover.shutdown();
+    release.countDown();
+    try {
+      BlockMover.waitForMoves(movesDone);
+      Assert.fail("Moves cancelled by the shutdown should fail");
+    } catch (IOException ioe) {
+      // expected
+    }
+    try {
+      BlockMover.waitForMoves(mMover.runMoves(TIER_ALIAS, moves));
+      Assert.fail("Moves queued after the shutdown should fail");
+    } catch (IOException ioe) {
+      Assert.assertEquals("Block mover has been shut down", ioe.getMessage());
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import tachyon.Constants;
+import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+import tachyon.master.block.BlockId;
+
+/**
+ * Unit tests for {@link BlockReadAhead}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({BlockDataManager.class})
+public class BlockReadAheadTest {
+  private static final long CONTAINER_ID = 1;
+  private static final int TOP_TIER_ALIAS = StorageLevelAlias.MEM.getValue();
+  private static final long TIMEOUT_MS = 10 * Constants.SECOND_MS;
+
+  private BlockDataManager mBlockDataManager;
+  private BlockReadAhead mReadAhead;
+
+  @Before
+  public void before() throws Exception {
+    TachyonConf conf = new TachyonConf();
+    conf.set(Constants.WORKER_READ_AHEAD_BLOCKS, "2");
+    conf.set(Constants.WORKER_READ_AHEAD_THREADS, "1");
+    mBlockDataManager = PowerMockito.mock(BlockDataManager.class);
+    mReadAhead = new BlockReadAhead(mBlockDataManager, conf);
+  }
+
+  @After
+  public void after() {
+    mReadAhead.stop();
+  }
+
+  private static long blockId(long seqNum) {
+    return BlockId.createBlockId(CONTAINER_ID, seqNum);
+  }
+
+  @Test
+  public void sequentialReadTest() throws Exception {
+    mReadAhead.onBlockRead(blockId(0));
+    mReadAhead.onBlockRead(blockId(1));
+    Mockito.verify(mBlockDataManager, Mockito.timeout(TIMEOUT_MS))
+        .prefetchBlock(blockId(3), TOP_TIER_ALIAS);
+    Mockito.verify(mBlockDataManager).prefetchBlock(blockId(2), TOP_TIER_ALIAS);
+
+    // Only the block which is not warmed yet is scheduled
+    mReadAhead.onBlockRead(blockId(2));
+    Mockito.verify(mBlockDataManager, Mockito.timeout(TIMEOUT_MS))
+        .prefetchBlock(blockId(4), TOP_TIER_ALIAS);
+    Mockito.verify(mBlockDataManager, Mockito.times(1)).prefetchBlock(blockId(3), TOP_TIER_ALIAS);
+  }
+
+  @Test
+  public void randomReadTest() throws Exception {
+    mReadAhead.onBlockRead(blockId(5));
+    mReadAhead.onBlockRead(blockId(2));
+    mReadAhead.onBlockRead(blockId(7));
+    mReadAhead.stop();
+    Mockito.verify(mBlockDataManager, Mockito.never()).prefetchBlock(Matchers.anyLong(),
+        Matchers.anyInt());
+  }
+
+  @Test
+  public void cancelTest() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        started.countDown();
+        release.await();
+        return null;
+      }
+    }).when(mBlockDataManager).prefetchBlock(blockId(2), TOP_TIER_ALIAS);
+
+    mReadAhead.onBlockRead(blockId(0));
+    mReadAhead.onBlockRead(blockId(1));
+    Assert.assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    // The pattern breaks while block 3 waits for the only thread
+    mReadAhead.onBlockRead(blockId(9));
+    release.countDown();
+    // A new sequential run is warmed, the cancelled block is not
+    mReadAhead.onBlockRead(blockId(10));
+    Mockito.verify(mBlockDataManager, Mockito.timeout(TIMEOUT_MS))
+        .prefetchBlock(blockId(12), TOP_TIER_ALIAS);
+    Mockito.verify(mBlockDataManager, Mockito.never()).prefetchBlock(blockId(3), TOP_TIER_ALIAS);
+  }
+}
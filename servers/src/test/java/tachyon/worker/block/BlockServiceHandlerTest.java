@@ -0,0 +1,101 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.google.common.collect.Lists;
+
+import tachyon.Sessions;
+import tachyon.StorageLevelAlias;
+import tachyon.exception.NotFoundException;
+import tachyon.thrift.FileDoesNotExistException;
+import tachyon.worker.block.io.BlockCompression;
+
+/**
+ * Unit tests for the lock calls of {@link BlockServiceHandler}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({BlockDataManager.class})
+public class BlockServiceHandlerTest {
+  private static final long SESSION_ID = 1;
+  private static final long BLOCK_ID = 10;
+  private static final long MISSING_BLOCK_ID = 11;
+  private static final long LOCK_ID = 100;
+
+  private BlockDataManager mBlockDataManager;
+  private BlockServiceHandler mHandler;
+  private String mBlockPath;
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  @Before
+  public void before() throws Exception {
+    mBlockPath = mFolder.newFile().getAbsolutePath();
+    mBlockDataManager = PowerMockito.mock(BlockDataManager.class);
+    Mockito.when(mBlockDataManager.lockBlock(SESSION_ID, BLOCK_ID)).thenReturn(LOCK_ID);
+    Mockito.when(mBlockDataManager.readBlock(SESSION_ID, BLOCK_ID, LOCK_ID)).thenReturn(mBlockPath);
+    Mockito.when(mBlockDataManager.lockBlock(SESSION_ID, MISSING_BLOCK_ID))
+        .thenThrow(new NotFoundException("Block " + MISSING_BLOCK_ID + " not found"));
+    mHandler = new BlockServiceHandler(mBlockDataManager);
+  }
+
+  @Test
+  public void lockBlocksTest() throws Exception {
+    List<String> paths =
+        mHandler.lockBlocks(SESSION_ID, Lists.newArrayList(MISSING_BLOCK_ID, BLOCK_ID));
+    Assert.assertEquals(Lists.newArrayList("", mBlockPath), paths);
+    Mockito.verify(mBlockDataManager).notifyBlockRead(BLOCK_ID);
+    Mockito.verify(mBlockDataManager).notifyBlockRead(MISSING_BLOCK_ID);
+  }
+
+  @Test
+  public void lockCompressedBlockTest() throws Exception {
+    mFolder.newFile(new File(BlockCompression.getIndexPath(mBlockPath)).getName());
+    try {
+      mHandler.lockBlock(BLOCK_ID, SESSION_ID);
+      Assert.fail("A compressed block should not be locked for a local read");
+    } catch (FileDoesNotExistException fdne) {
+      // expected
+    }
+    // The lock is released and the block is decompressed into MEM in the background
+    Mockito.verify(mBlockDataManager).unlockBlock(LOCK_ID);
+    Mockito.verify(mBlockDataManager).moveBlockAsync(Sessions.MIGRATE_DATA_SESSION_ID, BLOCK_ID,
+        StorageLevelAlias.MEM.getValue());
+  }
+
+  @Test
+  public void unlockBlocksTest() throws Exception {
+    Mockito.doThrow(new NotFoundException("Block " + MISSING_BLOCK_ID + " not locked"))
+        .when(mBlockDataManager).unlockBlock(SESSION_ID, MISSING_BLOCK_ID);
+    // Blocks not locked by the session do not prevent the others from being unlocked
+    mHandler.unlockBlocks(SESSION_ID, Lists.newArrayList(MISSING_BLOCK_ID, BLOCK_ID));
+    Mockito.verify(mBlockDataManager).unlockBlock(SESSION_ID, BLOCK_ID);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import tachyon.Constants;
+import tachyon.Sessions;
+import tachyon.StorageDirId;
+import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+
+/**
+ * Unit tests for {@link SpaceReserver}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({BlockDataManager.class, BlockStoreMeta.class})
+public class SpaceReserverTest {
+  private static final long MEM_DIR_ID =
+      StorageDirId.getStorageDirId(0, StorageLevelAlias.MEM.getValue(), 0);
+  private static final long HDD_DIR_ID =
+      StorageDirId.getStorageDirId(1, StorageLevelAlias.HDD.getValue(), 0);
+  private static final BlockStoreLocation MEM_DIR =
+      new BlockStoreLocation(StorageLevelAlias.MEM.getValue(), 0, 0);
+  private static final BlockStoreLocation HDD_DIR =
+      new BlockStoreLocation(StorageLevelAlias.HDD.getValue(), 1, 0);
+
+  private BlockDataManager mBlockDataManager;
+  private SpaceReserver mSpaceReserver;
+  private Map<Long, Long> mUsedBytesOnDirs;
+
+  @Before
+  public void before() {
+    TachyonConf conf = new TachyonConf();
+    conf.set(String.format(Constants.WORKER_SPACE_RESERVER_HIGH_WATERMARK_FORMAT, "MEM"), "0.9");
+    conf.set(String.format(Constants.WORKER_SPACE_RESERVER_LOW_WATERMARK_FORMAT, "MEM"), "0.7");
+    conf.set(String.format(Constants.WORKER_SPACE_RESERVER_HIGH_WATERMARK_FORMAT, "HDD"), "0.8");
+    conf.set(String.format(Constants.WORKER_SPACE_RESERVER_LOW_WATERMARK_FORMAT, "HDD"), "0.5");
+
+    Map<Long, Long> capacityBytesOnDirs = new HashMap<Long, Long>();
+    capacityBytesOnDirs.put(MEM_DIR_ID, 100L);
+    capacityBytesOnDirs.put(HDD_DIR_ID, 1000L);
+    mUsedBytesOnDirs = new HashMap<Long, Long>();
+    BlockStoreMeta storeMeta = PowerMockito.mock(BlockStoreMeta.class);
+    Mockito.when(storeMeta.getCapacityBytesOnDirs()).thenReturn(capacityBytesOnDirs);
+    Mockito.when(storeMeta.getUsedBytesOnDirs()).thenReturn(mUsedBytesOnDirs);
+    mBlockDataManager = PowerMockito.mock(BlockDataManager.class);
+    Mockito.when(mBlockDataManager.getStoreMeta()).thenReturn(storeMeta);
+
+    mSpaceReserver = new SpaceReserver(mBlockDataManager, conf);
+  }
+
+  @Test
+  public void belowHighWatermarkTest() throws Exception {
+    mUsedBytesOnDirs.put(MEM_DIR_ID, 90L);
+    mUsedBytesOnDirs.put(HDD_DIR_ID, 800L);
+    mSpaceReserver.reserveSpace();
+    Mockito.verify(mBlockDataManager, Mockito.never()).freeSpace(Matchers.anyLong(),
+        Matchers.anyLong(), Matchers.any(BlockStoreLocation.class));
+  }
+
+  @Test
+  public void aboveHighWatermarkTest() throws Exception {
+    mUsedBytesOnDirs.put(MEM_DIR_ID, 91L);
+    mUsedBytesOnDirs.put(HDD_DIR_ID, 500L);
+    mSpaceReserver.reserveSpace();
+    // Frees space down to the low watermark of the tier
+    Mockito.verify(mBlockDataManager).freeSpace(Sessions.MIGRATE_DATA_SESSION_ID, 30L, MEM_DIR);
+    Mockito.verify(mBlockDataManager, Mockito.never()).freeSpace(Matchers.anyLong(),
+        Matchers.anyLong(), Matchers.eq(HDD_DIR));
+  }
+
+  @Test
+  public void lowerTierFirstTest() throws Exception {
+    mUsedBytesOnDirs.put(MEM_DIR_ID, 100L);
+    mUsedBytesOnDirs.put(HDD_DIR_ID, 1000L);
+    mSpaceReserver.reserveSpace();
+    InOrder inOrder = Mockito.inOrder(mBlockDataManager);
+    inOrder.verify(mBlockDataManager).freeSpace(Sessions.MIGRATE_DATA_SESSION_ID, 500L, HDD_DIR);
+    inOrder.verify(mBlockDataManager).freeSpace(Sessions.MIGRATE_DATA_SESSION_ID, 30L, MEM_DIR);
+  }
+}
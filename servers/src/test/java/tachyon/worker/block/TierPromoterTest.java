@@ -0,0 +1,147 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import tachyon.Constants;
+import tachyon.Sessions;
+import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+import tachyon.worker.block.meta.BlockMeta;
+
+/**
+ * Unit tests for {@link TierPromoter}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({BlockDataManager.class, BlockMeta.class})
+public class TierPromoterTest {
+  private static final int MEM = StorageLevelAlias.MEM.getValue();
+  private static final int HDD = StorageLevelAlias.HDD.getValue();
+  private static final long SESSION_ID = 2;
+  private static final long BLOCK_SIZE = 100;
+
+  private BlockDataManager mBlockDataManager;
+  private TachyonConf mTachyonConf;
+
+  @Before
+  public void before() throws Exception {
+    mTachyonConf = new TachyonConf();
+    mTachyonConf.set(Constants.WORKER_TIER_PROMOTER_INTERVAL_MS, "1000");
+    mTachyonConf.set(Constants.WORKER_TIER_PROMOTER_ACCESS_THRESHOLD, "3");
+    mTachyonConf.set(Constants.WORKER_TIER_PROMOTER_BATCH_SIZE, "16");
+    mTachyonConf.set(Constants.WORKER_TIER_PROMOTER_BANDWIDTH, "1MB");
+    mBlockDataManager = PowerMockito.mock(BlockDataManager.class);
+  }
+
+  private void cache(long blockId, int tierAlias) throws Exception {
+    cache(blockId, tierAlias, BLOCK_SIZE);
+  }
+
+  private void cache(long blockId, int tierAlias, long blockSize) throws Exception {
+    BlockMeta block = PowerMockito.mock(BlockMeta.class);
+    Mockito.when(block.getBlockSize()).thenReturn(blockSize);
+    Mockito.when(block.getBlockLocation())
+        .thenReturn(BlockStoreLocation.anyDirInTier(tierAlias));
+    Mockito.when(mBlockDataManager.getVolatileBlockMeta(blockId)).thenReturn(block);
+  }
+
+  private void access(TierPromoter promoter, long blockId, int times) {
+    for (int i = 0; i < times; i ++) {
+      promoter.onAccessBlock(SESSION_ID, blockId);
+    }
+  }
+
+  @Test
+  public void promoteHotBlocksTest() throws Exception {
+    TierPromoter promoter = new TierPromoter(mBlockDataManager, mTachyonConf);
+    cache(1, HDD);
+    cache(2, HDD);
+    cache(3, MEM);
+    access(promoter, 1, 3);
+    access(promoter, 2, 2);
+    access(promoter, 3, 3);
+    promoter.promoteHotBlocks();
+    Mockito.verify(mBlockDataManager).moveBlock(Sessions.MIGRATE_DATA_SESSION_ID, 1, MEM);
+    Mockito.verify(mBlockDataManager, Mockito.never()).moveBlock(Matchers.anyLong(),
+        Matchers.eq(2L), Matchers.anyInt());
+    Mockito.verify(mBlockDataManager, Mockito.never()).moveBlock(Matchers.anyLong(),
+        Matchers.eq(3L), Matchers.anyInt());
+
+    // access counts are reset after each round
+    promoter.promoteHotBlocks();
+    Mockito.verify(mBlockDataManager).moveBlock(Matchers.anyLong(), Matchers.anyLong(),
+        Matchers.anyInt());
+  }
+
+  @Test
+  public void batchSizeTest() throws Exception {
+    mTachyonConf.set(Constants.WORKER_TIER_PROMOTER_BATCH_SIZE, "2");
+    TierPromoter promoter = new TierPromoter(mBlockDataManager, mTachyonConf);
+    for (long blockId = 1; blockId <= 3; blockId ++) {
+      cache(blockId, HDD);
+      access(promoter, blockId, 6 - (int) blockId);
+    }
+    promoter.promoteHotBlocks();
+    // the most accessed blocks are promoted first
+    Mockito.verify(mBlockDataManager).moveBlock(Sessions.MIGRATE_DATA_SESSION_ID, 1, MEM);
+    Mockito.verify(mBlockDataManager).moveBlock(Sessions.MIGRATE_DATA_SESSION_ID, 2, MEM);
+    Mockito.verify(mBlockDataManager, Mockito.never()).moveBlock(Matchers.anyLong(),
+        Matchers.eq(3L), Matchers.anyInt());
+  }
+
+  @Test
+  public void bandwidthTest() throws Exception {
+    // two blocks fit in the bytes of one round
+    mTachyonConf.set(Constants.WORKER_TIER_PROMOTER_BANDWIDTH, String.valueOf(BLOCK_SIZE * 2));
+    TierPromoter promoter = new TierPromoter(mBlockDataManager, mTachyonConf);
+    for (long blockId = 1; blockId <= 3; blockId ++) {
+      cache(blockId, HDD);
+      access(promoter, blockId, 3);
+    }
+    promoter.promoteHotBlocks();
+    Mockito.verify(mBlockDataManager, Mockito.times(2)).moveBlock(Matchers.anyLong(),
+        Matchers.anyLong(), Matchers.anyInt());
+  }
+
+  @Test
+  public void blockLargerThanRoundTest() throws Exception {
+    // a block takes two rounds of bandwidth
+    mTachyonConf.set(Constants.WORKER_TIER_PROMOTER_BANDWIDTH, String.valueOf(BLOCK_SIZE));
+    TierPromoter promoter = new TierPromoter(mBlockDataManager, mTachyonConf);
+    cache(1, HDD, 2 * BLOCK_SIZE);
+    cache(2, HDD);
+    access(promoter, 1, 3);
+    promoter.promoteHotBlocks();
+    Mockito.verify(mBlockDataManager).moveBlock(Sessions.MIGRATE_DATA_SESSION_ID, 1, MEM);
+
+    // the excess of the large block uses up the next round
+    access(promoter, 2, 3);
+    promoter.promoteHotBlocks();
+    Mockito.verify(mBlockDataManager, Mockito.never()).moveBlock(Matchers.anyLong(),
+        Matchers.eq(2L), Matchers.anyInt());
+    access(promoter, 2, 3);
+    promoter.promoteHotBlocks();
+    Mockito.verify(mBlockDataManager).moveBlock(Sessions.MIGRATE_DATA_SESSION_ID, 2, MEM);
+  }
+}
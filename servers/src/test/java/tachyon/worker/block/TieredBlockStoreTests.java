@@ -17,6 +17,8 @@ package tachyon.worker.block;
 
 import java.io.File;
 import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -28,6 +30,7 @@ import org.junit.rules.TemporaryFolder;
 
 import com.google.common.collect.Sets;
 
+import tachyon.Constants;
 import tachyon.StorageLevelAlias;
 import tachyon.conf.TachyonConf;
 import tachyon.exception.AlreadyExistsException;
@@ -38,6 +41,7 @@ import tachyon.exception.OutOfSpaceException;
 import tachyon.util.io.FileUtils;
 import tachyon.worker.WorkerContext;
 import tachyon.worker.block.evictor.Evictor;
+import tachyon.worker.block.io.BlockChecksum;
 import tachyon.worker.block.meta.BlockMeta;
 import tachyon.worker.block.meta.StorageDir;
 import tachyon.worker.block.meta.TempBlockMeta;
@@ -155,6 +159,27 @@ public final class TieredBlockStoreTests {
     Assert.assertTrue(FileUtils.exists(TempBlockMeta.commitPath(mTestDir1, TEMP_BLOCK_ID)));
   }
 
+  @Test
+  public void commitBlockComputesChecksumTest() throws Exception {
+    Field field = mBlockStore.getClass().getDeclaredField("mChecksumEnabled");
+    field.setAccessible(true);
+    field.setBoolean(mBlockStore, true);
+    // Written without checksums, as a local client would
+    TieredBlockStoreTestUtils.createTempBlock(SESSION_ID1, TEMP_BLOCK_ID, BLOCK_SIZE, mTestDir1);
+    mBlockStore.commitBlock(SESSION_ID1, TEMP_BLOCK_ID);
+    Assert.assertTrue(mBlockStore.hasBlockMeta(TEMP_BLOCK_ID));
+
+    // The checksums are computed in the background
+    File checksumFile = new File(
+        BlockChecksum.getChecksumPath(TempBlockMeta.commitPath(mTestDir1, TEMP_BLOCK_ID)));
+    long deadline = System.currentTimeMillis() + 10 * Constants.SECOND_MS;
+    while (!checksumFile.isFile() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertTrue(checksumFile.isFile());
+    Assert.assertEquals(4, checksumFile.length());
+  }
+
   @Test
   public void abortBlockTest() throws Exception {
     TieredBlockStoreTestUtils.createTempBlock(SESSION_ID1, TEMP_BLOCK_ID, BLOCK_SIZE, mTestDir1);
@@ -178,6 +203,22 @@ public final class TieredBlockStoreTests {
     Assert.assertTrue(FileUtils.exists(BlockMeta.commitPath(mTestDir2, BLOCK_ID1)));
   }
 
+  @Test
+  public void moveBlockAsyncTest() throws Exception {
+    TieredBlockStoreTestUtils.cache(SESSION_ID1, BLOCK_ID1, BLOCK_SIZE, mTestDir1, mMetaManager,
+        mEvictor);
+    mBlockStore.moveBlockAsync(SESSION_ID1, BLOCK_ID1, mTestDir2.toBlockStoreLocation());
+
+    // The block is moved on the mover threads
+    long deadline = System.currentTimeMillis() + 10 * Constants.SECOND_MS;
+    while (!mTestDir2.hasBlockMeta(BLOCK_ID1) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertTrue(mTestDir2.hasBlockMeta(BLOCK_ID1));
+    Assert.assertFalse(mTestDir1.hasBlockMeta(BLOCK_ID1));
+    Assert.assertTrue(FileUtils.exists(BlockMeta.commitPath(mTestDir2, BLOCK_ID1)));
+  }
+
   @Test
   public void removeBlockTest() throws Exception {
     TieredBlockStoreTestUtils.cache(SESSION_ID1, BLOCK_ID1, BLOCK_SIZE, mTestDir1, mMetaManager,
@@ -188,13 +229,53 @@ public final class TieredBlockStoreTests {
     Assert.assertFalse(FileUtils.exists(BlockMeta.commitPath(mTestDir1, BLOCK_ID1)));
   }
 
+  // Metadata updates on one dir are not blocked by another thread holding the lock of another dir
   @Test
+  public void operationsOnDifferentDirsTest() throws Exception {
+    final CountDownLatch locked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        mTestDir2.getMetadataLock().lock();
+        try {
+          locked.countDown();
+          release.await();
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        } finally {
+          mTestDir2.getMetadataLock().unlock();
+        }
+      }
+    });
+    holder.start();
+    try {
+      Assert.assertTrue(locked.await(10, TimeUnit.SECONDS));
+      TempBlockMeta tempBlock = mBlockStore.createBlockMeta(SESSION_ID1, TEMP_BLOCK_ID,
+          mTestDir1.toBlockStoreLocation(), BLOCK_SIZE);
+      FileUtils.createBlockPath(tempBlock.getPath());
+      new File(tempBlock.getPath()).createNewFile();
+      mBlockStore.commitBlock(SESSION_ID1, TEMP_BLOCK_ID);
+      Assert.assertTrue(mTestDir1.hasBlockMeta(TEMP_BLOCK_ID));
+      mBlockStore.removeBlock(SESSION_ID1, TEMP_BLOCK_ID);
+      Assert.assertFalse(mBlockStore.hasBlockMeta(TEMP_BLOCK_ID));
+    } finally {
+      release.countDown();
+      holder.join();
+    }
+  }
+
+  @Test(timeout = 10000)
   public void freeSpaceTest() throws Exception {
     TieredBlockStoreTestUtils.cache(SESSION_ID1, BLOCK_ID1, BLOCK_SIZE, mTestDir1, mMetaManager,
         mEvictor);
     mBlockStore.freeSpace(SESSION_ID1, mTestDir1.getCapacityBytes(),
         mTestDir1.toBlockStoreLocation());
-    // Expect BLOCK_ID1 to be moved out of mTestDir1
+    // Expect BLOCK_ID1 to be moved out of mTestDir1 once the queued moves finish
+    while (mTestDir1.hasBlockMeta(BLOCK_ID1)
+        || mTestDir1.getAvailableBytes() < mTestDir1.getCapacityBytes()) {
+      Thread.sleep(10);
+    }
     Assert.assertEquals(mTestDir1.getCapacityBytes(), mTestDir1.getAvailableBytes());
     Assert.assertFalse(mTestDir1.hasBlockMeta(BLOCK_ID1));
     Assert.assertFalse(FileUtils.exists(BlockMeta.commitPath(mTestDir1, BLOCK_ID1)));
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import tachyon.Constants;
+import tachyon.Sessions;
+import tachyon.conf.TachyonConf;
+import tachyon.exception.AlreadyExistsException;
+import tachyon.worker.block.io.LocalFileBlockReader;
+
+/**
+ * Unit tests for {@link UfsBlockLoader}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({BlockDataManager.class})
+public class UfsBlockLoaderTest {
+  private static final long BLOCK_ID = 1;
+  private static final int BLOCK_LENGTH = 10;
+  private static final long TIMEOUT_MS = 10 * Constants.SECOND_MS;
+
+  private BlockDataManager mBlockDataManager;
+  private UfsBlockLoader mLoader;
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  @Before
+  public void before() throws Exception {
+    TachyonConf conf = new TachyonConf();
+    conf.set(Constants.WORKER_READ_THROUGH_THREADS, "1");
+    mBlockDataManager = PowerMockito.mock(BlockDataManager.class);
+    mLoader = new UfsBlockLoader(mBlockDataManager, conf);
+  }
+
+  @After
+  public void after() {
+    mLoader.stop();
+  }
+
+  @Test(timeout = 3 * TIMEOUT_MS)
+  public void readWhileLoadingTest() throws Exception {
+    final File blockFile = mFolder.newFile();
+    FileOutputStream output = new FileOutputStream(blockFile);
+    try {
+      output.write(new byte[BLOCK_LENGTH]);
+    } finally {
+      output.close();
+    }
+    // The mocked load stops after the first 4 bytes until released, and again before the commit
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch commit = new CountDownLatch(1);
+    final CountDownLatch committed = new CountDownLatch(1);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        UfsBlockLoader.BlockLoad load = (UfsBlockLoader.BlockLoad) invocation.getArguments()[2];
+        load.started(blockFile.getAbsolutePath(), BLOCK_LENGTH);
+        load.advanced(4);
+        release.await();
+        load.advanced(BLOCK_LENGTH - 4);
+        commit.await();
+        load.committing();
+        committed.countDown();
+        return null;
+      }
+    }).when(mBlockDataManager).loadBlockFromUfs(Matchers.anyLong(), Matchers.anyLong(),
+        Matchers.any(UfsBlockLoader.BlockLoad.class));
+
+    final UfsBlockLoader.BlockLoad load = mLoader.load(BLOCK_ID);
+    // The loaded part of the block is readable before the load completes
+    LocalFileBlockReader reader = load.openReader(0, 4, TIMEOUT_MS);
+    Assert.assertNotNull(reader);
+    reader.close();
+    Assert.assertEquals(BLOCK_LENGTH, load.getLength());
+    // A concurrent request joins the load in progress
+    Assert.assertSame(load, mLoader.load(BLOCK_ID));
+
+    // A reader of the rest of the block waits for it to be loaded
+    FutureTask<LocalFileBlockReader> rest =
+        new FutureTask<LocalFileBlockReader>(new Callable<LocalFileBlockReader>() {
+          @Override
+          public LocalFileBlockReader call() throws Exception {
+            return load.openReader(4, -1, TIMEOUT_MS);
+          }
+        });
+    Thread restThread = new Thread(rest);
+    restThread.start();
+    while (restThread.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+    Assert.assertFalse(rest.isDone());
+
+    release.countDown();
+    reader = rest.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    Assert.assertNotNull(reader);
+    Assert.assertEquals(BLOCK_LENGTH, reader.getLength());
+    reader.close();
+
+    commit.countDown();
+    Assert.assertTrue(committed.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    // Once the block is committed, it is read from the block store
+    Assert.assertNull(load.openReader(4, -1, TIMEOUT_MS));
+    Mockito.verify(mBlockDataManager).loadBlockFromUfs(
+        Matchers.eq((long) Sessions.READ_THROUGH_SESSION_ID), Matchers.eq(BLOCK_ID),
+        Matchers.same(load));
+  }
+
+  @Test
+  public void loadFailureTest() throws Exception {
+    Mockito.doThrow(new IOException("UFS unavailable")).when(mBlockDataManager)
+        .loadBlockFromUfs(Matchers.anyLong(), Matchers.anyLong(),
+            Matchers.any(UfsBlockLoader.BlockLoad.class));
+    UfsBlockLoader.BlockLoad load = mLoader.load(BLOCK_ID);
+    try {
+      load.openReader(0, -1, TIMEOUT_MS);
+      Assert.fail("Reading a block whose load failed should fail");
+    } catch (IOException ioe) {
+      Assert.assertEquals("UFS unavailable", ioe.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void alreadyExistsTest() throws Exception {
+    final CountDownLatch loaded = new CountDownLatch(1);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        loaded.countDown();
+        throw new AlreadyExistsException("Block " + BLOCK_ID + " exists");
+      }
+    }).when(mBlockDataManager).loadBlockFromUfs(Matchers.anyLong(), Matchers.anyLong(),
+        Matchers.any(UfsBlockLoader.BlockLoad.class));
+    UfsBlockLoader.BlockLoad load = mLoader.load(BLOCK_ID);
+    Assert.assertTrue(loaded.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    // The block was stored by someone else, so it is read from the block store
+    Assert.assertNull(load.openReader(0, -1, TIMEOUT_MS));
+  }
+
+  @Test
+  public void openReaderTimeoutTest() throws Exception {
+    final File blockFile = mFolder.newFile();
+    final CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        UfsBlockLoader.BlockLoad load = (UfsBlockLoader.BlockLoad) invocation.getArguments()[2];
+        load.started(blockFile.getAbsolutePath(), BLOCK_LENGTH);
+        release.await();
+        return null;
+      }
+    }).when(mBlockDataManager).loadBlockFromUfs(Matchers.anyLong(), Matchers.anyLong(),
+        Matchers.any(UfsBlockLoader.BlockLoad.class));
+    UfsBlockLoader.BlockLoad load = mLoader.load(BLOCK_ID);
+    try {
+      // Nothing of the block is loaded until the release
+      load.openReader(0, 4, 10);
+      Assert.fail("Waiting for a range which is not loaded should time out");
+    } catch (IOException ioe) {
+      Assert.assertTrue(ioe.getMessage().startsWith("Timed out waiting for block " + BLOCK_ID));
+    } finally {
+      release.countDown();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.allocator;
+
+import org.junit.Test;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+import tachyon.worker.block.meta.StorageDir;
+import tachyon.worker.block.meta.StorageDirLoad;
+import tachyon.worker.block.meta.TempBlockMeta;
+
+public class LoadAwareAllocatorTest extends BaseAllocatorTest {
+  @Test
+  public void allocateBlockTest() throws Exception {
+    TachyonConf conf = new TachyonConf();
+    conf.set(Constants.WORKER_ALLOCATE_STRATEGY_CLASS, LoadAwareAllocator.class.getName());
+    mAllocator = Allocator.Factory.createAllocator(conf, mManagerView);
+    //
+    // idx | tier1 | tier2 | tier3
+    //  0    1000
+    //  0      ├───── 2000
+    //  1      └───── 2000
+    //  0               ├─── 3000
+    //  1               ├─── 3000
+    //  2               └─── 3000
+    //
+    // Without any load, blocks go to the dir with most free space
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc3, 500, true, 3, 0);
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc3, 500, true, 3, 1);
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc3, 500, true, 3, 2);
+    //
+    // idx | tier1 | tier2 | tier3
+    //  0    1000
+    //  0      ├───── 2000
+    //  1      └───── 2000
+    //  0               ├─── 2500   (1 read)
+    //  1               ├─── 2500   (recent I/O)
+    //  2               └─── 2500
+    //
+    StorageDirLoad load = getDir(3, 0).getLoad();
+    load.onReadStarted();
+    getDir(3, 1).getLoad().recordBytes(Constants.MB);
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc3, 500, true, 3, 2);
+    //
+    // idx | tier1 | tier2 | tier3
+    //  0    1000
+    //  0      ├───── 2000
+    //  1      └───── 2000
+    //  0               ├─── 2500   (read finished)   <--- alloc
+    //  1               ├─── 2500   (recent I/O)
+    //  2               └─── 2000
+    //
+    load.onReadFinished();
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc3, 500, true, 3, 0);
+    //
+    // idx | tier1 | tier2 | tier3
+    //  0    1000
+    //  0      ├───── 2000   <--- alloc
+    //  1      └───── 2000
+    //  0               ├─── 2000
+    //  1               ├─── 2500
+    //  2               └─── 2000
+    //
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc2, 500, true, 2, 0);
+    //
+    // idx | tier1 | tier2 | tier3
+    //  0    1000
+    //  0      ├───── 1500   <--- alloc
+    //  1      └───── 2000   (1 write)
+    //  0               ├─── 2000
+    //  1               ├─── 2500
+    //  2               └─── 2000
+    //
+    StorageDir dir = getDir(2, 1);
+    dir.addTempBlockMeta(new TempBlockMeta(SESSION_ID, -1, 0, dir));
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc2, 500, true, 2, 0);
+    //
+    // idx | tier1 | tier2 | tier3
+    //  0    1000
+    //  0      ├───── 1000
+    //  1      └───── 2000   (1 write)   <--- alloc
+    //  0               ├─── 2000
+    //  1               ├─── 2500
+    //  2               └─── 2000
+    //
+    // A dir without enough space is skipped however idle it is
+    assertTempBlockMeta(mAllocator, mAnyDirInTierLoc2, 1500, true, 2, 1);
+    //
+    // idx | tier1 | tier2 | tier3
+    //  0     0   <--- alloc
+    //  0      ├───── 1000
+    //  1      └───── 500    (1 write)
+    //  0               ├─── 2000
+    //  1               ├─── 2500
+    //  2               └─── 2000
+    //
+    assertTempBlockMeta(mAllocator, mAnyTierLoc, 1000, true, 1, 0);
+  }
+
+  private StorageDir getDir(int tierAlias, int dirIndex) {
+    return mManagerView.getTierView(tierAlias).getDirView(dirIndex)
+        .createTempBlockMeta(SESSION_ID, -1, 0).getParentDir();
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.evictor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link FrequencySketch}.
+ */
+public class FrequencySketchTest {
+  @Test
+  public void incrementTest() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    Assert.assertEquals(0, sketch.frequency(1L));
+    for (int i = 0; i < 5; i ++) {
+      sketch.increment(1L);
+    }
+    Assert.assertTrue(sketch.frequency(1L) >= 5);
+    // counters saturate
+    for (int i = 0; i < 20; i ++) {
+      sketch.increment(1L);
+    }
+    Assert.assertEquals(FrequencySketch.MAX_COUNT, sketch.frequency(1L));
+  }
+
+  @Test
+  public void resetTest() {
+    int expectedBlocks = 64;
+    FrequencySketch sketch = new FrequencySketch(expectedBlocks);
+    for (int i = 0; i < 8; i ++) {
+      sketch.increment(1L);
+    }
+    int frequency = sketch.frequency(1L);
+    // other blocks fill the sample until the counters are halved
+    boolean halved = false;
+    for (long blockId = 2; blockId < 10 * expectedBlocks; blockId ++) {
+      halved |= sketch.increment(blockId);
+    }
+    Assert.assertTrue(halved);
+    Assert.assertTrue(sketch.frequency(1L) < frequency);
+    Assert.assertTrue(sketch.frequency(1L) > 0);
+  }
+}
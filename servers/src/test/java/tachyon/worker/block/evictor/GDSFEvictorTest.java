@@ -0,0 +1,125 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.evictor;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tachyon.Constants;
+import tachyon.conf.TachyonConf;
+import tachyon.worker.WorkerContext;
+import tachyon.worker.block.BlockMetadataManager;
+import tachyon.worker.block.BlockMetadataManagerView;
+import tachyon.worker.block.BlockStoreEventListener;
+import tachyon.worker.block.BlockStoreLocation;
+import tachyon.worker.block.TieredBlockStoreTestUtils;
+import tachyon.worker.block.allocator.Allocator;
+import tachyon.worker.block.allocator.MaxFreeAllocator;
+import tachyon.worker.block.meta.StorageDir;
+
+/**
+ * Sanity check on specific behavior of GDSFEvictor such as weighing the size of blocks against
+ * their access frequency.
+ */
+public class GDSFEvictorTest {
+  private static final long SESSION_ID = 2;
+  private static final long BLOCK_ID = 10;
+
+  private BlockMetadataManager mMetaManager;
+  private BlockMetadataManagerView mManagerView;
+  private Evictor mEvictor;
+
+  @Rule
+  public TemporaryFolder mTestFolder = new TemporaryFolder();
+
+  @Before
+  public final void before() throws Exception {
+    File tempFolder = mTestFolder.newFolder();
+    mMetaManager = TieredBlockStoreTestUtils.defaultMetadataManager(tempFolder.getAbsolutePath());
+    mManagerView =
+        new BlockMetadataManagerView(mMetaManager, Collections.<Long>emptySet(),
+            Collections.<Long>emptySet());
+    TachyonConf conf = WorkerContext.getConf();
+    conf.set(Constants.WORKER_EVICT_STRATEGY_CLASS, GDSFEvictor.class.getName());
+    conf.set(Constants.WORKER_ALLOCATE_STRATEGY_CLASS, MaxFreeAllocator.class.getName());
+    Allocator allocator = Allocator.Factory.createAllocator(conf, mManagerView);
+    mEvictor = Evictor.Factory.createEvictor(conf, mManagerView, allocator);
+  }
+
+  private void cache(long blockId, long bytes, int tierLevel, int dirIdx) throws Exception {
+    StorageDir dir = mMetaManager.getTiers().get(tierLevel).getDir(dirIdx);
+    TieredBlockStoreTestUtils.cache(SESSION_ID, blockId, bytes, dir, mMetaManager, mEvictor);
+  }
+
+  // access the block to update evictor
+  private void access(long blockId) {
+    ((BlockStoreEventListener) mEvictor).onAccessBlock(SESSION_ID, blockId);
+  }
+
+  private long evictOneBlock(long bytesToBeAvailable, BlockStoreLocation location) {
+    EvictionPlan plan = mEvictor.freeSpaceWithView(bytesToBeAvailable, location, mManagerView);
+    Assert.assertNotNull(plan);
+    Assert.assertTrue(plan.toMove().isEmpty());
+    Assert.assertEquals(1, plan.toEvict().size());
+    return plan.toEvict().get(0).getFirst();
+  }
+
+  @Test
+  public void evictLargeBlockTest() throws Exception {
+    // a large block accessed a few times is evicted before small blocks accessed once, as it
+    // gives back more space per access lost
+    int bottomTierLevel = TieredBlockStoreTestUtils
+        .TIER_LEVEL[TieredBlockStoreTestUtils.TIER_LEVEL.length - 1];
+    long dirCapacity = TieredBlockStoreTestUtils.TIER_CAPACITY_BYTES[bottomTierLevel][0];
+    long largeBlockSize = dirCapacity / 2;
+    int nSmallBlocks = 5;
+    long smallBlockSize = (dirCapacity - largeBlockSize) / nSmallBlocks;
+    cache(BLOCK_ID, largeBlockSize, bottomTierLevel, 0);
+    access(BLOCK_ID);
+    access(BLOCK_ID);
+    for (int i = 1; i <= nSmallBlocks; i ++) {
+      cache(BLOCK_ID + i, smallBlockSize, bottomTierLevel, 0);
+    }
+
+    BlockStoreLocation dir0 = new BlockStoreLocation(bottomTierLevel + 1, bottomTierLevel, 0);
+    Assert.assertEquals(BLOCK_ID, evictOneBlock(smallBlockSize, dir0));
+  }
+
+  @Test
+  public void evictLessFrequentBlockTest() throws Exception {
+    // among blocks of equal size, the least frequently accessed one is evicted
+    int bottomTierLevel = TieredBlockStoreTestUtils
+        .TIER_LEVEL[TieredBlockStoreTestUtils.TIER_LEVEL.length - 1];
+    long dirCapacity = TieredBlockStoreTestUtils.TIER_CAPACITY_BYTES[bottomTierLevel][0];
+    int nBlocks = 5;
+    long blockSize = dirCapacity / nBlocks;
+    for (int i = 0; i < nBlocks; i ++) {
+      cache(BLOCK_ID + i, blockSize, bottomTierLevel, 0);
+      for (int j = 0; j < nBlocks - i; j ++) {
+        access(BLOCK_ID + i);
+      }
+    }
+
+    BlockStoreLocation dir0 = new BlockStoreLocation(bottomTierLevel + 1, bottomTierLevel, 0);
+    Assert.assertEquals(BLOCK_ID + nBlocks - 1, evictOneBlock(blockSize, dir0));
+  }
+}
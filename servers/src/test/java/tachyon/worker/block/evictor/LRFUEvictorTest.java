@@ -300,4 +300,44 @@ public class LRFUEvictorTest {
       }
     }
   }
+
+  @Test
+  public void evictAfterManyAccessesTest() throws Exception {
+    // CRF values decay far below the smallest double after many accesses, the order of blocks must
+    // still follow their CRF
+    int bottomTierLevel = TieredBlockStoreTestUtils
+        .TIER_LEVEL[TieredBlockStoreTestUtils.TIER_LEVEL.length - 1];
+    long[] bottomTierDirCapacity = TieredBlockStoreTestUtils.TIER_CAPACITY_BYTES[bottomTierLevel];
+    int nDir = bottomTierDirCapacity.length;
+    for (int i = 0; i < nDir; i ++) {
+      cache(SESSION_ID, BLOCK_ID + i, bottomTierDirCapacity[i], bottomTierLevel, i);
+    }
+    BlockStoreLocation anyDirInBottomTier = BlockStoreLocation.anyDirInTier(bottomTierLevel + 1);
+
+    // all blocks but BLOCK_ID + 1 are accessed many times, then BLOCK_ID + 1 is accessed once
+    for (int round = 0; round < 10000; round ++) {
+      for (int i = 0; i < nDir; i ++) {
+        if (i != 1) {
+          access(BLOCK_ID + i);
+        }
+      }
+    }
+    access(BLOCK_ID + 1);
+    EvictionPlan plan =
+        mEvictor.freeSpaceWithView(bottomTierDirCapacity[0], anyDirInBottomTier, mManagerView);
+    Assert.assertNotNull(plan);
+    Assert.assertEquals(1, plan.toEvict().size());
+    Assert.assertEquals(BLOCK_ID + 1, plan.toEvict().get(0).getFirst().longValue());
+
+    // all blocks but BLOCK_ID are accessed many times, so BLOCK_ID now has the minimum CRF
+    for (int round = 0; round < 20000; round ++) {
+      for (int i = 1; i < nDir; i ++) {
+        access(BLOCK_ID + i);
+      }
+    }
+    plan = mEvictor.freeSpaceWithView(bottomTierDirCapacity[0], anyDirInBottomTier, mManagerView);
+    Assert.assertNotNull(plan);
+    Assert.assertEquals(1, plan.toEvict().size());
+    Assert.assertEquals(BLOCK_ID, plan.toEvict().get(0).getFirst().longValue());
+  }
 }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.evictor;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tachyon.Constants;
+import tachyon.Pair;
+import tachyon.conf.TachyonConf;
+import tachyon.worker.WorkerContext;
+import tachyon.worker.block.BlockMetadataManager;
+import tachyon.worker.block.BlockMetadataManagerView;
+import tachyon.worker.block.BlockStoreEventListener;
+import tachyon.worker.block.BlockStoreLocation;
+import tachyon.worker.block.TieredBlockStoreTestUtils;
+import tachyon.worker.block.allocator.Allocator;
+import tachyon.worker.block.allocator.MaxFreeAllocator;
+import tachyon.worker.block.meta.StorageDir;
+
+/**
+ * Sanity check on specific behavior of TinyLFUEvictor such as keeping frequently accessed blocks
+ * when a scan of blocks accessed only once fills the space.
+ */
+public class TinyLFUEvictorTest {
+  private static final long SESSION_ID = 2;
+  private static final long BLOCK_ID = 10;
+  private static final long BLOCK_SIZE = 100;
+
+  private BlockMetadataManager mMetaManager;
+  private BlockMetadataManagerView mManagerView;
+  private Evictor mEvictor;
+
+  @Rule
+  public TemporaryFolder mTestFolder = new TemporaryFolder();
+
+  @Before
+  public final void before() throws Exception {
+    File tempFolder = mTestFolder.newFolder();
+    mMetaManager = TieredBlockStoreTestUtils.defaultMetadataManager(tempFolder.getAbsolutePath());
+    mManagerView =
+        new BlockMetadataManagerView(mMetaManager, Collections.<Long>emptySet(),
+            Collections.<Long>emptySet());
+    TachyonConf conf = WorkerContext.getConf();
+    conf.set(Constants.WORKER_EVICT_STRATEGY_CLASS, TinyLFUEvictor.class.getName());
+    conf.set(Constants.WORKER_ALLOCATE_STRATEGY_CLASS, MaxFreeAllocator.class.getName());
+    Allocator allocator = Allocator.Factory.createAllocator(conf, mManagerView);
+    mEvictor = Evictor.Factory.createEvictor(conf, mManagerView, allocator);
+  }
+
+  private void cache(long blockId, int tierLevel, int dirIdx) throws Exception {
+    StorageDir dir = mMetaManager.getTiers().get(tierLevel).getDir(dirIdx);
+    TieredBlockStoreTestUtils.cache(SESSION_ID, blockId, BLOCK_SIZE, dir, mMetaManager, mEvictor);
+  }
+
+  // access the block to update evictor
+  private void access(long blockId) {
+    ((BlockStoreEventListener) mEvictor).onAccessBlock(SESSION_ID, blockId);
+  }
+
+  @Test
+  public void scanResistanceTest() throws Exception {
+    int bottomTierLevel = TieredBlockStoreTestUtils
+        .TIER_LEVEL[TieredBlockStoreTestUtils.TIER_LEVEL.length - 1];
+    long dirCapacity = TieredBlockStoreTestUtils.TIER_CAPACITY_BYTES[bottomTierLevel][0];
+    int nHotBlocks = 10;
+    int nScanBlocks = (int) (dirCapacity / BLOCK_SIZE) - nHotBlocks;
+    for (int i = 0; i < nHotBlocks; i ++) {
+      cache(BLOCK_ID + i, bottomTierLevel, 0);
+    }
+    for (int round = 0; round < 5; round ++) {
+      for (int i = 0; i < nHotBlocks; i ++) {
+        access(BLOCK_ID + i);
+      }
+    }
+    // a scan fills the rest of the dir with blocks accessed only once
+    for (int i = nHotBlocks; i < nHotBlocks + nScanBlocks; i ++) {
+      cache(BLOCK_ID + i, bottomTierLevel, 0);
+    }
+
+    BlockStoreLocation dir0 = new BlockStoreLocation(bottomTierLevel + 1, bottomTierLevel, 0);
+    EvictionPlan plan = mEvictor.freeSpaceWithView(dirCapacity / 2, dir0, mManagerView);
+    Assert.assertNotNull(plan);
+    Assert.assertTrue(plan.toMove().isEmpty());
+    Assert.assertEquals(dirCapacity / 2 / BLOCK_SIZE, plan.toEvict().size());
+    for (Pair<Long, BlockStoreLocation> toEvict : plan.toEvict()) {
+      Assert.assertTrue(toEvict.getFirst() >= BLOCK_ID + nHotBlocks);
+    }
+  }
+
+  @Test
+  public void evictFromWindowAndProbationFirstTest() throws Exception {
+    // blocks in the first tier are moved down on eviction, check the least frequent one is chosen
+    int firstTierLevel = TieredBlockStoreTestUtils.TIER_LEVEL[0];
+    long dirCapacity = TieredBlockStoreTestUtils.TIER_CAPACITY_BYTES[firstTierLevel][0];
+    int nBlocks = (int) (dirCapacity / BLOCK_SIZE);
+    for (int i = 0; i < nBlocks; i ++) {
+      cache(BLOCK_ID + i, firstTierLevel, 0);
+      for (int j = 0; j < i % 3; j ++) {
+        access(BLOCK_ID + i);
+      }
+    }
+    BlockStoreLocation dir0 = new BlockStoreLocation(firstTierLevel + 1, firstTierLevel, 0);
+    EvictionPlan plan = mEvictor.freeSpaceWithView(BLOCK_SIZE, dir0, mManagerView);
+    Assert.assertNotNull(plan);
+    Assert.assertEquals(1, plan.toMove().size() + plan.toEvict().size());
+    long blockId = plan.toMove().isEmpty() ? plan.toEvict().get(0).getFirst()
+        : plan.toMove().get(0).getBlockId();
+    // the least recently used of the blocks accessed only on commit
+    Assert.assertEquals(BLOCK_ID, blockId);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import tachyon.util.io.BufferUtils;
+
+public class BlockArenaTest {
+  private static final int SLAB_SIZE = 100;
+  private static final long CAPACITY = 10 * SLAB_SIZE;
+  private static final long BLOCK_ID = 1;
+  // Spans three slabs, the last one partially
+  private static final int BLOCK_SIZE = 2 * SLAB_SIZE + SLAB_SIZE / 2;
+
+  private BlockArena mArena;
+
+  @Before
+  public void before() {
+    mArena = new BlockArena(CAPACITY, SLAB_SIZE);
+  }
+
+  @After
+  public void after() {
+    mArena.close();
+  }
+
+  private BlockArena.ArenaBlock writeBlock(long blockId) throws IOException {
+    BlockArena.ArenaBlock block = mArena.allocate(blockId, BLOCK_SIZE);
+    Assert.assertNotNull(block);
+    ArenaBlockWriter writer = new ArenaBlockWriter(block);
+    ByteBuffer data = BufferUtils.getIncreasingByteBuffer(BLOCK_SIZE);
+    // append the block in two parts, the first ending in the middle of a slab
+    ByteBuffer head = data.duplicate();
+    head.limit(SLAB_SIZE + 10);
+    Assert.assertEquals(SLAB_SIZE + 10, writer.append(head));
+    Assert.assertEquals(SLAB_SIZE + 10, head.remaining());
+    data.position(SLAB_SIZE + 10);
+    Assert.assertEquals(BLOCK_SIZE - SLAB_SIZE - 10, writer.getChannel().write(data));
+    writer.close();
+    return block;
+  }
+
+  @Test
+  public void readTest() throws Exception {
+    BlockArena.ArenaBlock block = mArena.publish(writeBlock(BLOCK_ID));
+    ArenaBlockReader reader = new ArenaBlockReader(block);
+    Assert.assertEquals(BLOCK_SIZE, reader.getLength());
+
+    // Read within one slab is a view of the slab
+    ByteBuffer buffer = reader.read(SLAB_SIZE + 5, 20);
+    Assert.assertTrue(buffer.isDirect());
+    Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(SLAB_SIZE + 5, 20, buffer));
+
+    // Read across slabs
+    buffer = reader.read(SLAB_SIZE / 2, BLOCK_SIZE - SLAB_SIZE / 2);
+    Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(SLAB_SIZE / 2,
+        BLOCK_SIZE - SLAB_SIZE / 2, buffer));
+
+    // Read the rest of the block
+    buffer = reader.read(0, -1);
+    Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(0, BLOCK_SIZE, buffer));
+    reader.close();
+  }
+
+  @Test
+  public void getChannelTest() throws Exception {
+    ArenaBlockReader reader = new ArenaBlockReader(mArena.publish(writeBlock(BLOCK_ID)));
+    ReadableByteChannel channel = reader.getChannel();
+    ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE + 1);
+    Assert.assertEquals(BLOCK_SIZE, channel.read(buffer));
+    Assert.assertEquals(-1, channel.read(buffer));
+    buffer.flip();
+    Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(0, BLOCK_SIZE, buffer));
+    reader.close();
+  }
+
+  @Test
+  public void acquireAndRemoveTest() throws Exception {
+    BlockArena.ArenaBlock block = writeBlock(BLOCK_ID);
+    // Not visible before published
+    Assert.assertNull(mArena.acquire(BLOCK_ID));
+    mArena.publish(block).release();
+    long available = mArena.getAvailableBytes();
+    Assert.assertEquals(CAPACITY - 3 * SLAB_SIZE, available);
+
+    ArenaBlockReader reader = new ArenaBlockReader(mArena.acquire(BLOCK_ID));
+    Assert.assertTrue(mArena.remove(BLOCK_ID));
+    Assert.assertFalse(mArena.remove(BLOCK_ID));
+    Assert.assertNull(mArena.acquire(BLOCK_ID));
+    // Slabs are held by the open reader
+    Assert.assertEquals(available, mArena.getAvailableBytes());
+    Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(0, BLOCK_SIZE, reader.read(0, -1)));
+    reader.close();
+    Assert.assertEquals(CAPACITY, mArena.getAvailableBytes());
+  }
+
+  @Test
+  public void publishTwiceTest() throws Exception {
+    BlockArena.ArenaBlock first = mArena.publish(writeBlock(BLOCK_ID));
+    BlockArena.ArenaBlock second = mArena.publish(writeBlock(BLOCK_ID));
+    Assert.assertSame(first, second);
+    // The slabs of the second copy are recycled
+    Assert.assertEquals(CAPACITY - 3 * SLAB_SIZE, mArena.getAvailableBytes());
+    first.release();
+    second.release();
+  }
+
+  @Test
+  public void allocateWhenFullTest() throws Exception {
+    Assert.assertNotNull(mArena.allocate(BLOCK_ID, CAPACITY - SLAB_SIZE));
+    Assert.assertNull(mArena.allocate(BLOCK_ID + 1, SLAB_SIZE + 1));
+    Assert.assertNotNull(mArena.allocate(BLOCK_ID + 1, SLAB_SIZE));
+  }
+}
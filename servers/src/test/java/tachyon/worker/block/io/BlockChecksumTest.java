@@ -0,0 +1,155 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tachyon.util.io.BufferUtils;
+
+public final class BlockChecksumTest {
+  /** Two full chunks and a partial one */
+  private static final int BLOCK_LENGTH = 2 * BlockChecksum.CHUNK_BYTES + 100;
+
+  private String mBlockPath;
+  private RandomAccessFile mBlockFile;
+  private RandomAccessFile mChecksumFile;
+  private BlockChecksum.Updater mUpdater;
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  @Before
+  public void before() throws Exception {
+    mBlockPath = mFolder.newFile().getAbsolutePath();
+    mBlockFile = new RandomAccessFile(mBlockPath, "rw");
+    mChecksumFile = new RandomAccessFile(BlockChecksum.getChecksumPath(mBlockPath), "rw");
+    mUpdater = new BlockChecksum.Updater(mBlockFile.getChannel(), mChecksumFile.getChannel());
+  }
+
+  @After
+  public void after() throws Exception {
+    mBlockFile.close();
+    mChecksumFile.close();
+  }
+
+  @Test
+  public void incrementalUpdateMatchesComputeTest() throws Exception {
+    ByteBuffer data = BufferUtils.getIncreasingByteBuffer(BLOCK_LENGTH);
+    // Append in pieces that do not line up with the chunks
+    int[] pieces =
+        {1000, BlockChecksum.CHUNK_BYTES, BLOCK_LENGTH - 1000 - BlockChecksum.CHUNK_BYTES};
+    long offset = 0;
+    for (int piece : pieces) {
+      ByteBuffer slice = data.duplicate();
+      slice.position((int) offset);
+      slice.limit((int) offset + piece);
+      append(slice, offset);
+      offset += piece;
+    }
+    byte[] incremental = readChecksumFile();
+
+    BlockChecksum.compute(mBlockPath);
+    Assert.assertArrayEquals(readChecksumFile(), incremental);
+    Assert.assertEquals(3 * 4, incremental.length);
+    BlockChecksum.verify(mBlockFile.getChannel(), mChecksumFile.getChannel(), 0, 2);
+  }
+
+  @Test
+  public void resumedUpdateMatchesComputeTest() throws Exception {
+    ByteBuffer data = BufferUtils.getIncreasingByteBuffer(BLOCK_LENGTH);
+    ByteBuffer first = data.duplicate();
+    first.limit(1000);
+    append(first, 0);
+    // A new writer of the block resumes in the middle of the first chunk
+    mUpdater = new BlockChecksum.Updater(mBlockFile.getChannel(), mChecksumFile.getChannel());
+    ByteBuffer rest = data.duplicate();
+    rest.position(1000);
+    // Data received from the network is in direct buffers
+    ByteBuffer direct = ByteBuffer.allocateDirect(rest.remaining());
+    direct.put(rest);
+    direct.flip();
+    append(direct, 1000);
+    byte[] incremental = readChecksumFile();
+
+    BlockChecksum.compute(mBlockPath);
+    Assert.assertArrayEquals(readChecksumFile(), incremental);
+  }
+
+  @Test
+  public void detectCorruptionTest() throws Exception {
+    append(BufferUtils.getIncreasingByteBuffer(BLOCK_LENGTH), 0);
+    // Flip a byte in the second chunk
+    long position = BlockChecksum.CHUNK_BYTES + 10;
+    mBlockFile.seek(position);
+    int value = mBlockFile.read();
+    mBlockFile.seek(position);
+    mBlockFile.write(value ^ 0xFF);
+
+    FileChannel blockChannel = mBlockFile.getChannel();
+    FileChannel checksumChannel = mChecksumFile.getChannel();
+    BlockChecksum.verify(blockChannel, checksumChannel, 0, 0);
+    BlockChecksum.verify(blockChannel, checksumChannel, 2, 2);
+    try {
+      BlockChecksum.verify(blockChannel, checksumChannel, 0, 2);
+      Assert.fail("Corrupted chunk should not pass verification");
+    } catch (ChecksumMismatchException cme) {
+      // expected
+    }
+  }
+
+  @Test
+  public void missingChecksumTest() throws Exception {
+    append(BufferUtils.getIncreasingByteBuffer(BlockChecksum.CHUNK_BYTES), 0);
+    try {
+      BlockChecksum.verify(mBlockFile.getChannel(), mChecksumFile.getChannel(), 0, 1);
+      Assert.fail("Chunk without a checksum should not pass verification");
+    } catch (ChecksumMismatchException cme) {
+      // expected
+    }
+  }
+
+  private void append(ByteBuffer data, long offset) throws Exception {
+    FileChannel blockChannel = mBlockFile.getChannel();
+    ByteBuffer src = data.duplicate();
+    long position = offset;
+    while (src.hasRemaining()) {
+      position += blockChannel.write(src, position);
+    }
+    mUpdater.update(offset, data);
+  }
+
+  private byte[] readChecksumFile() throws Exception {
+    File file = new File(BlockChecksum.getChecksumPath(mBlockPath));
+    byte[] content = new byte[(int) file.length()];
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+    try {
+      input.readFully(content);
+    } finally {
+      input.close();
+    }
+    return content;
+  }
+}
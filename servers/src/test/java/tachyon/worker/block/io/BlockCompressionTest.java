@@ -0,0 +1,158 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import tachyon.util.io.BufferUtils;
+
+/**
+ * Unit tests for {@link BlockCompression} and {@link CompressedBlockReader}.
+ */
+public class BlockCompressionTest {
+  // Three and a half chunks, so that the last chunk is partial
+  private static final int TEST_BLOCK_SIZE =
+      3 * BlockCompression.CHUNK_BYTES + BlockCompression.CHUNK_BYTES / 2;
+  private String mRawPath;
+  private String mCompressedPath;
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException mThrown = ExpectedException.none();
+
+  @Before
+  public void before() throws Exception {
+    mRawPath = mFolder.newFile().getAbsolutePath();
+    mCompressedPath = new File(mFolder.getRoot(), "compressed").getAbsolutePath();
+    BufferUtils.writeBufferToFile(mRawPath, BufferUtils.getIncreasingByteArray(TEST_BLOCK_SIZE));
+  }
+
+  @Test
+  public void roundTripTest() throws Exception {
+    Assert.assertFalse(BlockCompression.isCompressed(mRawPath));
+    long storedSize = BlockCompression.compress(mRawPath, mCompressedPath);
+    Assert.assertTrue(BlockCompression.isCompressed(mCompressedPath));
+    Assert.assertEquals(new File(mCompressedPath).length(), storedSize);
+    Assert.assertTrue(storedSize < TEST_BLOCK_SIZE);
+
+    BlockCompression.Index index = BlockCompression.readIndex(mCompressedPath);
+    Assert.assertEquals(TEST_BLOCK_SIZE, index.getLength());
+    Assert.assertEquals(4, index.getChunkCount());
+    Assert.assertEquals(BlockCompression.CHUNK_BYTES / 2, index.getChunkLength(3));
+
+    String restoredPath = new File(mFolder.getRoot(), "restored").getAbsolutePath();
+    BlockCompression.decompress(mCompressedPath, restoredPath);
+    Assert.assertFalse(BlockCompression.isCompressed(restoredPath));
+    LocalFileBlockReader reader = new LocalFileBlockReader(restoredPath);
+    try {
+      Assert.assertTrue(
+          BufferUtils.equalIncreasingByteBuffer(0, TEST_BLOCK_SIZE, reader.read(0, -1)));
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void emptyBlockTest() throws Exception {
+    String emptyPath = mFolder.newFile().getAbsolutePath();
+    Assert.assertEquals(0, BlockCompression.compress(emptyPath, mCompressedPath));
+    CompressedBlockReader reader = new CompressedBlockReader(mCompressedPath);
+    try {
+      Assert.assertEquals(0, reader.getLength());
+      Assert.assertEquals(0, reader.read(0, -1).remaining());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void readTest() throws Exception {
+    BlockCompression.compress(mRawPath, mCompressedPath);
+    CompressedBlockReader reader = new CompressedBlockReader(mCompressedPath);
+    try {
+      Assert.assertEquals(TEST_BLOCK_SIZE, reader.getLength());
+      // Within a chunk
+      Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(100, 1000, reader.read(100, 1000)));
+      // Across chunk boundaries, backwards
+      int offset = 2 * BlockCompression.CHUNK_BYTES - 10;
+      int length = BlockCompression.CHUNK_BYTES + 20;
+      Assert.assertTrue(
+          BufferUtils.equalIncreasingByteBuffer(offset, length, reader.read(offset, length)));
+      // To the end of the block
+      offset = BlockCompression.CHUNK_BYTES + 7;
+      Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(offset, TEST_BLOCK_SIZE - offset,
+          reader.read(offset, -1)));
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void getChannelTest() throws Exception {
+    BlockCompression.compress(mRawPath, mCompressedPath);
+    CompressedBlockReader reader = new CompressedBlockReader(mCompressedPath);
+    try {
+      ReadableByteChannel channel = reader.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(TEST_BLOCK_SIZE);
+      while (buffer.hasRemaining()) {
+        Assert.assertTrue(channel.read(buffer) > 0);
+      }
+      Assert.assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+      Assert.assertTrue(BufferUtils.equalIncreasingByteBuffer(0, TEST_BLOCK_SIZE, buffer));
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void readWithInvalidArgumentTest() throws Exception {
+    BlockCompression.compress(mRawPath, mCompressedPath);
+    CompressedBlockReader reader = new CompressedBlockReader(mCompressedPath);
+    try {
+      mThrown.expect(IllegalArgumentException.class);
+      mThrown.expectMessage("exceeding fileSize");
+      reader.read(TEST_BLOCK_SIZE - 1, 2);
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void truncatedBlockTest() throws Exception {
+    BlockCompression.compress(mRawPath, mCompressedPath);
+    RandomAccessFile file = new RandomAccessFile(mCompressedPath, "rw");
+    try {
+      file.setLength(file.length() - 1);
+    } finally {
+      file.close();
+    }
+    mThrown.expect(IOException.class);
+    new CompressedBlockReader(mCompressedPath);
+  }
+}
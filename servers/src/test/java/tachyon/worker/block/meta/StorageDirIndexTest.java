@@ -0,0 +1,120 @@
+/*
+ * Licensed to the University of California, Berkeley under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package tachyon.worker.block.meta;
+
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class StorageDirIndexTest {
+  private static final long BLOCK_ID1 = 1;
+  private static final long BLOCK_ID2 = 2;
+  private static final long BLOCK_SIZE1 = 100;
+  private static final long BLOCK_SIZE2 = 200;
+  /** Block 2 is compressed */
+  private static final long STORED_SIZE2 = 50;
+
+  private StorageDirIndex mIndex;
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  @Before
+  public void before() throws Exception {
+    mIndex = new StorageDirIndex(mFolder.newFolder().getAbsolutePath());
+  }
+
+  @After
+  public void after() {
+    mIndex.close();
+  }
+
+  @Test
+  public void loadMissingIndexTest() {
+    Assert.assertNull(mIndex.load());
+  }
+
+  @Test
+  public void appendAndLoadTest() throws Exception {
+    mIndex.rewrite(Collections.<BlockMeta>emptyList());
+    mIndex.appendAdd(BLOCK_ID1, BLOCK_SIZE1, BLOCK_SIZE1);
+    mIndex.appendAdd(BLOCK_ID2, BLOCK_SIZE2, STORED_SIZE2);
+    mIndex.appendRemove(BLOCK_ID1);
+    Assert.assertEquals(3, mIndex.getRecordCount());
+    mIndex.close();
+
+    Map<Long, StorageDirIndex.Entry> entries = mIndex.load();
+    Assert.assertNotNull(entries);
+    Assert.assertEquals(1, entries.size());
+    Assert.assertEquals(BLOCK_SIZE2, entries.get(BLOCK_ID2).getBlockSize());
+    Assert.assertEquals(STORED_SIZE2, entries.get(BLOCK_ID2).getStoredSize());
+    Assert.assertEquals(3, mIndex.getRecordCount());
+  }
+
+  @Test
+  public void truncatedRecordTest() throws Exception {
+    mIndex.rewrite(Collections.<BlockMeta>emptyList());
+    mIndex.appendAdd(BLOCK_ID1, BLOCK_SIZE1, BLOCK_SIZE1);
+    mIndex.appendAdd(BLOCK_ID2, BLOCK_SIZE2, STORED_SIZE2);
+    mIndex.close();
+
+    // Cut the last record short, as a crash during the append would
+    RandomAccessFile file = new RandomAccessFile(mIndex.getIndexPath(), "rw");
+    try {
+      file.setLength(file.length() - 1);
+    } finally {
+      file.close();
+    }
+    Map<Long, StorageDirIndex.Entry> entries = mIndex.load();
+    Assert.assertNotNull(entries);
+    Assert.assertEquals(1, entries.size());
+    Assert.assertEquals(BLOCK_SIZE1, entries.get(BLOCK_ID1).getBlockSize());
+  }
+
+  @Test
+  public void corruptedRecordTest() throws Exception {
+    mIndex.rewrite(Collections.<BlockMeta>emptyList());
+    mIndex.appendAdd(BLOCK_ID1, BLOCK_SIZE1, BLOCK_SIZE1);
+    mIndex.close();
+
+    // Flip a byte of the block size in the first record, after the 8 byte header
+    RandomAccessFile file = new RandomAccessFile(mIndex.getIndexPath(), "rw");
+    try {
+      file.seek(8 + 1 + 8);
+      int value = file.read();
+      file.seek(8 + 1 + 8);
+      file.write(value ^ 0xFF);
+    } finally {
+      file.close();
+    }
+    Assert.assertNull(mIndex.load());
+  }
+
+  @Test
+  public void deleteTest() throws Exception {
+    mIndex.rewrite(Collections.<BlockMeta>emptyList());
+    mIndex.appendAdd(BLOCK_ID1, BLOCK_SIZE1, BLOCK_SIZE1);
+    mIndex.delete();
+    Assert.assertNull(mIndex.load());
+  }
+}
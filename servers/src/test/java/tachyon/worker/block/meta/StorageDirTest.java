@@ -31,6 +31,7 @@ import org.junit.rules.TemporaryFolder;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 
+import tachyon.Constants;
 import tachyon.StorageLevelAlias;
 import tachyon.exception.AlreadyExistsException;
 import tachyon.exception.ExceptionMessage;
@@ -38,6 +39,7 @@ import tachyon.exception.InvalidStateException;
 import tachyon.exception.NotFoundException;
 import tachyon.exception.OutOfSpaceException;
 import tachyon.util.io.BufferUtils;
+import tachyon.worker.WorkerContext;
 import tachyon.worker.block.BlockStoreLocation;
 import tachyon.worker.block.TieredBlockStoreTestUtils;
 
@@ -124,6 +126,41 @@ public final class StorageDirTest {
     Assert.assertEquals(0, files.length);
   }
 
+  @Test
+  public void initializeMetaFromIndexTest() throws Exception {
+    File testDir = mFolder.newFolder();
+    WorkerContext.getConf().set(Constants.WORKER_TIERED_STORE_INDEX_ENABLED, "true");
+    try {
+      newBlockFile(testDir, String.valueOf(TEST_BLOCK_ID), 5);
+      StorageDir dir = newStorageDir(testDir);
+      Assert.assertTrue(new File(testDir, StorageDirIndex.INDEX_FILE_NAME).isFile());
+      Assert.assertTrue(dir.isBlockVerified(TEST_BLOCK_ID));
+
+      // A crash after recording a block in the index, before its file is renamed into the dir
+      dir.recordIndexedBlock(TEST_TEMP_BLOCK_ID, 7, 7);
+      // A file the index does not know of is not found, as the dir is not listed
+      newBlockFile(testDir, String.valueOf(TEST_BLOCK_ID + 100), 3);
+
+      mDir = newStorageDir(testDir);
+      Assert.assertTrue(mDir.hasBlockMeta(TEST_BLOCK_ID));
+      Assert.assertTrue(mDir.hasBlockMeta(TEST_TEMP_BLOCK_ID));
+      Assert.assertFalse(mDir.hasBlockMeta(TEST_BLOCK_ID + 100));
+      Assert.assertFalse(mDir.isBlockVerified(TEST_BLOCK_ID));
+      Assert.assertFalse(mDir.isBlockVerified(TEST_TEMP_BLOCK_ID));
+      Assert.assertEquals(TEST_DIR_CAPACITY - 5 - 7, mDir.getAvailableBytes());
+
+      // Without a valid index the dir is scanned
+      Assert.assertTrue(new File(testDir, StorageDirIndex.INDEX_FILE_NAME).delete());
+      mDir = newStorageDir(testDir);
+      Assert.assertTrue(mDir.hasBlockMeta(TEST_BLOCK_ID + 100));
+      Assert.assertFalse(mDir.hasBlockMeta(TEST_TEMP_BLOCK_ID));
+      Assert.assertTrue(mDir.isBlockVerified(TEST_BLOCK_ID));
+      Assert.assertEquals(TEST_DIR_CAPACITY - 5 - 3, mDir.getAvailableBytes());
+    } finally {
+      WorkerContext.getConf().set(Constants.WORKER_TIERED_STORE_INDEX_ENABLED, "false");
+    }
+  }
+
   @Test
   public void initializeMetaDeleteInappropriateFileTest() throws Exception {
     File testDir = mFolder.newFolder();
@@ -442,4 +479,13 @@ public final class StorageDirTest {
         new BlockStoreLocation(tier.getTierAlias(), tier.getTierLevel(), mDir.getDirIndex()),
         mDir.toBlockStoreLocation());
   }
+
+  @Test
+  public void compareLockOrderTest() throws Exception {
+    StorageDir otherDir = StorageDir.newStorageDir(mTier, TEST_DIR_INDEX + 1, TEST_DIR_CAPACITY,
+        mFolder.newFolder().getAbsolutePath());
+    Assert.assertEquals(0, StorageDir.compareLockOrder(mDir, mDir));
+    Assert.assertTrue(StorageDir.compareLockOrder(mDir, otherDir) < 0);
+    Assert.assertTrue(StorageDir.compareLockOrder(otherDir, mDir) > 0);
+  }
 }
@@ -24,7 +24,10 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 
+import tachyon.Constants;
 import tachyon.StorageLevelAlias;
+import tachyon.conf.TachyonConf;
+import tachyon.worker.WorkerContext;
 import tachyon.worker.block.TieredBlockStoreTestUtils;
 
 public class StorageTierTest {
@@ -83,6 +86,24 @@ public class StorageTierTest {
     Assert.assertEquals(TEST_DIR1_CAPACITY + TEST_DIR2_CAPACITY, mTier.getCapacityBytes());
   }
 
+  @Test
+  public void arenaBytesTest() throws Exception {
+    Assert.assertEquals(0, mTier.getArenaBytes());
+    TachyonConf conf = WorkerContext.getConf();
+    conf.set(Constants.WORKER_TIERED_STORE_ARENA_ENABLED, "true");
+    conf.set(Constants.WORKER_TIERED_STORE_ARENA_RATIO, "0.25");
+    try {
+      StorageTier tier = StorageTier.newStorageTier(TEST_TIER_LEVEL);
+      // The arena takes its share out of the quota of each dir
+      Assert.assertEquals((TEST_DIR1_CAPACITY + TEST_DIR2_CAPACITY) / 4, tier.getArenaBytes());
+      Assert.assertEquals((TEST_DIR1_CAPACITY + TEST_DIR2_CAPACITY) * 3 / 4,
+          tier.getCapacityBytes());
+      Assert.assertEquals(TEST_DIR1_CAPACITY * 3 / 4, tier.getDir(0).getCapacityBytes());
+    } finally {
+      conf.set(Constants.WORKER_TIERED_STORE_ARENA_ENABLED, "false");
+    }
+  }
+
   @Test
   public void getAvailableBytesTest() throws Exception {
     Assert.assertEquals(TEST_DIR1_CAPACITY + TEST_DIR2_CAPACITY, mTier.getAvailableBytes());